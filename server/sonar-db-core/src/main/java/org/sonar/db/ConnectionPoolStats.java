@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.ProfiledHikariDataSource;
+
+/**
+ * Statistics of the connection pool returned by {@link Database#getDataSource()}, whatever
+ * its implementation (see {@link DefaultDatabase#CONNECTION_POOL_PROPERTY}).
+ *
+ * @since 6.4
+ */
+public interface ConnectionPoolStats {
+
+  /**
+   * Name of the implementation of pool, for example "dbcp" or "hikaricp"
+   */
+  String getImplementation();
+
+  int getActiveConnections();
+
+  int getIdleConnections();
+
+  /**
+   * Number of threads which are currently blocked while waiting for a connection
+   */
+  int getWaitingThreads();
+
+  int getMaxActiveConnections();
+
+  int getMaxIdleConnections();
+
+  int getMinIdleConnections();
+
+  int getInitialSize();
+
+  long getMaxWaitMillis();
+
+  /**
+   * Whether connections which are not returned to the pool are reported (and closed by commons-dbcp)
+   */
+  boolean isLeakDetectionEnabled();
+
+  /**
+   * Delay after which a connection which is not returned to the pool is considered as leaked
+   */
+  long getLeakDetectionThresholdMillis();
+
+  /**
+   * Number of requests of connection which failed, for example because of timeout
+   */
+  long getAcquisitionFailures();
+
+  /**
+   * Number of acquired connections by range of acquisition time
+   * @see org.sonar.db.profiling.ConnectionWaitStats#getHistogram()
+   */
+  Map<String, Long> getAcquisitionHistogram();
+
+  static ConnectionPoolStats of(DataSource dataSource) {
+    if (dataSource instanceof ProfiledHikariDataSource) {
+      ProfiledHikariDataSource hikari = (ProfiledHikariDataSource) dataSource;
+      return new HikariConnectionPoolStats(hikari.getDelegate(), hikari.getWaitStats());
+    }
+    if (dataSource instanceof ProfiledDataSource) {
+      ProfiledDataSource dbcp = (ProfiledDataSource) dataSource;
+      return new DbcpConnectionPoolStats(dbcp, dbcp.getWaitStats());
+    }
+    if (dataSource instanceof BasicDataSource) {
+      return new DbcpConnectionPoolStats((BasicDataSource) dataSource, null);
+    }
+    throw new IllegalArgumentException("Unsupported connection pool: " + dataSource.getClass().getName());
+  }
+}
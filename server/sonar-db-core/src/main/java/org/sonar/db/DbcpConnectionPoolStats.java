@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.sonar.db.profiling.ConnectionWaitStats;
+
+class DbcpConnectionPoolStats implements ConnectionPoolStats {
+
+  private final BasicDataSource dataSource;
+  @Nullable
+  private final ConnectionWaitStats waitStats;
+
+  DbcpConnectionPoolStats(BasicDataSource dataSource, @Nullable ConnectionWaitStats waitStats) {
+    this.dataSource = dataSource;
+    this.waitStats = waitStats;
+  }
+
+  @Override
+  public String getImplementation() {
+    return DefaultDatabase.CONNECTION_POOL_DBCP;
+  }
+
+  @Override
+  public int getActiveConnections() {
+    return dataSource.getNumActive();
+  }
+
+  @Override
+  public int getIdleConnections() {
+    return dataSource.getNumIdle();
+  }
+
+  @Override
+  public int getWaitingThreads() {
+    return waitStats == null ? 0 : waitStats.getWaitingThreads();
+  }
+
+  @Override
+  public int getMaxActiveConnections() {
+    return dataSource.getMaxActive();
+  }
+
+  @Override
+  public int getMaxIdleConnections() {
+    return dataSource.getMaxIdle();
+  }
+
+  @Override
+  public int getMinIdleConnections() {
+    return dataSource.getMinIdle();
+  }
+
+  @Override
+  public int getInitialSize() {
+    return dataSource.getInitialSize();
+  }
+
+  @Override
+  public long getMaxWaitMillis() {
+    return dataSource.getMaxWait();
+  }
+
+  @Override
+  public boolean isLeakDetectionEnabled() {
+    return dataSource.getRemoveAbandoned();
+  }
+
+  @Override
+  public long getLeakDetectionThresholdMillis() {
+    return dataSource.getRemoveAbandonedTimeout() * 1_000L;
+  }
+
+  @Override
+  public long getAcquisitionFailures() {
+    return waitStats == null ? 0L : waitStats.getFailures();
+  }
+
+  @Override
+  public Map<String, Long> getAcquisitionHistogram() {
+    return waitStats == null ? Collections.emptyMap() : waitStats.getHistogram();
+  }
+}
@@ -21,6 +21,8 @@ package org.sonar.db;
 
 import ch.qos.logback.classic.Level;
 import com.google.common.annotations.VisibleForTesting;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
@@ -37,9 +39,11 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.dialect.Dialect;
 import org.sonar.db.dialect.DialectUtils;
+import org.sonar.db.profiling.ConnectionInterceptor;
 import org.sonar.db.profiling.NullConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.ProfiledHikariDataSource;
 import org.sonar.process.logging.LogbackHelper;
 
 import static java.lang.String.format;
@@ -49,16 +53,35 @@ import static java.lang.String.format;
  */
 public class DefaultDatabase implements Database {
 
+  /**
+   * Implementation of the connection pool: {@link #CONNECTION_POOL_DBCP} (default) or {@link #CONNECTION_POOL_HIKARICP}
+   * @since 6.4
+   */
+  public static final String CONNECTION_POOL_PROPERTY = "sonar.jdbc.connectionPool";
+  public static final String CONNECTION_POOL_DBCP = "dbcp";
+  public static final String CONNECTION_POOL_HIKARICP = "hikaricp";
+
+  /**
+   * Delay in milliseconds after which a connection which is not returned to the HikariCP pool is logged
+   * as a possible leak. Zero, the default value, disables the detection.
+   * @since 6.4
+   */
+  public static final String LEAK_DETECTION_THRESHOLD_PROPERTY = "sonar.jdbc.leakDetectionThresholdMillis";
+
   private static final Logger LOG = Loggers.get(Database.class);
 
   private static final String DEFAULT_URL = "jdbc:h2:tcp://localhost/sonar";
   private static final String SONAR_JDBC = "sonar.jdbc.";
   private static final String SONAR_JDBC_DIALECT = "sonar.jdbc.dialect";
   private static final String SONAR_JDBC_URL = "sonar.jdbc.url";
+  private static final String DEFAULT_MAX_ACTIVE = "60";
+  private static final String DEFAULT_MIN_IDLE = "2";
+  private static final String DEFAULT_MAX_WAIT = "5000";
+  private static final String DEFAULT_IDLE_TIMEOUT = "600000";
 
   private final LogbackHelper logbackHelper;
   private final Settings settings;
-  private ProfiledDataSource datasource;
+  private DataSource datasource;
   private Dialect dialect;
   private Properties properties;
 
@@ -93,13 +116,44 @@ public class DefaultDatabase implements Database {
   private void initDataSource() throws Exception {
     // but it's correctly caught by start()
     LOG.info("Create JDBC data source for {}", properties.getProperty(DatabaseProperties.PROP_URL, DEFAULT_URL));
-    BasicDataSource basicDataSource = (BasicDataSource) BasicDataSourceFactory.createDataSource(extractCommonsDbcpProperties(properties));
-    datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
-    datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
-    datasource.setValidationQuery(dialect.getValidationQuery());
+    String connectionPool = properties.getProperty(CONNECTION_POOL_PROPERTY, CONNECTION_POOL_DBCP);
+    if (CONNECTION_POOL_HIKARICP.equals(connectionPool)) {
+      datasource = new ProfiledHikariDataSource(new HikariDataSource(createHikariConfig(properties, dialect)), NullConnectionInterceptor.INSTANCE);
+    } else if (CONNECTION_POOL_DBCP.equals(connectionPool)) {
+      BasicDataSource basicDataSource = (BasicDataSource) BasicDataSourceFactory.createDataSource(extractCommonsDbcpProperties(properties));
+      ProfiledDataSource profiledDataSource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
+      profiledDataSource.setConnectionInitSqls(dialect.getConnectionInitStatements());
+      profiledDataSource.setValidationQuery(dialect.getValidationQuery());
+      datasource = profiledDataSource;
+    } else {
+      throw new IllegalStateException(format("Unsupported value of property %s: %s", CONNECTION_POOL_PROPERTY, connectionPool));
+    }
     enableSqlLogging(datasource, logbackHelper.getLoggerLevel("sql") == Level.TRACE);
   }
 
+  @VisibleForTesting
+  static HikariConfig createHikariConfig(Properties properties, Dialect dialect) {
+    Properties jdbcProperties = extractCommonsDbcpProperties(properties);
+    HikariConfig config = new HikariConfig();
+    config.setPoolName("SonarQube");
+    config.setRegisterMbeans(true);
+    config.setJdbcUrl(jdbcProperties.getProperty("url"));
+    config.setDriverClassName(jdbcProperties.getProperty("driverClassName"));
+    config.setUsername(jdbcProperties.getProperty("username"));
+    config.setPassword(jdbcProperties.getProperty("password"));
+    config.setMaximumPoolSize(Math.max(1, Integer.parseInt(jdbcProperties.getProperty("maxActive", DEFAULT_MAX_ACTIVE))));
+    config.setMinimumIdle(Integer.parseInt(jdbcProperties.getProperty("minIdle", DEFAULT_MIN_IDLE)));
+    // zero means no timeout
+    config.setConnectionTimeout(Math.max(0L, Long.parseLong(jdbcProperties.getProperty("maxWait", DEFAULT_MAX_WAIT))));
+    config.setIdleTimeout(Long.parseLong(jdbcProperties.getProperty("minEvictableIdleTimeMillis", DEFAULT_IDLE_TIMEOUT)));
+    config.setLeakDetectionThreshold(Long.parseLong(properties.getProperty(LEAK_DETECTION_THRESHOLD_PROPERTY, "0")));
+    List<String> initStatements = dialect.getConnectionInitStatements();
+    if (!initStatements.isEmpty()) {
+      config.setConnectionInitSql(String.join(";", initStatements));
+    }
+    return config;
+  }
+
   private void checkConnection() {
     Connection connection = null;
     try {
@@ -113,9 +167,11 @@ public class DefaultDatabase implements Database {
 
   @Override
   public void stop() {
-    if (datasource != null) {
+    if (datasource instanceof ProfiledHikariDataSource) {
+      ((ProfiledHikariDataSource) datasource).close();
+    } else if (datasource != null) {
       try {
-        datasource.close();
+        ((ProfiledDataSource) datasource).close();
       } catch (SQLException e) {
         throw new IllegalStateException("Fail to stop JDBC connection pool", e);
       }
@@ -141,8 +197,13 @@ public class DefaultDatabase implements Database {
     enableSqlLogging(datasource, enable);
   }
 
-  private static void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
-    ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+  private static void enableSqlLogging(DataSource ds, boolean enable) {
+    ConnectionInterceptor connectionInterceptor = enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE;
+    if (ds instanceof ProfiledHikariDataSource) {
+      ((ProfiledHikariDataSource) ds).setConnectionInterceptor(connectionInterceptor);
+    } else {
+      ((ProfiledDataSource) ds).setConnectionInterceptor(connectionInterceptor);
+    }
   }
 
   /**
@@ -0,0 +1,111 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.Map;
+import org.sonar.db.profiling.ConnectionWaitStats;
+
+class HikariConnectionPoolStats implements ConnectionPoolStats {
+
+  private final HikariDataSource dataSource;
+  private final ConnectionWaitStats waitStats;
+
+  HikariConnectionPoolStats(HikariDataSource dataSource, ConnectionWaitStats waitStats) {
+    this.dataSource = dataSource;
+    this.waitStats = waitStats;
+  }
+
+  @Override
+  public String getImplementation() {
+    return DefaultDatabase.CONNECTION_POOL_HIKARICP;
+  }
+
+  @Override
+  public int getActiveConnections() {
+    return pool().getActiveConnections();
+  }
+
+  @Override
+  public int getIdleConnections() {
+    return pool().getIdleConnections();
+  }
+
+  @Override
+  public int getWaitingThreads() {
+    return pool().getThreadsAwaitingConnection();
+  }
+
+  @Override
+  public int getMaxActiveConnections() {
+    return dataSource.getMaximumPoolSize();
+  }
+
+  /**
+   * HikariCP does not close idle connections as long as the pool size is lower than the maximum size
+   */
+  @Override
+  public int getMaxIdleConnections() {
+    return dataSource.getMaximumPoolSize();
+  }
+
+  @Override
+  public int getMinIdleConnections() {
+    return dataSource.getMinimumIdle();
+  }
+
+  /**
+   * Pool is filled up to the minimum number of idle connections at startup
+   */
+  @Override
+  public int getInitialSize() {
+    return dataSource.getMinimumIdle();
+  }
+
+  @Override
+  public long getMaxWaitMillis() {
+    return dataSource.getConnectionTimeout();
+  }
+
+  @Override
+  public boolean isLeakDetectionEnabled() {
+    return dataSource.getLeakDetectionThreshold() > 0L;
+  }
+
+  @Override
+  public long getLeakDetectionThresholdMillis() {
+    return dataSource.getLeakDetectionThreshold();
+  }
+
+  @Override
+  public long getAcquisitionFailures() {
+    return waitStats.getFailures();
+  }
+
+  @Override
+  public Map<String, Long> getAcquisitionHistogram() {
+    return waitStats.getHistogram();
+  }
+
+  private HikariPoolMXBean pool() {
+    return dataSource.getHikariPoolMXBean();
+  }
+}
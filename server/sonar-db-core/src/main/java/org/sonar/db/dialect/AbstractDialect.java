@@ -26,6 +26,9 @@ import java.util.List;
  * @since 3.2
  */
 abstract class AbstractDialect implements Dialect {
+  static final int DEFAULT_IN_CLAUSE_PARTITION_SIZE = 1_000;
+  static final int DEFAULT_BATCH_SIZE = 250;
+
   private final String id;
   private final String defaultDriverClassName;
   private final String trueSqlValue;
@@ -80,4 +83,19 @@ abstract class AbstractDialect implements Dialect {
   public int getScrollSingleRowFetchSize() {
     return 1;
   }
+
+  @Override
+  public int getInClausePartitionSize() {
+    return DEFAULT_IN_CLAUSE_PARTITION_SIZE;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return DEFAULT_BATCH_SIZE;
+  }
+
+  @Override
+  public boolean supportsArrayBind() {
+    return false;
+  }
 }
@@ -84,4 +84,28 @@ public interface Dialect {
    * @return a boolean
    */
   boolean supportsMigration();
+
+  /**
+   * Maximum number of values in a SQL {@code IN} clause. It is used to partition large inputs, for example
+   * by {@link org.sonar.db.DatabaseUtils#executeLargeInputs(java.util.Collection, com.google.common.base.Function, int)}.
+   * Oracle does not accept more than 1'000 values and MsSQL does not accept more than 2'100 parameters in a request.
+   *
+   * @since 6.4
+   */
+  int getInClausePartitionSize();
+
+  /**
+   * Number of statements which are sent at once in JDBC batch mode before being flushed.
+   *
+   * @since 6.4
+   */
+  int getBatchSize();
+
+  /**
+   * Indicates whether a collection of values can be bound to a single parameter of a prepared statement,
+   * for example {@code uuid = ANY(?)} on PostgreSQL, so that a whole set of keys is sent in a single request.
+   *
+   * @since 6.4
+   */
+  boolean supportsArrayBind();
 }
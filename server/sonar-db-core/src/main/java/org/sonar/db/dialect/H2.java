@@ -42,4 +42,13 @@ public class H2 extends AbstractDialect {
     return false;
   }
 
+  @Override
+  public int getInClausePartitionSize() {
+    return 5_000;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return 1_000;
+  }
 }
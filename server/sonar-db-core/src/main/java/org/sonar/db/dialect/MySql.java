@@ -51,4 +51,14 @@ public class MySql extends AbstractDialect {
   public boolean supportsMigration() {
     return true;
   }
+
+  @Override
+  public int getInClausePartitionSize() {
+    return 5_000;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return 1_000;
+  }
 }
@@ -49,4 +49,19 @@ public class PostgreSql extends AbstractDialect {
   public boolean supportsMigration() {
     return true;
   }
+
+  @Override
+  public int getInClausePartitionSize() {
+    return 5_000;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return 1_000;
+  }
+
+  @Override
+  public boolean supportsArrayBind() {
+    return true;
+  }
 }
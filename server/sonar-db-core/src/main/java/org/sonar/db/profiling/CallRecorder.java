@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+
+/**
+ * Records the calls to external systems (database, search engine, ...) executed by the current thread, for example
+ * during the execution of a web service. Calls are grouped by type, for example {@link #SQL_CALL_TYPE}.
+ * Nothing is recorded as long as {@link #start(boolean)} has not been called on the thread.
+ * <p/>
+ * Recorders can be nested: calls are then recorded by the innermost recorder and added to its
+ * parent when it is stopped.
+ */
+public final class CallRecorder {
+
+  /**
+   * Type of the SQL statements executed through MyBatis mappers
+   */
+  public static final String SQL_CALL_TYPE = "SQL";
+
+  private static final ThreadLocal<CallRecorder> CURRENT = new ThreadLocal<>();
+
+  @CheckForNull
+  private final CallRecorder parent;
+  private final boolean keepCalls;
+  private final List<String> calls;
+  private final Map<String, Counter> countersByType = new HashMap<>();
+
+  private CallRecorder(@CheckForNull CallRecorder parent, boolean keepCalls) {
+    this.parent = parent;
+    this.keepCalls = keepCalls;
+    this.calls = keepCalls ? new ArrayList<>() : Collections.emptyList();
+  }
+
+  /**
+   * Starts recording the calls of the current thread.
+   *
+   * @param keepCalls whether the description of each call must be kept, see {@link #getCalls()}
+   */
+  public static CallRecorder start(boolean keepCalls) {
+    CallRecorder recorder = new CallRecorder(CURRENT.get(), keepCalls);
+    CURRENT.set(recorder);
+    return recorder;
+  }
+
+  public static boolean isRecording() {
+    return CURRENT.get() != null;
+  }
+
+  /**
+   * Records a call started at {@code startMs} (see {@link System#currentTimeMillis()}) and ending now.
+   * Does nothing if recording is not started on the current thread. The description is computed only if
+   * it has to be kept.
+   */
+  public static void record(String type, long startMs, Supplier<String> description) {
+    CallRecorder recorder = CURRENT.get();
+    if (recorder != null) {
+      long durationMs = System.currentTimeMillis() - startMs;
+      recorder.counter(type).add(1, durationMs);
+      if (recorder.keepCalls) {
+        recorder.calls.add(String.format("%s (%dms): %s", type, durationMs, description.get()));
+      }
+    }
+  }
+
+  /**
+   * Stops recording on the current thread. Calls are added to the parent recorder, if any.
+   */
+  public void stop() {
+    if (parent == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(parent);
+      countersByType.forEach((type, counter) -> parent.counter(type).add(counter.count, counter.timeMs));
+      if (parent.keepCalls) {
+        parent.calls.addAll(calls);
+      }
+    }
+  }
+
+  private Counter counter(String type) {
+    return countersByType.computeIfAbsent(type, t -> new Counter());
+  }
+
+  /**
+   * Number of recorded calls of the given type
+   */
+  public int getCount(String type) {
+    Counter counter = countersByType.get(type);
+    return counter == null ? 0 : counter.count;
+  }
+
+  /**
+   * Total duration of the recorded calls of the given type
+   */
+  public long getTimeMs(String type) {
+    Counter counter = countersByType.get(type);
+    return counter == null ? 0L : counter.timeMs;
+  }
+
+  /**
+   * Description of the recorded calls, in execution order. Empty if calls are not kept.
+   */
+  public List<String> getCalls() {
+    return Collections.unmodifiableList(calls);
+  }
+
+  private static final class Counter {
+    private int count = 0;
+    private long timeMs = 0L;
+
+    private void add(int count, long timeMs) {
+      this.count += count;
+      this.timeMs += timeMs;
+    }
+  }
+}
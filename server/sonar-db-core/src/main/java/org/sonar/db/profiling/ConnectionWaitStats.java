@@ -0,0 +1,110 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the acquisition of connections from a pool: number of threads currently waiting
+ * for a connection, number of failures (timeouts) and histogram of acquisition times. Thread-safe and lock-free.
+ */
+public class ConnectionWaitStats {
+
+  /**
+   * Upper bounds, in milliseconds, of the buckets of the histogram. A last bucket counts the
+   * acquisitions longer than the greatest bound.
+   */
+  private static final long[] BUCKET_BOUNDS_MS = {1L, 10L, 100L, 1_000L, 5_000L};
+
+  private final AtomicInteger waitingThreads = new AtomicInteger();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+
+  public ConnectionWaitStats() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  Connection acquire(ConnectionSupplier supplier) throws SQLException {
+    waitingThreads.incrementAndGet();
+    long start = System.nanoTime();
+    boolean acquired = false;
+    try {
+      Connection connection = supplier.get();
+      acquired = true;
+      return connection;
+    } finally {
+      waitingThreads.decrementAndGet();
+      if (acquired) {
+        record(System.nanoTime() - start);
+      } else {
+        failures.increment();
+      }
+    }
+  }
+
+  void record(long durationNanos) {
+    long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    int bucket = 0;
+    while (bucket < BUCKET_BOUNDS_MS.length && durationMs > BUCKET_BOUNDS_MS[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+  }
+
+  /**
+   * Number of threads which are currently waiting for a connection.
+   */
+  public int getWaitingThreads() {
+    return waitingThreads.get();
+  }
+
+  /**
+   * Number of requests of connection which failed, for example because of timeout.
+   */
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  /**
+   * Number of acquired connections by range of acquisition time, for example
+   * {@code "<= 10 ms" -> 42}. Ranges are sorted by ascending durations.
+   */
+  public Map<String, Long> getHistogram() {
+    Map<String, Long> histogram = new LinkedHashMap<>();
+    for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+      histogram.put("<= " + BUCKET_BOUNDS_MS[i] + " ms", buckets[i].sum());
+    }
+    histogram.put("> " + BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1] + " ms", buckets[BUCKET_BOUNDS_MS.length].sum());
+    return histogram;
+  }
+
+  @FunctionalInterface
+  interface ConnectionSupplier {
+    Connection get() throws SQLException;
+  }
+}
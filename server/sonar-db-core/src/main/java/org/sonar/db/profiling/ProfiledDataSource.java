@@ -33,6 +33,7 @@ public class ProfiledDataSource extends BasicDataSource {
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final ConnectionWaitStats waitStats = new ConnectionWaitStats();
   private ConnectionInterceptor connectionInterceptor;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
@@ -44,6 +45,10 @@ public class ProfiledDataSource extends BasicDataSource {
     return delegate;
   }
 
+  public ConnectionWaitStats getWaitStats() {
+    return waitStats;
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,7 +325,7 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    return waitStats.acquire(() -> connectionInterceptor.getConnection(delegate));
   }
 
   @Override
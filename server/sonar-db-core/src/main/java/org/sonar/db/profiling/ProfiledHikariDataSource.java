@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import javax.sql.DataSource;
+
+/**
+ * Same as {@link ProfiledDataSource} for a HikariCP connection pool.
+ */
+public class ProfiledHikariDataSource implements DataSource, Closeable {
+
+  private final HikariDataSource delegate;
+  private final ConnectionWaitStats waitStats = new ConnectionWaitStats();
+  private volatile ConnectionInterceptor connectionInterceptor;
+
+  public ProfiledHikariDataSource(HikariDataSource delegate, ConnectionInterceptor connectionInterceptor) {
+    this.delegate = delegate;
+    this.connectionInterceptor = connectionInterceptor;
+  }
+
+  public HikariDataSource getDelegate() {
+    return delegate;
+  }
+
+  public ConnectionWaitStats getWaitStats() {
+    return waitStats;
+  }
+
+  public void setConnectionInterceptor(ConnectionInterceptor ci) {
+    this.connectionInterceptor = ci;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return waitStats.acquire(() -> connectionInterceptor.getConnection(delegate));
+  }
+
+  @Override
+  public Connection getConnection(String login, String password) throws SQLException {
+    return waitStats.acquire(() -> connectionInterceptor.getConnection(delegate, login, password));
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return delegate.getLoginTimeout();
+  }
+
+  @Override
+  public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return java.util.logging.Logger.getLogger(getClass().getName());
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return delegate.getLogWriter();
+  }
+
+  @Override
+  public void setLoginTimeout(int loginTimeout) throws SQLException {
+    delegate.setLoginTimeout(loginTimeout);
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter logWriter) throws SQLException {
+    delegate.setLogWriter(logWriter);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(delegate)) {
+      return iface.cast(delegate);
+    }
+    return delegate.unwrap(iface);
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+}
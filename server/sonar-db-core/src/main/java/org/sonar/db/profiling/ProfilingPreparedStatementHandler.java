@@ -44,11 +44,13 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        if (sqlParams.length > 0) {
-          profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+        if (profiler.isTraceEnabled()) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          if (sqlParams.length > 0) {
+            profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+          }
+          profiler.stopTrace("");
         }
-        profiler.stopTrace("");
       }
       return result;
     } else if (method.getName().startsWith("set") && args.length > 1) {
@@ -41,8 +41,10 @@ class ProfilingStatementHandler implements InvocationHandler {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
         String sql = (String) args[0];
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        profiler.stopTrace("");
+        if (profiler.isTraceEnabled()) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          profiler.stopTrace("");
+        }
       }
       return result;
     } else {
@@ -295,6 +295,34 @@ public class DatabaseUtilsTest {
     assertThat(processed).containsExactlyElementsOf(inputs);
   }
 
+  @Test
+  public void executeLargeUpdates_with_partition_size() {
+    List<Integer> inputs = newArrayList();
+    for (int i = 0; i < 2010; i++) {
+      inputs.add(i);
+    }
+
+    List<Integer> partitionSizes = newArrayList();
+    DatabaseUtils.executeLargeUpdates(inputs, input -> partitionSizes.add(input.size()), 500);
+    assertThat(partitionSizes).containsExactly(500, 500, 500, 500, 10);
+  }
+
+  @Test
+  public void executeLargeInputs_with_partition_size() {
+    List<Integer> inputs = newArrayList();
+    for (int i = 0; i < 2010; i++) {
+      inputs.add(i);
+    }
+
+    List<Integer> partitionSizes = newArrayList();
+    List<Integer> outputs = DatabaseUtils.executeLargeInputs(inputs, input -> {
+      partitionSizes.add(input.size());
+      return input;
+    }, 5_000);
+    assertThat(partitionSizes).containsExactly(2010);
+    assertThat(outputs).containsExactlyElementsOf(inputs);
+  }
+
   @Test
   public void executeLargeUpdates_on_empty_list() {
     DatabaseUtils.executeLargeUpdates(Collections.<Integer>emptyList(), input -> {
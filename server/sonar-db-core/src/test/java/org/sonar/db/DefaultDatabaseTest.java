@@ -19,18 +19,28 @@
  */
 package org.sonar.db;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
 import java.util.Properties;
 import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
 import org.sonar.db.dialect.PostgreSql;
+import org.sonar.db.profiling.ProfiledHikariDataSource;
 import org.sonar.process.logging.LogbackHelper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 public class DefaultDatabaseTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
   private LogbackHelper logbackHelper = mock(LogbackHelper.class);
 
   @Test
@@ -90,6 +100,78 @@ public class DefaultDatabaseTest {
 
     assertThat(db.getDialect().getId()).isEqualTo("h2");
     assertThat(((BasicDataSource) db.getDataSource()).getMaxActive()).isEqualTo(1);
+    assertThat(ConnectionPoolStats.of(db.getDataSource()).getImplementation()).isEqualTo("dbcp");
+  }
+
+  @Test
+  public void shouldStartHikariCP() throws Exception {
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar_hikari");
+    settings.setProperty("sonar.jdbc.username", "sonar");
+    settings.setProperty("sonar.jdbc.password", "sonar");
+    settings.setProperty("sonar.jdbc.maxActive", "3");
+    settings.setProperty("sonar.jdbc.minIdle", "1");
+    settings.setProperty("sonar.jdbc.connectionPool", "hikaricp");
+
+    DefaultDatabase db = new DefaultDatabase(logbackHelper, settings);
+    db.start();
+    try {
+      assertThat(db.getDataSource()).isInstanceOf(ProfiledHikariDataSource.class);
+      ConnectionPoolStats stats = ConnectionPoolStats.of(db.getDataSource());
+      assertThat(stats.getImplementation()).isEqualTo("hikaricp");
+      assertThat(stats.getMaxActiveConnections()).isEqualTo(3);
+      try (Connection connection = db.getDataSource().getConnection()) {
+        assertThat(connection.isValid(1)).isTrue();
+        assertThat(stats.getActiveConnections()).isEqualTo(1);
+      }
+      assertThat(stats.getActiveConnections()).isEqualTo(0);
+      assertThat(stats.getWaitingThreads()).isEqualTo(0);
+      // one connection is checked by start(), one by this test
+      assertThat(stats.getAcquisitionHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(2L);
+    } finally {
+      db.stop();
+    }
+    assertThat(db.getDataSource().unwrap(HikariDataSource.class).isClosed()).isTrue();
+  }
+
+  @Test
+  public void shouldFailToStartUnknownConnectionPool() {
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar");
+    settings.setProperty("sonar.jdbc.connectionPool", "foo");
+
+    DefaultDatabase db = new DefaultDatabase(logbackHelper, settings);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to connect to database");
+
+    db.start();
+  }
+
+  @Test
+  public void shouldConfigureHikariCPFromCommonsDbcpProperties() {
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:postgresql://localhost/sonar");
+    settings.setProperty("sonar.jdbc.username", "me");
+    settings.setProperty("sonar.jdbc.password", "secret");
+    settings.setProperty("sonar.jdbc.maxActive", "42");
+    settings.setProperty("sonar.jdbc.minIdle", "4");
+    settings.setProperty("sonar.jdbc.maxWait", "3000");
+    settings.setProperty("sonar.jdbc.leakDetectionThresholdMillis", "60000");
+    DefaultDatabase db = new DefaultDatabase(logbackHelper, settings);
+    db.initSettings();
+
+    HikariConfig config = DefaultDatabase.createHikariConfig(db.getProperties(), db.getDialect());
+
+    assertThat(config.getJdbcUrl()).isEqualTo("jdbc:postgresql://localhost/sonar");
+    assertThat(config.getDriverClassName()).isEqualTo("org.postgresql.Driver");
+    assertThat(config.getUsername()).isEqualTo("me");
+    assertThat(config.getPassword()).isEqualTo("secret");
+    assertThat(config.getMaximumPoolSize()).isEqualTo(42);
+    assertThat(config.getMinimumIdle()).isEqualTo(4);
+    assertThat(config.getConnectionTimeout()).isEqualTo(3000L);
+    assertThat(config.getLeakDetectionThreshold()).isEqualTo(60000L);
+    assertThat(config.getConnectionInitSql()).isEqualTo("SET standard_conforming_strings=on;SET backslash_quote=off");
   }
 
   @Test
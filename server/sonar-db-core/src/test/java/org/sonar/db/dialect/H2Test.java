@@ -55,4 +55,11 @@ public class H2Test {
   public void h2_does_not_supportMigration() {
     assertThat(dialect.supportsMigration()).isFalse();
   }
+
+  @Test
+  public void h2_sizes_partitions_and_batches() {
+    assertThat(dialect.getInClausePartitionSize()).isEqualTo(5000);
+    assertThat(dialect.getBatchSize()).isEqualTo(1000);
+    assertThat(dialect.supportsArrayBind()).isFalse();
+  }
 }
@@ -58,4 +58,11 @@ public class MsSqlTest {
   public void msSql_does_supportMigration() {
     assertThat(msSql.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void msSql_sizes_partitions_and_batches() {
+    assertThat(msSql.getInClausePartitionSize()).isEqualTo(1000);
+    assertThat(msSql.getBatchSize()).isEqualTo(250);
+    assertThat(msSql.supportsArrayBind()).isFalse();
+  }
 }
@@ -59,4 +59,11 @@ public class MySqlTest {
   public void mysql_does_supportMigration() {
     assertThat(mySql.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void mysql_sizes_partitions_and_batches() {
+    assertThat(mySql.getInClausePartitionSize()).isEqualTo(5000);
+    assertThat(mySql.getBatchSize()).isEqualTo(1000);
+    assertThat(mySql.supportsArrayBind()).isFalse();
+  }
 }
@@ -56,4 +56,11 @@ public class OracleTest {
   public void oracle_does_supportMigration() {
     assertThat(underTest.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void oracle_sizes_partitions_and_batches() {
+    assertThat(underTest.getInClausePartitionSize()).isEqualTo(1000);
+    assertThat(underTest.getBatchSize()).isEqualTo(250);
+    assertThat(underTest.supportsArrayBind()).isFalse();
+  }
 }
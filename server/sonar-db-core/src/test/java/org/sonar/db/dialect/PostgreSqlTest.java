@@ -60,4 +60,11 @@ public class PostgreSqlTest {
   public void postgres_does_supportMigration() {
     assertThat(dialect.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void postgres_sizes_partitions_and_batches() {
+    assertThat(dialect.getInClausePartitionSize()).isEqualTo(5000);
+    assertThat(dialect.getBatchSize()).isEqualTo(1000);
+    assertThat(dialect.supportsArrayBind()).isTrue();
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.profiling.CallRecorder.SQL_CALL_TYPE;
+
+public class CallRecorderTest {
+
+  private static final String SQL = SQL_CALL_TYPE;
+  private static final String OTHER = "OTHER";
+
+  @Test
+  public void nothing_is_recorded_if_not_started() {
+    assertThat(CallRecorder.isRecording()).isFalse();
+
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> {
+      throw new IllegalStateException("description must not be computed");
+    });
+  }
+
+  @Test
+  public void count_calls_by_type() {
+    CallRecorder underTest = CallRecorder.start(false);
+    assertThat(CallRecorder.isRecording()).isTrue();
+
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 1");
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 2");
+    CallRecorder.record(OTHER, System.currentTimeMillis(), () -> "search");
+    underTest.stop();
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 3");
+
+    assertThat(CallRecorder.isRecording()).isFalse();
+    assertThat(underTest.getCount(SQL)).isEqualTo(2);
+    assertThat(underTest.getTimeMs(SQL)).isGreaterThanOrEqualTo(0L);
+    assertThat(underTest.getCount(OTHER)).isEqualTo(1);
+    assertThat(underTest.getTimeMs(OTHER)).isGreaterThanOrEqualTo(0L);
+    assertThat(underTest.getCalls()).isEmpty();
+  }
+
+  @Test
+  public void keep_description_of_calls() {
+    CallRecorder underTest = CallRecorder.start(true);
+
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 1");
+    CallRecorder.record(OTHER, System.currentTimeMillis(), () -> "search");
+    underTest.stop();
+
+    assertThat(underTest.getCalls()).hasSize(2);
+    assertThat(underTest.getCalls().get(0)).startsWith("SQL (").endsWith("): select 1");
+    assertThat(underTest.getCalls().get(1)).startsWith("OTHER (").endsWith("): search");
+  }
+
+  @Test
+  public void calls_of_nested_recorder_are_added_to_parent() {
+    CallRecorder parent = CallRecorder.start(true);
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 1");
+
+    CallRecorder child = CallRecorder.start(false);
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 2");
+    CallRecorder.record(OTHER, System.currentTimeMillis(), () -> "search");
+    child.stop();
+
+    assertThat(CallRecorder.isRecording()).isTrue();
+    CallRecorder.record(SQL, System.currentTimeMillis(), () -> "select 3");
+    parent.stop();
+
+    assertThat(child.getCount(SQL)).isEqualTo(1);
+    assertThat(child.getCount(OTHER)).isEqualTo(1);
+    assertThat(parent.getCount(SQL)).isEqualTo(3);
+    assertThat(parent.getCount(OTHER)).isEqualTo(1);
+    // descriptions are not kept by child
+    assertThat(parent.getCalls()).hasSize(2);
+    assertThat(CallRecorder.isRecording()).isFalse();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+
+public class ConnectionWaitStatsTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ConnectionWaitStats underTest = new ConnectionWaitStats();
+
+  @Test
+  public void histogram_is_empty_by_default() {
+    assertThat(underTest.getHistogram()).containsExactly(
+      entry("<= 1 ms", 0L), entry("<= 10 ms", 0L), entry("<= 100 ms", 0L), entry("<= 1000 ms", 0L), entry("<= 5000 ms", 0L), entry("> 5000 ms", 0L));
+    assertThat(underTest.getWaitingThreads()).isEqualTo(0);
+    assertThat(underTest.getFailures()).isEqualTo(0L);
+  }
+
+  @Test
+  public void record_durations_in_buckets() {
+    underTest.record(TimeUnit.MICROSECONDS.toNanos(10));
+    underTest.record(TimeUnit.MILLISECONDS.toNanos(1));
+    underTest.record(TimeUnit.MILLISECONDS.toNanos(50));
+    underTest.record(TimeUnit.MILLISECONDS.toNanos(5_000));
+    underTest.record(TimeUnit.SECONDS.toNanos(30));
+
+    assertThat(underTest.getHistogram()).containsExactly(
+      entry("<= 1 ms", 2L), entry("<= 10 ms", 0L), entry("<= 100 ms", 1L), entry("<= 1000 ms", 0L), entry("<= 5000 ms", 1L), entry("> 5000 ms", 1L));
+  }
+
+  @Test
+  public void acquire_counts_waiting_threads_and_records_duration() throws SQLException {
+    Connection connection = mock(Connection.class);
+
+    Connection acquired = underTest.acquire(() -> {
+      assertThat(underTest.getWaitingThreads()).isEqualTo(1);
+      return connection;
+    });
+
+    assertThat(acquired).isSameAs(connection);
+    assertThat(underTest.getWaitingThreads()).isEqualTo(0);
+    assertThat(underTest.getHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(1L);
+    assertThat(underTest.getFailures()).isEqualTo(0L);
+  }
+
+  @Test
+  public void acquire_counts_failures() throws SQLException {
+    expectedException.expect(SQLException.class);
+
+    try {
+      underTest.acquire(() -> {
+        throw new SQLException("timeout");
+      });
+    } finally {
+      assertThat(underTest.getWaitingThreads()).isEqualTo(0);
+      assertThat(underTest.getFailures()).isEqualTo(1L);
+      assertThat(underTest.getHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(0L);
+    }
+  }
+}
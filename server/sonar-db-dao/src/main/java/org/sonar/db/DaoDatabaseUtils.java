@@ -19,8 +19,67 @@
  */
 package org.sonar.db;
 
+import com.google.common.base.Function;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.apache.ibatis.session.Configuration;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.dialect.DialectUtils;
+
 public class DaoDatabaseUtils extends DatabaseUtils {
 
+  /**
+   * Same as {@link DatabaseUtils#executeLargeInputs(Collection, Function)} but partitions are sized
+   * by the dialect of the session, see {@link Dialect#getInClausePartitionSize()}.
+   */
+  public static <OUTPUT, INPUT extends Comparable<INPUT>> List<OUTPUT> executeLargeInputs(DbSession session, Collection<INPUT> input,
+    Function<List<INPUT>, List<OUTPUT>> function) {
+    return executeLargeInputs(input, function, inClausePartitionSize(session));
+  }
+
+  /**
+   * Calls {@code function} only once with all the unique and sorted inputs when the dialect of the session binds
+   * the whole collection as a single array parameter (see {@link Dialect#supportsArrayBind()}). The mapper statement
+   * must then use {@link StringArrayTypeHandler} for this dialect. Otherwise falls back to
+   * {@link #executeLargeInputs(DbSession, Collection, Function)}.
+   */
+  public static <OUTPUT, INPUT extends Comparable<INPUT>> List<OUTPUT> executeLargeInputsWithArrayBind(DbSession session, Collection<INPUT> input,
+    Function<List<INPUT>, List<OUTPUT>> function) {
+    Dialect dialect = dialect(session);
+    if (dialect == null || !dialect.supportsArrayBind()) {
+      return executeLargeInputs(session, input, function);
+    }
+    if (input.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return function.apply(toUniqueAndSortedList(input));
+  }
+
+  /**
+   * Same as {@link DatabaseUtils#executeLargeUpdates(Collection, Consumer)} but partitions are sized
+   * by the dialect of the session, see {@link Dialect#getInClausePartitionSize()}.
+   */
+  public static <INPUT extends Comparable<INPUT>> void executeLargeUpdates(DbSession session, Collection<INPUT> inputs, Consumer<List<INPUT>> consumer) {
+    executeLargeUpdates(inputs, consumer, inClausePartitionSize(session));
+  }
+
+  public static int inClausePartitionSize(DbSession session) {
+    Dialect dialect = dialect(session);
+    return dialect == null ? PARTITION_SIZE_FOR_ORACLE : dialect.getInClausePartitionSize();
+  }
+
+  @CheckForNull
+  private static Dialect dialect(DbSession session) {
+    Configuration configuration = session.getConfiguration();
+    if (configuration == null || configuration.getDatabaseId() == null) {
+      return null;
+    }
+    return DialectUtils.find(configuration.getDatabaseId(), null);
+  }
+
   /**
    * Returns an escaped value in parameter, with the desired wildcards. Suitable to be used in a like sql query<br />
    * Escapes the "/", "%" and "_" characters.<br/>
@@ -49,6 +49,7 @@ public final class MyBatisConfBuilder {
     this.conf.getVariables().setProperty("_false", dialect.getFalseSqlValue());
     this.conf.getVariables().setProperty("_scrollFetchSize", String.valueOf(dialect.getScrollDefaultFetchSize()));
     this.conf.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    this.conf.addInterceptor(new SqlCallRecordingInterceptor());
   }
 
   public void loadAlias(String alias, Class dtoClass) {
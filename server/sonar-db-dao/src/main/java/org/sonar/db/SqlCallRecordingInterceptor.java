@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.Properties;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.sonar.db.profiling.CallRecorder;
+
+import static org.sonar.db.profiling.CallRecorder.SQL_CALL_TYPE;
+
+/**
+ * Records the statements executed through MyBatis mappers when a {@link CallRecorder} is started on the current thread.
+ * Contrary to the profiling of the data source, JDBC statements are not proxied, so it's always enabled.
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+class SqlCallRecordingInterceptor implements Interceptor {
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (!CallRecorder.isRecording()) {
+      return invocation.proceed();
+    }
+    long startMs = System.currentTimeMillis();
+    try {
+      return invocation.proceed();
+    } finally {
+      MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+      CallRecorder.record(SQL_CALL_TYPE, startMs, statement::getId);
+    }
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    // called for each statement on the other MyBatis handlers, which are not intercepted
+    return target instanceof Executor ? Plugin.wrap(target, this) : target;
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import javax.annotation.CheckForNull;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Binds a collection of strings as a single SQL array parameter, for example in
+ * {@code p.uuid = ANY(#{uuids,typeHandler=org.sonar.db.StringArrayTypeHandler})}.
+ * Only to be used on dialects supporting it, see {@link org.sonar.db.dialect.Dialect#supportsArrayBind()}.
+ *
+ * @since 6.4
+ */
+public class StringArrayTypeHandler extends BaseTypeHandler<Collection<String>> {
+
+  private static final String SQL_TYPE = "varchar";
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, Collection<String> parameter, JdbcType jdbcType) throws SQLException {
+    Array array = ps.getConnection().createArrayOf(SQL_TYPE, parameter.toArray());
+    ps.setArray(i, array);
+  }
+
+  @Override
+  @CheckForNull
+  public Collection<String> getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return toCollection(rs.getArray(columnName));
+  }
+
+  @Override
+  @CheckForNull
+  public Collection<String> getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toCollection(rs.getArray(columnIndex));
+  }
+
+  @Override
+  @CheckForNull
+  public Collection<String> getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toCollection(cs.getArray(columnIndex));
+  }
+
+  @CheckForNull
+  private static Collection<String> toCollection(@CheckForNull Array array) throws SQLException {
+    if (array == null) {
+      return null;
+    }
+    Object[] values = (Object[]) array.getArray();
+    return Arrays.asList(Arrays.copyOf(values, values.length, String[].class));
+  }
+}
@@ -45,6 +45,7 @@ import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.sonar.db.DaoDatabaseUtils.buildLikeValue;
 import static org.sonar.db.DaoDatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeInputsWithArrayBind;
 import static org.sonar.db.DaoDatabaseUtils.executeLargeUpdates;
 import static org.sonar.db.WildcardPosition.BEFORE_AND_AFTER;
 
@@ -148,7 +149,7 @@ public class ComponentDao implements Dao {
   }
 
   public List<ComponentDto> selectByUuids(DbSession session, Collection<String> uuids) {
-    return executeLargeInputs(uuids, mapper(session)::selectByUuids);
+    return executeLargeInputsWithArrayBind(session, uuids, mapper(session)::selectByUuids);
   }
 
   public List<String> selectExistingUuids(DbSession session, Collection<String> uuids) {
@@ -167,7 +168,7 @@ public class ComponentDao implements Dao {
   }
 
   public List<ComponentDto> selectByKeys(DbSession session, Collection<String> keys) {
-    return executeLargeInputs(keys, mapper(session)::selectByKeys);
+    return executeLargeInputsWithArrayBind(session, keys, mapper(session)::selectByKeys);
   }
 
   public List<ComponentDto> selectComponentsHavingSameKeyOrderedById(DbSession session, String key) {
@@ -28,6 +28,7 @@ public class FilePathWithHashDto {
   private String path;
   private String srcHash;
   private String revision;
+  private long srcUpdatedAt;
 
   public String getSrcHash() {
     return srcHash;
@@ -62,6 +63,17 @@ public class FilePathWithHashDto {
     this.revision = revision;
   }
 
+  /**
+   * Date of the last change of the source hash or of the revision of the file
+   */
+  public long getSrcUpdatedAt() {
+    return srcUpdatedAt;
+  }
+
+  public void setSrcUpdatedAt(long srcUpdatedAt) {
+    this.srcUpdatedAt = srcUpdatedAt;
+  }
+
   public String getUuid() {
     return uuid;
   }
@@ -33,7 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
 
 import static com.google.common.collect.FluentIterable.from;
-import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeInputs;
 
 public class IssueDao implements Dao {
 
@@ -56,7 +56,7 @@ public class IssueDao implements Dao {
    * <p>Results may be in a different order as input keys (see {@link #selectByOrderedKeys(DbSession, List)}).</p>
    */
   public List<IssueDto> selectByKeys(final DbSession session, Collection<String> keys) {
-    return executeLargeInputs(keys, mapper(session)::selectByKeys);
+    return executeLargeInputs(session, keys, mapper(session)::selectByKeys);
   }
 
   /**
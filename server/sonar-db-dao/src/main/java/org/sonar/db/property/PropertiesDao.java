@@ -133,6 +133,16 @@ public class PropertiesDao implements Dao {
     return getMapper(session).selectDescendantModuleProperties(moduleUuid, Scopes.PROJECT, true);
   }
 
+  /**
+   * Version of the settings of all the components of a project. It changes as soon as one of these
+   * settings is added, updated or removed, as updates are implemented by delete + insert.
+   */
+  public String selectProjectSettingsVersion(DbSession session, String projectUuid) {
+    PropertiesMapper mapper = getMapper(session);
+    Long maxCreatedAt = mapper.selectMaxCreatedAtOfProjectSettings(projectUuid);
+    return mapper.countProjectSettings(projectUuid) + ":" + (maxCreatedAt == null ? 0L : maxCreatedAt);
+  }
+
   @CheckForNull
   public PropertyDto selectProjectProperty(long componentId, String propertyKey) {
     try (DbSession session = mybatis.openSession(false)) {
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
+
+import static org.sonar.core.util.stream.Collectors.toList;
+
+/**
+ * Deletes the partitions of a table concurrently. Each partition is deleted and committed in its own batch session,
+ * so that a table with many analyses does not hold a single long transaction.
+ */
+class ParallelPartitionDeleter {
+
+  private final MyBatis myBatis;
+  private final Executor executor;
+
+  ParallelPartitionDeleter(MyBatis myBatis, Executor executor) {
+    this.myBatis = myBatis;
+    this.executor = executor;
+  }
+
+  /**
+   * Blocks until all the partitions are deleted, or until the deadline is reached. Partitions are
+   * not deleted anymore once the deadline is reached, but the ones being deleted are completed.
+   */
+  <T> Result delete(List<List<T>> partitions, BiConsumer<PurgeMapper, List<T>> deletion, BooleanSupplier deadlineReached) {
+    List<CompletableFuture<Optional<Integer>>> futures = partitions.stream()
+      .map(partition -> CompletableFuture.supplyAsync(() -> deadlineReached.getAsBoolean() ? Optional.<Integer>empty() : Optional.of(deletePartition(partition, deletion)),
+        executor))
+      .collect(toList(partitions.size()));
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+    List<Optional<Integer>> results = futures.stream().map(CompletableFuture::join).collect(toList(futures.size()));
+    return new Result(
+      results.stream().filter(Optional::isPresent).mapToInt(Optional::get).sum(),
+      results.stream().allMatch(Optional::isPresent));
+  }
+
+  private <T> int deletePartition(List<T> partition, BiConsumer<PurgeMapper, List<T>> deletion) {
+    try (DbSession session = myBatis.openSession(true)) {
+      deletion.accept(session.getMapper(PurgeMapper.class), partition);
+      int rows = PurgeCommands.countRows(session.flushStatements());
+      session.commit();
+      return rows;
+    }
+  }
+
+  static final class Result {
+    private final int rows;
+    private final boolean complete;
+
+    private Result(int rows, boolean complete) {
+      this.rows = rows;
+      this.complete = complete;
+    }
+
+    /**
+     * Number of deleted rows, as reported by the JDBC driver
+     */
+    int getRows() {
+      return rows;
+    }
+
+    /**
+     * Whether all the partitions are deleted
+     */
+    boolean isComplete() {
+      return complete;
+    }
+  }
+}
@@ -22,30 +22,62 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.apache.ibatis.executor.BatchResult;
 import org.sonar.db.DbSession;
 
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.Arrays.asList;
+import static org.sonar.db.DaoDatabaseUtils.inClausePartitionSize;
 
 class PurgeCommands {
 
-  private static final int MAX_SNAPSHOTS_PER_QUERY = 1000;
-  private static final int MAX_RESOURCES_PER_QUERY = 1000;
-
   private final DbSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
-
-  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+  /**
+   * Maximum number of snapshots or components per query, as supported by the database
+   */
+  private final int partitionSize;
+  /**
+   * When not null, the partitions of the biggest tables are deleted concurrently
+   */
+  @Nullable
+  private final ParallelPartitionDeleter parallelDeleter;
+  /**
+   * Checked before each table and each partition, see {@link #checkDeadline()}
+   */
+  private final BooleanSupplier deadlineReached;
+
+  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, @Nullable ParallelPartitionDeleter parallelDeleter,
+    BooleanSupplier deadlineReached) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.partitionSize = inClausePartitionSize(session);
+    this.parallelDeleter = parallelDeleter;
+    this.deadlineReached = deadlineReached;
   }
 
   @VisibleForTesting
   PurgeCommands(DbSession session, PurgeProfiler profiler) {
-    this(session, session.getMapper(PurgeMapper.class), profiler);
+    this(session, session.getMapper(PurgeMapper.class), profiler, null, () -> false);
+  }
+
+  /**
+   * @throws PurgeInterruptedException if the deadline is reached. Pending statements are not committed.
+   */
+  void checkDeadline() {
+    if (deadlineReached.getAsBoolean()) {
+      throw interrupted();
+    }
+  }
+
+  private static PurgeInterruptedException interrupted() {
+    return new PurgeInterruptedException("Deadline of purge is reached");
   }
 
   List<String> selectSnapshotUuids(PurgeSnapshotQuery query) {
@@ -61,63 +93,53 @@ class PurgeCommands {
   }
 
   void deleteComponents(List<IdUuidPair> componentIdUuids) {
-    List<List<Long>> componentIdPartitions = Lists.partition(IdUuidPairs.ids(componentIdUuids), MAX_RESOURCES_PER_QUERY);
-    List<List<String>> componentUuidsPartitions = Lists.partition(IdUuidPairs.uuids(componentIdUuids), MAX_RESOURCES_PER_QUERY);
+    List<List<Long>> componentIdPartitions = Lists.partition(IdUuidPairs.ids(componentIdUuids), partitionSize);
+    List<List<String>> componentUuidsPartitions = Lists.partition(IdUuidPairs.uuids(componentIdUuids), partitionSize);
     // Note : do not merge the delete statements into a single loop of resource ids. It's
     // voluntarily grouped by tables in order to benefit from JDBC batch mode.
     // Batch requests can only relate to the same PreparedStatement.
 
     // possible missing optimization: filter requests according to resource scope
 
-    profiler.start("deleteResourceLinks (project_links)");
+    start("deleteResourceLinks (project_links)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponentLinks);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteResourceProperties (properties)");
+    start("deleteResourceProperties (properties)");
     componentIdPartitions.forEach(purgeMapper::deleteComponentProperties);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteResourceGroupRoles (group_roles)");
+    start("deleteResourceGroupRoles (group_roles)");
     componentIdPartitions.forEach(purgeMapper::deleteComponentGroupRoles);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteResourceUserRoles (user_roles)");
+    start("deleteResourceUserRoles (user_roles)");
     componentIdPartitions.forEach(purgeMapper::deleteComponentUserRoles);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteResourceManualMeasures (manual_measures)");
+    start("deleteResourceManualMeasures (manual_measures)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponentManualMeasures);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteComponentIssueChanges (issue_changes)");
+    start("deleteComponentIssueChanges (issue_changes)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssueChanges);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteComponentIssues (issues)");
+    start("deleteComponentIssues (issues)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssues);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteComponentEvents (events)");
+    start("deleteComponentEvents (events)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponentEvents);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteResource (projects)");
+    start("deleteResource (projects)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponents);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
 
-    profiler.start("deleteAuthors (authors)");
+    start("deleteAuthors (authors)");
     componentIdPartitions.forEach(purgeMapper::deleteAuthors);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   public void deleteComponentMeasures(List<String> analysisUuids, List<String> componentUuids) {
@@ -125,17 +147,16 @@ class PurgeCommands {
       return;
     }
 
-    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
-    List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, partitionSize);
+    List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, partitionSize);
 
-    profiler.start("deleteComponentMeasures");
+    start("deleteComponentMeasures");
     for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
       for (List<String> componentUuidsPartition : componentUuidsPartitions) {
         purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
       }
     }
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   void deleteAnalyses(PurgeSnapshotQuery... queries) {
@@ -147,76 +168,108 @@ class PurgeCommands {
 
   @VisibleForTesting
   protected void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), partitionSize);
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
-    profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
-    session.commit();
-    profiler.stop();
+    deletePartitions("deleteAnalyses (events)", analysisUuidsPartitions, PurgeMapper::deleteAnalysisEvents);
 
-    profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
-    session.commit();
-    profiler.stop();
+    deletePartitions("deleteAnalyses (project_measures)", analysisUuidsPartitions, PurgeMapper::deleteAnalysisMeasures);
 
-    profiler.start("deleteAnalyses (snapshots)");
+    start("deleteAnalyses (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   public void purgeAnalyses(List<IdUuidPair> analysisUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), partitionSize);
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
-    profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions.stream()
-      .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
-    session.commit();
-    profiler.stop();
+    deletePartitions("deleteSnapshotWastedMeasures (project_measures)", analysisUuidsPartitions,
+      (mapper, analysisUuidsPartition) -> mapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
 
-    profiler.start("updatePurgeStatusToOne (snapshots)");
+    start("updatePurgeStatusToOne (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
-    profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
-    session.commit();
-    profiler.stop();
+    deletePartitions("deleteAnalysisDuplications (duplications_index)", snapshotUuidsPartitions, PurgeMapper::deleteAnalysisDuplications);
+  }
+
+  private void deletePartitions(String profilingKey, List<List<String>> partitions, BiConsumer<PurgeMapper, List<String>> deletion) {
+    start(profilingKey);
+    if (parallelDeleter == null || partitions.size() < 2) {
+      for (List<String> partition : partitions) {
+        if (deadlineReached.getAsBoolean()) {
+          // keep the partitions already deleted
+          profiler.stop(commit());
+          throw interrupted();
+        }
+        deletion.accept(purgeMapper, partition);
+      }
+      profiler.stop(commit());
+    } else {
+      ParallelPartitionDeleter.Result result = parallelDeleter.delete(partitions, deletion, deadlineReached);
+      profiler.stop(result.getRows());
+      if (!result.isComplete()) {
+        throw interrupted();
+      }
+    }
+  }
+
+  private void start(String profilingKey) {
+    checkDeadline();
+    profiler.start(profilingKey);
   }
 
   public void deleteFileSources(String rootUuid) {
-    profiler.start("deleteFileSources (file_sources)");
+    start("deleteFileSources (file_sources)");
     purgeMapper.deleteFileSourcesByProjectUuid(rootUuid);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   public void deleteCeActivity(String rootUuid) {
-    profiler.start("deleteCeActivity (ce_activity)");
+    start("deleteCeActivity (ce_activity)");
     purgeMapper.deleteCeActivityByProjectUuid(rootUuid);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   public void deleteCeQueue(String rootUuid) {
-    profiler.start("deleteCeQueue (ce_queue)");
+    start("deleteCeQueue (ce_queue)");
     purgeMapper.deleteCeQueueByProjectUuid(rootUuid);
-    session.commit();
-    profiler.stop();
+    profiler.stop(commit());
   }
 
   public void deleteWebhookDeliveries(String rootUuid) {
-    profiler.start("deleteWebhookDeliveries (webhook_deliveries)");
+    start("deleteWebhookDeliveries (webhook_deliveries)");
     purgeMapper.deleteWebhookDeliveriesByProjectUuid(rootUuid);
+    profiler.stop(commit());
+  }
+
+  /**
+   * Executes the pending batched statements then commits.
+   *
+   * @return the number of rows deleted or updated by the batched statements
+   */
+  private int commit() {
+    int rows = countRows(session.flushStatements());
     session.commit();
-    profiler.stop();
+    return rows;
+  }
+
+  static int countRows(List<BatchResult> batchResults) {
+    int rows = 0;
+    for (BatchResult batchResult : batchResults) {
+      for (int updateCount : batchResult.getUpdateCounts()) {
+        // drivers may return Statement.SUCCESS_NO_INFO when the number of rows is unknown
+        if (updateCount > 0) {
+          rows += updateCount;
+        }
+      }
+    }
+    return rows;
   }
 }
@@ -24,20 +24,23 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.ComponentTreeQuery.Strategy;
 
-import static java.util.Collections.emptyList;
 import static org.sonar.api.utils.DateUtils.dateToLong;
-import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeUpdates;
 
 /**
  * @since 2.14
@@ -45,24 +48,48 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
+  private static final String[] PROCESSED_STATUS = new String[] {"P"};
 
   private final ComponentDao componentDao;
+  private final MyBatis myBatis;
   private final System2 system2;
 
-  public PurgeDao(ComponentDao componentDao, System2 system2) {
+  public PurgeDao(ComponentDao componentDao, MyBatis myBatis, System2 system2) {
     this.componentDao = componentDao;
+    this.myBatis = myBatis;
     this.system2 = system2;
   }
 
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    purge(session, conf, listener, profiler, null, () -> false);
+  }
+
+  /**
+   * Same as {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}, except that the partitions
+   * of the biggest tables (measures, duplications and events of analyses) are deleted concurrently by {@code executor},
+   * each partition in its own transaction.
+   * <p/>
+   * The deadline is checked before each table and each partition.
+   *
+   * @param deadline date in ms after which purge is stopped
+   * @throws PurgeInterruptedException if the deadline is reached before the end of purge
+   */
+  public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, Executor executor, long deadline) {
+    purge(session, conf, listener, profiler, new ParallelPartitionDeleter(myBatis, executor), () -> system2.now() >= deadline);
+  }
+
+  private void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, @Nullable ParallelPartitionDeleter parallelDeleter,
+    BooleanSupplier deadlineReached) {
     PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, parallelDeleter, deadlineReached);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
+    commands.checkDeadline();
     purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
+    commands.checkDeadline();
+    deleteOldClosedIssues(session, conf, mapper, listener);
   }
 
   private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
@@ -70,31 +97,35 @@ public class PurgeDao implements Dao {
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
-        .setNotPurged(true));
+        .setNotPurged(true)
+        .setStatus(PROCESSED_STATUS));
     commands.purgeAnalyses(analysisUuids);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
+  private static void deleteOldClosedIssues(DbSession session, PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
     Date toDate = conf.maxLiveDateOfClosedIssues();
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
-    });
+    executeLargeUpdates(session, issueKeys, mapper::deleteIssueChangesFromIssueKeys);
+    executeLargeUpdates(session, issueKeys, mapper::deleteIssuesFromKeys);
     listener.onIssuesRemoval(rootUuid, issueKeys);
   }
 
   private static void deleteAbortedAnalyses(String rootUuid, PurgeCommands commands) {
     LOG.debug("<- Delete aborted builds");
+    // Unprocessed analyses more recent than the last processed one are still being processed
+    // by the Compute Engine, they must not be deleted
+    List<IdUuidPair> lastAnalyses = commands.selectSnapshotIdUuids(new PurgeSnapshotQuery()
+      .setIslast(true)
+      .setComponentUuid(rootUuid));
+    if (lastAnalyses.isEmpty()) {
+      return;
+    }
     PurgeSnapshotQuery query = new PurgeSnapshotQuery()
       .setIslast(false)
       .setStatus(UNPROCESSED_STATUS)
-      .setComponentUuid(rootUuid);
+      .setComponentUuid(rootUuid)
+      .setIdLowerThan(lastAnalyses.get(0).getId());
     commands.deleteAnalyses(query);
   }
 
@@ -107,7 +138,8 @@ public class PurgeDao implements Dao {
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
-        .setNotPurged(true));
+        .setNotPurged(true)
+        .setStatus(PROCESSED_STATUS));
     List<String> componentWithoutHistoricalDataUuids = componentDao
       .selectDescendants(
         dbSession,
@@ -122,13 +154,15 @@ public class PurgeDao implements Dao {
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Deletes the sources and resolves the issues of the components disabled by the last analysis.
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
-    executeLargeInputs(conf.getDisabledComponentUuids(),
+    executeLargeUpdates(session, conf.getDisabledComponentUuids(),
       input -> {
         mapper.deleteFileSourcesByUuid(input);
         mapper.resolveComponentIssuesNotAlreadyResolved(input, system2.now());
-        return emptyList();
       });
 
     listener.onComponentsDisabling(conf.rootProjectIdUuid().getUuid(), conf.getDisabledComponentUuids());
@@ -22,18 +22,26 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.utils.TimeUtils;
 import org.sonar.api.utils.log.Logger;
 
+/**
+ * Cumulates, per table, the time spent and the number of rows deleted by purge. Time includes the time spent
+ * waiting for locks held by other transactions.
+ * <p>
+ * Thread-safe: each thread profiles its own current table.
+ * </p>
+ */
 public class PurgeProfiler {
 
-  private Map<String, Long> durations = new HashMap<>();
-  private long startTime;
-  private String currentTable;
+  private final Map<String, Long> durations = new ConcurrentHashMap<>();
+  private final Map<String, Long> deletedRows = new ConcurrentHashMap<>();
+  private final ThreadLocal<Long> startTime = new ThreadLocal<>();
+  private final ThreadLocal<String> currentTable = new ThreadLocal<>();
   private final Clock clock;
 
   public PurgeProfiler() {
@@ -47,21 +55,25 @@ public class PurgeProfiler {
 
   public void reset() {
     durations.clear();
+    deletedRows.clear();
   }
 
   void start(String table) {
-    this.startTime = clock.now();
-    this.currentTable = table;
+    this.startTime.set(clock.now());
+    this.currentTable.set(table);
   }
 
   void stop() {
-    final Long cumulatedDuration;
-    if (durations.containsKey(currentTable)) {
-      cumulatedDuration = durations.get(currentTable);
-    } else {
-      cumulatedDuration = 0L;
-    }
-    durations.put(currentTable, cumulatedDuration + (clock.now() - startTime));
+    stop(0);
+  }
+
+  /**
+   * @param rows number of rows deleted or updated since {@link #start(String)}, as reported by the JDBC driver
+   */
+  void stop(int rows) {
+    String table = currentTable.get();
+    durations.merge(table, clock.now() - startTime.get(), Long::sum);
+    deletedRows.merge(table, (long) rows, Long::sum);
   }
 
   public void dump(long totalTime, Logger logger) {
@@ -71,7 +83,8 @@ public class PurgeProfiler {
     for (Entry<String, Long> entry : truncateList(data)) {
       StringBuilder sb = new StringBuilder();
       sb.append("   o ").append(entry.getKey()).append(": ").append(TimeUtils.formatDuration(entry.getValue()))
-        .append(" (").append((int) (entry.getValue() / percent)).append("%)");
+        .append(" (").append((int) (entry.getValue() / percent)).append("%)")
+        .append(", ").append(deletedRows.getOrDefault(entry.getKey(), 0L)).append(" rows");
       logger.info(sb.toString());
     }
   }
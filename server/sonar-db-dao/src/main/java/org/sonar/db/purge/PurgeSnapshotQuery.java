@@ -24,6 +24,7 @@ public final class PurgeSnapshotQuery {
   private String[] status;
   private Boolean islast;
   private Boolean notPurged;
+  private Long idLowerThan;
 
   public String[] getStatus() {
     return status;
@@ -61,4 +62,13 @@ public final class PurgeSnapshotQuery {
     return this;
   }
 
+  public Long getIdLowerThan() {
+    return idLowerThan;
+  }
+
+  public PurgeSnapshotQuery setIdLowerThan(Long idLowerThan) {
+    this.idLowerThan = idLowerThan;
+    return this;
+  }
+
 }
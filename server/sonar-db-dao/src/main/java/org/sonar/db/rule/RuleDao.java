@@ -79,6 +79,14 @@ public class RuleDao implements Dao {
     return mapper(session).selectAll();
   }
 
+  /**
+   * Date of the last update of a rule, 0 if there are no rules.
+   */
+  public long selectMaxUpdatedAt(DbSession session) {
+    Long maxUpdatedAt = mapper(session).selectMaxUpdatedAt();
+    return maxUpdatedAt == null ? 0L : maxUpdatedAt;
+  }
+
   public List<RuleDto> selectByQuery(DbSession session, RuleQuery ruleQuery) {
     return mapper(session).selectByQuery(ruleQuery);
   }
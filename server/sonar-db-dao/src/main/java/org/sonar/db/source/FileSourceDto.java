@@ -19,12 +19,15 @@
  */
 package org.sonar.db.source;
 
+import com.google.common.collect.Lists;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.CheckForNull;
@@ -41,6 +44,19 @@ public class FileSourceDto {
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
 
+  /**
+   * Number of lines compressed together in a block of column BINARY_DATA.
+   */
+  static final int LINES_PER_BLOCK = 500;
+
+  /**
+   * First bytes of column BINARY_DATA when source data is stored by blocks of lines ("SRCB").
+   * Data stored before the introduction of blocks starts with the LZ4 magic "LZ4Block".
+   */
+  private static final int BLOCKS_MAGIC = 0x53524342;
+  private static final int BLOCKS_HEADER_SIZE = 8;
+  private static final int BLOCK_INDEX_ENTRY_SIZE = 12;
+
   private Long id;
   private String projectUuid;
   private String fileUuid;
@@ -94,7 +110,19 @@ public class FileSourceDto {
   }
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
+    return decodeSourceData(binaryData, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decompress and deserialize only the blocks of lines of column BINARY_DATA which intersect the range
+   * of lines {@code [from, toInclusive]}. The returned lines may start before {@code from} and end after
+   * {@code toInclusive}: filtering is the responsibility of caller. Data stored without blocks is fully decoded.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, int from, int toInclusive) {
     try {
+      if (isStoredByBlocks(binaryData)) {
+        return decodeBlocks(binaryData, from, toInclusive);
+      }
       return decodeRegularSourceData(binaryData);
     } catch (IOException e) {
       throw new IllegalStateException(
@@ -103,6 +131,37 @@ public class FileSourceDto {
     }
   }
 
+  private static boolean isStoredByBlocks(byte[] binaryData) {
+    return binaryData.length >= BLOCKS_HEADER_SIZE && ByteBuffer.wrap(binaryData).getInt(0) == BLOCKS_MAGIC;
+  }
+
+  private static DbFileSources.Data decodeBlocks(byte[] binaryData, int from, int toInclusive) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(binaryData);
+    int blockCount = buffer.getInt(4);
+    int offset = BLOCKS_HEADER_SIZE + blockCount * BLOCK_INDEX_ENTRY_SIZE;
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < blockCount; i++) {
+      int indexEntry = BLOCKS_HEADER_SIZE + i * BLOCK_INDEX_ENTRY_SIZE;
+      int firstLine = buffer.getInt(indexEntry);
+      int lastLine = buffer.getInt(indexEntry + 4);
+      int length = buffer.getInt(indexEntry + 8);
+      if (firstLine > toInclusive) {
+        break;
+      }
+      if (lastLine >= from) {
+        data.addAllLines(decodeBlock(binaryData, offset, length).getLinesList());
+      }
+      offset += length;
+    }
+    return data.build();
+  }
+
+  private static DbFileSources.Data decodeBlock(byte[] binaryData, int offset, int length) throws IOException {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, offset, length))) {
+      return DbFileSources.Data.parseFrom(lz4Input);
+    }
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -124,20 +183,39 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * in the column BINARY_DATA. Lines are compressed by blocks of {@link #LINES_PER_BLOCK}, preceded by
+   * an index of the line range and size of each block, so that a range of lines can be read without
+   * decoding the whole file.
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    List<List<DbFileSources.Line>> blocks = Lists.partition(data.getLinesList(), LINES_PER_BLOCK);
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
-    try {
-      data.writeTo(compressedOutput);
-      compressedOutput.close();
-      return byteOutput.toByteArray();
+    try (DataOutputStream output = new DataOutputStream(byteOutput)) {
+      output.writeInt(BLOCKS_MAGIC);
+      output.writeInt(blocks.size());
+      List<byte[]> compressedBlocks = new ArrayList<>(blocks.size());
+      for (List<DbFileSources.Line> block : blocks) {
+        byte[] compressedBlock = encodeBlock(DbFileSources.Data.newBuilder().addAllLines(block).build());
+        output.writeInt(block.get(0).getLine());
+        output.writeInt(block.get(block.size() - 1).getLine());
+        output.writeInt(compressedBlock.length);
+        compressedBlocks.add(compressedBlock);
+      }
+      for (byte[] compressedBlock : compressedBlocks) {
+        output.write(compressedBlock);
+      }
     } catch (IOException e) {
       throw new IllegalStateException("Fail to serialize and compress source data", e);
-    } finally {
-      IOUtils.closeQuietly(compressedOutput);
     }
+    return byteOutput.toByteArray();
+  }
+
+  private static byte[] encodeBlock(DbFileSources.Data block) throws IOException {
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      block.writeTo(compressedOutput);
+    }
+    return byteOutput.toByteArray();
   }
 
   public static List<DbFileSources.Test> decodeTestData(byte[] binaryData) {
@@ -212,6 +290,15 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Same as {@link #getSourceData()} but decodes only the blocks of lines which intersect the
+   * range {@code [from, toInclusive]}.
+   * @see #decodeSourceData(byte[], int, int)
+   */
+  public DbFileSources.Data getSourceData(int from, int toInclusive) {
+    return decodeSourceData(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
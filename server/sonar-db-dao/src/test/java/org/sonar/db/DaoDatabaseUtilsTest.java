@@ -19,10 +19,22 @@
  */
 package org.sonar.db;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.ibatis.session.Configuration;
 import org.junit.Test;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.db.DaoDatabaseUtils.buildLikeValue;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeInputsWithArrayBind;
+import static org.sonar.db.DaoDatabaseUtils.executeLargeUpdates;
+import static org.sonar.db.DaoDatabaseUtils.inClausePartitionSize;
 import static org.sonar.db.WildcardPosition.AFTER;
 import static org.sonar.db.WildcardPosition.BEFORE;
 import static org.sonar.db.WildcardPosition.BEFORE_AND_AFTER;
@@ -39,5 +51,91 @@ public class DaoDatabaseUtilsTest {
     assertThat(buildLikeValue("like-\\_%/-value", BEFORE_AND_AFTER)).isEqualTo(wildcard + escapedValue + wildcard);
   }
 
+  @Test
+  public void partition_size_depends_on_dialect_of_session() {
+    assertThat(inClausePartitionSize(session("h2"))).isEqualTo(5_000);
+    assertThat(inClausePartitionSize(session("oracle"))).isEqualTo(1_000);
+    assertThat(inClausePartitionSize(session(null))).isEqualTo(DatabaseUtils.PARTITION_SIZE_FOR_ORACLE);
+  }
+
+  @Test
+  public void executeLargeInputs_partitions_by_dialect() {
+    List<Integer> inputs = integers(2_010);
+
+    List<Integer> partitionSizes = new ArrayList<>();
+    List<Integer> outputs = executeLargeInputs(session("mssql"), inputs, input -> {
+      partitionSizes.add(input.size());
+      return input;
+    });
+
+    assertThat(partitionSizes).containsExactly(1_000, 1_000, 10);
+    assertThat(outputs).containsExactlyElementsOf(inputs);
+  }
+
+  @Test
+  public void executeLargeUpdates_partitions_by_dialect() {
+    List<Integer> partitionSizes = new ArrayList<>();
+    executeLargeUpdates(session("mysql"), integers(12_000), input -> partitionSizes.add(input.size()));
+
+    assertThat(partitionSizes).containsExactly(5_000, 5_000, 2_000);
+  }
+
+  @Test
+  public void executeLargeInputsWithArrayBind_calls_function_once_when_dialect_supports_arrays() {
+    List<Integer> partitionSizes = new ArrayList<>();
+    List<Integer> outputs = executeLargeInputsWithArrayBind(session("postgresql"), integers(12_000), input -> {
+      partitionSizes.add(input.size());
+      return input;
+    });
+
+    assertThat(partitionSizes).containsExactly(12_000);
+    assertThat(outputs).hasSize(12_000);
+  }
+
+  @Test
+  public void executeLargeInputsWithArrayBind_removes_duplicates() {
+    List<Integer> outputs = executeLargeInputsWithArrayBind(session("postgresql"), asList(3, 1, 3, 2), input -> input);
+
+    assertThat(outputs).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void executeLargeInputsWithArrayBind_partitions_when_dialect_does_not_support_arrays() {
+    List<Integer> partitionSizes = new ArrayList<>();
+    executeLargeInputsWithArrayBind(session("oracle"), integers(2_010), input -> {
+      partitionSizes.add(input.size());
+      return input;
+    });
+
+    assertThat(partitionSizes).containsExactly(1_000, 1_000, 10);
+  }
+
+  @Test
+  public void executeLargeInputsWithArrayBind_on_empty_list() {
+    List<Integer> outputs = executeLargeInputsWithArrayBind(session("postgresql"), DaoDatabaseUtilsTest.<Integer>empty(), input -> {
+      throw new IllegalStateException("No call should be made on empty list");
+    });
+
+    assertThat(outputs).isEmpty();
+  }
+
+  private static <T> List<T> empty() {
+    return emptyList();
+  }
+
+  private static List<Integer> integers(int size) {
+    List<Integer> inputs = newArrayList();
+    for (int i = 0; i < size; i++) {
+      inputs.add(i);
+    }
+    return inputs;
+  }
 
+  private static DbSession session(String databaseId) {
+    Configuration configuration = new Configuration();
+    configuration.setDatabaseId(databaseId);
+    DbSession session = mock(DbSession.class);
+    when(session.getConfiguration()).thenReturn(configuration);
+    return session;
+  }
 }
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.profiling.CallRecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.metric.MetricTesting.newMetricDto;
+import static org.sonar.db.profiling.CallRecorder.SQL_CALL_TYPE;
+
+public class SqlCallRecordingInterceptorTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Test
+  public void record_statements_executed_by_mappers() {
+    CallRecorder recorder = CallRecorder.start(true);
+    try {
+      db.getDbClient().metricDao().insert(db.getSession(), newMetricDto().setKey("ncloc"));
+      MetricDto metric = db.getDbClient().metricDao().selectByKey(db.getSession(), "ncloc");
+      assertThat(metric).isNotNull();
+    } finally {
+      recorder.stop();
+    }
+
+    assertThat(recorder.getCount(SQL_CALL_TYPE)).isEqualTo(2);
+    assertThat(recorder.getCalls()).hasSize(2);
+    assertThat(recorder.getCalls().get(0)).startsWith("SQL (").endsWith("): org.sonar.db.metric.MetricMapper.insert");
+    assertThat(recorder.getCalls().get(1)).startsWith("SQL (").endsWith("): org.sonar.db.metric.MetricMapper.selectByKey");
+  }
+
+  @Test
+  public void do_nothing_if_recording_is_not_started() {
+    db.getDbClient().metricDao().insert(db.getSession(), newMetricDto().setKey("ncloc"));
+
+    assertThat(db.getDbClient().metricDao().selectByKey(db.getSession(), "ncloc")).isNotNull();
+    assertThat(CallRecorder.isRecording()).isFalse();
+  }
+}
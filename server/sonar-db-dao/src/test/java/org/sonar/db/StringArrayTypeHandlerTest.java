@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StringArrayTypeHandlerTest {
+
+  private StringArrayTypeHandler underTest = new StringArrayTypeHandler();
+
+  @Test
+  public void bind_collection_as_varchar_array() throws Exception {
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    Array array = mock(Array.class);
+    when(ps.getConnection()).thenReturn(connection);
+    when(connection.createArrayOf("varchar", new Object[] {"a", "b"})).thenReturn(array);
+
+    underTest.setNonNullParameter(ps, 3, asList("a", "b"), null);
+
+    verify(ps).setArray(3, array);
+  }
+
+  @Test
+  public void read_varchar_array() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    Array array = mock(Array.class);
+    when(array.getArray()).thenReturn(new Object[] {"a", "b"});
+    when(rs.getArray("uuids")).thenReturn(array);
+
+    assertThat(underTest.getNullableResult(rs, "uuids")).containsExactly("a", "b");
+  }
+
+  @Test
+  public void read_null_array() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+
+    assertThat(underTest.getNullableResult(rs, 1)).isNull();
+  }
+}
@@ -444,6 +444,7 @@ public class ComponentDaoTest {
     assertThat(files).extracting("srcHash").containsOnly("srcEFGHI", "srcHIJK");
     assertThat(files).extracting("path").containsOnly("src/org/struts/pom.xml", "src/org/struts/RequestContext.java");
     assertThat(files).extracting("revision").containsOnly("123456789");
+    assertThat(files).extracting("srcUpdatedAt").containsOnly(1412952242000L);
 
     // From module
     files = underTest.selectEnabledDescendantFiles(dbSession, "EFGH");
@@ -477,6 +478,7 @@ public class ComponentDaoTest {
     assertThat(files).extracting("moduleUuid").containsOnly("EFGH", "FGHI");
     assertThat(files).extracting("srcHash").containsOnly("srcEFGHI", "srcHIJK");
     assertThat(files).extracting("path").containsOnly("src/org/struts/pom.xml", "src/org/struts/RequestContext.java");
+    assertThat(files).extracting("srcUpdatedAt").containsOnly(1412952242000L);
 
     // From module
     assertThat(underTest.selectEnabledFilesFromProject(dbSession, "EFGH")).isEmpty();
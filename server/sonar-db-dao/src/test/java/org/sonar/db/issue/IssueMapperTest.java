@@ -19,6 +19,8 @@
  */
 package org.sonar.db.issue;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +33,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class IssueMapperTest {
@@ -213,6 +216,20 @@ public class IssueMapperTest {
     assertThat(result.getUpdatedAt()).isEqualTo(1_500_000_000_000L);
   }
 
+  @Test
+  public void selectNonClosedByComponentUuids() {
+    underTest.insert(newIssue().setStatus("OPEN").setResolution(null));
+    underTest.insert(newIssue().setKee("CLOSED").setStatus("CLOSED"));
+    underTest.insert(newIssue().setKee("ON_FILE2").setComponentUuid(file2.uuid()));
+    underTest.insert(newIssue().setKee("ON_PROJECT").setComponentUuid(project.uuid()));
+    dbTester.getSession().commit();
+
+    List<IssueDto> result = new ArrayList<>();
+    underTest.selectNonClosedByComponentUuids(asList(file.uuid(), file2.uuid()), context -> result.add((IssueDto) context.getResultObject()));
+
+    assertThat(result).extracting(IssueDto::getKey).containsOnly("ABCDE", "ON_FILE2");
+  }
+
   private IssueDto newIssue() {
     return new IssueDto()
       .setKee("ABCDE")
@@ -332,6 +332,32 @@ public class PropertiesDaoTest {
     assertThat(underTest.selectEnabledDescendantModuleProperties("unknown-result.xml", dbTester.getSession()).size()).isEqualTo(0);
   }
 
+  @Test
+  public void selectProjectSettingsVersion_changes_when_a_setting_of_project_tree_changes() throws SQLException {
+    ComponentDto project = insertProject("A");
+    ComponentDto module = ComponentTesting.newModuleDto(project);
+    dbClient.componentDao().insert(session, module);
+    ComponentDto otherProject = insertProject("B");
+    int userId = insertUser("user");
+    assertThat(underTest.selectProjectSettingsVersion(session, project.uuid())).isEqualTo("0:0");
+
+    insertProperty("project.one", "one", project.getId(), null, DATE_1);
+    insertProperty("module.one", "one", module.getId(), null, DATE_2);
+    assertThat(underTest.selectProjectSettingsVersion(session, project.uuid())).isEqualTo("2:" + DATE_2);
+
+    // not settings of the project tree
+    insertProperty("global.one", "one", null, null, DATE_3);
+    insertProperty("other.one", "one", otherProject.getId(), null, DATE_3);
+    insertProperty("favourite", null, project.getId(), userId, DATE_3);
+    assertThat(underTest.selectProjectSettingsVersion(session, project.uuid())).isEqualTo("2:" + DATE_2);
+
+    insertProperty("project.one", "two", project.getId(), null, DATE_4);
+    assertThat(underTest.selectProjectSettingsVersion(session, project.uuid())).isEqualTo("2:" + DATE_4);
+
+    underTest.deleteProjectProperty("module.one", module.getId(), session);
+    assertThat(underTest.selectProjectSettingsVersion(session, project.uuid())).isEqualTo("1:" + DATE_4);
+  }
+
   @Test
   @UseDataProvider("allValuesForSelect")
   public void selectEnabledDescendantModuleProperties_supports_all_values(String dbValue, String expected) throws SQLException {
@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.measure.MeasureTesting.newMeasure;
+
+public class ParallelPartitionDeleterTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private ExecutorService executor = Executors.newFixedThreadPool(2);
+  private ParallelPartitionDeleter underTest = new ParallelPartitionDeleter(db.myBatis(), executor);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void delete_partitions_in_their_own_sessions_and_return_number_of_deleted_rows() {
+    insertMeasures("u1", 2);
+    insertMeasures("u2", 3);
+    insertMeasures("u3", 1);
+
+    List<List<String>> partitions = asList(singletonList("u1"), singletonList("u2"));
+    ParallelPartitionDeleter.Result result = underTest.delete(partitions, PurgeMapper::deleteAnalysisMeasures, () -> false);
+
+    assertThat(result.getRows()).isEqualTo(5);
+    assertThat(result.isComplete()).isTrue();
+    assertThat(db.countRowsOfTable("project_measures")).isEqualTo(1);
+  }
+
+  @Test
+  public void do_not_delete_partitions_once_deadline_is_reached() {
+    insertMeasures("u1", 2);
+    insertMeasures("u2", 3);
+
+    List<List<String>> partitions = asList(singletonList("u1"), singletonList("u2"));
+    ParallelPartitionDeleter.Result result = underTest.delete(partitions, PurgeMapper::deleteAnalysisMeasures, () -> true);
+
+    assertThat(result.getRows()).isZero();
+    assertThat(result.isComplete()).isFalse();
+    assertThat(db.countRowsOfTable("project_measures")).isEqualTo(5);
+  }
+
+  @Test
+  public void delete_nothing_if_no_partitions() {
+    insertMeasures("u1", 1);
+
+    assertThat(underTest.delete(asList(), PurgeMapper::deleteAnalysisMeasures, () -> true).getRows()).isZero();
+    assertThat(db.countRowsOfTable("project_measures")).isEqualTo(1);
+  }
+
+  private void insertMeasures(String analysisUuid, int count) {
+    DbSession session = db.getSession();
+    for (int i = 0; i < count; i++) {
+      db.getDbClient().measureDao().insert(session, newMeasure().setAnalysisUuid(analysisUuid));
+    }
+    session.commit();
+  }
+}
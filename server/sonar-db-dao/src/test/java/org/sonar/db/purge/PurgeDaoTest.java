@@ -39,12 +39,16 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeQueueDto.Status;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.component.SnapshotDto;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeTaskTypes.REPORT;
+import static org.sonar.db.component.SnapshotDto.STATUS_PROCESSED;
+import static org.sonar.db.component.SnapshotDto.STATUS_UNPROCESSED;
 import static org.sonar.db.webhook.WebhookDbTesting.newWebhookDeliveryDto;
 import static org.sonar.db.webhook.WebhookDbTesting.selectAllDeliveryUuids;
 
@@ -72,6 +76,47 @@ public class PurgeDaoTest {
     dbTester.assertDbUnit(getClass(), "shouldDeleteAbortedBuilds-result.xml", "snapshots");
   }
 
+  @Test
+  public void do_not_delete_unprocessed_analyses_more_recent_than_last_analysis() {
+    ComponentDto project = dbTester.components().insertProject();
+    SnapshotDto aborted = dbTester.components().insertSnapshot(project, s -> s.setStatus(STATUS_UNPROCESSED).setLast(false));
+    SnapshotDto last = dbTester.components().insertSnapshot(project, s -> s.setStatus(STATUS_PROCESSED).setLast(true));
+    SnapshotDto inProgress = dbTester.components().insertSnapshot(project, s -> s.setStatus(STATUS_UNPROCESSED).setLast(false));
+
+    underTest.purge(dbSession, newConfigurationWith30Days(project), PurgeListener.EMPTY, new PurgeProfiler());
+    dbSession.commit();
+
+    assertThat(dbClient.snapshotDao().selectByUuid(dbSession, aborted.getUuid()).isPresent()).isFalse();
+    assertThat(dbClient.snapshotDao().selectByUuid(dbSession, last.getUuid()).isPresent()).isTrue();
+    assertThat(dbClient.snapshotDao().selectByUuid(dbSession, inProgress.getUuid()).isPresent()).isTrue();
+  }
+
+  @Test
+  public void purge_with_executor_deletes_same_data() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeProject.xml");
+    underTest.purge(dbSession, newConfigurationWith30Days(), PurgeListener.EMPTY, new PurgeProfiler(), Runnable::run, Long.MAX_VALUE);
+    dbSession.commit();
+    dbTester.assertDbUnit(getClass(), "shouldPurgeProject-result.xml", "projects", "snapshots");
+  }
+
+  @Test
+  public void stop_purge_when_deadline_is_reached() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeProject.xml");
+    when(system2.now()).thenReturn(1_000L);
+    int snapshots = dbTester.countRowsOfTable("snapshots");
+    int purgedSnapshots = dbTester.countSql("select count(1) from snapshots where purge_status=1");
+
+    try {
+      underTest.purge(dbSession, newConfigurationWith30Days(), PurgeListener.EMPTY, new PurgeProfiler(), Runnable::run, 1_000L);
+      fail();
+    } catch (PurgeInterruptedException e) {
+      // nothing has been purged
+      dbSession.commit();
+      assertThat(dbTester.countRowsOfTable("snapshots")).isEqualTo(snapshots);
+      assertThat(dbTester.countSql("select count(1) from snapshots where purge_status=1")).isEqualTo(purgedSnapshots);
+    }
+  }
+
   @Test
   public void should_purge_project() {
     dbTester.prepareDbUnit(getClass(), "shouldPurgeProject.xml");
@@ -278,6 +323,10 @@ public class PurgeDaoTest {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), new String[0], 30, System2.INSTANCE, Collections.emptyList());
   }
 
+  private static PurgeConfiguration newConfigurationWith30Days(ComponentDto project) {
+    return new PurgeConfiguration(new IdUuidPair(project.getId(), project.uuid()), new String[0], 30, System2.INSTANCE, Collections.emptyList());
+  }
+
   private static PurgeConfiguration newConfigurationWith30Days(System2 system2, String... disabledComponentUuids) {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), new String[0], 30, system2, Arrays.asList(disabledComponentUuids));
   }
@@ -80,6 +80,37 @@ public class PurgeProfilerTest {
     verify(logger).info(contains("bar: 5ms"));
   }
 
+  @Test
+  public void dump_deleted_rows_per_table() {
+    profiler.start("foo");
+    clock.sleep(10);
+    profiler.stop(3);
+
+    profiler.start("foo");
+    clock.sleep(10);
+    profiler.stop(4);
+
+    profiler.dump(50, logger);
+    verify(logger).info(contains("foo: 20ms (40%), 7 rows"));
+  }
+
+  @Test
+  public void profile_tables_of_concurrent_threads() throws InterruptedException {
+    profiler.start("foo");
+    Thread other = new Thread(() -> {
+      profiler.start("bar");
+      clock.sleep(5);
+      profiler.stop(2);
+    });
+    other.start();
+    other.join();
+    profiler.stop(1);
+
+    profiler.dump(50, logger);
+    verify(logger).info(contains("foo: 5ms (10%), 1 rows"));
+    verify(logger).info(contains("bar: 5ms (10%), 2 rows"));
+  }
+
   private class MockedClock extends PurgeProfiler.Clock {
     private long now = 0;
 
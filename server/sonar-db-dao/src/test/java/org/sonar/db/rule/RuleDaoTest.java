@@ -152,6 +152,15 @@ public class RuleDaoTest {
     assertThat(ruleDtos).extracting("id").containsOnly(1, 2, 10);
   }
 
+  @Test
+  public void selectMaxUpdatedAt() {
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession())).isEqualTo(0L);
+
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession())).isEqualTo(1_600_000_000_000L);
+  }
+
   @Test
   public void selectEnabled_with_ResultHandler() {
     dbTester.prepareDbUnit(getClass(), "selectEnabled.xml");
@@ -19,8 +19,13 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -54,6 +59,54 @@ public class FileSourceDtoTest {
     assertThat(underTest.getTestData().get(0).getName()).isEqualTo("name#1");
   }
 
+  @Test
+  public void encode_and_decode_source_data() {
+    DbFileSources.Data data = newData(1_234);
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_source_data_without_lines() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder().build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void getSourceData_decodes_only_blocks_intersecting_range_of_lines() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(newData(3 * FileSourceDto.LINES_PER_BLOCK));
+
+    assertThat(underTest.getSourceData(1, 1).getLinesList())
+      .extracting(DbFileSources.Line::getLine)
+      .containsExactlyElementsOf(lineNumbers(1, FileSourceDto.LINES_PER_BLOCK));
+    assertThat(underTest.getSourceData(FileSourceDto.LINES_PER_BLOCK, FileSourceDto.LINES_PER_BLOCK + 1).getLinesList())
+      .extracting(DbFileSources.Line::getLine)
+      .containsExactlyElementsOf(lineNumbers(1, 2 * FileSourceDto.LINES_PER_BLOCK));
+    assertThat(underTest.getSourceData(2 * FileSourceDto.LINES_PER_BLOCK + 1, Integer.MAX_VALUE).getLinesList())
+      .extracting(DbFileSources.Line::getLine)
+      .containsExactlyElementsOf(lineNumbers(2 * FileSourceDto.LINES_PER_BLOCK + 1, 3 * FileSourceDto.LINES_PER_BLOCK));
+    assertThat(underTest.getSourceData(5_000, 5_010).getLinesList()).isEmpty();
+  }
+
+  @Test
+  public void getSourceData_reads_data_stored_without_blocks() throws IOException {
+    DbFileSources.Data data = newData(1_234);
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      data.writeTo(compressedOutput);
+    }
+
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(byteOutput.toByteArray());
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(10, 20)).isEqualTo(data);
+  }
+
   @Test
   public void getSourceData_throws_ISE_with_id_fileUuid_and_projectUuid_in_message_when_data_cant_be_read() {
     long id = 12L;
@@ -80,6 +133,18 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  private static DbFileSources.Data newData(int numberOfLines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= numberOfLines; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    return dataBuilder.build();
+  }
+
+  private static List<Integer> lineNumbers(int from, int toInclusive) {
+    return IntStream.rangeClosed(from, toInclusive).boxed().collect(Collectors.toList());
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -21,16 +21,21 @@ package org.sonar.server.batch;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.scanner.protocol.input.ScannerInput;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.issue.index.IssueDoc;
@@ -39,12 +44,16 @@ import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.MediaTypes;
 
 import static com.google.common.collect.Maps.newHashMap;
+import static java.util.Collections.singletonList;
 import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.db.component.ComponentTreeQuery.Strategy.LEAVES;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 
 public class IssuesAction implements BatchWsAction {
 
   private static final String PARAM_KEY = "key";
+  private static final String PARAM_FILES = "files";
+  private static final String PARAM_FILE_KEYS = "fileKeys";
 
   private final DbClient dbClient;
   private final IssueIndex issueIndex;
@@ -72,6 +81,21 @@ public class IssuesAction implements BatchWsAction {
       .setRequired(true)
       .setDescription("Project, module or file key")
       .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+
+    action
+      .createParam(PARAM_FILES)
+      .setDescription("Whether issues on files are returned. When false, only issues on the project, its modules and its directories are returned, " +
+        "so that issues on files can be requested file by file. Ignored when key is a file key.")
+      .setDefaultValue(true)
+      .setBooleanPossibleValues()
+      .setSince("6.4");
+
+    action
+      .createParam(PARAM_FILE_KEYS)
+      .setDescription("Keys of files of the project. When set, only issues on these files are returned. Keys of files unknown to the server, " +
+        "for example new files, are ignored. To set several values, the parameter must be called once for each value. Ignored when key is a file key.")
+      .setExampleValue("fileKeys=my_project:src/foo/Bar.java&fileKeys=my_project:src/foo/Baz.java")
+      .setSince("6.4");
   }
 
   @Override
@@ -85,8 +109,10 @@ public class IssuesAction implements BatchWsAction {
 
       Map<String, String> keysByUUid = keysByUUid(session, component);
 
+      Iterator<IssueDoc> issueDocIterator = selectIssues(request, session, component, keysByUUid);
+
       ScannerInput.ServerIssue.Builder issueBuilder = ScannerInput.ServerIssue.newBuilder();
-      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component); issueDocIterator.hasNext();) {
+      while (issueDocIterator.hasNext()) {
         handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, response.stream().output());
       }
     }
@@ -133,6 +159,41 @@ public class IssuesAction implements BatchWsAction {
     issueBuilder.clear();
   }
 
+  private Iterator<IssueDoc> selectIssues(Request request, DbSession session, ComponentDto component, Map<String, String> keysByUUid) {
+    if (!Scopes.PROJECT.equals(component.scope())) {
+      return issueIndex.selectIssuesForBatch(component);
+    }
+    List<String> fileKeys = request.multiParam(PARAM_FILE_KEYS);
+    if (!fileKeys.isEmpty()) {
+      List<String> fileUuids = fileUuids(session, component, fileKeys);
+      return fileUuids.isEmpty() ? Collections.emptyIterator() : issueIndex.selectIssuesForBatch(component, fileUuids);
+    }
+    if (!request.mandatoryParamAsBoolean(PARAM_FILES)) {
+      return issueIndex.selectIssuesForBatch(component, nonFileComponentUuids(session, component, keysByUUid));
+    }
+    return issueIndex.selectIssuesForBatch(component);
+  }
+
+  private List<String> fileUuids(DbSession session, ComponentDto component, List<String> fileKeys) {
+    return dbClient.componentDao().selectByKeys(session, fileKeys).stream()
+      .filter(file -> Scopes.FILE.equals(file.scope()) && component.projectUuid().equals(file.projectUuid()))
+      .map(ComponentDto::uuid)
+      .collect(Collectors.toList());
+  }
+
+  private List<String> nonFileComponentUuids(DbSession session, ComponentDto component, Map<String, String> moduleKeysByUuid) {
+    List<String> uuids = new ArrayList<>(moduleKeysByUuid.keySet());
+    ComponentTreeQuery directoriesQuery = ComponentTreeQuery.builder()
+      .setBaseUuid(component.uuid())
+      .setQualifiers(singletonList(Qualifiers.DIRECTORY))
+      .setStrategy(LEAVES)
+      .build();
+    for (ComponentDto directory : dbClient.componentDao().selectDescendants(session, directoriesQuery)) {
+      uuids.add(directory.uuid());
+    }
+    return uuids;
+  }
+
   private Map<String, String> keysByUUid(DbSession session, ComponentDto component) {
     Map<String, String> keysByUUid = newHashMap();
     if (Scopes.PROJECT.equals(component.scope())) {
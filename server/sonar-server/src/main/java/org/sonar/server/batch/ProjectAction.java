@@ -19,12 +19,14 @@
  */
 package org.sonar.server.batch;
 
+import com.google.common.net.HttpHeaders;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.core.util.Uuids;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
@@ -32,6 +34,7 @@ import org.sonarqube.ws.WsBatch.WsProjectResponse.FileData.Builder;
 
 import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonar.server.ws.ETags.checkNotModified;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 
 public class ProjectAction implements BatchWsAction {
@@ -39,6 +42,9 @@ public class ProjectAction implements BatchWsAction {
   private static final String PARAM_KEY = "key";
   private static final String PARAM_PROFILE = "profile";
   private static final String PARAM_ISSUES_MODE = "issues_mode";
+  private static final String PARAM_SINCE_ANALYSIS = "since_analysis";
+  private static final String SECURED_SUFFIX = ".secured";
+  private static final String NO_STORE = "no-store";
 
   private final ProjectDataLoader projectDataLoader;
 
@@ -49,7 +55,10 @@ public class ProjectAction implements BatchWsAction {
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("project")
-      .setDescription("Return project repository")
+      .setDescription("Return project repository.<br/>" +
+        "Supports conditional requests: the header ETag of the response can be sent back in the header If-None-Match " +
+        "to get a 304 (Not Modified) response while project is not analyzed again and its settings are not changed. " +
+        "Responses containing secured settings have the header Cache-Control: no-store and must not be cached.")
       .setResponseExample(getClass().getResource("project-example.json"))
       .setSince("4.5")
       .setInternal(true)
@@ -71,23 +80,48 @@ public class ProjectAction implements BatchWsAction {
       .setDescription("Issues mode or not")
       .setDefaultValue(false)
       .setBooleanPossibleValues();
+
+    action
+      .createParam(PARAM_SINCE_ANALYSIS)
+      .setDescription("Id of the last analysis known by client. When set and still known by server, file data only contains " +
+        "the files changed since this analysis. In this case, the field 'delta' of the response is true.")
+      .setSince("6.4")
+      .setExampleValue(Uuids.UUID_EXAMPLE_01);
   }
 
   @Override
   public void handle(Request wsRequest, Response wsResponse) throws Exception {
-    ProjectRepositories data = projectDataLoader.load(ProjectDataQuery.create()
+    ProjectDataQuery query = ProjectDataQuery.create()
       .setModuleKey(wsRequest.mandatoryParam(PARAM_KEY))
       .setProfileName(wsRequest.param(PARAM_PROFILE))
-      .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE)));
+      .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE))
+      .setSinceAnalysis(wsRequest.param(PARAM_SINCE_ANALYSIS));
+    if (checkNotModified(wsRequest, wsResponse, projectDataLoader.loadETag(query))) {
+      return;
+    }
+    ProjectRepositories data = projectDataLoader.load(query);
+    if (hasSecuredSettings(data)) {
+      wsResponse.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+    }
 
     WsProjectResponse projectResponse = buildResponse(data);
     writeProtobuf(projectResponse, wsRequest, wsResponse);
   }
 
+  private static boolean hasSecuredSettings(ProjectRepositories data) {
+    return data.settings().values().stream()
+      .flatMap(settings -> settings.keySet().stream())
+      .anyMatch(key -> key.contains(SECURED_SUFFIX));
+  }
+
   private static WsProjectResponse buildResponse(ProjectRepositories data) {
     WsProjectResponse.Builder response = WsProjectResponse.newBuilder();
     setNullable(data.lastAnalysisDate(), response::setLastAnalysisDate, Date::getTime);
     response.setTimestamp(data.timestamp());
+    setNullable(data.lastAnalysisUuid(), response::setLastAnalysisUuid);
+    response.setDelta(data.isDelta());
+    response.setFilesCount(data.filesFingerprint().count());
+    response.setFilesChecksum(data.filesFingerprint().checksum());
     response.getMutableFileDataByModuleAndPath()
       .putAll(buildFileDataByModuleAndPath(data));
     response.getMutableSettingsByModule()
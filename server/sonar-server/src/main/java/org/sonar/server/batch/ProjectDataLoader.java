@@ -26,6 +26,8 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ServerSide;
@@ -33,12 +35,14 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.FilePathWithHashDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.ETags;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
@@ -61,12 +65,8 @@ public class ProjectDataLoader {
   public ProjectRepositories load(ProjectDataQuery query) {
     try (DbSession session = dbClient.openSession(false)) {
       ProjectRepositories data = new ProjectRepositories();
-      ComponentDto module = checkFoundWithOptional(dbClient.componentDao().selectByKey(session, query.getModuleKey()),
-        "Project or module with key '%s' is not found", query.getModuleKey());
-      checkRequest(isProjectOrModule(module), "Key '%s' belongs to a component which is not a Project", query.getModuleKey());
-
-      boolean hasScanPerm = userSession.hasComponentPermission(SCAN_EXECUTION, module) ||
-        userSession.hasPermission(OrganizationPermission.SCAN, module.getOrganizationUuid());
+      ComponentDto module = selectModule(session, query);
+      boolean hasScanPerm = hasScanPermission(module);
       boolean hasBrowsePerm = userSession.hasComponentPermission(USER, module);
       checkPermission(query.isIssuesMode(), hasScanPerm, hasBrowsePerm);
 
@@ -84,7 +84,8 @@ public class ProjectDataLoader {
 
       addSettingsToChildrenModules(data, query.getModuleKey(), Maps.<String, String>newHashMap(), treeModuleSettings, hasScanPerm);
       List<FilePathWithHashDto> files = searchFilesWithHashAndRevision(session, module);
-      addFileData(data, modulesTree, files);
+      addFileData(data, modulesTree, files, selectDeltaStart(session, module, query.getSinceAnalysis()));
+      data.setLastAnalysisUuid(selectLastAnalysisUuid(session, module));
 
       // FIXME need real value but actually only used to know if there is a previous analysis in local issue tracking mode so any value is
       // ok
@@ -94,6 +95,57 @@ public class ProjectDataLoader {
     }
   }
 
+  /**
+   * ETag of the data returned by {@link #load(ProjectDataQuery)}. Modules and files only change when an analysis
+   * is processed, so they are versioned by the last analysis. Settings have their own version.
+   */
+  public String loadETag(ProjectDataQuery query) {
+    try (DbSession session = dbClient.openSession(false)) {
+      ComponentDto module = selectModule(session, query);
+      boolean hasScanPerm = hasScanPermission(module);
+      checkPermission(query.isIssuesMode(), hasScanPerm, userSession.hasComponentPermission(USER, module));
+
+      return ETags.of(module.uuid(), query.isIssuesMode(), hasScanPerm, selectLastAnalysisUuid(session, module), query.getSinceAnalysis(),
+        dbClient.propertiesDao().selectProjectSettingsVersion(session, module.projectUuid()));
+    }
+  }
+
+  @CheckForNull
+  private String selectLastAnalysisUuid(DbSession session, ComponentDto module) {
+    return dbClient.snapshotDao().selectLastAnalysisByRootComponentUuid(session, module.projectUuid())
+      .map(SnapshotDto::getUuid)
+      .orElse(null);
+  }
+
+  /**
+   * Sources of files are persisted by Compute Engine after the analysis itself, so the files changed since
+   * an analysis are the ones updated after its build date. Returns {@code null} when the analysis is unknown,
+   * for example when it has been purged, so that all files are loaded.
+   */
+  @CheckForNull
+  private Long selectDeltaStart(DbSession session, ComponentDto module, @Nullable String sinceAnalysisUuid) {
+    if (sinceAnalysisUuid == null) {
+      return null;
+    }
+    return dbClient.snapshotDao().selectByUuid(session, sinceAnalysisUuid)
+      .filter(analysis -> module.projectUuid().equals(analysis.getComponentUuid()))
+      .filter(analysis -> SnapshotDto.STATUS_PROCESSED.equals(analysis.getStatus()))
+      .map(SnapshotDto::getBuildDate)
+      .orElse(null);
+  }
+
+  private ComponentDto selectModule(DbSession session, ProjectDataQuery query) {
+    ComponentDto module = checkFoundWithOptional(dbClient.componentDao().selectByKey(session, query.getModuleKey()),
+      "Project or module with key '%s' is not found", query.getModuleKey());
+    checkRequest(isProjectOrModule(module), "Key '%s' belongs to a component which is not a Project", query.getModuleKey());
+    return module;
+  }
+
+  private boolean hasScanPermission(ComponentDto module) {
+    return userSession.hasComponentPermission(SCAN_EXECUTION, module) ||
+      userSession.hasPermission(OrganizationPermission.SCAN, module.getOrganizationUuid());
+  }
+
   private static boolean isProjectOrModule(ComponentDto module) {
     if (!Scopes.PROJECT.equals(module.scope())) {
       return false;
@@ -172,15 +224,21 @@ public class ProjectDataLoader {
     return !key.contains(".secured") || hasScanPerm;
   }
 
-  private static void addFileData(ProjectRepositories data, List<ComponentDto> moduleChildren, List<FilePathWithHashDto> files) {
+  private static void addFileData(ProjectRepositories data, List<ComponentDto> moduleChildren, List<FilePathWithHashDto> files, @Nullable Long deltaStart) {
     Map<String, String> moduleKeysByUuid = newHashMap();
     for (ComponentDto module : moduleChildren) {
       moduleKeysByUuid.put(module.uuid(), module.key());
     }
 
+    data.setDelta(deltaStart != null);
     for (FilePathWithHashDto file : files) {
       FileData fileData = new FileData(file.getSrcHash(), file.getRevision());
-      data.addFileData(moduleKeysByUuid.get(file.getModuleUuid()), file.getPath(), fileData);
+      String moduleKey = moduleKeysByUuid.get(file.getModuleUuid());
+      if (deltaStart == null || file.getSrcUpdatedAt() >= deltaStart) {
+        data.addFileData(moduleKey, file.getPath(), fileData);
+      } else {
+        data.addUnchangedFile(moduleKey, file.getPath(), fileData);
+      }
     }
   }
 
@@ -27,6 +27,7 @@ public class ProjectDataQuery {
   private String projectOrModuleKey;
   private String profileName;
   private boolean issuesMode;
+  private String sinceAnalysis;
 
   private ProjectDataQuery() {
     // No direct call
@@ -60,6 +61,19 @@ public class ProjectDataQuery {
     return this;
   }
 
+  /**
+   * When set, only the files changed since this analysis are loaded
+   */
+  @CheckForNull
+  public String getSinceAnalysis() {
+    return sinceAnalysis;
+  }
+
+  public ProjectDataQuery setSinceAnalysis(@Nullable String sinceAnalysis) {
+    this.sinceAnalysis = sinceAnalysis;
+    return this;
+  }
+
   public static ProjectDataQuery create() {
     return new ProjectDataQuery();
   }
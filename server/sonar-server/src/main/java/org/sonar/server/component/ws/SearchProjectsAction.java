@@ -31,7 +31,10 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.commons.lang.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.server.ws.Change;
 import org.sonar.api.server.ws.Request;
@@ -48,9 +51,11 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.server.component.ws.FilterParser.Criterion;
+import org.sonar.server.es.EsUtils;
 import org.sonar.server.es.Facets;
 import org.sonar.server.es.SearchIdResult;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.es.ScrollCursor;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.measure.index.ProjectMeasuresIndex;
 import org.sonar.server.measure.index.ProjectMeasuresQuery;
@@ -67,6 +72,7 @@ import static java.util.Collections.emptyMap;
 import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.api.server.ws.WebService.Param.FIELDS;
+import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.core.util.stream.Collectors.toSet;
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.IS_FAVORITE_CRITERION;
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.newProjectMeasuresQuery;
@@ -74,6 +80,9 @@ import static org.sonar.server.measure.index.ProjectMeasuresIndex.SUPPORTED_FACE
 import static org.sonar.server.measure.index.ProjectMeasuresQuery.SORT_BY_NAME;
 import static org.sonar.server.ws.WsUtils.checkFoundWithOptional;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
+import static org.sonarqube.ws.client.component.ComponentsWsParameters.ACTION_SEARCH_PROJECTS;
+import static org.sonarqube.ws.client.component.ComponentsWsParameters.CONTROLLER_COMPONENTS;
+import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_FILTER;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_ORGANIZATION;
 import static org.sonarqube.ws.client.component.SearchProjectsRequest.DEFAULT_PAGE_SIZE;
@@ -172,6 +181,16 @@ public class SearchProjectsAction implements ComponentsWsAction {
       .setDescription("Ascending sort")
       .setBooleanPossibleValues()
       .setDefaultValue(true);
+    action.createParam(PARAM_CURSOR)
+      .setDescription(format("Cursor for deep pagination, which is not limited to the first %d results. " +
+        "Set to '%s' to request the first page, then to the value of the field 'cursor' of the previous response to request the next pages. " +
+        "The field 'cursor' is missing from the response of the last page. " +
+        "When this parameter is set, the parameter '%s' is ignored and the parameter '%s' is used only on first page. " +
+        "The other parameters must be the same on all pages, and a cursor can be used only by the user who requested the first page. " +
+        "A cursor expires %d minutes after the request of its previous page.",
+        SearchOptions.MAX_RETURNABLE_RESULTS, ScrollCursor.START, Param.PAGE, Param.PAGE_SIZE, EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setSince("6.4")
+      .setExampleValue(ScrollCursor.START);
   }
 
   @Override
@@ -221,15 +240,57 @@ public class SearchProjectsAction implements ComponentsWsAction {
 
     queryValidator.validate(dbSession, query);
 
-    SearchIdResult<String> esResults = index.search(query, new SearchOptions()
-      .addFacets(request.getFacets())
-      .setPage(request.getPage(), request.getPageSize()));
+    ScrollCursor cursor = parseCursor(request);
+    SearchIdResult<String> esResults = search(request, query, cursor);
+    if (cursor != null) {
+      clearScrollOfLastPage(cursor, esResults);
+    }
 
     List<String> projectUuids = esResults.getIds();
     Ordering<ComponentDto> ordering = Ordering.explicit(projectUuids).onResultOf(ComponentDto::uuid);
     List<ComponentDto> projects = ordering.immutableSortedCopy(dbClient.componentDao().selectByUuids(dbSession, projectUuids));
     Map<String, SnapshotDto> analysisByProjectUuid = getSnapshots(dbSession, request, projectUuids);
-    return new SearchResults(projects, favoriteProjectUuids, esResults, analysisByProjectUuid, query);
+    return new SearchResults(projects, favoriteProjectUuids, esResults, analysisByProjectUuid, query, cursor);
+  }
+
+  /**
+   * The cursor is bound to the user and to the criteria of the first page, as the scroll context
+   * keeps the authorization filter of the user who requested the first page.
+   */
+  @CheckForNull
+  private ScrollCursor parseCursor(SearchProjectsRequest request) {
+    String cursor = request.getCursor();
+    if (cursor == null) {
+      return null;
+    }
+    String query = new ReflectionToStringBuilder(request, ToStringStyle.SHORT_PREFIX_STYLE)
+      .setExcludeFieldNames(new String[] {"page", "pageSize", "cursor"})
+      .toString();
+    String context = ScrollCursor.context(userSession.getLogin(), CONTROLLER_COMPONENTS + "/" + ACTION_SEARCH_PROJECTS, query);
+    return ScrollCursor.parse(cursor, request.getPageSize(), context);
+  }
+
+  private void clearScrollOfLastPage(ScrollCursor cursor, SearchIdResult<String> esResults) {
+    String scrollId = esResults.getScrollId();
+    if (scrollId != null && cursor.isLastPage(esResults.getIds().size())) {
+      index.clearScroll(scrollId);
+    }
+  }
+
+  private SearchIdResult<String> search(SearchProjectsRequest request, ProjectMeasuresQuery query, @Nullable ScrollCursor cursor) {
+    if (cursor == null) {
+      return index.search(query, new SearchOptions()
+        .addFacets(request.getFacets())
+        .setPage(request.getPage(), request.getPageSize()));
+    }
+    if (cursor.isStart()) {
+      return index.search(query, new SearchOptions()
+        .addFacets(request.getFacets())
+        .setPage(1, cursor.getPageSize())
+        .setScroll(true));
+    }
+    // criteria and sort are kept in the scroll context of Elasticsearch
+    return index.scroll(cursor.getScrollId());
   }
 
   private static boolean hasFavoriteFilter(List<Criterion> criteria) {
@@ -277,7 +338,8 @@ public class SearchProjectsAction implements ComponentsWsAction {
       .setSort(httpRequest.mandatoryParam(Param.SORT))
       .setAsc(httpRequest.mandatoryParamAsBoolean(Param.ASCENDING))
       .setPage(httpRequest.mandatoryParamAsInt(Param.PAGE))
-      .setPageSize(httpRequest.mandatoryParamAsInt(Param.PAGE_SIZE));
+      .setPageSize(httpRequest.mandatoryParamAsInt(Param.PAGE_SIZE))
+      .setCursor(httpRequest.param(PARAM_CURSOR));
     if (httpRequest.hasParam(Param.FACETS)) {
       request.setFacets(httpRequest.paramAsStrings(Param.FACETS));
     }
@@ -293,9 +355,13 @@ public class SearchProjectsAction implements ComponentsWsAction {
 
     return Stream.of(SearchProjectsWsResponse.newBuilder())
       .map(response -> response.setPaging(Common.Paging.newBuilder()
-        .setPageIndex(request.getPage())
-        .setPageSize(request.getPageSize())
+        .setPageIndex(searchResults.cursor == null ? request.getPage() : searchResults.cursor.getPageIndex())
+        .setPageSize(searchResults.cursor == null ? request.getPageSize() : searchResults.cursor.getPageSize())
         .setTotal(searchResults.total)))
+      .map(response -> {
+        setNullable(searchResults.nextCursor, response::setCursor);
+        return response;
+      })
       .map(response -> {
         searchResults.projects.stream()
           .map(dbToWsComponent)
@@ -431,15 +497,19 @@ public class SearchProjectsAction implements ComponentsWsAction {
     private final Map<String, SnapshotDto> analysisByProjectUuid;
     private final ProjectMeasuresQuery query;
     private final int total;
+    private final ScrollCursor cursor;
+    private final String nextCursor;
 
     private SearchResults(List<ComponentDto> projects, Set<String> favoriteProjectUuids, SearchIdResult<String> searchResults, Map<String, SnapshotDto> analysisByProjectUuid,
-      ProjectMeasuresQuery query) {
+      ProjectMeasuresQuery query, @Nullable ScrollCursor cursor) {
       this.projects = projects;
       this.favoriteProjectUuids = favoriteProjectUuids;
       this.total = (int) searchResults.getTotal();
       this.facets = searchResults.getFacets();
       this.analysisByProjectUuid = analysisByProjectUuid;
       this.query = query;
+      this.cursor = cursor;
+      this.nextCursor = cursor == null ? null : cursor.formatNext(searchResults.getScrollId(), searchResults.getIds().size());
     }
   }
 }
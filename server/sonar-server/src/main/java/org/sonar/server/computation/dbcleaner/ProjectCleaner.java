@@ -20,6 +20,8 @@
 package org.sonar.server.computation.dbcleaner;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Settings;
@@ -31,6 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeInterruptedException;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
@@ -55,19 +58,59 @@ public class ProjectCleaner {
   }
 
   public ProjectCleaner purge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    return doPurge(session, idUuidPair, projectSettings, disabledComponentUuids,
+      configuration -> purgeDao.purge(session, configuration, purgeListener, profiler));
+  }
+
+  /**
+   * Same as {@link #purge(DbSession, IdUuidPair, Settings, Collection)}, except that the deletion of the partitions
+   * of the biggest tables is executed concurrently by {@code executor}, and that purge is stopped when the deadline is reached.
+   *
+   * @param deadline date in ms after which purge is stopped
+   * @throws PurgeInterruptedException if the deadline is reached. The data deleted so far is committed.
+   */
+  public ProjectCleaner purge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids,
+    Executor executor, long deadline) {
+    return doPurge(session, idUuidPair, projectSettings, disabledComponentUuids,
+      configuration -> purgeDao.purge(session, configuration, purgeListener, profiler, executor, deadline));
+  }
+
+  private ProjectCleaner doPurge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids,
+    Consumer<PurgeConfiguration> purge) {
     long start = System.currentTimeMillis();
     profiler.reset();
 
     PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
 
     cleanHistoricalData(session, configuration.rootProjectIdUuid().getUuid(), projectSettings);
-    doPurge(session, configuration);
+    try {
+      purge.accept(configuration);
+    } catch (PurgeInterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      // purge errors must not fail the report analysis
+      LOG.error("Fail to purge data [id=" + configuration.rootProjectIdUuid().getId() + "]", e);
+    }
 
     session.commit();
     logProfiling(start, projectSettings);
     return this;
   }
 
+  /**
+   * Cleans up only the components disabled by the last analysis. The historical data is kept.
+   */
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    } catch (Exception e) {
+      // purge errors must not fail the report analysis
+      LOG.error("Fail to purge disabled components [id=" + idUuidPair.getId() + "]", e);
+    }
+    return this;
+  }
+
   private void logProfiling(long start, Settings settings) {
     if (settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
       long duration = System.currentTimeMillis() - start;
@@ -81,17 +124,8 @@ public class ProjectCleaner {
     try {
       periodCleaner.clean(session, rootUuid, settings);
     } catch (Exception e) {
-      // purge errors must no fail the batch
+      // purge errors must not fail the batch
       LOG.error("Fail to clean historical data [uuid=" + rootUuid + "]", e);
     }
   }
-
-  private void doPurge(DbSession session, PurgeConfiguration configuration) {
-    try {
-      purgeDao.purge(session, configuration, purgeListener, profiler);
-    } catch (Exception e) {
-      // purge errors must no fail the report analysis
-      LOG.error("Fail to purge data [id=" + configuration.rootProjectIdUuid().getId() + "]", e);
-    }
-  }
 }
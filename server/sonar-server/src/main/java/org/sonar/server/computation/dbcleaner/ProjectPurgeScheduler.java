@@ -0,0 +1,179 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.CheckForNull;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeInterruptedException;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Purges the history of projects in background, so that housekeeping does not slow down the processing of analysis reports.
+ * <p>
+ * Projects are purged in time slices: a slice purges the pending projects one after the other until
+ * {@link #SLICE_DURATION_MS} is elapsed, then the next slice starts after a pause of {@link #PAUSE_BETWEEN_SLICES_MS}.
+ * The end of the slice is checked between the tables and the partitions of tables, so the purge of a big project
+ * can be spread over several slices. A project scheduled several times before being purged is purged only once.
+ * </p>
+ * <p>
+ * Pending purges are lost when the Compute Engine stops. As purge always processes the whole history of a project,
+ * they are caught up by the next analysis of each project.
+ * </p>
+ */
+@ComputeEngineSide
+public class ProjectPurgeScheduler {
+
+  private static final Logger LOGGER = Loggers.get(ProjectPurgeScheduler.class);
+
+  @VisibleForTesting
+  static final long SLICE_DURATION_MS = 30_000L;
+  @VisibleForTesting
+  static final long PAUSE_BETWEEN_SLICES_MS = 5_000L;
+
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final PurgeExecutorService executorService;
+  private final System2 system;
+
+  // guarded by this
+  private final Map<String, PurgeRequest> pendingRequests = new LinkedHashMap<>();
+  // guarded by this
+  private boolean sliceScheduled = false;
+
+  public ProjectPurgeScheduler(DbClient dbClient, ProjectCleaner projectCleaner, PurgeExecutorService executorService, System2 system) {
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.executorService = executorService;
+    this.system = system;
+  }
+
+  /**
+   * Queues the purge of the project or view and returns immediately.
+   */
+  public void schedule(IdUuidPair rootIdUuid, Settings rootSettings) {
+    synchronized (this) {
+      pendingRequests.put(rootIdUuid.getUuid(), new PurgeRequest(rootIdUuid, rootSettings));
+      if (sliceScheduled) {
+        return;
+      }
+      sliceScheduled = true;
+    }
+    try {
+      executorService.execute(this::runSlice);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("Purge of project [uuid={}] is not scheduled, the Compute Engine is stopping", rootIdUuid.getUuid());
+      synchronized (this) {
+        sliceScheduled = false;
+      }
+    }
+  }
+
+  public synchronized int getPendingCount() {
+    return pendingRequests.size();
+  }
+
+  @VisibleForTesting
+  void runSlice() {
+    long sliceEnd = system.now() + SLICE_DURATION_MS;
+    PurgeRequest request = pollRequest();
+    while (request != null) {
+      if (!purge(request, sliceEnd) || system.now() >= sliceEnd) {
+        scheduleNextSlice();
+        return;
+      }
+      request = pollRequest();
+    }
+  }
+
+  @CheckForNull
+  private synchronized PurgeRequest pollRequest() {
+    Iterator<PurgeRequest> it = pendingRequests.values().iterator();
+    if (!it.hasNext()) {
+      sliceScheduled = false;
+      return null;
+    }
+    PurgeRequest request = it.next();
+    it.remove();
+    return request;
+  }
+
+  /**
+   * The purge of a project interrupted at the end of a slice is resumed in a next slice, unless the
+   * project is already scheduled again.
+   */
+  private synchronized void resumeLater(PurgeRequest request) {
+    pendingRequests.putIfAbsent(request.rootIdUuid.getUuid(), request);
+  }
+
+  private void scheduleNextSlice() {
+    try {
+      executorService.schedule(this::runSlice, PAUSE_BETWEEN_SLICES_MS, MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Purge is interrupted, the Compute Engine is stopping");
+    }
+  }
+
+  /**
+   * @return false if purge is interrupted because the end of slice is reached
+   */
+  private boolean purge(PurgeRequest request, long sliceEnd) {
+    long start = system.now();
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      try {
+        projectCleaner.purge(dbSession, request.rootIdUuid, request.rootSettings, emptyList(), executorService, sliceEnd);
+        LOGGER.debug("Purged project [uuid={}] in {}ms", request.rootIdUuid.getUuid(), system.now() - start);
+      } catch (PurgeInterruptedException e) {
+        LOGGER.debug("Purge of project [uuid={}] is interrupted after {}ms, it will be resumed later", request.rootIdUuid.getUuid(), system.now() - start);
+        resumeLater(request);
+        return false;
+      } finally {
+        dbSession.commit();
+      }
+    } catch (Exception e) {
+      // the other projects must still be purged
+      LOGGER.error("Fail to purge project [uuid=" + request.rootIdUuid.getUuid() + "]", e);
+    }
+    return true;
+  }
+
+  private static final class PurgeRequest {
+    private final IdUuidPair rootIdUuid;
+    private final Settings rootSettings;
+
+    private PurgeRequest(IdUuidPair rootIdUuid, Settings rootSettings) {
+      this.rootIdUuid = rootIdUuid;
+      this.rootSettings = rootSettings;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.server.util.AbstractStoppableScheduledExecutorServiceImpl;
+
+/**
+ * Pool of threads dedicated to the purge of projects. One thread at a time runs the time slices of
+ * {@link ProjectPurgeScheduler}, the others delete the partitions of tables concurrently.
+ */
+@ComputeEngineSide
+public class PurgeExecutorServiceImpl extends AbstractStoppableScheduledExecutorServiceImpl<ScheduledExecutorService>
+  implements PurgeExecutorService {
+
+  static final int THREAD_COUNT = 4;
+
+  public PurgeExecutorServiceImpl() {
+    super(
+      Executors.newScheduledThreadPool(THREAD_COUNT,
+        new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("Purge-%d")
+          .build()));
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.monitoring;
 
+import java.util.Map;
+
 public interface CeDatabaseMBean {
 
   String OBJECT_NAME = "SonarQube:name=ComputeEngineDatabaseConnection";
@@ -40,4 +42,12 @@ public interface CeDatabaseMBean {
   boolean getPoolRemoveAbandoned();
 
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  String getPoolImplementation();
+
+  int getPoolWaitingThreads();
+
+  long getPoolAcquisitionFailures();
+
+  Map<String, Long> getPoolAcquisitionHistogram();
 }
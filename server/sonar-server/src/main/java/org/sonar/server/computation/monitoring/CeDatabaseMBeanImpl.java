@@ -19,8 +19,10 @@
  */
 package org.sonar.server.computation.monitoring;
 
-import org.apache.commons.dbcp.BasicDataSource;
+import com.google.common.base.Joiner;
+import java.util.Map;
 import org.picocontainer.Startable;
+import org.sonar.db.ConnectionPoolStats;
 import org.sonar.db.DbClient;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
@@ -48,51 +50,71 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
 
   @Override
   public int getPoolActiveConnections() {
-    return commonsDbcp().getNumActive();
+    return pool().getActiveConnections();
   }
 
   @Override
   public int getPoolMaxActiveConnections() {
-    return commonsDbcp().getMaxActive();
+    return pool().getMaxActiveConnections();
   }
 
   @Override
   public int getPoolIdleConnections() {
-    return commonsDbcp().getNumIdle();
+    return pool().getIdleConnections();
   }
 
   @Override
   public int getPoolMaxIdleConnections() {
-    return commonsDbcp().getMaxIdle();
+    return pool().getMaxIdleConnections();
   }
 
   @Override
   public int getPoolMinIdleConnections() {
-    return commonsDbcp().getMinIdle();
+    return pool().getMinIdleConnections();
   }
 
   @Override
   public int getPoolInitialSize() {
-    return commonsDbcp().getInitialSize();
+    return pool().getInitialSize();
   }
 
   @Override
   public long getPoolMaxWaitMillis() {
-    return commonsDbcp().getMaxWait();
+    return pool().getMaxWaitMillis();
   }
 
   @Override
   public boolean getPoolRemoveAbandoned() {
-    return commonsDbcp().getRemoveAbandoned();
+    return pool().isLeakDetectionEnabled();
   }
 
   @Override
   public int getPoolRemoveAbandonedTimeoutSeconds() {
-    return commonsDbcp().getRemoveAbandonedTimeout();
+    return (int) (pool().getLeakDetectionThresholdMillis() / 1_000L);
   }
 
-  private BasicDataSource commonsDbcp() {
-    return (BasicDataSource) dbClient.getDatabase().getDataSource();
+  @Override
+  public String getPoolImplementation() {
+    return pool().getImplementation();
+  }
+
+  @Override
+  public int getPoolWaitingThreads() {
+    return pool().getWaitingThreads();
+  }
+
+  @Override
+  public long getPoolAcquisitionFailures() {
+    return pool().getAcquisitionFailures();
+  }
+
+  @Override
+  public Map<String, Long> getPoolAcquisitionHistogram() {
+    return pool().getAcquisitionHistogram();
+  }
+
+  private ConnectionPoolStats pool() {
+    return ConnectionPoolStats.of(dbClient.getDatabase().getDataSource());
   }
 
   @Override
@@ -108,6 +130,10 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     builder.addAttributesBuilder().setKey("Pool Max Wait (ms)").setLongValue(getPoolMaxWaitMillis()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned").setBooleanValue(getPoolRemoveAbandoned()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned Timeout (sec)").setLongValue(getPoolRemoveAbandonedTimeoutSeconds()).build();
+    builder.addAttributesBuilder().setKey("Pool Implementation").setStringValue(getPoolImplementation()).build();
+    builder.addAttributesBuilder().setKey("Pool Waiting Threads").setLongValue(getPoolWaitingThreads()).build();
+    builder.addAttributesBuilder().setKey("Pool Acquisition Failures").setLongValue(getPoolAcquisitionFailures()).build();
+    builder.addAttributesBuilder().setKey("Pool Acquisition Time").setStringValue(Joiner.on(", ").withKeyValueSeparator(": ").join(getPoolAcquisitionHistogram())).build();
     return builder.build();
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStatus;
+
+public class WebhookDeliveriesMBeanImpl implements WebhookDeliveriesMBean, Startable, SystemInfoSection {
+  private final WebhookDeliveryStatus status;
+
+  public WebhookDeliveriesMBeanImpl(WebhookDeliveryStatus status) {
+    this.status = status;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getPendingCount() {
+    return status.getPendingCount();
+  }
+
+  @Override
+  public long getSuccessCount() {
+    return status.getSuccessCount();
+  }
+
+  @Override
+  public long getFailureCount() {
+    return status.getFailureCount();
+  }
+
+  @Override
+  public long getRetryCount() {
+    return status.getRetryCount();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return status.getRejectedCount();
+  }
+
+  @Override
+  public long getDroppedCount() {
+    return status.getDroppedCount();
+  }
+
+  @Override
+  public long getAverageLatency() {
+    long completed = status.getSuccessCount() + status.getFailureCount();
+    return completed == 0 ? 0L : (status.getLatency() / completed);
+  }
+
+  @Override
+  public long getMaxLatency() {
+    return status.getMaxLatency();
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Webhooks");
+    builder.addAttributesBuilder().setKey("Pending").setLongValue(getPendingCount()).build();
+    builder.addAttributesBuilder().setKey("Delivered With Success").setLongValue(getSuccessCount()).build();
+    builder.addAttributesBuilder().setKey("Delivered With Error").setLongValue(getFailureCount()).build();
+    builder.addAttributesBuilder().setKey("Retries").setLongValue(getRetryCount()).build();
+    builder.addAttributesBuilder().setKey("Rejected").setLongValue(getRejectedCount()).build();
+    builder.addAttributesBuilder().setKey("Dropped").setLongValue(getDroppedCount()).build();
+    builder.addAttributesBuilder().setKey("Average Latency (ms)").setLongValue(getAverageLatency()).build();
+    builder.addAttributesBuilder().setKey("Max Latency (ms)").setLongValue(getMaxLatency()).build();
+    return builder.build();
+  }
+}
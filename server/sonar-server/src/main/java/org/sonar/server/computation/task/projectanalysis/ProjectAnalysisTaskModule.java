@@ -19,10 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis;
 
+import org.sonar.server.computation.monitoring.WebhookDeliveriesMBeanImpl;
 import org.sonar.server.computation.queue.ReportSubmitter;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactoryImpl;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
+import org.sonar.server.computation.task.projectanalysis.webhook.AsyncWebhookDispatcher;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookCallerImpl;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStatus;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookExecutorServiceImpl;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 
 public class ProjectAnalysisTaskModule extends Module {
@@ -33,6 +39,14 @@ public class ProjectAnalysisTaskModule extends Module {
       ContainerFactoryImpl.class,
       ComputationStepExecutor.class,
       ReportTaskProcessor.class,
-      ReportSubmitter.class);
+      ReportSubmitter.class,
+
+      // webhooks, shared by all tasks so that deliveries are sent asynchronously
+      WebhookCallerImpl.class,
+      WebhookDeliveryStorage.class,
+      WebhookExecutorServiceImpl.class,
+      WebhookDeliveryStatus.class,
+      WebhookDeliveriesMBeanImpl.class,
+      AsyncWebhookDispatcher.class);
   }
 }
@@ -68,6 +68,14 @@ public interface AnalysisMetadataHolder {
    */
   boolean isCrossProjectDuplicationEnabled();
 
+  /**
+   * In an incremental analysis, the report carries no data for the files which have not changed since the previous
+   * analysis.
+   *
+   * @throws IllegalStateException if incremental analysis flag has not been set
+   */
+  boolean isIncrementalAnalysis();
+
   /**
    * @throws IllegalStateException if branch has not been set
    */
@@ -36,6 +36,7 @@ public class AnalysisMetadataHolderImpl implements MutableAnalysisMetadataHolder
   private final InitializedProperty<Long> analysisDate = new InitializedProperty<>();
   private final InitializedProperty<Analysis> baseProjectSnapshot = new InitializedProperty<>();
   private final InitializedProperty<Boolean> crossProjectDuplicationEnabled = new InitializedProperty<>();
+  private final InitializedProperty<Boolean> incrementalAnalysis = new InitializedProperty<>();
   private final InitializedProperty<String> branch = new InitializedProperty<>();
   private final InitializedProperty<Integer> rootComponentRef = new InitializedProperty<>();
   private final InitializedProperty<Map<String, QualityProfile>> qProfilesPerLanguage = new InitializedProperty<>();
@@ -118,6 +119,19 @@ public class AnalysisMetadataHolderImpl implements MutableAnalysisMetadataHolder
     return crossProjectDuplicationEnabled.getProperty();
   }
 
+  @Override
+  public MutableAnalysisMetadataHolder setIncrementalAnalysis(boolean isIncrementalAnalysis) {
+    checkState(!this.incrementalAnalysis.isInitialized(), "Incremental analysis flag has already been set");
+    this.incrementalAnalysis.setProperty(isIncrementalAnalysis);
+    return this;
+  }
+
+  @Override
+  public boolean isIncrementalAnalysis() {
+    checkState(incrementalAnalysis.isInitialized(), "Incremental analysis flag has not been set");
+    return incrementalAnalysis.getProperty();
+  }
+
   @Override
   public MutableAnalysisMetadataHolder setBranch(@Nullable String branch) {
     checkState(!this.branch.isInitialized(), "Branch has already been set");
@@ -50,6 +50,11 @@ public interface MutableAnalysisMetadataHolder extends AnalysisMetadataHolder {
    */
   MutableAnalysisMetadataHolder setCrossProjectDuplicationEnabled(boolean isCrossProjectDuplicationEnabled);
 
+  /**
+   * @throws IllegalStateException if incremental analysis flag has already been set
+   */
+  MutableAnalysisMetadataHolder setIncrementalAnalysis(boolean isIncrementalAnalysis);
+
   /**
    * @throws IllegalStateException if branch has already been set
    */
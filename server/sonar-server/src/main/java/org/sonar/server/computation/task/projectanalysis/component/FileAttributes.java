@@ -34,12 +34,18 @@ public class FileAttributes {
   @CheckForNull
   private final String languageKey;
   private final int lines;
+  private final boolean unchanged;
 
   public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines) {
+    this(unitTest, languageKey, lines, false);
+  }
+
+  public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines, boolean unchanged) {
     this.unitTest = unitTest;
     this.languageKey = languageKey;
     checkArgument(lines > 0, "Number of lines must be greater than zero");
     this.lines = lines;
+    this.unchanged = unchanged;
   }
 
   public boolean isUnitTest() {
@@ -58,6 +64,15 @@ public class FileAttributes {
     return lines;
   }
 
+  /**
+   * Whether the scanner reported the file as not modified since the previous analysis. In an incremental analysis
+   * (see {@link org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder#isIncrementalAnalysis()}),
+   * the report carries no data for such file.
+   */
+  public boolean isUnchanged() {
+    return unchanged;
+  }
+
   @Override
   public String toString() {
     return "FileAttributes{" +
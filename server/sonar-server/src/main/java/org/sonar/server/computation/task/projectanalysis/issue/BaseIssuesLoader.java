@@ -19,9 +19,13 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import com.google.common.collect.Lists;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.core.issue.DefaultIssue;
@@ -29,9 +33,16 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolder;
 
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+
 /**
  * Loads all the project open issues from database, including manual issues.
  *
@@ -43,6 +54,16 @@ public class BaseIssuesLoader {
   private final RuleRepository ruleRepository;
   private final ActiveRulesHolder activeRulesHolder;
 
+  /**
+   * Partitions of the uuids of the unchanged files, in the order they are visited. Lazily loaded.
+   */
+  @CheckForNull
+  private List<List<String>> unchangedFilePartitions;
+  @CheckForNull
+  private Map<String, Integer> partitionIndexByUnchangedFileUuid;
+  private int loadedPartitionIndex = -1;
+  private final Map<String, List<DefaultIssue>> issuesOfLoadedPartition = new HashMap<>();
+
   public BaseIssuesLoader(TreeRootHolder treeRootHolder,
     DbClient dbClient, RuleRepository ruleRepository, ActiveRulesHolder activeRulesHolder) {
     this.activeRulesHolder = activeRulesHolder;
@@ -54,21 +75,74 @@ public class BaseIssuesLoader {
   public List<DefaultIssue> loadForComponentUuid(String componentUuid) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<DefaultIssue> result = new ArrayList<>();
-      dbSession.getMapper(IssueMapper.class).selectNonClosedByComponentUuid(componentUuid, resultContext -> {
-        DefaultIssue issue = ((IssueDto) resultContext.getResultObject()).toDefaultIssue();
+      dbSession.getMapper(IssueMapper.class).selectNonClosedByComponentUuid(componentUuid,
+        resultContext -> result.add(toDefaultIssue((IssueDto) resultContext.getResultObject())));
+      return result;
+    }
+  }
 
-        // TODO this field should be set outside this class
-        if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
-          issue.setOnDisabledRule(true);
-          // TODO to be improved, why setOnDisabledRule(true) is not enough ?
-          issue.setBeingClosed(true);
+  /**
+   * Same as {@link #loadForComponentUuid(String)} for an unchanged file of an incremental analysis. The issues of
+   * the unchanged files are loaded by partitions of files, in the order files are visited, rather than file per file.
+   */
+  public List<DefaultIssue> loadForUnchangedFile(Component file) {
+    if (partitionIndexByUnchangedFileUuid == null) {
+      initUnchangedFilePartitions();
+    }
+    Integer partitionIndex = partitionIndexByUnchangedFileUuid.get(file.getUuid());
+    if (partitionIndex == null) {
+      return loadForComponentUuid(file.getUuid());
+    }
+    if (partitionIndex != loadedPartitionIndex) {
+      loadUnchangedFilePartition(partitionIndex);
+    }
+    List<DefaultIssue> issues = issuesOfLoadedPartition.remove(file.getUuid());
+    return issues == null ? new ArrayList<>() : issues;
+  }
+
+  private void initUnchangedFilePartitions() {
+    List<String> fileUuids = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+        @Override
+        public void visitFile(Component file) {
+          if (file.getFileAttributes().isUnchanged()) {
+            fileUuids.add(file.getUuid());
+          }
         }
-        // FIXME
-        issue.setSelectedAt(System.currentTimeMillis());
-        result.add(issue);
+      }).visit(treeRootHolder.getRoot());
+    unchangedFilePartitions = Lists.partition(fileUuids, PARTITION_SIZE_FOR_ORACLE);
+    partitionIndexByUnchangedFileUuid = new HashMap<>();
+    for (int i = 0; i < unchangedFilePartitions.size(); i++) {
+      for (String fileUuid : unchangedFilePartitions.get(i)) {
+        partitionIndexByUnchangedFileUuid.put(fileUuid, i);
+      }
+    }
+  }
+
+  private void loadUnchangedFilePartition(int partitionIndex) {
+    issuesOfLoadedPartition.clear();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbSession.getMapper(IssueMapper.class).selectNonClosedByComponentUuids(unchangedFilePartitions.get(partitionIndex), resultContext -> {
+        DefaultIssue issue = toDefaultIssue((IssueDto) resultContext.getResultObject());
+        issuesOfLoadedPartition.computeIfAbsent(issue.componentUuid(), uuid -> new ArrayList<>()).add(issue);
       });
-      return result;
     }
+    loadedPartitionIndex = partitionIndex;
+  }
+
+  private DefaultIssue toDefaultIssue(IssueDto dto) {
+    DefaultIssue issue = dto.toDefaultIssue();
+
+    // TODO this field should be set outside this class
+    if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
+      issue.setOnDisabledRule(true);
+      // TODO to be improved, why setOnDisabledRule(true) is not enough ?
+      issue.setBeingClosed(true);
+    }
+    // FIXME
+    issue.setSelectedAt(System.currentTimeMillis());
+    return issue;
   }
 
   private boolean isActive(RuleKey ruleKey) {
@@ -25,10 +25,12 @@ import java.util.List;
 import java.util.Map;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracking;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolder;
 import org.sonar.server.util.cache.DiskCache;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
@@ -42,11 +44,15 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private final MutableComponentIssuesRepository componentIssuesRepository;
   private final ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues;
   private final MovedFilesRepository movedFilesRepository;
+  private final BaseIssuesLoader baseIssuesLoader;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final ActiveRulesHolder activeRulesHolder;
 
   private final List<DefaultIssue> componentIssues = new ArrayList<>();
 
   public IntegrateIssuesVisitor(TrackerExecution tracker, IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
-    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues, MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository) {
+    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues, MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository,
+    BaseIssuesLoader baseIssuesLoader, AnalysisMetadataHolder analysisMetadataHolder, ActiveRulesHolder activeRulesHolder) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.tracker = tracker;
     this.issueCache = issueCache;
@@ -55,6 +61,9 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     this.componentsWithUnprocessedIssues = componentsWithUnprocessedIssues;
     this.componentIssuesRepository = componentIssuesRepository;
     this.movedFilesRepository = movedFilesRepository;
+    this.baseIssuesLoader = baseIssuesLoader;
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.activeRulesHolder = activeRulesHolder;
   }
 
   @Override
@@ -73,11 +82,16 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private void processIssues(Component component) {
     DiskCache<DefaultIssue>.DiskAppender cacheAppender = issueCache.newAppender();
     try {
-      Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
-      issueVisitors.beforeComponent(component);
-      fillNewOpenIssues(component, tracking, cacheAppender);
-      fillExistingOpenIssues(component, tracking, cacheAppender);
-      closeUnmatchedBaseIssues(component, tracking, cacheAppender);
+      if (isUnchangedFileOfIncrementalAnalysis(component)) {
+        issueVisitors.beforeComponent(component);
+        copyBaseIssues(component, cacheAppender);
+      } else {
+        Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
+        issueVisitors.beforeComponent(component);
+        fillNewOpenIssues(component, tracking, cacheAppender);
+        fillExistingOpenIssues(component, tracking, cacheAppender);
+        closeUnmatchedBaseIssues(component, tracking, cacheAppender);
+      }
       issueVisitors.afterComponent(component);
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to process issues of component '%s'", component.getKey()), e);
@@ -86,6 +100,26 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     }
   }
 
+  private boolean isUnchangedFileOfIncrementalAnalysis(Component component) {
+    return component.getType() == Component.Type.FILE
+      && component.getFileAttributes().isUnchanged()
+      && analysisMetadataHolder.isIncrementalAnalysis();
+  }
+
+  /**
+   * The report of an incremental analysis carries no issue for unchanged files, their open issues are kept as they are,
+   * except those of rules which are no longer active.
+   */
+  private void copyBaseIssues(Component component, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
+    for (DefaultIssue issue : baseIssuesLoader.loadForUnchangedFile(component)) {
+      if (!activeRulesHolder.get(issue.ruleKey()).isPresent()) {
+        issue.setOnDisabledRule(true);
+        issue.setBeingClosed(true);
+      }
+      process(component, issue, cacheAppender);
+    }
+  }
+
   private void fillNewOpenIssues(Component component, Tracking<DefaultIssue, DefaultIssue> tracking, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     for (DefaultIssue issue : tracking.getUnmatchedRaws()) {
       issueLifecycle.initNewOpenIssue(issue);
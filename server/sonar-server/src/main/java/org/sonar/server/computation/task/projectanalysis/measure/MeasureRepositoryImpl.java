@@ -21,23 +21,35 @@ package org.sonar.server.computation.task.projectanalysis.measure;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.db.measure.MeasureQuery;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.ReportMetricValidator;
 
+import static com.google.common.collect.FluentIterable.from;
 import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
 public class MeasureRepositoryImpl implements MeasureRepository {
   private final MapBasedRawMeasureRepository<Integer> delegate = new MapBasedRawMeasureRepository<>(toReportRef());
@@ -46,16 +58,25 @@ public class MeasureRepositoryImpl implements MeasureRepository {
   private final BatchMeasureToMeasure batchMeasureToMeasure;
   private final MetricRepository metricRepository;
   private final ReportMetricValidator reportMetricValidator;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final TreeRootHolder treeRootHolder;
 
   private MeasureDtoToMeasure underTest = new MeasureDtoToMeasure();
   private final Set<Integer> loadedComponents = new HashSet<>();
+  @CheckForNull
+  private List<Integer> reportMetricIds;
+  @CheckForNull
+  private Map<String, List<MeasureDto>> previousMeasuresByUnchangedFileUuid;
 
-  public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator) {
+  public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator,
+    AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder treeRootHolder) {
     this.dbClient = dbClient;
     this.reportReader = reportReader;
     this.reportMetricValidator = reportMetricValidator;
     this.batchMeasureToMeasure = new BatchMeasureToMeasure();
     this.metricRepository = metricRepository;
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.treeRootHolder = treeRootHolder;
   }
 
   @Override
@@ -123,7 +144,79 @@ public class MeasureRepositoryImpl implements MeasureRepository {
         }
       }
     }
+    if (isCarriedOver(component)) {
+      loadPreviousMeasuresForComponent(component);
+    }
     loadedComponents.add(component.getReportAttributes().getRef());
   }
 
+  private boolean isCarriedOver(Component component) {
+    return component.getType() == Component.Type.FILE
+      && component.getFileAttributes().isUnchanged()
+      && analysisMetadataHolder.isIncrementalAnalysis();
+  }
+
+  /**
+   * The report of an incremental analysis carries no measure for unchanged files: the measures the scanner would have
+   * computed on them are those of the previous analysis. Variations and quality gate status are computed again.
+   */
+  private void loadPreviousMeasuresForComponent(Component component) {
+    if (previousMeasuresByUnchangedFileUuid == null) {
+      previousMeasuresByUnchangedFileUuid = loadPreviousMeasuresOfUnchangedFiles();
+    }
+    List<MeasureDto> measureDtos = previousMeasuresByUnchangedFileUuid.remove(component.getUuid());
+    if (measureDtos == null) {
+      return;
+    }
+    for (MeasureDto measureDto : measureDtos) {
+      Metric metric = metricRepository.getById(measureDto.getMetricId());
+      measureDto.setVariation(null).setAlertStatus(null).setAlertText(null);
+      Optional<Measure> measure = underTest.toMeasure(measureDto, metric);
+      if (measure.isPresent()) {
+        delegate.add(component, metric, measure.get(), OverridePolicy.DO_NOT_OVERRIDE);
+      }
+    }
+  }
+
+  /**
+   * Measures of the previous analysis of all the unchanged files, loaded at once rather than file per file
+   */
+  private Map<String, List<MeasureDto>> loadPreviousMeasuresOfUnchangedFiles() {
+    Map<String, List<MeasureDto>> result = new HashMap<>();
+    List<Integer> metricIds = getReportMetricIds();
+    List<String> fileUuids = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+        @Override
+        public void visitFile(Component file) {
+          if (file.getFileAttributes().isUnchanged()) {
+            fileUuids.add(file.getUuid());
+          }
+        }
+      }).visit(treeRootHolder.getRoot());
+    if (metricIds.isEmpty() || fileUuids.isEmpty()) {
+      return result;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      MeasureQuery query = MeasureQuery.builder()
+        .setComponentUuids(treeRootHolder.getRoot().getUuid(), fileUuids)
+        .setMetricIds(metricIds)
+        .build();
+      for (MeasureDto measureDto : dbClient.measureDao().selectByQuery(dbSession, query)) {
+        result.computeIfAbsent(measureDto.getComponentUuid(), uuid -> new ArrayList<>()).add(measureDto);
+      }
+    }
+    return result;
+  }
+
+  private List<Integer> getReportMetricIds() {
+    if (reportMetricIds == null) {
+      reportMetricIds = from(metricRepository.getAll())
+        .filter(metric -> reportMetricValidator.validate(metric.getKey()))
+        .transform(Metric::getId)
+        .toList();
+    }
+    return reportMetricIds;
+  }
+
 }
@@ -100,13 +100,20 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
     try (DbSession dbSession = dbClient.openSession(false)) {
       FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
-      if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
+      if (dto == null || (!isUnchangedFileOfIncrementalAnalysis(file) && !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash()))) {
         return NoScmInfo.INSTANCE;
       }
       return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
     }
   }
 
+  /**
+   * Source of unchanged files is not in the report of an incremental analysis, the one in db is known to be up-to-date.
+   */
+  private boolean isUnchangedFileOfIncrementalAnalysis(Component file) {
+    return file.getFileAttributes().isUnchanged() && analysisMetadataHolder.isIncrementalAnalysis();
+  }
+
   private static ScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
     LOGGER.trace("Reading SCM info from report for file '{}'", file.getKey());
     return new ReportScmInfo(changesets);
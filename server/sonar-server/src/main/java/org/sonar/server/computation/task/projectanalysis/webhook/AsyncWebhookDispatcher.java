@@ -0,0 +1,193 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Sends webhooks asynchronously with {@link WebhookExecutorService}, retries the deliveries failing because
+ * of network errors or server errors (HTTP 5xx), then persists the final delivery with {@link WebhookDeliveryStorage}.
+ * <p>
+ * The number of pending deliveries is bounded. When the limit is reached, deliveries are not sent and are persisted
+ * as failed.
+ * </p>
+ * <p>
+ * On stop, pending deliveries are given {@link #STOP_TIMEOUT_MS} to complete. The deliveries still pending after
+ * this delay are dropped: they are logged and counted, but not persisted.
+ * </p>
+ */
+@ComputeEngineSide
+public class AsyncWebhookDispatcher implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(AsyncWebhookDispatcher.class);
+
+  @VisibleForTesting
+  static final int MAX_PENDING_DELIVERIES = 1_000;
+  @VisibleForTesting
+  static final int MAX_ATTEMPTS = 3;
+  @VisibleForTesting
+  static final long INITIAL_BACKOFF_MS = 1_000L;
+  @VisibleForTesting
+  static final long STOP_TIMEOUT_MS = 10_000L;
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final WebhookExecutorService executorService;
+  private final WebhookDeliveryStatus status;
+  private final System2 system;
+  private final Set<PendingDelivery> pendingDeliveries = ConcurrentHashMap.newKeySet();
+
+  public AsyncWebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, WebhookExecutorService executorService,
+    WebhookDeliveryStatus status, System2 system) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.executorService = executorService;
+    this.status = status;
+    this.system = system;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    executorService.shutdown();
+    try {
+      if (!executorService.awaitTermination(STOP_TIMEOUT_MS, MILLISECONDS)) {
+        executorService.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executorService.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    pendingDeliveries.forEach(this::drop);
+  }
+
+  /**
+   * Queues the delivery of the webhook and returns immediately.
+   */
+  public void dispatch(Webhook webhook, WebhookPayload payload) {
+    long requestedAt = system.now();
+    if (!status.tryAddPending(MAX_PENDING_DELIVERIES)) {
+      reject(webhook, payload, requestedAt, new IllegalStateException("Too many pending webhook deliveries"));
+      return;
+    }
+    PendingDelivery pendingDelivery = new PendingDelivery(webhook, payload, requestedAt);
+    pendingDeliveries.add(pendingDelivery);
+    try {
+      executorService.execute(() -> attempt(pendingDelivery, 1));
+    } catch (RejectedExecutionException e) {
+      pendingDeliveries.remove(pendingDelivery);
+      status.cancelPending();
+      reject(webhook, payload, requestedAt, e);
+    }
+  }
+
+  private void attempt(PendingDelivery pendingDelivery, int attempt) {
+    Webhook webhook = pendingDelivery.webhook;
+    WebhookDelivery delivery = caller.call(webhook, pendingDelivery.payload);
+    if (attempt < MAX_ATTEMPTS && isRetryable(delivery) && scheduleRetry(pendingDelivery, attempt)) {
+      return;
+    }
+    try {
+      log(delivery);
+      deliveryStorage.persist(delivery);
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to persist delivery of webhook '{}'", webhook.getName(), e);
+    } finally {
+      // the delivery may have been dropped meanwhile if server is stopping
+      if (pendingDeliveries.remove(pendingDelivery)) {
+        status.removePending(delivery.isSuccess(), system.now() - pendingDelivery.requestedAt);
+      }
+    }
+  }
+
+  private boolean scheduleRetry(PendingDelivery pendingDelivery, int attempt) {
+    long backoffMs = INITIAL_BACKOFF_MS << (attempt - 1);
+    LOGGER.debug("Retry webhook '{}' in {}ms | url={}", pendingDelivery.webhook.getName(), backoffMs, pendingDelivery.webhook.getUrl());
+    try {
+      executorService.schedule(() -> attempt(pendingDelivery, attempt + 1), backoffMs, MILLISECONDS);
+      status.addRetry();
+      return true;
+    } catch (RejectedExecutionException e) {
+      // server is stopping, keep the result of the last attempt
+      return false;
+    }
+  }
+
+  private void drop(PendingDelivery pendingDelivery) {
+    if (pendingDeliveries.remove(pendingDelivery)) {
+      LOGGER.warn("Webhook '{}' is dropped, server is stopping | url={}", pendingDelivery.webhook.getName(), pendingDelivery.webhook.getUrl());
+      status.addDropped();
+    }
+  }
+
+  private void reject(Webhook webhook, WebhookPayload payload, long requestedAt, Exception cause) {
+    LOGGER.warn("Webhook '{}' is not sent | url={} | message={}", webhook.getName(), webhook.getUrl(), cause.getMessage());
+    status.addRejected();
+    deliveryStorage.persist(new WebhookDelivery.Builder()
+      .setAt(requestedAt)
+      .setWebhook(webhook)
+      .setPayload(payload)
+      .setError(cause)
+      .build());
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    Optional<Integer> httpStatus = delivery.getHttpStatus();
+    return !httpStatus.isPresent() || httpStatus.get() >= 500;
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private static final class PendingDelivery {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final long requestedAt;
+
+    private PendingDelivery(Webhook webhook, WebhookPayload payload, long requestedAt) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.requestedAt = requestedAt;
+    }
+  }
+}
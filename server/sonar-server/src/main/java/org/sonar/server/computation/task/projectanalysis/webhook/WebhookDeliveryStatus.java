@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.ce.ComputeEngineSide;
+
+/**
+ * Counters of the webhook deliveries processed since startup.
+ */
+@ComputeEngineSide
+public class WebhookDeliveryStatus {
+
+  private final AtomicLong pending = new AtomicLong(0);
+  private final AtomicLong success = new AtomicLong(0);
+  private final AtomicLong failure = new AtomicLong(0);
+  private final AtomicLong retries = new AtomicLong(0);
+  private final AtomicLong rejected = new AtomicLong(0);
+  private final AtomicLong dropped = new AtomicLong(0);
+  private final AtomicLong latency = new AtomicLong(0);
+  private final AtomicLong maxLatency = new AtomicLong(0);
+
+  /**
+   * @return {@code false} if the delivery can't be queued because {@code maxPending} deliveries are already
+   *         waiting or in progress.
+   */
+  boolean tryAddPending(int maxPending) {
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  void cancelPending() {
+    pending.decrementAndGet();
+  }
+
+  void addRetry() {
+    retries.incrementAndGet();
+  }
+
+  void addRejected() {
+    rejected.incrementAndGet();
+  }
+
+  /**
+   * A pending delivery is abandoned because server is stopping.
+   */
+  void addDropped() {
+    pending.decrementAndGet();
+    dropped.incrementAndGet();
+  }
+
+  void removePending(boolean successful, long latencyMs) {
+    pending.decrementAndGet();
+    if (successful) {
+      success.incrementAndGet();
+    } else {
+      failure.incrementAndGet();
+    }
+    latency.addAndGet(latencyMs);
+    maxLatency.accumulateAndGet(latencyMs, Math::max);
+  }
+
+  /**
+   * Number of deliveries waiting to be sent, or to be retried.
+   */
+  public long getPendingCount() {
+    return pending.get();
+  }
+
+  public long getSuccessCount() {
+    return success.get();
+  }
+
+  /**
+   * Number of deliveries which failed after all attempts.
+   */
+  public long getFailureCount() {
+    return failure.get();
+  }
+
+  public long getRetryCount() {
+    return retries.get();
+  }
+
+  /**
+   * Number of deliveries not sent because too many were pending or because the server is stopping.
+   */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  /**
+   * Number of pending deliveries abandoned when the server stopped.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Sum, in milliseconds, of the delays between the request of deliveries and their completion, including retries.
+   */
+  public long getLatency() {
+    return latency.get();
+  }
+
+  public long getMaxLatency() {
+    return maxLatency.get();
+  }
+}
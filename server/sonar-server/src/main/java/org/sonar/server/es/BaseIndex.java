@@ -36,4 +36,11 @@ public abstract class BaseIndex {
     return client;
   }
 
+  /**
+   * Releases the resources of a scroll context before its expiration, for example when its last page has been read.
+   */
+  public void clearScroll(String scrollId) {
+    client.nativeClient().prepareClearScroll().addScrollId(scrollId).get();
+  }
+
 }
@@ -78,6 +78,11 @@ public class EsClient implements Closeable {
 
   public static final Logger LOGGER = Loggers.get("es");
 
+  /**
+   * Type of the calls recorded by {@link org.sonar.db.profiling.CallRecorder}
+   */
+  public static final String ES_CALL_TYPE = "ES";
+
   private final Client nativeClient;
 
   public EsClient(Client nativeClient) {
@@ -133,6 +133,14 @@ public class Facets {
     aggregation.getBuckets().forEach(bucket -> facet.put(bucket.getKeyAsString(), bucket.getDocCount()));
   }
 
+  /**
+   * Adds or replaces a facet, for example when buckets are not computed by Elasticsearch aggregations
+   */
+  public Facets put(String facetName, LinkedHashMap<String, Long> buckets) {
+    facetsByName.put(facetName, buckets);
+    return this;
+  }
+
   public boolean contains(String facetName) {
     return facetsByName.containsKey(facetName);
   }
@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.base.Splitter;
+import com.google.common.primitives.Ints;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.sonar.api.utils.Paging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Opaque cursor of the web services that support deep pagination. Contrary to pages requested with offset and
+ * limit, the cost of each page is constant and the number of results is not limited. The cursor wraps an
+ * Elasticsearch scroll id, which is valid during {@link EsUtils#SCROLL_TIME_IN_MINUTES} minutes after the
+ * previous page.
+ * <p/>
+ * The first page is requested with the value {@link #START}. Each response provides the cursor of the next page,
+ * if any.
+ * <p/>
+ * As the scroll context keeps the criteria and the authorization filter of the first page, the cursors are signed
+ * with the context of the search (user, web service and criteria, see {@link #context(String, String, String)}).
+ * A cursor is rejected if it is replayed in another context or if it has been modified. The signing key is
+ * generated on server startup, so cursors do not survive a restart.
+ */
+@Immutable
+public class ScrollCursor {
+
+  public static final String START = "*";
+  private static final String SEPARATOR = ":";
+  private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+  private static final byte[] SIGNATURE_KEY = generateSignatureKey();
+
+  private final int pageIndex;
+  private final int pageSize;
+  private final String scrollId;
+  private final String context;
+
+  private ScrollCursor(int pageIndex, int pageSize, @Nullable String scrollId, String context) {
+    this.pageIndex = pageIndex;
+    this.pageSize = pageSize;
+    this.scrollId = scrollId;
+    this.context = context;
+  }
+
+  /**
+   * Context a cursor is bound to.
+   *
+   * @param login login of the authenticated user, null if anonymous
+   * @param endpoint path of the web service
+   * @param query criteria of the search, which must be identical on all the pages
+   */
+  public static String context(@Nullable String login, String endpoint, String query) {
+    return String.join("\n", nullToEmpty(login), endpoint, query);
+  }
+
+  /**
+   * @param pageSize the size of pages, as requested on first page. It's ignored when the cursor is not {@link #START}.
+   * @param context see {@link #context(String, String, String)}
+   * @throws IllegalArgumentException if the cursor is malformed, has been modified or has been created in another context
+   */
+  public static ScrollCursor parse(String cursor, int pageSize, String context) {
+    if (START.equals(cursor)) {
+      return new ScrollCursor(1, pageSize, null, context);
+    }
+    String decoded;
+    try {
+      decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+    List<String> fields = Splitter.on(SEPARATOR).limit(4).splitToList(decoded);
+    checkArgument(fields.size() == 4 && !fields.get(3).isEmpty(), "Invalid cursor: %s", cursor);
+    ScrollCursor result;
+    try {
+      result = new ScrollCursor(Integer.parseInt(fields.get(0)), Integer.parseInt(fields.get(1)), fields.get(3), context);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+    byte[] expectedSignature = result.sign(result.pageIndex, result.scrollId).getBytes(StandardCharsets.UTF_8);
+    checkArgument(MessageDigest.isEqual(expectedSignature, fields.get(2).getBytes(StandardCharsets.UTF_8)), "Invalid cursor: %s", cursor);
+    return result;
+  }
+
+  public boolean isStart() {
+    return scrollId == null;
+  }
+
+  public int getPageIndex() {
+    return pageIndex;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Scroll id of the current page. Null on first page.
+   */
+  @CheckForNull
+  public String getScrollId() {
+    return scrollId;
+  }
+
+  /**
+   * @param total the total number of results, capped to {@link Integer#MAX_VALUE} as {@link Paging} does not support longs
+   */
+  public Paging toPaging(long total) {
+    return Paging.forPageIndex(pageIndex).withPageSize(pageSize).andTotal(Ints.saturatedCast(total));
+  }
+
+  /**
+   * Whether the current page is the last one. The scroll context can then be cleared.
+   *
+   * @param resultsInPage the number of results in the current page
+   */
+  public boolean isLastPage(int resultsInPage) {
+    return resultsInPage < pageSize;
+  }
+
+  /**
+   * The formatted cursor of the next page, or null if the current page is the last one.
+   *
+   * @param nextScrollId the scroll id returned by Elasticsearch along with the current page
+   * @param resultsInPage the number of results in the current page
+   */
+  @CheckForNull
+  public String formatNext(@Nullable String nextScrollId, int resultsInPage) {
+    if (nextScrollId == null || isLastPage(resultsInPage)) {
+      return null;
+    }
+    int nextPageIndex = pageIndex + 1;
+    String next = String.join(SEPARATOR, String.valueOf(nextPageIndex), String.valueOf(pageSize), sign(nextPageIndex, nextScrollId), nextScrollId);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(next.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String sign(int signedPageIndex, String signedScrollId) {
+    String data = String.join(SEPARATOR, context, String.valueOf(signedPageIndex), String.valueOf(pageSize), signedScrollId);
+    try {
+      Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+      mac.init(new SecretKeySpec(SIGNATURE_KEY, SIGNATURE_ALGORITHM));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Fail to sign cursor", e);
+    }
+  }
+
+  private static byte[] generateSignatureKey() {
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    return key;
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.es;
 import com.google.common.base.Function;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.SearchHit;
@@ -32,10 +33,12 @@ public class SearchIdResult<ID> {
   private final List<ID> ids;
   private final Facets facets;
   private final long total;
+  private final String scrollId;
 
   public SearchIdResult(SearchResponse response, Function<String, ID> converter) {
     this.facets = new Facets(response);
     this.total = response.getHits().totalHits();
+    this.scrollId = response.getScrollId();
     this.ids = convertToIds(response.getHits(), converter);
   }
 
@@ -51,6 +54,14 @@ public class SearchIdResult<ID> {
     return this.facets;
   }
 
+  /**
+   * Id of the scroll context, if the search was requested with {@link SearchOptions#setScroll(boolean)}
+   */
+  @CheckForNull
+  public String getScrollId() {
+    return scrollId;
+  }
+
   @Override
   public String toString() {
     return ReflectionToStringBuilder.toString(this);
@@ -39,12 +39,13 @@ public class SearchOptions {
   public static final int DEFAULT_OFFSET = 0;
   public static final int DEFAULT_LIMIT = 10;
   public static final int MAX_LIMIT = 500;
-  private static final int MAX_RETURNABLE_RESULTS = 10_000;
+  public static final int MAX_RETURNABLE_RESULTS = 10_000;
 
   private int offset = DEFAULT_OFFSET;
   private int limit = DEFAULT_LIMIT;
   private final Set<String> facets = new LinkedHashSet<>();
   private final Set<String> fieldsToReturn = new HashSet<>();
+  private boolean scroll = false;
 
   /**
    * Offset of the first result to return. Defaults to {@link #DEFAULT_OFFSET}
@@ -120,6 +121,19 @@ public class SearchOptions {
     return this;
   }
 
+  /**
+   * Whether the search context is kept open, so that the next pages can be requested
+   * with the scroll id of the results. See {@link ScrollCursor}.
+   */
+  public boolean isScroll() {
+    return scroll;
+  }
+
+  public SearchOptions setScroll(boolean scroll) {
+    this.scroll = scroll;
+    return this;
+  }
+
   public Set<String> getFields() {
     return fieldsToReturn;
   }
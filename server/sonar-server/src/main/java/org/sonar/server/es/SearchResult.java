@@ -22,6 +22,7 @@ package org.sonar.server.es;
 import com.google.common.base.Function;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 
@@ -30,10 +31,12 @@ public class SearchResult<DOC extends BaseDoc> {
   private final List<DOC> docs;
   private final Facets facets;
   private final long total;
+  private final String scrollId;
 
   public SearchResult(SearchResponse response, Function<Map<String, Object>, DOC> converter) {
     this.facets = new Facets(response);
     this.total = response.getHits().totalHits();
+    this.scrollId = response.getScrollId();
     this.docs = EsUtils.convertToDocs(response.getHits(), converter);
   }
 
@@ -49,6 +52,14 @@ public class SearchResult<DOC extends BaseDoc> {
     return this.facets;
   }
 
+  /**
+   * Id of the scroll context, if the search was requested with {@link SearchOptions#setScroll(boolean)}
+   */
+  @CheckForNull
+  public String getScrollId() {
+    return scrollId;
+  }
+
   @Override
   public String toString() {
     return ReflectionToStringBuilder.toString(this);
@@ -33,6 +33,7 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.db.profiling.CallRecorder;
 import org.sonar.server.es.EsClient;
 
 public class ProxyBulkRequestBuilder extends BulkRequestBuilder {
@@ -43,6 +44,7 @@ public class ProxyBulkRequestBuilder extends BulkRequestBuilder {
 
   @Override
   public BulkResponse get() {
+    long startMs = System.currentTimeMillis();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
@@ -52,6 +54,7 @@ public class ProxyBulkRequestBuilder extends BulkRequestBuilder {
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
+      CallRecorder.record(EsClient.ES_CALL_TYPE, startMs, this::toString);
     }
   }
 
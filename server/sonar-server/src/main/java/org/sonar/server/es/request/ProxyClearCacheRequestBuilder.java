@@ -27,6 +27,7 @@ import org.elasticsearch.action.admin.indices.cache.clear.ClearIndicesCacheRespo
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.db.profiling.CallRecorder;
 import org.sonar.server.es.EsClient;
 
 public class ProxyClearCacheRequestBuilder extends ClearIndicesCacheRequestBuilder {
@@ -37,6 +38,7 @@ public class ProxyClearCacheRequestBuilder extends ClearIndicesCacheRequestBuild
 
   @Override
   public ClearIndicesCacheResponse get() {
+    long startMs = System.currentTimeMillis();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
@@ -46,6 +48,7 @@ public class ProxyClearCacheRequestBuilder extends ClearIndicesCacheRequestBuild
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
+      CallRecorder.record(EsClient.ES_CALL_TYPE, startMs, this::toString);
     }
   }
 
@@ -26,6 +26,7 @@ import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.db.profiling.CallRecorder;
 import org.sonar.server.es.EsClient;
 
 public class ProxyCreateIndexRequestBuilder extends CreateIndexRequestBuilder {
@@ -39,6 +40,7 @@ public class ProxyCreateIndexRequestBuilder extends CreateIndexRequestBuilder {
 
   @Override
   public CreateIndexResponse get() {
+    long startMs = System.currentTimeMillis();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
@@ -48,6 +50,7 @@ public class ProxyCreateIndexRequestBuilder extends CreateIndexRequestBuilder {
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
+      CallRecorder.record(EsClient.ES_CALL_TYPE, startMs, this::toString);
     }
   }
 
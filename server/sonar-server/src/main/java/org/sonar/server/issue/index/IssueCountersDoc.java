@@ -0,0 +1,208 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.server.es.BaseDoc;
+
+import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_COUNTERS_BUCKETS;
+import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_COUNTERS_PROJECT_UUID;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ASSIGNEES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RULES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_SEVERITIES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_STATUSES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_TYPES;
+
+/**
+ * Number of issues of a project for each value of the facets that can be pre-computed, split
+ * between resolved and unresolved issues. Documents are maintained by {@link IssueIndexer} and
+ * are used by {@link IssueIndex} to avoid aggregations when the request is restricted to projects only.
+ * <p/>
+ * Unassigned issues are counted with the empty value of facet {@link org.sonarqube.ws.client.issue.IssuesWsParameters#PARAM_ASSIGNEES},
+ * as done by the "missing" aggregation.
+ */
+public class IssueCountersDoc extends BaseDoc {
+
+  public static final List<String> SUPPORTED_FACETS = ImmutableList.of(PARAM_SEVERITIES, PARAM_STATUSES, PARAM_RULES, PARAM_ASSIGNEES, PARAM_TYPES);
+
+  private static final String BUCKET_FACET = "facet";
+  private static final String BUCKET_RESOLVED = "resolved";
+  private static final String BUCKET_VALUE = "value";
+  private static final String BUCKET_COUNT = "count";
+
+  /**
+   * Buckets indexed by facet, resolution flag and value. Lazily loaded.
+   */
+  private Map<String, Map<String, Object>> bucketsByKey;
+
+  public IssueCountersDoc(Map<String, Object> fields) {
+    super(fields);
+  }
+
+  public IssueCountersDoc(String projectUuid) {
+    super(Maps.newHashMap());
+    setField(FIELD_COUNTERS_PROJECT_UUID, projectUuid);
+    setField(FIELD_COUNTERS_BUCKETS, new ArrayList<Map<String, Object>>());
+  }
+
+  @Override
+  public String getId() {
+    return projectUuid();
+  }
+
+  @Override
+  public String getRouting() {
+    return projectUuid();
+  }
+
+  @Override
+  public String getParent() {
+    return null;
+  }
+
+  public String projectUuid() {
+    return getField(FIELD_COUNTERS_PROJECT_UUID);
+  }
+
+  /**
+   * Increments the counters of all the supported facets with the values of the given issue.
+   * Fields that are not loaded in the issue document are ignored.
+   */
+  public IssueCountersDoc add(IssueDoc issue) {
+    return increment(issue, 1L);
+  }
+
+  /**
+   * Decrements the counters of all the supported facets with the values of the given issue, for example
+   * its previous state before it is re-indexed. Buckets that are not used anymore are removed.
+   */
+  public IssueCountersDoc remove(IssueDoc issue) {
+    return increment(issue, -1L);
+  }
+
+  /**
+   * Increments the counters with all the counters of the given document, for example the issues
+   * that have been indexed since these counters were read.
+   */
+  public IssueCountersDoc add(IssueCountersDoc counters) {
+    return increment(counters, 1L);
+  }
+
+  /**
+   * Decrements the counters with all the counters of the given document. Buckets that are not used anymore are removed.
+   */
+  public IssueCountersDoc remove(IssueCountersDoc counters) {
+    return increment(counters, -1L);
+  }
+
+  private IssueCountersDoc increment(IssueCountersDoc counters, long sign) {
+    for (Map<String, Object> bucket : counters.buckets()) {
+      long count = ((Number) bucket.get(BUCKET_COUNT)).longValue();
+      increment((String) bucket.get(BUCKET_FACET), (Boolean) bucket.get(BUCKET_RESOLVED), bucket.get(BUCKET_VALUE), sign * count);
+    }
+    return this;
+  }
+
+  private IssueCountersDoc increment(IssueDoc issue, long delta) {
+    Map<String, Object> issueFields = issue.getFields();
+    boolean resolved = issueFields.get(IssueIndexDefinition.FIELD_ISSUE_RESOLUTION) != null;
+    increment(PARAM_SEVERITIES, resolved, issueFields.get(IssueIndexDefinition.FIELD_ISSUE_SEVERITY), delta);
+    increment(PARAM_STATUSES, resolved, issueFields.get(IssueIndexDefinition.FIELD_ISSUE_STATUS), delta);
+    increment(PARAM_RULES, resolved, issueFields.get(IssueIndexDefinition.FIELD_ISSUE_RULE_KEY), delta);
+    increment(PARAM_TYPES, resolved, issueFields.get(IssueIndexDefinition.FIELD_ISSUE_TYPE), delta);
+    Object assignee = issueFields.get(IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE);
+    increment(PARAM_ASSIGNEES, resolved, assignee == null ? "" : assignee, delta);
+    return this;
+  }
+
+  /**
+   * Number of issues by value of the given facet. Values are not sorted.
+   *
+   * @param resolved {@code null} to count both resolved and unresolved issues
+   */
+  public Map<String, Long> getCounts(String facetName, @Nullable Boolean resolved) {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Map<String, Object> bucket : buckets()) {
+      if (facetName.equals(bucket.get(BUCKET_FACET)) && (resolved == null || resolved.equals(bucket.get(BUCKET_RESOLVED)))) {
+        long count = ((Number) bucket.get(BUCKET_COUNT)).longValue();
+        result.merge((String) bucket.get(BUCKET_VALUE), count, Long::sum);
+      }
+    }
+    return result;
+  }
+
+  private void increment(String facetName, boolean resolved, @Nullable Object value, long delta) {
+    if (value == null) {
+      return;
+    }
+    String key = bucketKey(facetName, resolved, value);
+    Map<String, Object> bucket = bucketsByKey().get(key);
+    if (bucket == null) {
+      if (delta > 0L) {
+        bucket = new HashMap<>();
+        bucket.put(BUCKET_FACET, facetName);
+        bucket.put(BUCKET_RESOLVED, resolved);
+        bucket.put(BUCKET_VALUE, value.toString());
+        bucket.put(BUCKET_COUNT, delta);
+        buckets().add(bucket);
+        bucketsByKey.put(key, bucket);
+      }
+      return;
+    }
+    long count = ((Number) bucket.get(BUCKET_COUNT)).longValue() + delta;
+    if (count > 0L) {
+      bucket.put(BUCKET_COUNT, count);
+    } else {
+      // same as aggregations, which do not return empty buckets
+      buckets().remove(bucket);
+      bucketsByKey.remove(key);
+    }
+  }
+
+  private Map<String, Map<String, Object>> bucketsByKey() {
+    if (bucketsByKey == null) {
+      bucketsByKey = new HashMap<>();
+      for (Map<String, Object> bucket : buckets()) {
+        bucketsByKey.put(bucketKey(bucket.get(BUCKET_FACET), bucket.get(BUCKET_RESOLVED), bucket.get(BUCKET_VALUE)), bucket);
+      }
+    }
+    return bucketsByKey;
+  }
+
+  private static String bucketKey(Object facetName, Object resolved, Object value) {
+    return facetName + "\u0000" + resolved + "\u0000" + value;
+  }
+
+  private List<Map<String, Object>> buckets() {
+    List<Map<String, Object>> buckets = getNullableField(FIELD_COUNTERS_BUCKETS);
+    if (buckets == null) {
+      buckets = new ArrayList<>();
+      setField(FIELD_COUNTERS_BUCKETS, buckets);
+    }
+    return buckets;
+  }
+}
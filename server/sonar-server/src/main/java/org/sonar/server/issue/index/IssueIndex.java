@@ -25,11 +25,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -41,8 +44,12 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequestBuilder;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
@@ -59,11 +66,13 @@ import org.elasticsearch.search.aggregations.bucket.terms.Terms.Order;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsBuilder;
 import org.elasticsearch.search.aggregations.metrics.min.Min;
 import org.elasticsearch.search.aggregations.metrics.sum.SumBuilder;
+import org.elasticsearch.search.sort.SortOrder;
 import org.joda.time.Duration;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
 import org.sonar.core.util.NonNullInputFunction;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.component.ComponentDto;
@@ -195,9 +204,14 @@ public class IssueIndex extends BaseIndex {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE);
 
-    configureSorting(query, requestBuilder);
+    Map<String, LinkedHashMap<String, Long>> precomputedFacets = loadPrecomputedFacets(query, options.getFacets());
+    Collection<String> facets = options.getFacets().stream()
+      .filter(facet -> !precomputedFacets.containsKey(facet))
+      .collect(Collectors.toList());
+
+    configureSorting(query, options, requestBuilder);
     configurePagination(options, requestBuilder);
-    configureRouting(query, options, requestBuilder);
+    configureRouting(query, facets, requestBuilder);
 
     QueryBuilder esQuery = matchAllQuery();
     BoolQueryBuilder esFilter = boolQuery();
@@ -213,10 +227,98 @@ public class IssueIndex extends BaseIndex {
       requestBuilder.setQuery(esQuery);
     }
 
-    configureStickyFacets(query, options, filters, esQuery, requestBuilder);
+    configureStickyFacets(query, facets, filters, esQuery, requestBuilder);
+    SearchResult<IssueDoc> result = new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
+    precomputedFacets.forEach(result.getFacets()::put);
+    return result;
+  }
+
+  /**
+   * Next page of a search requested with {@link SearchOptions#setScroll(boolean)}. Facets are not computed.
+   */
+  public SearchResult<IssueDoc> scroll(String scrollId) {
+    SearchScrollRequestBuilder requestBuilder = getClient().prepareSearchScroll(scrollId)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES));
     return new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
   }
 
+  /**
+   * Optimization - facets severities, statuses, rules, assignees and types are read from the counters
+   * pre-computed by {@link IssueIndexer} when the only criteria of the request are projects and
+   * resolution state. In this case sticky facets are equivalent to simple counters. Returns an empty
+   * map if aggregations are required.
+   */
+  private Map<String, LinkedHashMap<String, Long>> loadPrecomputedFacets(IssueQuery query, Collection<String> facets) {
+    List<String> precomputableFacets = facets.stream()
+      .filter(IssueCountersDoc.SUPPORTED_FACETS::contains)
+      .collect(Collectors.toList());
+    if (precomputableFacets.isEmpty() || !isRestrictedToProjectsOnly(query)) {
+      return Collections.emptyMap();
+    }
+    Optional<List<IssueCountersDoc>> counters = loadCounters(query.projectUuids());
+    if (!counters.isPresent()) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, LinkedHashMap<String, Long>> result = new HashMap<>();
+    for (String facet : precomputableFacets) {
+      Map<String, Long> counts = new HashMap<>();
+      counters.get().forEach(doc -> doc.getCounts(facet, query.resolved()).forEach((value, count) -> counts.merge(value, count, Long::sum)));
+      result.put(facet, toTopBuckets(facet, counts));
+    }
+    return result;
+  }
+
+  private boolean isRestrictedToProjectsOnly(IssueQuery query) {
+    boolean hasOtherCriteria = !query.issueKeys().isEmpty() || !query.severities().isEmpty() || !query.statuses().isEmpty()
+      || !query.resolutions().isEmpty() || !query.componentUuids().isEmpty() || !query.moduleUuids().isEmpty()
+      || !query.moduleRootUuids().isEmpty() || !query.directories().isEmpty() || !query.fileUuids().isEmpty()
+      || !query.viewUuids().isEmpty() || !query.rules().isEmpty() || !query.assignees().isEmpty() || !query.authors().isEmpty()
+      || !query.languages().isEmpty() || !query.tags().isEmpty() || !query.types().isEmpty() || query.assigned() != null
+      || query.createdAt() != null || query.createdAfter() != null || query.createdBefore() != null
+      || BooleanUtils.isTrue(query.onComponentOnly()) || hasQueryEffortFacet(query);
+    if (hasOtherCriteria || query.projectUuids().isEmpty()) {
+      return false;
+    }
+    // same as the authorization filter, which is not applied on counters
+    return !query.checkAuthorization() || query.projectUuids().stream().allMatch(uuid -> userSession.hasComponentUuidPermission(UserRole.USER, uuid));
+  }
+
+  /**
+   * Counters of the given projects, or empty if some of them are not available yet
+   */
+  private Optional<List<IssueCountersDoc>> loadCounters(Collection<String> projectUuids) {
+    MultiGetRequestBuilder request = getClient().prepareMultiGet();
+    projectUuids.forEach(uuid -> request.add(new MultiGetRequest.Item(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS.getIndex(),
+      IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS.getType(), uuid).routing(uuid)));
+    List<IssueCountersDoc> result = new ArrayList<>();
+    for (MultiGetItemResponse item : request.get().getResponses()) {
+      if (item.isFailed() || !item.getResponse().isExists()) {
+        return Optional.empty();
+      }
+      result.add(new IssueCountersDoc(item.getResponse().getSource()));
+    }
+    return Optional.of(result);
+  }
+
+  /**
+   * Same buckets as the terms aggregations: the {@link #DEFAULT_FACET_SIZE} greatest counts (ties sorted by value),
+   * followed by the issues with missing value (unassigned issues).
+   */
+  private static LinkedHashMap<String, Long> toTopBuckets(String facet, Map<String, Long> counts) {
+    LinkedHashMap<String, Long> buckets = new LinkedHashMap<>();
+    counts.entrySet().stream()
+      .filter(entry -> !entry.getKey().isEmpty())
+      .sorted(Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed().thenComparing(Map.Entry::getKey))
+      .limit(DEFAULT_FACET_SIZE)
+      .forEach(entry -> buckets.put(entry.getKey(), entry.getValue()));
+    Long missing = counts.get("");
+    if (PARAM_ASSIGNEES.equals(facet) && missing != null) {
+      buckets.put("", missing);
+    }
+    return buckets;
+  }
+
   /**
    * Optimization - do not send ES request to all shards when scope is restricted
    * to a set of projects. Because project UUID is used for routing, the request
@@ -224,14 +326,14 @@ public class IssueIndex extends BaseIndex {
    * Note that sticky facets may involve all projects, so this optimization must be
    * disabled when facets are enabled.
    */
-  private static void configureRouting(IssueQuery query, SearchOptions options, SearchRequestBuilder requestBuilder) {
+  private static void configureRouting(IssueQuery query, Collection<String> facets, SearchRequestBuilder requestBuilder) {
     Collection<String> uuids = query.projectUuids();
-    if (!uuids.isEmpty() && options.getFacets().isEmpty()) {
+    if (!uuids.isEmpty() && facets.isEmpty()) {
       requestBuilder.setRouting(uuids.toArray(new String[uuids.size()]));
     }
   }
 
-  private void configureSorting(IssueQuery query, SearchRequestBuilder esRequest) {
+  private void configureSorting(IssueQuery query, SearchOptions options, SearchRequestBuilder esRequest) {
     String sortField = query.sort();
     if (sortField != null) {
       boolean asc = BooleanUtils.isTrue(query.asc());
@@ -239,10 +341,17 @@ public class IssueIndex extends BaseIndex {
     } else {
       sorting.fillDefault(esRequest);
     }
+    if (options.isScroll()) {
+      // tie-break, so that order of pages is stable
+      esRequest.addSort(IssueIndexDefinition.FIELD_ISSUE_KEY, SortOrder.ASC);
+    }
   }
 
   private static void configurePagination(SearchOptions options, SearchRequestBuilder esSearch) {
     esSearch.setFrom(options.getOffset()).setSize(options.getLimit());
+    if (options.isScroll()) {
+      esSearch.setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES));
+    }
   }
 
   private Map<String, QueryBuilder> createFilters(IssueQuery query) {
@@ -362,44 +471,45 @@ public class IssueIndex extends BaseIndex {
       "Start bound cannot be larger or equal to end bound");
   }
 
-  private void configureStickyFacets(IssueQuery query, SearchOptions options, Map<String, QueryBuilder> filters, QueryBuilder esQuery, SearchRequestBuilder esSearch) {
-    if (!options.getFacets().isEmpty()) {
+  private void configureStickyFacets(IssueQuery query, Collection<String> facets, Map<String, QueryBuilder> filters, QueryBuilder esQuery,
+    SearchRequestBuilder esSearch) {
+    if (!facets.isEmpty()) {
       StickyFacetBuilder stickyFacetBuilder = newStickyFacetBuilder(query, filters, esQuery);
       // Execute Term aggregations
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_SEVERITIES, IssueIndexDefinition.FIELD_ISSUE_SEVERITY);
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_STATUSES, IssueIndexDefinition.FIELD_ISSUE_STATUS);
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_PROJECT_UUIDS, IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID, query.projectUuids().toArray());
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_MODULE_UUIDS, IssueIndexDefinition.FIELD_ISSUE_MODULE_UUID, query.moduleUuids().toArray());
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_DIRECTORIES, IssueIndexDefinition.FIELD_ISSUE_DIRECTORY_PATH, query.directories().toArray());
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_FILE_UUIDS, IssueIndexDefinition.FIELD_ISSUE_COMPONENT_UUID, query.fileUuids().toArray());
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_LANGUAGES, IssueIndexDefinition.FIELD_ISSUE_LANGUAGE, query.languages().toArray());
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_RULES, IssueIndexDefinition.FIELD_ISSUE_RULE_KEY, query.rules().toArray());
 
-      addSimpleStickyFacetIfNeeded(options, stickyFacetBuilder, esSearch,
+      addSimpleStickyFacetIfNeeded(facets, stickyFacetBuilder, esSearch,
         PARAM_AUTHORS, IssueIndexDefinition.FIELD_ISSUE_AUTHOR_LOGIN, query.authors().toArray());
 
-      if (options.getFacets().contains(PARAM_TAGS)) {
+      if (facets.contains(PARAM_TAGS)) {
         esSearch.addAggregation(stickyFacetBuilder.buildStickyFacet(IssueIndexDefinition.FIELD_ISSUE_TAGS, PARAM_TAGS, query.tags().toArray()));
       }
-      if (options.getFacets().contains(PARAM_TYPES)) {
+      if (facets.contains(PARAM_TYPES)) {
         esSearch.addAggregation(stickyFacetBuilder.buildStickyFacet(IssueIndexDefinition.FIELD_ISSUE_TYPE, PARAM_TYPES, query.types().toArray()));
       }
-      if (options.getFacets().contains(PARAM_RESOLUTIONS)) {
+      if (facets.contains(PARAM_RESOLUTIONS)) {
         esSearch.addAggregation(createResolutionFacet(query, filters, esQuery));
       }
-      if (options.getFacets().contains(PARAM_ASSIGNEES)) {
+      if (facets.contains(PARAM_ASSIGNEES)) {
         esSearch.addAggregation(createAssigneesFacet(query, filters, esQuery));
       }
-      addAssignedToMeFacetIfNeeded(esSearch, options, query, filters, esQuery);
-      if (options.getFacets().contains(PARAM_CREATED_AT)) {
+      addAssignedToMeFacetIfNeeded(esSearch, facets, query, filters, esQuery);
+      if (facets.contains(PARAM_CREATED_AT)) {
         getCreatedAtFacet(query, filters, esQuery).ifPresent(esSearch::addAggregation);
       }
     }
@@ -416,9 +526,9 @@ public class IssueIndex extends BaseIndex {
     return new StickyFacetBuilder(esQuery, filters);
   }
 
-  private static void addSimpleStickyFacetIfNeeded(SearchOptions options, StickyFacetBuilder stickyFacetBuilder, SearchRequestBuilder esSearch,
+  private static void addSimpleStickyFacetIfNeeded(Collection<String> facets, StickyFacetBuilder stickyFacetBuilder, SearchRequestBuilder esSearch,
     String facetName, String fieldName, Object... selectedValues) {
-    if (options.getFacets().contains(facetName)) {
+    if (facets.contains(facetName)) {
       esSearch.addAggregation(stickyFacetBuilder.buildStickyFacet(fieldName, facetName, DEFAULT_FACET_SIZE, selectedValues));
     }
   }
@@ -532,10 +642,11 @@ public class IssueIndex extends BaseIndex {
     return values.stream().map(Pattern::quote).collect(Collectors.toArrayList(values.size()));
   }
 
-  private void addAssignedToMeFacetIfNeeded(SearchRequestBuilder builder, SearchOptions options, IssueQuery query, Map<String, QueryBuilder> filters, QueryBuilder queryBuilder) {
+  private void addAssignedToMeFacetIfNeeded(SearchRequestBuilder builder, Collection<String> facets, IssueQuery query, Map<String, QueryBuilder> filters,
+    QueryBuilder queryBuilder) {
     String login = userSession.getLogin();
 
-    if (!options.getFacets().contains(FACET_ASSIGNED_TO_ME) || StringUtils.isEmpty(login)) {
+    if (!facets.contains(FACET_ASSIGNED_TO_ME) || StringUtils.isEmpty(login)) {
       return;
     }
 
@@ -670,6 +781,17 @@ public class IssueIndex extends BaseIndex {
    * Only fields needed for the batch are returned.
    */
   public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component) {
+    return scrollIssuesForBatch(component, null);
+  }
+
+  /**
+   * Same as {@link #selectIssuesForBatch(ComponentDto)}, but only issues attached to the given components are returned.
+   */
+  public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component, Collection<String> componentUuids) {
+    return scrollIssuesForBatch(component, termsQuery(IssueIndexDefinition.FIELD_ISSUE_COMPONENT_UUID, componentUuids));
+  }
+
+  private Iterator<IssueDoc> scrollIssuesForBatch(ComponentDto component, @Nullable QueryBuilder componentFilter) {
     BoolQueryBuilder filter = boolQuery()
       .must(createAuthorizationFilter(true))
       .mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
@@ -684,6 +806,9 @@ public class IssueIndex extends BaseIndex {
       default:
         throw new IllegalStateException(format("Component of scope '%s' is not allowed", component.scope()));
     }
+    if (componentFilter != null) {
+      filter.must(componentFilter);
+    }
 
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.issue.index;
 
+import com.google.common.collect.ImmutableMap;
 import org.sonar.api.config.Settings;
 import org.sonar.server.es.IndexDefinition;
 import org.sonar.server.es.IndexType;
@@ -32,6 +33,10 @@ import static org.sonar.server.es.DefaultIndexSettingsElement.SORTABLE_ANALYZER;
 public class IssueIndexDefinition implements IndexDefinition {
 
   public static final IndexType INDEX_TYPE_ISSUE = new IndexType("issues", "issue");
+  /**
+   * Pre-computed facet counters, one document per project. See {@link IssueCountersDoc}.
+   */
+  public static final IndexType INDEX_TYPE_ISSUE_COUNTERS = new IndexType("issues", "issueCounters");
   public static final String FIELD_ISSUE_ASSIGNEE = "assignee";
   public static final String FIELD_ISSUE_ATTRIBUTES = "attributes";
   public static final String FIELD_ISSUE_AUTHOR_LOGIN = "authorLogin";
@@ -73,6 +78,9 @@ public class IssueIndexDefinition implements IndexDefinition {
    */
   public static final String FIELD_ISSUE_TECHNICAL_UPDATED_AT = "updatedAt";
 
+  public static final String FIELD_COUNTERS_PROJECT_UUID = "project";
+  public static final String FIELD_COUNTERS_BUCKETS = "buckets";
+
   private final Settings settings;
 
   public IssueIndexDefinition(Settings settings) {
@@ -115,5 +123,10 @@ public class IssueIndexDefinition implements IndexDefinition {
     type.stringFieldBuilder(FIELD_ISSUE_TAGS).disableNorms().build();
     type.createDateTimeField(FIELD_ISSUE_TECHNICAL_UPDATED_AT);
     type.stringFieldBuilder(FIELD_ISSUE_TYPE).disableNorms().build();
+
+    NewIndex.NewIndexType countersType = index.createType(INDEX_TYPE_ISSUE_COUNTERS.getType());
+    countersType.stringFieldBuilder(FIELD_COUNTERS_PROJECT_UUID).disableNorms().build();
+    // buckets are only read from _source, never searched
+    countersType.setProperty(FIELD_COUNTERS_BUCKETS, ImmutableMap.of("type", "object", "enabled", false));
   }
 }
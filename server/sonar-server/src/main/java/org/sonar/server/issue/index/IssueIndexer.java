@@ -19,16 +19,30 @@
  */
 package org.sonar.server.issue.index;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
 import org.sonar.server.es.EsClient;
@@ -43,11 +57,14 @@ import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID;
 import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX_TYPE_ISSUE;
+import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS;
 
 public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, StartupIndexer {
 
   private static final String DELETE_ERROR_MESSAGE = "Fail to delete some issues of project [%s]";
   private static final int MAX_BATCH_SIZE = 1000;
+  private static final int MAX_COUNTERS_UPDATE_ATTEMPTS = 10;
+  private static final Logger LOGGER = Loggers.get(IssueIndexer.class);
   private static final AuthorizationScope AUTHORIZATION_SCOPE = new AuthorizationScope(INDEX_TYPE_ISSUE, project -> Qualifiers.PROJECT.equals(project.getQualifier()));
 
   private final EsClient esClient;
@@ -65,7 +82,7 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
 
   @Override
   public Set<IndexType> getIndexTypes() {
-    return ImmutableSet.of(INDEX_TYPE_ISSUE);
+    return ImmutableSet.of(INDEX_TYPE_ISSUE, INDEX_TYPE_ISSUE_COUNTERS);
   }
 
   @Override
@@ -92,35 +109,69 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
   }
 
   /**
-   * For benchmarks
+   * For benchmarks. Issues may be a subset of the issues of their projects.
    */
   public void index(Iterator<IssueDoc> issues) {
-    doIndex(createBulkIndexer(Size.REGULAR), issues);
+    doIndexSubset(createBulkIndexer(Size.REGULAR), issues);
   }
 
   public void index(Collection<String> issueKeys) {
-    doIndex(createBulkIndexer(Size.REGULAR), issueKeys);
-  }
-
-  private void doIndex(BulkIndexer bulk, Collection<String> issueKeys) {
     try (IssueIterator issues = issueIteratorFactory.createForIssueKeys(issueKeys)) {
-      doIndex(bulk, issues);
+      doIndexSubset(createBulkIndexer(Size.REGULAR), issues);
     }
   }
 
+  /**
+   * Index all the issues of the given project, or of all projects if {@code projectUuid} is null,
+   * and re-compute the related counters. Issues are sorted by project, so the counters of a project
+   * are indexed as soon as its last issue is read.
+   */
   private void doIndex(BulkIndexer bulk, @Nullable String projectUuid) {
+    // replace the existing counters even if project has no issues anymore
+    IssueCountersDoc counters = projectUuid == null ? null : new IssueCountersDoc(projectUuid);
+    bulk.start();
     try (IssueIterator issues = issueIteratorFactory.createForProject(projectUuid)) {
-      doIndex(bulk, issues);
+      while (issues.hasNext()) {
+        IssueDoc issue = issues.next();
+        bulk.add(newIndexRequest(issue));
+        if (counters == null || !counters.projectUuid().equals(issue.projectUuid())) {
+          if (counters != null) {
+            bulk.add(newIndexRequest(counters));
+          }
+          counters = new IssueCountersDoc(issue.projectUuid());
+        }
+        counters.add(issue);
+      }
+    }
+    if (counters != null) {
+      bulk.add(newIndexRequest(counters));
     }
+    bulk.stop();
   }
 
-  private static void doIndex(BulkIndexer bulk, Iterator<IssueDoc> issues) {
+  /**
+   * Counters of the projects are updated by replacing the previous state of the issues, as read
+   * from the index, by the new one. Projects without counters are ignored, as searches fall back
+   * to aggregations until their next analysis.
+   */
+  private void doIndexSubset(BulkIndexer bulk, Iterator<IssueDoc> issues) {
+    Map<String, CountersUpdate> countersUpdatesByProject = new HashMap<>();
     bulk.start();
-    while (issues.hasNext()) {
-      IssueDoc issue = issues.next();
-      bulk.add(newIndexRequest(issue));
-    }
+    Iterators.partition(issues, MAX_BATCH_SIZE).forEachRemaining(batch -> {
+      Map<String, IssueDoc> previousIssuesByKey = loadIssues(batch.stream()
+        .collect(Collectors.toMap(IssueDoc::key, IssueDoc::projectUuid, (a, b) -> a)));
+      for (IssueDoc issue : batch) {
+        CountersUpdate countersUpdate = countersUpdatesByProject.computeIfAbsent(issue.projectUuid(), CountersUpdate::new);
+        IssueDoc previousIssue = previousIssuesByKey.get(issue.key());
+        if (previousIssue != null) {
+          countersUpdate.removed.add(previousIssue);
+        }
+        countersUpdate.added.add(issue);
+        bulk.add(newIndexRequest(issue));
+      }
+    });
     bulk.stop();
+    countersUpdatesByProject.values().forEach(this::updateCounters);
   }
 
   @Override
@@ -131,6 +182,7 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
       .setRouting(uuid)
       .setQuery(boolQuery().must(termQuery(FIELD_ISSUE_PROJECT_UUID, uuid)));
     bulk.addDeletion(search);
+    bulk.addDeletion(INDEX_TYPE_ISSUE_COUNTERS, uuid, uuid);
     bulk.stop();
   }
 
@@ -139,23 +191,88 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
       return;
     }
 
-    int count = 0;
-    BulkRequestBuilder builder = esClient.prepareBulk();
-    for (String issueKey : issueKeys) {
-      builder.add(esClient.prepareDelete(INDEX_TYPE_ISSUE, issueKey)
-        .setRefresh(false)
-        .setRouting(projectUuid));
-      count++;
-      if (count >= MAX_BATCH_SIZE) {
-        EsUtils.executeBulkRequest(builder, DELETE_ERROR_MESSAGE, projectUuid);
-        builder = esClient.prepareBulk();
-        count = 0;
+    CountersUpdate countersUpdate = new CountersUpdate(projectUuid);
+    for (List<String> keys : Lists.partition(issueKeys, MAX_BATCH_SIZE)) {
+      BulkRequestBuilder builder = esClient.prepareBulk();
+      loadIssues(keys.stream().collect(Collectors.toMap(Function.identity(), key -> projectUuid, (a, b) -> a)))
+        .values().forEach(countersUpdate.removed::add);
+      for (String issueKey : keys) {
+        builder.add(esClient.prepareDelete(INDEX_TYPE_ISSUE, issueKey)
+          .setRefresh(false)
+          .setRouting(projectUuid));
       }
+      EsUtils.executeBulkRequest(builder, DELETE_ERROR_MESSAGE, projectUuid);
     }
-    EsUtils.executeBulkRequest(builder, DELETE_ERROR_MESSAGE, projectUuid);
+    updateCounters(countersUpdate);
     esClient.prepareRefresh(INDEX_TYPE_ISSUE.getIndex()).get();
   }
 
+  /**
+   * Issues currently in the index, by key
+   *
+   * @param projectUuidsByIssueKey project of each issue, used for routing
+   */
+  private Map<String, IssueDoc> loadIssues(Map<String, String> projectUuidsByIssueKey) {
+    Map<String, IssueDoc> result = new HashMap<>();
+    if (projectUuidsByIssueKey.isEmpty()) {
+      return result;
+    }
+    MultiGetRequestBuilder request = esClient.prepareMultiGet();
+    projectUuidsByIssueKey.forEach((key, projectUuid) -> request.add(new MultiGetRequest.Item(INDEX_TYPE_ISSUE.getIndex(), INDEX_TYPE_ISSUE.getType(), key)
+      .routing(projectUuid)));
+    for (MultiGetItemResponse item : request.get().getResponses()) {
+      if (!item.isFailed() && item.getResponse().isExists()) {
+        result.put(item.getId(), new IssueDoc(item.getResponse().getSource()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Applies the changes to the counters currently in the index. Counters are written only if they have not
+   * been changed since they were read, so that concurrent updates of the same project, for example by web
+   * services and by Compute Engine, do not override each other. On conflict the counters are re-loaded and
+   * the changes are applied again. If conflicts persist, the counters are dropped and searches fall back
+   * to aggregations until the next analysis of the project.
+   */
+  private void updateCounters(CountersUpdate update) {
+    String projectUuid = update.projectUuid;
+    for (int attempt = 0; attempt < MAX_COUNTERS_UPDATE_ATTEMPTS; attempt++) {
+      GetResponse response = esClient.prepareGet(INDEX_TYPE_ISSUE_COUNTERS, projectUuid)
+        .setRouting(projectUuid)
+        .get();
+      if (!response.isExists()) {
+        return;
+      }
+      IssueCountersDoc counters = new IssueCountersDoc(response.getSource())
+        .add(update.added)
+        .remove(update.removed);
+      try {
+        esClient.prepareIndex(INDEX_TYPE_ISSUE_COUNTERS)
+          .setId(projectUuid)
+          .setRouting(projectUuid)
+          .setVersion(response.getVersion())
+          .setSource(counters.getFields())
+          .setRefresh(true)
+          .get();
+        return;
+      } catch (IllegalStateException e) {
+        if (!isVersionConflict(e)) {
+          throw e;
+        }
+      }
+    }
+    LOGGER.warn("Issue counters of project [{}] are dropped after {} concurrent updates", projectUuid, MAX_COUNTERS_UPDATE_ATTEMPTS);
+    esClient.prepareDelete(INDEX_TYPE_ISSUE_COUNTERS, projectUuid)
+      .setRouting(projectUuid)
+      .setRefresh(true)
+      .get();
+  }
+
+  private static boolean isVersionConflict(Exception e) {
+    return Throwables.getCausalChain(e).stream().anyMatch(VersionConflictEngineException.class::isInstance);
+  }
+
   private BulkIndexer createBulkIndexer(Size bulkSize) {
     return new BulkIndexer(esClient, INDEX_TYPE_ISSUE.getIndex())
       .setSize(bulkSize);
@@ -169,4 +286,26 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
       .parent(projectUuid)
       .source(issue.getFields());
   }
+
+  private static IndexRequest newIndexRequest(IssueCountersDoc counters) {
+    return new IndexRequest(INDEX_TYPE_ISSUE_COUNTERS.getIndex(), INDEX_TYPE_ISSUE_COUNTERS.getType(), counters.getId())
+      .routing(counters.getRouting())
+      .source(counters.getFields());
+  }
+
+  /**
+   * Changes of the counters of a project, kept apart from the counters themselves so that they can be
+   * applied again on conflict.
+   */
+  private static class CountersUpdate {
+    private final String projectUuid;
+    private final IssueCountersDoc added;
+    private final IssueCountersDoc removed;
+
+    private CountersUpdate(String projectUuid) {
+      this.projectUuid = projectUuid;
+      this.added = new IssueCountersDoc(projectUuid);
+      this.removed = new IssueCountersDoc(projectUuid);
+    }
+  }
 }
@@ -95,6 +95,7 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   private static final String PROJECT_FILTER = " AND root.uuid=?";
   private static final String ISSUE_KEY_FILTER_PREFIX = " AND i.kee IN (";
   private static final String ISSUE_KEY_FILTER_SUFFIX = ")";
+  private static final String PROJECT_ORDER = " ORDER BY i.project_uuid";
 
   static final Splitter TAGS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
   static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
@@ -155,6 +156,10 @@ class IssueIteratorForSingleChunk implements IssueIterator {
       sql += IntStream.range(0, issueKeys.size()).mapToObj(i -> "?").collect(Collectors.joining(","));
       sql += ISSUE_KEY_FILTER_SUFFIX;
     }
+    if (projectUuid == null && issueKeys == null) {
+      // issues of all projects are grouped by project, see IssueIndexer
+      sql += PROJECT_ORDER;
+    }
     return sql;
   }
 
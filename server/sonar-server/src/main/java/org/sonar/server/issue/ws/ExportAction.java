@@ -0,0 +1,194 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HttpHeaders;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.Durations;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.user.UserSession;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Strings.emptyToNull;
+import static com.google.common.base.Strings.nullToEmpty;
+import static org.sonar.core.util.Protobuf.setNullable;
+import static org.sonar.server.issue.ws.SearchResponseFormat.completeIssueLocations;
+import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonar.server.ws.WsUtils.checkFoundWithOptional;
+import static org.sonar.server.ws.WsUtils.checkRequest;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.ACTION_EXPORT;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_COMPONENT;
+
+public class ExportAction implements IssuesWsAction {
+
+  static final String NDJSON = "application/x-ndjson";
+  private static final String GZIP = "gzip";
+  private static final Pattern GZIP_REFUSED = Pattern.compile("gzip;q=0(\\.0*)?");
+
+  private static final Set<String> SUPPORTED_QUALIFIERS = ImmutableSet.of(Qualifiers.PROJECT, Qualifiers.MODULE, Qualifiers.DIRECTORY,
+    Qualifiers.FILE, Qualifiers.UNIT_TEST_FILE);
+
+  private final DbClient dbClient;
+  private final UserSession userSession;
+  private final ComponentFinder componentFinder;
+  private final Durations durations;
+
+  public ExportAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder, Durations durations) {
+    this.dbClient = dbClient;
+    this.userSession = userSession;
+    this.componentFinder = componentFinder;
+    this.durations = durations;
+  }
+
+  @Override
+  public void define(WebService.NewController context) {
+    WebService.NewAction action = context.createAction(ACTION_EXPORT)
+      .setDescription("Export all the issues of a project, module, directory or file, ordered by issue key.<br/>" +
+        "Issues are read from the database while the response is written, without paging. " +
+        "The response is a stream of length-delimited protobuf messages when requesting protobuf, " +
+        "otherwise newline-delimited JSON (one issue per line). It is compressed with gzip when the header Accept-Encoding of the request allows it.<br/>" +
+        "Requires the 'Browse' permission on the specified component.")
+      .setSince("6.4")
+      .setInternal(true)
+      .setHandler(this);
+    action.createParam(PARAM_COMPONENT)
+      .setDescription("Key of the project, module, directory or file")
+      .setRequired(true)
+      .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    ComponentDto component;
+    String organizationKey;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      component = componentFinder.getByKey(dbSession, request.mandatoryParam(PARAM_COMPONENT));
+      userSession.checkComponentPermission(UserRole.USER, component);
+      checkRequest(SUPPORTED_QUALIFIERS.contains(component.qualifier()), "Component '%s' (qualifier '%s') is not supported", component.key(), component.qualifier());
+      organizationKey = checkFoundWithOptional(dbClient.organizationDao().selectByUuid(dbSession, component.getOrganizationUuid()),
+        "Organization with uuid '%s' not found", component.getOrganizationUuid()).getKey();
+    }
+
+    boolean protobuf = MediaTypes.PROTOBUF.equals(request.getMediaType());
+    response.stream().setMediaType(protobuf ? MediaTypes.PROTOBUF : NDJSON);
+    // compressed here rather than by the HTTP connector, so that only this web service is concerned
+    boolean gzip = acceptsGzip(request);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+      response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    try (IssueExportIterator issues = new IssueExportIterator(dbClient, component);
+      OutputStream output = new BufferedOutputStream(gzip ? new GZIPOutputStream(response.stream().output()) : response.stream().output())) {
+      if (protobuf) {
+        writeProtobuf(issues, organizationKey, output);
+      } else {
+        writeNdjson(issues, organizationKey, output);
+      }
+    }
+  }
+
+  /**
+   * Whether the header Accept-Encoding of the request allows gzip, ignoring the weights other than zero
+   */
+  private static boolean acceptsGzip(Request request) {
+    Optional<String> acceptEncoding = request.header(HttpHeaders.ACCEPT_ENCODING);
+    if (!acceptEncoding.isPresent()) {
+      return false;
+    }
+    for (String encoding : Splitter.on(',').trimResults().split(acceptEncoding.get().toLowerCase(Locale.ENGLISH).replace(" ", ""))) {
+      if (encoding.equals(GZIP) || (encoding.startsWith(GZIP + ";") && !GZIP_REFUSED.matcher(encoding).matches())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeProtobuf(IssueExportIterator issues, String organizationKey, OutputStream output) throws IOException {
+    Issues.Issue.Builder builder = Issues.Issue.newBuilder();
+    while (issues.hasNext()) {
+      formatIssue(builder, issues.next(), organizationKey).writeDelimitedTo(output);
+    }
+  }
+
+  private void writeNdjson(IssueExportIterator issues, String organizationKey, OutputStream output) throws IOException {
+    Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    Issues.Issue.Builder builder = Issues.Issue.newBuilder();
+    while (issues.hasNext()) {
+      writer.write(ProtobufJsonFormat.toJson(formatIssue(builder, issues.next(), organizationKey)));
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+  private Issues.Issue formatIssue(Issues.Issue.Builder builder, IssueDto dto, String organizationKey) {
+    builder.clear();
+    builder.setKey(dto.getKey());
+    setNullable(dto.getType(), builder::setType, Common.RuleType::valueOf);
+    builder.setOrganization(organizationKey);
+    builder.setComponent(dto.getComponentKey());
+    builder.setProject(dto.getProjectKey());
+    builder.setRule(dto.getRuleKey().toString());
+    builder.setSeverity(Common.Severity.valueOf(dto.getSeverity()));
+    setNullable(emptyToNull(dto.getAssignee()), builder::setAssignee);
+    setNullable(emptyToNull(dto.getResolution()), builder::setResolution);
+    builder.setStatus(dto.getStatus());
+    builder.setMessage(nullToEmpty(dto.getMessage()));
+    builder.addAllTags(dto.getTags());
+    Long effort = dto.getEffort();
+    if (effort != null) {
+      String effortValue = durations.encode(Duration.create(effort));
+      builder.setDebt(effortValue);
+      builder.setEffort(effortValue);
+    }
+    setNullable(dto.getLine(), builder::setLine);
+    completeIssueLocations(dto, builder);
+    builder.setAuthor(nullToEmpty(dto.getAuthorLogin()));
+    setNullable(dto.getIssueCreationDate(), builder::setCreationDate, DateUtils::formatDateTime);
+    setNullable(dto.getIssueUpdateDate(), builder::setUpdateDate, DateUtils::formatDateTime);
+    setNullable(dto.getIssueCloseDate(), builder::setCloseDate, DateUtils::formatDateTime);
+    return builder.build();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.db.DatabaseUtils;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ResultSetIterator;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.sonar.db.DaoDatabaseUtils.buildLikeValue;
+import static org.sonar.db.DatabaseUtils.getLong;
+import static org.sonar.db.WildcardPosition.AFTER;
+
+/**
+ * Scrolls over table ISSUES for all the issues of a component tree, ordered by issue key.
+ * Rows are read lazily from the database cursor so that memory does not depend on the number of issues.
+ */
+class IssueExportIterator implements Iterator<IssueDto>, AutoCloseable {
+
+  private static final String[] FIELDS = {
+    // column 1
+    "i.kee",
+    "i.issue_type",
+    "i.severity",
+    "i.status",
+    "i.resolution",
+    "i.message",
+    "i.line",
+    "i.locations",
+    "i.effort",
+    "i.assignee",
+
+    // column 11
+    "i.author_login",
+    "i.tags",
+    "i.issue_creation_date",
+    "i.issue_update_date",
+    "i.issue_close_date",
+    "r.plugin_name",
+    "r.plugin_rule_key",
+    "p.kee",
+    "p.uuid",
+    "p.module_uuid",
+
+    // column 21
+    "root.kee",
+    "root.uuid"
+  };
+
+  private static final String SQL_ALL = "select " + StringUtils.join(FIELDS, ",") + " from issues i " +
+    "inner join rules r on r.id=i.rule_id " +
+    "inner join projects p on p.uuid=i.component_uuid " +
+    "inner join projects root on root.uuid=i.project_uuid " +
+    "where i.project_uuid=?";
+
+  private static final String MODULE_FILTER = " and p.module_uuid_path like ? escape '/'";
+  private static final String DIRECTORY_FILTER = " and (p.uuid=? or (p.module_uuid=? and p.path like ? escape '/'))";
+  private static final String FILE_FILTER = " and i.component_uuid=?";
+  private static final String ORDER_BY = " order by i.kee";
+
+  private final DbSession session;
+  private final PreparedStatement stmt;
+  private final ResultSetIterator<IssueDto> iterator;
+
+  IssueExportIterator(DbClient dbClient, ComponentDto component) {
+    this.session = dbClient.openSession(false);
+    try {
+      stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, SQL_ALL + createFilter(component) + ORDER_BY);
+      iterator = createIterator(component);
+    } catch (Exception e) {
+      session.close();
+      throw new IllegalStateException("Fail to prepare SQL request to export issues", e);
+    }
+  }
+
+  private IssueExportIteratorInternal createIterator(ComponentDto component) {
+    try {
+      setParameters(component);
+      return new IssueExportIteratorInternal(stmt);
+    } catch (SQLException e) {
+      DatabaseUtils.closeQuietly(stmt);
+      throw new IllegalStateException("Fail to prepare SQL request to export issues", e);
+    }
+  }
+
+  private static String createFilter(ComponentDto component) {
+    switch (component.qualifier()) {
+      case Qualifiers.PROJECT:
+        return "";
+      case Qualifiers.MODULE:
+        return MODULE_FILTER;
+      case Qualifiers.DIRECTORY:
+        return DIRECTORY_FILTER;
+      default:
+        return FILE_FILTER;
+    }
+  }
+
+  private void setParameters(ComponentDto component) throws SQLException {
+    int index = 1;
+    for (String parameter : filterParameters(component)) {
+      stmt.setString(index, parameter);
+      index++;
+    }
+  }
+
+  private static List<String> filterParameters(ComponentDto component) {
+    String projectUuid = component.projectUuid();
+    switch (component.qualifier()) {
+      case Qualifiers.PROJECT:
+        return singletonList(projectUuid);
+      case Qualifiers.MODULE:
+        return asList(projectUuid, buildLikeValue(component.moduleUuidPath(), AFTER));
+      case Qualifiers.DIRECTORY:
+        return asList(projectUuid, component.uuid(), component.moduleUuid(), buildLikeValue(component.path() + "/", AFTER));
+      default:
+        return asList(projectUuid, component.uuid());
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return iterator.hasNext();
+  }
+
+  @Override
+  public IssueDto next() {
+    return iterator.next();
+  }
+
+  @Override
+  public void close() {
+    try {
+      iterator.close();
+    } finally {
+      DatabaseUtils.closeQuietly(stmt);
+      session.close();
+    }
+  }
+
+  private static final class IssueExportIteratorInternal extends ResultSetIterator<IssueDto> {
+
+    IssueExportIteratorInternal(PreparedStatement stmt) throws SQLException {
+      super(stmt);
+    }
+
+    @Override
+    protected IssueDto read(ResultSet rs) throws SQLException {
+      return new IssueDto()
+        .setKee(rs.getString(1))
+        .setType(rs.getInt(2))
+        .setSeverity(rs.getString(3))
+        .setStatus(rs.getString(4))
+        .setResolution(rs.getString(5))
+        .setMessage(rs.getString(6))
+        .setLine(DatabaseUtils.getInt(rs, 7))
+        .setLocations(rs.getBytes(8))
+        .setEffort(getLong(rs, 9))
+        .setAssignee(rs.getString(10))
+        .setAuthorLogin(rs.getString(11))
+        .setTagsString(rs.getString(12))
+        .setIssueCreationTime(getLong(rs, 13))
+        .setIssueUpdateTime(getLong(rs, 14))
+        .setIssueCloseTime(getLong(rs, 15))
+        .setRuleKey(rs.getString(16), rs.getString(17))
+        .setComponentKey(rs.getString(18))
+        .setComponentUuid(rs.getString(19))
+        .setModuleUuid(rs.getString(20))
+        .setProjectKey(rs.getString(21))
+        .setProjectUuid(rs.getString(22));
+    }
+  }
+}
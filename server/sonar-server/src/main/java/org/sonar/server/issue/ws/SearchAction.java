@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
@@ -38,7 +39,9 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.Paging;
+import org.sonar.server.es.EsUtils;
 import org.sonar.server.es.Facets;
+import org.sonar.server.es.ScrollCursor;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.issue.IssueQuery;
@@ -58,6 +61,7 @@ import static org.sonar.server.es.SearchOptions.MAX_LIMIT;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.ACTION_SEARCH;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.CONTROLLER_ISSUES;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.DEPRECATED_FACET_MODE_DEBT;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.DEPRECATED_PARAM_ACTION_PLANS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.FACET_ASSIGNED_TO_ME;
@@ -78,6 +82,7 @@ import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFT
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AT;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_BEFORE;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_IN_LAST;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_DIRECTORIES;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_FILE_UUIDS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ISSUES;
@@ -99,6 +104,7 @@ import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_TYPES;
 
 public class SearchAction implements IssuesWsAction {
 
+  private static final String FIELD_ISSUES = "issues";
   private static final String INTERNAL_PARAMETER_DISCLAIMER = "This parameter is mostly used by the Issues page, please prefer usage of the componentKeys parameter. ";
 
   private final UserSession userSession;
@@ -132,6 +138,16 @@ public class SearchAction implements IssuesWsAction {
       .setResponseExample(getClass().getResource("search-example.json"));
 
     action.addPagingParams(100, MAX_LIMIT);
+    action.createParam(PARAM_CURSOR)
+      .setDescription(format("Cursor for deep pagination, which is not limited to the first %d results. " +
+        "Set to '%s' to request the first page, then to the value of the field 'cursor' of the previous response to request the next pages. " +
+        "The field 'cursor' is missing from the response of the last page. " +
+        "When this parameter is set, the parameter '%s' is ignored and the parameter '%s' is used only on first page. " +
+        "The other parameters must be the same on all pages, and a cursor can be used only by the user who requested the first page. " +
+        "A cursor expires %d minutes after the request of its previous page.",
+        SearchOptions.MAX_RETURNABLE_RESULTS, ScrollCursor.START, Param.PAGE, Param.PAGE_SIZE, EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setSince("6.4")
+      .setExampleValue(ScrollCursor.START);
     action.createParam(Param.FACETS)
       .setDescription("Comma-separated list of the facets to be computed. No facet is computed by default.<br/>" +
         "Since 5.5, facet 'actionPlans' is deprecated.<br/>" +
@@ -288,18 +304,17 @@ public class SearchAction implements IssuesWsAction {
 
   @Override
   public final void handle(Request request, Response response) throws Exception {
-    SearchWsResponse searchWsResponse = doHandle(toSearchWsRequest(request), request);
-    writeProtobuf(searchWsResponse, request, response);
+    doHandle(toSearchWsRequest(request), request, response);
   }
 
-  private SearchWsResponse doHandle(SearchWsRequest request, Request wsRequest) {
+  private void doHandle(SearchWsRequest request, Request wsRequest, Response wsResponse) {
     // prepare the Elasticsearch request
-    SearchOptions options = createSearchOptionsFromRequest(request);
+    ScrollCursor cursor = parseCursor(request);
+    SearchOptions options = createSearchOptionsFromRequest(request, cursor);
     EnumSet<SearchAdditionalField> additionalFields = SearchAdditionalField.getFromRequest(request);
-    IssueQuery query = issueQueryService.createFromRequest(request);
 
     // execute request
-    SearchResult<IssueDoc> result = issueIndex.search(query, options);
+    SearchResult<IssueDoc> result = search(request, options, cursor);
     List<String> issueKeys = from(result.getDocs()).transform(IssueDocToKey.INSTANCE).toList();
 
     // load the additional information to be returned in response
@@ -324,16 +339,119 @@ public class SearchAction implements IssuesWsAction {
     // can be used to get total debt.
     facets = reorderFacets(facets, options.getFacets());
 
-    // FIXME allow long in Paging
-    Paging paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
+    Paging paging;
+    String nextCursor = null;
+    if (cursor == null) {
+      // FIXME allow long in Paging
+      paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
+    } else {
+      paging = cursor.toPaging(result.getTotal());
+      nextCursor = cursor.formatNext(result.getScrollId(), issueKeys.size());
+      clearScrollOfLastPage(cursor, result.getScrollId(), issueKeys.size());
+    }
+
+    // issues are the largest part of the response. They are formatted and written one by one.
+    SearchWsResponse responseWithoutIssues = searchResponseFormat.formatSearchWithoutIssues(additionalFields, data, paging, facets);
+    if (nextCursor != null) {
+      responseWithoutIssues = responseWithoutIssues.toBuilder().setCursor(nextCursor).build();
+    }
+    writeProtobuf(responseWithoutIssues, FIELD_ISSUES, searchResponseFormat.formatIssues(additionalFields, data), wsRequest, wsResponse);
+  }
+
+  private SearchResult<IssueDoc> search(SearchWsRequest request, SearchOptions options, @Nullable ScrollCursor cursor) {
+    if (cursor != null && !cursor.isStart()) {
+      // criteria and sort are kept in the scroll context of Elasticsearch
+      return issueIndex.scroll(cursor.getScrollId());
+    }
+    IssueQuery query = issueQueryService.createFromRequest(request);
+    return issueIndex.search(query, options);
+  }
 
-    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+  private void clearScrollOfLastPage(ScrollCursor cursor, @Nullable String scrollId, int resultsInPage) {
+    if (scrollId != null && cursor.isLastPage(resultsInPage)) {
+      issueIndex.clearScroll(scrollId);
+    }
   }
 
-  private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request) {
+  /**
+   * The cursor is bound to the user and to the criteria of the first page, as the scroll context
+   * keeps the authorization filter of the user who requested the first page.
+   */
+  @CheckForNull
+  private ScrollCursor parseCursor(SearchWsRequest request) {
+    String cursor = request.getCursor();
+    if (cursor == null) {
+      return null;
+    }
+    String context = ScrollCursor.context(userSession.getLogin(), CONTROLLER_ISSUES + "/" + ACTION_SEARCH, formatCursorQuery(request));
+    return ScrollCursor.parse(cursor, Math.min(request.getPageSize(), MAX_LIMIT), context);
+  }
+
+  /**
+   * Criteria of the search a cursor is bound to, formatted from an explicit list of parameters. Paging parameters
+   * and the cursor itself are not part of the criteria.
+   */
+  private static String formatCursorQuery(SearchWsRequest request) {
+    Map<String, Object> params = new LinkedHashMap<>();
+    params.put(PARAM_ADDITIONAL_FIELDS, request.getAdditionalFields());
+    params.put(PARAM_ASC, request.getAsc());
+    params.put(PARAM_ASSIGNED, request.getAssigned());
+    params.put(PARAM_ASSIGNEES, request.getAssignees());
+    params.put(PARAM_AUTHORS, request.getAuthors());
+    params.put(PARAM_COMPONENT_KEYS, request.getComponentKeys());
+    params.put(PARAM_COMPONENT_ROOT_UUIDS, request.getComponentRootUuids());
+    params.put(PARAM_COMPONENT_ROOTS, request.getComponentRoots());
+    params.put(PARAM_COMPONENT_UUIDS, request.getComponentUuids());
+    params.put(PARAM_COMPONENTS, request.getComponents());
+    params.put(PARAM_CREATED_AFTER, request.getCreatedAfter());
+    params.put(PARAM_CREATED_AT, request.getCreatedAt());
+    params.put(PARAM_CREATED_BEFORE, request.getCreatedBefore());
+    params.put(PARAM_CREATED_IN_LAST, request.getCreatedInLast());
+    params.put(PARAM_DIRECTORIES, request.getDirectories());
+    params.put(FACET_MODE, request.getFacetMode());
+    params.put(Param.FACETS, request.getFacets());
+    params.put(PARAM_FILE_UUIDS, request.getFileUuids());
+    params.put(PARAM_ISSUES, request.getIssues());
+    params.put(PARAM_LANGUAGES, request.getLanguages());
+    params.put(PARAM_MODULE_UUIDS, request.getModuleUuids());
+    params.put(PARAM_ON_COMPONENT_ONLY, request.getOnComponentOnly());
+    params.put(PARAM_PROJECT_KEYS, request.getProjectKeys());
+    params.put(PARAM_PROJECT_UUIDS, request.getProjectUuids());
+    params.put(PARAM_PROJECTS, request.getProjects());
+    params.put(PARAM_RESOLUTIONS, request.getResolutions());
+    params.put(PARAM_RESOLVED, request.getResolved());
+    params.put(PARAM_RULES, request.getRules());
+    params.put(PARAM_SINCE_LEAK_PERIOD, request.getSinceLeakPeriod());
+    params.put(Param.SORT, request.getSort());
+    params.put(PARAM_SEVERITIES, request.getSeverities());
+    params.put(PARAM_STATUSES, request.getStatuses());
+    params.put(PARAM_TAGS, request.getTags());
+    params.put(PARAM_TYPES, request.getTypes());
+    StringBuilder query = new StringBuilder();
+    params.forEach((name, value) -> {
+      query.append(name).append('=');
+      // values are prefixed with their length, so that values can not be confused whatever their characters
+      Iterable<?> values = value instanceof List ? (List<?>) value : singletonList(value);
+      for (Object v : values) {
+        if (v != null) {
+          String formatted = v.toString();
+          query.append(formatted.length()).append(':').append(formatted);
+        }
+      }
+      query.append('\n');
+    });
+    return query.toString();
+  }
+
+  private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request, @Nullable ScrollCursor cursor) {
     SearchOptions options = new SearchOptions();
-    options.setPage(request.getPage(), request.getPageSize());
-    options.addFacets(request.getFacets());
+    if (cursor == null) {
+      options.setPage(request.getPage(), request.getPageSize());
+      options.addFacets(request.getFacets());
+    } else if (cursor.isStart()) {
+      options.setPage(1, cursor.getPageSize()).setScroll(true);
+      options.addFacets(request.getFacets());
+    }
 
     return options;
   }
@@ -454,6 +572,7 @@ public class SearchAction implements IssuesWsAction {
       .setOnComponentOnly(request.paramAsBoolean(PARAM_ON_COMPONENT_ONLY))
       .setPage(request.mandatoryParamAsInt(Param.PAGE))
       .setPageSize(request.mandatoryParamAsInt(Param.PAGE_SIZE))
+      .setCursor(request.param(PARAM_CURSOR))
       .setProjectKeys(request.paramAsStrings(PARAM_PROJECT_KEYS))
       .setProjectUuids(request.paramAsStrings(PARAM_PROJECT_UUIDS))
       .setProjects(request.paramAsStrings(PARAM_PROJECTS))
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,13 +66,16 @@ public class SearchResponseFormat {
     this.languages = languages;
   }
 
-  public Issues.SearchWsResponse formatSearch(Set<SearchAdditionalField> fields, SearchResponseData data,
+  /**
+   * Formats the response of api/issues/search, except the issues. They are formatted
+   * one by one by {@link #formatIssues(Set, SearchResponseData)} while the response is written.
+   */
+  public Issues.SearchWsResponse formatSearchWithoutIssues(Set<SearchAdditionalField> fields, SearchResponseData data,
     Paging paging, @Nullable Facets facets) {
     Issues.SearchWsResponse.Builder response = Issues.SearchWsResponse.newBuilder();
 
     formatPaging(paging, response);
     formatEffortTotal(data, response);
-    response.addAllIssues(formatIssues(fields, data));
     response.addAllComponents(formatComponents(data));
     if (facets != null) {
       formatFacets(facets, response);
@@ -88,6 +92,37 @@ public class SearchResponseFormat {
     return response.build();
   }
 
+  /**
+   * Lazily formats the issues of {@code data}. An issue is built only when requested by {@link Iterator#next()}.
+   */
+  public Iterator<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
+    Iterator<IssueDto> dtos = data.getIssues().iterator();
+    Issues.Issue.Builder issueBuilder = Issues.Issue.newBuilder();
+    return new Iterator<Issues.Issue>() {
+      @Override
+      public boolean hasNext() {
+        return dtos.hasNext();
+      }
+
+      @Override
+      public Issues.Issue next() {
+        IssueDto dto = dtos.next();
+        issueBuilder.clear();
+        formatIssue(issueBuilder, dto, data);
+        if (fields.contains(SearchAdditionalField.ACTIONS)) {
+          formatIssueActions(data, issueBuilder, dto);
+        }
+        if (fields.contains(SearchAdditionalField.TRANSITIONS)) {
+          formatIssueTransitions(data, issueBuilder, dto);
+        }
+        if (fields.contains(SearchAdditionalField.COMMENTS)) {
+          formatIssueComments(data, issueBuilder, dto);
+        }
+        return issueBuilder.build();
+      }
+    };
+  }
+
   public Issues.Operation formatOperation(SearchResponseData data) {
     Issues.Operation.Builder response = Issues.Operation.newBuilder();
 
@@ -121,26 +156,6 @@ public class SearchResponseFormat {
     response.setPaging(commonFormat.formatPaging(paging));
   }
 
-  private List<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
-    List<Issues.Issue> result = new ArrayList<>();
-    Issues.Issue.Builder issueBuilder = Issues.Issue.newBuilder();
-    for (IssueDto dto : data.getIssues()) {
-      issueBuilder.clear();
-      formatIssue(issueBuilder, dto, data);
-      if (fields.contains(SearchAdditionalField.ACTIONS)) {
-        formatIssueActions(data, issueBuilder, dto);
-      }
-      if (fields.contains(SearchAdditionalField.TRANSITIONS)) {
-        formatIssueTransitions(data, issueBuilder, dto);
-      }
-      if (fields.contains(SearchAdditionalField.COMMENTS)) {
-        formatIssueComments(data, issueBuilder, dto);
-      }
-      result.add(issueBuilder.build());
-    }
-    return result;
-  }
-
   private void formatIssue(Issues.Issue.Builder issueBuilder, IssueDto dto, SearchResponseData data) {
     issueBuilder.setKey(dto.getKey());
     setNullable(dto.getType(), issueBuilder::setType, Common.RuleType::valueOf);
@@ -179,7 +194,7 @@ public class SearchResponseFormat {
     setNullable(dto.getIssueCloseDate(), issueBuilder::setCloseDate, DateUtils::formatDateTime);
   }
 
-  private void completeIssueLocations(IssueDto dto, Issues.Issue.Builder issueBuilder) {
+  static void completeIssueLocations(IssueDto dto, Issues.Issue.Builder issueBuilder) {
     DbIssues.Locations locations = dto.parseLocations();
     if (locations == null) {
       return;
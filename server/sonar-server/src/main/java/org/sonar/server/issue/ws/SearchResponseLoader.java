@@ -125,8 +125,13 @@ public class SearchResponseLoader {
     for (ComponentDto component : result.getComponents()) {
       collector.addProjectUuid(component.projectUuid());
     }
-    List<ComponentDto> projects = dbClient.componentDao().selectByUuids(dbSession, collector.getProjectUuids());
-    result.addComponents(projects);
+    // projects are often already loaded as components of issues or as sub-projects
+    Set<String> missingProjectUuids = collector.getProjectUuids().stream()
+      .filter(uuid -> result.getComponentByUuid(uuid) == null)
+      .collect(Collectors.toSet());
+    if (!missingProjectUuids.isEmpty()) {
+      result.addComponents(dbClient.componentDao().selectByUuids(dbSession, missingProjectUuids));
+    }
   }
 
   private void loadOrganizations(DbSession dbSession, SearchResponseData result) {
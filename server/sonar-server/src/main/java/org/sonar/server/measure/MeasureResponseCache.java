@@ -0,0 +1,221 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.Message;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.server.user.UserSession;
+
+import static com.google.common.base.Throwables.propagateIfPossible;
+
+/**
+ * Cache of the responses of the web services on measures, shared by all the HTTP requests. Dashboards and
+ * reporting tools request the same measures many times between two analyses.
+ * <p/>
+ * Responses are identified by the parameters of requests and by the last analysis of the project of the requested
+ * component, so that an analysis of a project does not drop the responses of the other projects. Analyses are processed
+ * and purged by the Compute Engine, which runs in its own process, so the last analysis of each project is loaded at
+ * most once every {@link #ANALYSES_CHECK_DELAY_MS}, which is the maximum delay before a new analysis is visible.
+ * Old analyses are purged by the Compute Engine when it processes a new analysis of the same project.
+ * A cache hit does not access the database, except for the permissions of the user.
+ * Changes done by the web server, like the update of a component key, the deletion of a project or the
+ * update of a metric, must call {@link #invalidate()}.
+ * <p/>
+ * The cache is bounded by the size in bytes of the serialized responses, as defined by {@link #SIZE_PROPERTY}.
+ * A size of zero disables it.
+ */
+@ServerSide
+public class MeasureResponseCache {
+
+  public static final String SIZE_PROPERTY = "sonar.web.measuresCache.sizeInMb";
+  static final long DEFAULT_SIZE_IN_MB = 50L;
+  static final long TTL_IN_MINUTES = 30L;
+  static final long MAX_PROJECTS = 10_000L;
+  public static final long ANALYSES_CHECK_DELAY_MS = 10_000L;
+
+  private final DbClient dbClient;
+  private final UserSession userSession;
+  private final System2 system2;
+  private final AtomicLong generation = new AtomicLong();
+  @CheckForNull
+  private final Cache<String, CachedResponse<?>> responses;
+  private final Cache<String, String> projectUuidsByComponent = CacheBuilder.newBuilder().maximumSize(MAX_PROJECTS * 10).build();
+  private final Cache<String, LastAnalysis> lastAnalysesByProjectUuid = CacheBuilder.newBuilder().maximumSize(MAX_PROJECTS).build();
+
+  public MeasureResponseCache(Settings settings, DbClient dbClient, UserSession userSession, System2 system2) {
+    this.dbClient = dbClient;
+    this.userSession = userSession;
+    this.system2 = system2;
+    long sizeInMb = settings.hasKey(SIZE_PROPERTY) ? settings.getLong(SIZE_PROPERTY) : DEFAULT_SIZE_IN_MB;
+    if (sizeInMb <= 0L) {
+      this.responses = null;
+    } else {
+      this.responses = CacheBuilder.newBuilder()
+        .maximumWeight(sizeInMb * 1024L * 1024L)
+        .weigher((String key, CachedResponse<?> cachedResponse) -> 2 * key.length() + cachedResponse.response.getSerializedSize())
+        .expireAfterWrite(TTL_IN_MINUTES, TimeUnit.MINUTES)
+        .build();
+    }
+  }
+
+  /**
+   * Key of a response, built from the parameters of the request. Parameters can be null.
+   */
+  public static String keyOf(String action, Object... parameters) {
+    return Joiner.on('\n').useForNull("").join(Lists.asList(action, parameters));
+  }
+
+  /**
+   * The response identified by {@code key}, loaded by {@code loader} if not already cached. The requested component
+   * is identified by its uuid or by its key. The loader must check the permissions of the user. Permission to browse
+   * the component of the response is checked when the response is already cached.
+   * Responses about components that do not exist and exceptions raised by the loader are not cached.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Message> T get(@Nullable String componentUuid, @Nullable String componentKey, String key, Supplier<CachedResponse<T>> loader) {
+    if (responses == null) {
+      return loader.get().response;
+    }
+    // generation and analysis are read before loading the response, so that the response is never older than its key
+    long currentGeneration = generation.get();
+    Optional<String> lastAnalysisUuid = getLastAnalysisUuid(componentUuid, componentKey);
+    if (!lastAnalysisUuid.isPresent()) {
+      return loader.get().response;
+    }
+    String versionedKey = currentGeneration + "\n" + lastAnalysisUuid.get() + "\n" + key;
+    CachedResponse<T> cachedResponse = (CachedResponse<T>) responses.getIfPresent(versionedKey);
+    if (cachedResponse != null) {
+      userSession.checkComponentPermission(UserRole.USER, cachedResponse.component);
+      return cachedResponse.response;
+    }
+    try {
+      return ((CachedResponse<T>) responses.get(versionedKey, loader::get)).response;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Drops all the responses. Must be called after commit of the changes that are not done by the Compute Engine.
+   */
+  public void invalidate() {
+    if (responses != null) {
+      // responses being loaded are stored with the previous generation, so they are never returned
+      generation.incrementAndGet();
+      responses.invalidateAll();
+      projectUuidsByComponent.invalidateAll();
+      lastAnalysesByProjectUuid.invalidateAll();
+    }
+  }
+
+  long size() {
+    return responses == null ? 0L : responses.size();
+  }
+
+  /**
+   * Uuid of the last analysis of the project of the component, empty string if the project has never been analyzed.
+   * Empty if the component does not exist.
+   */
+  private Optional<String> getLastAnalysisUuid(@Nullable String componentUuid, @Nullable String componentKey) {
+    if (componentUuid == null && componentKey == null) {
+      return Optional.empty();
+    }
+    String componentRef = componentUuid == null ? ("key:" + componentKey) : ("uuid:" + componentUuid);
+    long now = system2.now();
+    String projectUuid = projectUuidsByComponent.getIfPresent(componentRef);
+    Optional<String> lastAnalysisUuid = getFreshLastAnalysisUuid(projectUuid, now);
+    if (lastAnalysisUuid.isPresent()) {
+      return lastAnalysisUuid;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      if (projectUuid == null) {
+        ComponentDto component = componentUuid == null ? dbClient.componentDao().selectByKey(dbSession, componentKey).orNull()
+          : dbClient.componentDao().selectByUuid(dbSession, componentUuid).orNull();
+        if (component == null) {
+          return Optional.empty();
+        }
+        projectUuid = component.projectUuid();
+        projectUuidsByComponent.put(componentRef, projectUuid);
+      }
+      String analysisUuid = dbClient.snapshotDao().selectLastAnalysisByRootComponentUuid(dbSession, projectUuid)
+        .map(SnapshotDto::getUuid)
+        .orElse("");
+      lastAnalysesByProjectUuid.put(projectUuid, new LastAnalysis(analysisUuid, now + ANALYSES_CHECK_DELAY_MS));
+      return Optional.of(analysisUuid);
+    }
+  }
+
+  private Optional<String> getFreshLastAnalysisUuid(@Nullable String projectUuid, long now) {
+    if (projectUuid == null) {
+      return Optional.empty();
+    }
+    LastAnalysis lastAnalysis = lastAnalysesByProjectUuid.getIfPresent(projectUuid);
+    if (lastAnalysis == null || now >= lastAnalysis.expiresAt) {
+      return Optional.empty();
+    }
+    return Optional.of(lastAnalysis.uuid);
+  }
+
+  private static final class LastAnalysis {
+    private final String uuid;
+    private final long expiresAt;
+
+    private LastAnalysis(String uuid, long expiresAt) {
+      this.uuid = uuid;
+      this.expiresAt = expiresAt;
+    }
+  }
+  /**
+   * A response and the component it is about, as permissions are checked on this component.
+   */
+  public static final class CachedResponse<T extends Message> {
+    private final ComponentDto component;
+    private final T response;
+
+    private CachedResponse(ComponentDto component, T response) {
+      this.component = component;
+      this.response = response;
+    }
+
+    public static <T extends Message> CachedResponse<T> of(ComponentDto component, T response) {
+      return new CachedResponse<>(component, response);
+    }
+  }
+}
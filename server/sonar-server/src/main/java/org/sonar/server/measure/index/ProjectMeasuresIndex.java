@@ -31,6 +31,8 @@ import java.util.Set;
 import java.util.stream.IntStream;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchScrollRequestBuilder;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
@@ -45,6 +47,7 @@ import org.sonar.core.util.stream.Collectors;
 import org.sonar.server.es.BaseIndex;
 import org.sonar.server.es.DefaultIndexSettingsElement;
 import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsUtils;
 import org.sonar.server.es.SearchIdResult;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.StickyFacetBuilder;
@@ -126,6 +129,9 @@ public class ProjectMeasuresIndex extends BaseIndex {
       .setFetchSource(false)
       .setFrom(searchOptions.getOffset())
       .setSize(searchOptions.getLimit());
+    if (searchOptions.isScroll()) {
+      requestBuilder.setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES));
+    }
 
     BoolQueryBuilder esFilter = boolQuery();
     Map<String, QueryBuilder> filters = createFilters(query);
@@ -137,6 +143,15 @@ public class ProjectMeasuresIndex extends BaseIndex {
     return new SearchIdResult<>(requestBuilder.get(), id -> id);
   }
 
+  /**
+   * Next page of a search requested with {@link SearchOptions#setScroll(boolean)}. Facets are not computed.
+   */
+  public SearchIdResult<String> scroll(String scrollId) {
+    SearchScrollRequestBuilder requestBuilder = getClient().prepareSearchScroll(scrollId)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES));
+    return new SearchIdResult<>(requestBuilder.get(), id -> id);
+  }
+
   private static void addSort(ProjectMeasuresQuery query, SearchRequestBuilder requestBuilder) {
     String sort = query.getSort();
     if (SORT_BY_NAME.equals(sort)) {
@@ -33,6 +33,8 @@ import org.sonar.api.utils.Paging;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery.Strategy;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.measure.MeasureResponseCache;
+import org.sonar.server.measure.MeasureResponseCache.CachedResponse;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 import org.sonarqube.ws.client.measure.ComponentTreeWsRequest;
@@ -107,12 +109,14 @@ public class ComponentTreeAction implements MeasuresWsAction {
   private final ComponentTreeDataLoader dataLoader;
   private final I18n i18n;
   private final ResourceTypes resourceTypes;
+  private final MeasureResponseCache responseCache;
 
   public ComponentTreeAction(ComponentTreeDataLoader dataLoader, I18n i18n,
-    ResourceTypes resourceTypes) {
+    ResourceTypes resourceTypes, MeasureResponseCache responseCache) {
     this.dataLoader = dataLoader;
     this.i18n = i18n;
     this.resourceTypes = resourceTypes;
+    this.responseCache = responseCache;
   }
 
   @Override
@@ -185,23 +189,32 @@ public class ComponentTreeAction implements MeasuresWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    ComponentTreeWsResponse componentTreeWsResponse = doHandle(toComponentTreeWsRequest(request));
+    ComponentTreeWsRequest componentTreeWsRequest = toComponentTreeWsRequest(request);
+    ComponentTreeWsResponse componentTreeWsResponse = responseCache.get(componentTreeWsRequest.getBaseComponentId(),
+      componentTreeWsRequest.getBaseComponentKey(), cacheKey(componentTreeWsRequest), () -> doHandle(componentTreeWsRequest));
     writeProtobuf(componentTreeWsResponse, request, response);
   }
 
-  private ComponentTreeWsResponse doHandle(ComponentTreeWsRequest request) {
+  private static String cacheKey(ComponentTreeWsRequest request) {
+    return MeasureResponseCache.keyOf(ACTION_COMPONENT_TREE, request.getBaseComponentId(), request.getBaseComponentKey(),
+      request.getMetricKeys(), request.getStrategy(), request.getQualifiers(), request.getAdditionalFields(), request.getQuery(),
+      request.getSort(), request.getAsc(), request.getMetricSort(), request.getMetricSortFilter(), request.getMetricPeriodSort(),
+      request.getDeveloperId(), request.getDeveloperKey(), request.getPage(), request.getPageSize());
+  }
+
+  private CachedResponse<ComponentTreeWsResponse> doHandle(ComponentTreeWsRequest request) {
     ComponentTreeData data = dataLoader.load(request);
     if (data.getComponents() == null) {
-      return emptyResponse(data.getBaseComponent(), request);
+      return CachedResponse.of(data.getBaseComponent(), emptyResponse(data.getBaseComponent(), request));
     }
 
-    return buildResponse(
+    return CachedResponse.of(data.getBaseComponent(), buildResponse(
       request,
       data,
       Paging.forPageIndex(
         request.getPage())
         .withPageSize(request.getPageSize())
-        .andTotal(data.getComponentCount()));
+        .andTotal(data.getComponentCount())));
   }
 
   private static ComponentTreeWsResponse buildResponse(ComponentTreeWsRequest request, ComponentTreeData data, Paging paging) {
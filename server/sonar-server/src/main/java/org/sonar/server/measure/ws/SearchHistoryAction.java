@@ -42,6 +42,8 @@ import org.sonar.db.measure.MeasureDto;
 import org.sonar.db.measure.PastMeasureQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.measure.MeasureResponseCache;
+import org.sonar.server.measure.MeasureResponseCache.CachedResponse;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.ws.KeyExamples;
 import org.sonarqube.ws.WsMeasures.SearchHistoryResponse;
@@ -65,11 +67,13 @@ public class SearchHistoryAction implements MeasuresWsAction {
   private final DbClient dbClient;
   private final ComponentFinder componentFinder;
   private final UserSession userSession;
+  private final MeasureResponseCache responseCache;
 
-  public SearchHistoryAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession) {
+  public SearchHistoryAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, MeasureResponseCache responseCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
+    this.responseCache = responseCache;
   }
 
   private static SearchHistoryRequest toWsRequest(Request request) {
@@ -117,15 +121,20 @@ public class SearchHistoryAction implements MeasuresWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    SearchHistoryResponse searchHistoryResponse = Stream.of(request)
-      .map(SearchHistoryAction::toWsRequest)
+    SearchHistoryRequest searchHistoryRequest = toWsRequest(request);
+    SearchHistoryResponse searchHistoryResponse = responseCache.get(null, searchHistoryRequest.getComponent(), cacheKey(searchHistoryRequest), () -> Stream.of(searchHistoryRequest)
       .map(search())
-      .map(result -> new SearchHistoryResponseFactory(result).apply())
-      .collect(Collectors.toOneElement());
+      .map(result -> CachedResponse.of(result.getComponent(), new SearchHistoryResponseFactory(result).apply()))
+      .collect(Collectors.toOneElement()));
 
     writeProtobuf(searchHistoryResponse, request, response);
   }
 
+  private static String cacheKey(SearchHistoryRequest request) {
+    return MeasureResponseCache.keyOf(ACTION_SEARCH_HISTORY, request.getComponent(), request.getMetrics(), request.getFrom(), request.getTo(),
+      request.getPage(), request.getPageSize());
+  }
+
   private Function<SearchHistoryRequest, SearchHistoryResult> search() {
     return request -> {
       try (DbSession dbSession = dbClient.openSession(false)) {
@@ -27,6 +27,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -37,10 +38,12 @@ public class DeleteAction implements MetricsWsAction {
 
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final MeasureResponseCache measureResponseCache;
 
-  public DeleteAction(DbClient dbClient, UserSession userSession) {
+  public DeleteAction(DbClient dbClient, UserSession userSession, MeasureResponseCache measureResponseCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -69,6 +72,7 @@ public class DeleteAction implements MetricsWsAction {
       dbClient.metricDao().disableCustomByIds(dbSession, ids);
       dbClient.customMeasureDao().deleteByMetricIds(dbSession, ids);
       dbSession.commit();
+      measureResponseCache.invalidate();
     }
 
     response.noContent();
@@ -19,9 +19,12 @@
  */
 package org.sonar.server.metric.ws;
 
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -31,9 +34,12 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.ws.ETags;
+import org.sonarqube.ws.MediaTypes;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static org.sonar.server.es.SearchOptions.MAX_LIMIT;
+import static org.sonar.server.ws.ETags.checkNotModified;
 import static org.sonar.server.metric.ws.MetricJsonWriter.FIELD_ID;
 import static org.sonar.server.metric.ws.MetricJsonWriter.FIELD_KEY;
 
@@ -83,13 +89,21 @@ public class SearchAction implements MetricsWsAction {
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<MetricDto> metrics = dbClient.metricDao().selectEnabled(dbSession, isCustom, searchOptions.getOffset(), searchOptions.getLimit());
       int nbMetrics = dbClient.metricDao().countEnabled(dbSession, isCustom);
-      JsonWriter json = response.newJsonWriter();
-      json.beginObject();
-      Set<String> desiredFields = desiredFields(request.paramAsStrings(Param.FIELDS));
-      writeMetrics(json, metrics, desiredFields);
-      searchOptions.writeJson(json, nbMetrics);
-      json.endObject();
-      json.close();
+      // metrics have no date of update, so the ETag is computed from the response. The query is still executed, only
+      // the transfer of the body is saved when the response is not modified.
+      StringWriter content = new StringWriter();
+      try (JsonWriter json = JsonWriter.of(content)) {
+        json.beginObject();
+        Set<String> desiredFields = desiredFields(request.paramAsStrings(Param.FIELDS));
+        writeMetrics(json, metrics, desiredFields);
+        searchOptions.writeJson(json, nbMetrics);
+        json.endObject();
+      }
+      if (checkNotModified(request, response, ETags.of(content.toString()))) {
+        return;
+      }
+      response.stream().setMediaType(MediaTypes.JSON);
+      IOUtils.write(content.toString(), response.stream().output(), StandardCharsets.UTF_8);
     }
   }
 
@@ -30,6 +30,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.util.MetricKeyValidator;
 
@@ -54,10 +55,12 @@ public class UpdateAction implements MetricsWsAction {
 
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final MeasureResponseCache measureResponseCache;
 
-  public UpdateAction(DbClient dbClient, UserSession userSession) {
+  public UpdateAction(DbClient dbClient, UserSession userSession, MeasureResponseCache measureResponseCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -164,6 +167,7 @@ public class UpdateAction implements MetricsWsAction {
     }
     dbClient.metricDao().update(dbSession, metricInDb);
     dbSession.commit();
+    measureResponseCache.invalidate();
   }
 
   private void checkMetricInDbAndTemplate(DbSession dbSession, @Nullable MetricDto metricInDb, MetricDto template) {
@@ -20,14 +20,22 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -44,11 +52,23 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private static final String UNABLE_TO_READ_NOTIFICATION = "Unable to read notification";
 
+  /**
+   * Subscribers are cached during this delay, so that the many notifications created by an analysis
+   * do not load the same subscriptions again and again. Changes of subscriptions are taken
+   * into account after this delay.
+   */
+  static final long SUBSCRIBERS_CACHE_TTL_IN_SECONDS = 60L;
+  private static final int SUBSCRIBERS_CACHE_MAX_SIZE = 10_000;
+
   private NotificationChannel[] notificationChannels;
   private NotificationQueueDao notificationQueueDao;
   private PropertiesDao propertiesDao;
+  private final Cache<String, List<String>> subscribersCache = CacheBuilder.newBuilder()
+    .maximumSize(SUBSCRIBERS_CACHE_MAX_SIZE)
+    .expireAfterWrite(SUBSCRIBERS_CACHE_TTL_IN_SECONDS, TimeUnit.SECONDS)
+    .build();
 
-  private boolean alreadyLoggedDeserializationIssue = false;
+  private volatile boolean alreadyLoggedDeserializationIssue = false;
 
   /**
    * Default constructor used by Pico
@@ -91,13 +111,47 @@ public class DefaultNotificationManager implements NotificationManager {
     }
     notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    return convertToNotification(notificationDtos.get(0));
+  }
+
+  /**
+   * Loads at most {@code count} of the oldest notifications of the queue, in order to be processed. The notifications
+   * are not removed from the queue: each of them must be removed by {@link #removeFromQueue(QueuedNotification)} once
+   * delivered, so that the notifications not delivered yet are kept if the server stops. The drawback is that the
+   * notifications being delivered when the server crashes are delivered again on restart.
+   * The notifications which can't be deserialized are removed and ignored, so the returned list can be empty even if
+   * the queue is not.
+   */
+  public List<QueuedNotification> getFromQueue(int count) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(count);
+    if (notificationDtos.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<QueuedNotification> notifications = new ArrayList<>(notificationDtos.size());
+    List<NotificationQueueDto> ignoredDtos = new ArrayList<>();
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification == null) {
+        ignoredDtos.add(notificationDto);
+      } else {
+        notifications.add(new QueuedNotification(notificationDto, notification));
+      }
+    }
+    if (!ignoredDtos.isEmpty()) {
+      notificationQueueDao.delete(ignoredDtos);
+    }
+    return notifications;
+  }
+
+  public void removeFromQueue(QueuedNotification notification) {
+    notificationQueueDao.delete(Collections.singletonList(notification.dto));
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -132,11 +186,11 @@ public class DefaultNotificationManager implements NotificationManager {
       String channelKey = channel.getKey();
 
       // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
-      addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
+      addUsersToRecipientListForChannel(usersForNotification(dispatcherKey, channelKey, null), recipients, channel);
 
       if (projectUuid != null) {
         // Find users subscribed to the dispatcher specifically for the project
-        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+        addUsersToRecipientListForChannel(usersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
       }
     }
 
@@ -149,12 +203,31 @@ public class DefaultNotificationManager implements NotificationManager {
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
-      addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
+      String channelKey = channel.getKey();
+      addUsersToRecipientListForChannel(
+        cachedSubscribers("subscribers", dispatcherKey, channelKey, componentKey,
+          () -> propertiesDao.selectNotificationSubscribers(dispatcherKey, channelKey, componentKey)),
+        recipients, channel);
     }
 
     return recipients;
   }
 
+  private List<String> usersForNotification(String dispatcherKey, String channelKey, @Nullable String projectUuid) {
+    return cachedSubscribers("users", dispatcherKey, channelKey, projectUuid,
+      () -> propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid));
+  }
+
+  private List<String> cachedSubscribers(String type, String dispatcherKey, String channelKey, @Nullable String componentKeyOrUuid,
+    Supplier<List<String>> loader) {
+    String cacheKey = String.join("|", type, dispatcherKey, channelKey, String.valueOf(componentKeyOrUuid));
+    try {
+      return subscribersCache.get(cacheKey, () -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to load subscribers of notification " + dispatcherKey, e.getCause());
+    }
+  }
+
   @VisibleForTesting
   protected List<NotificationChannel> getChannels() {
     return Arrays.asList(notificationChannels);
@@ -166,4 +239,20 @@ public class DefaultNotificationManager implements NotificationManager {
     }
   }
 
+  /**
+   * A notification loaded from the queue by {@link #getFromQueue(int)}
+   */
+  public static final class QueuedNotification {
+    private final NotificationQueueDto dto;
+    private final Notification notification;
+
+    QueuedNotification(NotificationQueueDto dto, Notification notification) {
+      this.dto = dto;
+      this.notification = notification;
+    }
+
+    public Notification getNotification() {
+      return notification;
+    }
+  }
 }
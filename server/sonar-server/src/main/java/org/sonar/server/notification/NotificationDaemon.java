@@ -21,17 +21,21 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import org.sonar.core.util.stream.Collectors;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
 import org.sonar.api.config.Settings;
-import org.sonar.api.notifications.Notification;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.notification.DefaultNotificationManager.QueuedNotification;
 
 @Properties({
   @Property(
@@ -43,32 +47,56 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_BATCH_SIZE,
+    defaultValue = "100",
+    name = "Number of notifications loaded at once from the queue",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_THREADS,
+    defaultValue = "1",
+    name = "Number of threads delivering notifications concurrently",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String DELIVERY_THREAD_NAME_PREFIX = "sq-notification-delivery-";
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_BATCH_SIZE = "sonar.notifications.batchSize";
+  public static final String PROPERTY_THREADS = "sonar.notifications.threads";
+  static final int DEFAULT_BATCH_SIZE = 100;
+  static final int DEFAULT_THREADS = 1;
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int batchSize;
+  private final int threads;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ExecutorService deliveryExecutorService;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.batchSize = positiveOrDefault(settings.getInt(PROPERTY_BATCH_SIZE), DEFAULT_BATCH_SIZE);
+    this.threads = positiveOrDefault(settings.getInt(PROPERTY_THREADS), DEFAULT_THREADS);
     this.manager = manager;
     this.service = service;
   }
 
+  private static int positiveOrDefault(int value, int defaultValue) {
+    return value > 0 ? value : defaultValue;
+  }
+
   @Override
   public void start() {
     executorService = Executors.newSingleThreadScheduledExecutor(
@@ -76,6 +104,13 @@ public class NotificationDaemon implements Startable {
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
         .setPriority(Thread.MIN_PRIORITY)
         .build());
+    if (threads > 1) {
+      deliveryExecutorService = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder()
+          .setNameFormat(DELIVERY_THREAD_NAME_PREFIX + "%d")
+          .setPriority(Thread.MIN_PRIORITY)
+          .build());
+    }
     executorService.scheduleWithFixedDelay(() -> {
       try {
         processQueue();
@@ -83,7 +118,7 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    LOG.info("Notification service started (delay {} sec., {} thread(s))", delayInSeconds, threads);
   }
 
   @Override
@@ -91,6 +126,9 @@ public class NotificationDaemon implements Startable {
     try {
       stopping = true;
       executorService.shutdown();
+      if (deliveryExecutorService != null) {
+        deliveryExecutorService.shutdown();
+      }
       executorService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
@@ -105,11 +143,11 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
-      if (stopping) {
+    List<QueuedNotification> notifsToSend = manager.getFromQueue(batchSize);
+    while (!notifsToSend.isEmpty()) {
+      deliver(notifsToSend);
+      notifSentCount += notifsToSend.size();
+      if (stopping || Thread.currentThread().isInterrupted()) {
         break;
       }
       long now = now();
@@ -119,7 +157,44 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(batchSize);
+    }
+  }
+
+  /**
+   * Delivers the notifications concurrently if several threads are configured, and waits for all of them to be delivered.
+   * Each notification is removed from the queue as soon as it is delivered.
+   */
+  private void deliver(List<QueuedNotification> notifications) {
+    if (deliveryExecutorService == null || notifications.size() == 1) {
+      for (QueuedNotification notification : notifications) {
+        if (stopping) {
+          // the notifications not delivered yet are kept in the queue
+          return;
+        }
+        deliver(notification);
+      }
+      return;
+    }
+    List<Callable<Void>> deliveries = notifications.stream()
+      .map(notification -> (Callable<Void>) () -> {
+        deliver(notification);
+        return null;
+      })
+      .collect(Collectors.toList(notifications.size()));
+    try {
+      deliveryExecutorService.invokeAll(deliveries);
+    } catch (InterruptedException e) {
+      LOG.warn("Delivery of notifications has been interrupted");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deliver(QueuedNotification notification) {
+    try {
+      service.deliver(notification.getNotification());
+    } finally {
+      manager.removeFromQueue(notification);
     }
   }
 
@@ -21,9 +21,12 @@ package org.sonar.server.notification.email;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Objects;
+import javax.mail.MessagingException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.mail.EmailException;
 import org.apache.commons.mail.SimpleEmail;
+import org.picocontainer.Startable;
 import org.sonar.api.config.EmailSettings;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -45,7 +48,7 @@ import org.sonar.plugins.emailnotifications.api.EmailTemplate;
  *
  * @since 2.10
  */
-public class EmailNotificationChannel extends NotificationChannel {
+public class EmailNotificationChannel extends NotificationChannel implements Startable {
 
   private static final Logger LOG = Loggers.get(EmailNotificationChannel.class);
 
@@ -85,6 +88,7 @@ public class EmailNotificationChannel extends NotificationChannel {
   private EmailSettings configuration;
   private EmailTemplate[] templates;
   private UserFinder userFinder;
+  private final SmtpConnectionPool connectionPool = new SmtpConnectionPool();
 
   public EmailNotificationChannel(EmailSettings configuration, EmailTemplate[] templates, UserFinder userFinder) {
     this.configuration = configuration;
@@ -92,6 +96,16 @@ public class EmailNotificationChannel extends NotificationChannel {
     this.userFinder = userFinder;
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    connectionPool.closeAll();
+  }
+
   @Override
   public void deliver(Notification notification, String username) {
     User user = userFinder.findByLogin(username);
@@ -126,13 +140,16 @@ public class EmailNotificationChannel extends NotificationChannel {
       return;
     }
     try {
-      send(emailMessage);
+      send(emailMessage, true);
     } catch (EmailException e) {
       LOG.error("Unable to send email", e);
     }
   }
 
-  private void send(EmailMessage emailMessage) throws EmailException {
+  /**
+   * @param reuseConnection whether the SMTP connection is kept open to send the next emails
+   */
+  private void send(EmailMessage emailMessage, boolean reuseConnection) throws EmailException {
     // Trick to correctly initialize javax.mail library
     ClassLoader classloader = Thread.currentThread().getContextClassLoader();
     Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
@@ -178,13 +195,35 @@ public class EmailNotificationChannel extends NotificationChannel {
       }
       email.setSocketConnectionTimeout(SOCKET_TIMEOUT);
       email.setSocketTimeout(SOCKET_TIMEOUT);
-      email.send();
+      if (reuseConnection) {
+        sendWithPooledConnection(email);
+      } else {
+        email.send();
+      }
 
     } finally {
       Thread.currentThread().setContextClassLoader(classloader);
     }
   }
 
+  private void sendWithPooledConnection(SimpleEmail email) throws EmailException {
+    email.buildMimeMessage();
+    try {
+      connectionPool.send(email.getMailSession(), serverKey(), email.getMimeMessage());
+    } catch (MessagingException e) {
+      throw new EmailException("Sending the email to the following server failed : " + email.getHostName() + ":" + email.getSmtpPort(), e);
+    }
+  }
+
+  /**
+   * Identifies the SMTP settings, so that connections are not reused after a change of settings
+   */
+  private String serverKey() {
+    return String.join("|", configuration.getSmtpHost(), String.valueOf(configuration.getSmtpPort()),
+      StringUtils.defaultString(configuration.getSecureConnection()), StringUtils.defaultString(configuration.getSmtpUsername()),
+      String.valueOf(Objects.hashCode(configuration.getSmtpPassword())));
+  }
+
   private void configureSecureConnection(SimpleEmail email) {
     if (StringUtils.equalsIgnoreCase(configuration.getSecureConnection(), "ssl")) {
       email.setSSLOnConnect(true);
@@ -215,7 +254,7 @@ public class EmailNotificationChannel extends NotificationChannel {
       emailMessage.setTo(toAddress);
       emailMessage.setSubject(subject);
       emailMessage.setMessage(message);
-      send(emailMessage);
+      send(emailMessage, false);
     } catch (EmailException e) {
       LOG.debug("Fail to send test email to: " + toAddress, e);
       throw e;
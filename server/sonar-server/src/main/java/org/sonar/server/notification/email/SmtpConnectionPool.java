@@ -0,0 +1,149 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.LongSupplier;
+import javax.annotation.CheckForNull;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Keeps SMTP connections open between emails, so that the notifications sent in a row
+ * do not open a new connection, with TLS handshake and authentication, for each email.
+ * <p/>
+ * Connections are bound to the SMTP settings they have been opened with and are closed after
+ * being idle for {@link #MAX_IDLE_MS}. This class is thread-safe: each connection is used
+ * by a single thread at a time.
+ */
+class SmtpConnectionPool {
+
+  private static final Logger LOG = Loggers.get(SmtpConnectionPool.class);
+
+  static final long MAX_IDLE_MS = 30_000L;
+
+  private final Deque<Connection> idleConnections = new ConcurrentLinkedDeque<>();
+  private final LongSupplier clock;
+
+  SmtpConnectionPool() {
+    this(System::currentTimeMillis);
+  }
+
+  SmtpConnectionPool(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * @param session the session configured with the SMTP settings, used to open a new connection if needed
+   * @param serverKey identifies the SMTP settings. Idle connections opened with other settings are closed.
+   */
+  void send(Session session, String serverKey, MimeMessage message) throws MessagingException {
+    message.saveChanges();
+    Connection connection = borrow(serverKey);
+    if (connection != null) {
+      try {
+        sendAndRelease(connection, message);
+        return;
+      } catch (SendFailedException e) {
+        throw e;
+      } catch (MessagingException e) {
+        // the server may have closed the idle connection
+        LOG.debug("Fail to send email with an idle SMTP connection, opening a new one", e);
+      }
+    }
+    sendAndRelease(connect(session, serverKey), message);
+  }
+
+  private void sendAndRelease(Connection connection, MimeMessage message) throws MessagingException {
+    try {
+      connection.transport.sendMessage(message, message.getAllRecipients());
+    } catch (SendFailedException e) {
+      // recipients are rejected, the connection is still valid
+      release(connection);
+      throw e;
+    } catch (MessagingException | RuntimeException e) {
+      close(connection);
+      throw e;
+    }
+    release(connection);
+  }
+
+  @CheckForNull
+  private Connection borrow(String serverKey) {
+    long now = clock.getAsLong();
+    Connection connection = idleConnections.pollFirst();
+    while (connection != null) {
+      if (connection.serverKey.equals(serverKey) && now - connection.releasedAt <= MAX_IDLE_MS && connection.transport.isConnected()) {
+        return connection;
+      }
+      close(connection);
+      connection = idleConnections.pollFirst();
+    }
+    return null;
+  }
+
+  private void release(Connection connection) {
+    connection.releasedAt = clock.getAsLong();
+    idleConnections.addFirst(connection);
+  }
+
+  private static Connection connect(Session session, String serverKey) throws MessagingException {
+    Transport transport = session.getTransport();
+    transport.connect();
+    return new Connection(serverKey, transport);
+  }
+
+  int countIdleConnections() {
+    return idleConnections.size();
+  }
+
+  void closeAll() {
+    Connection connection = idleConnections.pollFirst();
+    while (connection != null) {
+      close(connection);
+      connection = idleConnections.pollFirst();
+    }
+  }
+
+  private static void close(Connection connection) {
+    try {
+      connection.transport.close();
+    } catch (MessagingException e) {
+      LOG.debug("Fail to close SMTP connection", e);
+    }
+  }
+
+  private static class Connection {
+    private final String serverKey;
+    private final Transport transport;
+    private long releasedAt;
+
+    Connection(String serverKey, Transport transport) {
+      this.serverKey = serverKey;
+      this.transport = transport;
+    }
+  }
+}
@@ -41,6 +41,7 @@ import org.sonar.db.permission.template.PermissionTemplateDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
+import org.sonar.server.user.UserPermissionCache;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
@@ -54,14 +55,16 @@ public class OrganizationCreationImpl implements OrganizationCreation {
   private final UuidFactory uuidFactory;
   private final OrganizationValidation organizationValidation;
   private final Settings settings;
+  private final UserPermissionCache permissionCache;
 
   public OrganizationCreationImpl(DbClient dbClient, System2 system2, UuidFactory uuidFactory,
-    OrganizationValidation organizationValidation, Settings settings) {
+    OrganizationValidation organizationValidation, Settings settings, UserPermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.uuidFactory = uuidFactory;
     this.organizationValidation = organizationValidation;
     this.settings = settings;
+    this.permissionCache = permissionCache;
   }
 
   @Override
@@ -79,6 +82,7 @@ public class OrganizationCreationImpl implements OrganizationCreation {
     addCurrentUserToGroup(dbSession, group, creatorUserId);
 
     dbSession.commit();
+    permissionCache.invalidate();
 
     return organization;
   }
@@ -107,6 +111,7 @@ public class OrganizationCreationImpl implements OrganizationCreation {
     insertPersonalOrgDefaultTemplate(dbSession, organization);
 
     dbSession.commit();
+    permissionCache.invalidate();
 
     return Optional.of(organization);
   }
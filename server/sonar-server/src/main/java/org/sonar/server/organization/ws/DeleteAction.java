@@ -28,9 +28,11 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.ComponentCleanerService;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.organization.DefaultOrganization;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
+import org.sonar.server.user.UserPermissionCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -46,14 +48,19 @@ public class DeleteAction implements OrganizationsAction {
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final ComponentCleanerService componentCleanerService;
   private final OrganizationFlags organizationFlags;
+  private final MeasureResponseCache measureResponseCache;
+  private final UserPermissionCache permissionCache;
 
   public DeleteAction(UserSession userSession, DbClient dbClient, DefaultOrganizationProvider defaultOrganizationProvider,
-    ComponentCleanerService componentCleanerService, OrganizationFlags organizationFlags) {
+    ComponentCleanerService componentCleanerService, OrganizationFlags organizationFlags, MeasureResponseCache measureResponseCache,
+    UserPermissionCache permissionCache) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.componentCleanerService = componentCleanerService;
     this.organizationFlags = organizationFlags;
+    this.measureResponseCache = measureResponseCache;
+    this.permissionCache = permissionCache;
   }
 
   @Override
@@ -97,6 +104,7 @@ public class DeleteAction implements OrganizationsAction {
       deletePermissions(dbSession, organizationDto.getUuid());
       deleteGroups(dbSession, organizationDto.getUuid());
       deleteOrganization(key, dbSession);
+      permissionCache.invalidate();
 
       response.noContent();
     }
@@ -105,6 +113,7 @@ public class DeleteAction implements OrganizationsAction {
   private void deleteProjects(DbSession dbSession, String organizationUuid) {
     List<ComponentDto> roots = dbClient.componentDao().selectAllRootsByOrganization(dbSession, organizationUuid);
     componentCleanerService.delete(dbSession, roots);
+    measureResponseCache.invalidate();
   }
 
   private void deletePermissions(DbSession dbSession, String organizationUuid) {
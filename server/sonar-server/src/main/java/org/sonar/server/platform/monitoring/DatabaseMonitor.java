@@ -24,7 +24,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import org.apache.commons.dbcp.BasicDataSource;
+import org.sonar.db.ConnectionPoolStats;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
@@ -54,47 +54,67 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
 
   @Override
   public int getPoolActiveConnections() {
-    return commonsDbcp().getNumActive();
+    return pool().getActiveConnections();
   }
 
   @Override
   public int getPoolMaxActiveConnections() {
-    return commonsDbcp().getMaxActive();
+    return pool().getMaxActiveConnections();
   }
 
   @Override
   public int getPoolIdleConnections() {
-    return commonsDbcp().getNumIdle();
+    return pool().getIdleConnections();
   }
 
   @Override
   public int getPoolMaxIdleConnections() {
-    return commonsDbcp().getMaxIdle();
+    return pool().getMaxIdleConnections();
   }
 
   @Override
   public int getPoolMinIdleConnections() {
-    return commonsDbcp().getMinIdle();
+    return pool().getMinIdleConnections();
   }
 
   @Override
   public int getPoolInitialSize() {
-    return commonsDbcp().getInitialSize();
+    return pool().getInitialSize();
   }
 
   @Override
   public long getPoolMaxWaitMillis() {
-    return commonsDbcp().getMaxWait();
+    return pool().getMaxWaitMillis();
   }
 
   @Override
   public boolean getPoolRemoveAbandoned() {
-    return commonsDbcp().getRemoveAbandoned();
+    return pool().isLeakDetectionEnabled();
   }
 
   @Override
   public int getPoolRemoveAbandonedTimeoutSeconds() {
-    return commonsDbcp().getRemoveAbandonedTimeout();
+    return (int) (pool().getLeakDetectionThresholdMillis() / 1_000L);
+  }
+
+  @Override
+  public String getPoolImplementation() {
+    return pool().getImplementation();
+  }
+
+  @Override
+  public int getPoolWaitingThreads() {
+    return pool().getWaitingThreads();
+  }
+
+  @Override
+  public long getPoolAcquisitionFailures() {
+    return pool().getAcquisitionFailures();
+  }
+
+  @Override
+  public Map<String, Long> getPoolAcquisitionHistogram() {
+    return pool().getAcquisitionHistogram();
   }
 
   @Override
@@ -106,6 +126,7 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
   }
 
   private void completePoolAttributes(Map<String, Object> attributes) {
+    attributes.put("Pool Implementation", getPoolImplementation());
     attributes.put("Pool Active Connections", getPoolActiveConnections());
     attributes.put("Pool Max Connections", getPoolMaxActiveConnections());
     attributes.put("Pool Initial Size", getPoolInitialSize());
@@ -115,10 +136,13 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     attributes.put("Pool Max Wait (ms)", getPoolMaxWaitMillis());
     attributes.put("Pool Remove Abandoned", getPoolRemoveAbandoned());
     attributes.put("Pool Remove Abandoned Timeout (seconds)", getPoolRemoveAbandonedTimeoutSeconds());
+    attributes.put("Pool Waiting Threads", getPoolWaitingThreads());
+    attributes.put("Pool Acquisition Failures", getPoolAcquisitionFailures());
+    attributes.put("Pool Acquisition Time", getPoolAcquisitionHistogram());
   }
 
-  private BasicDataSource commonsDbcp() {
-    return (BasicDataSource) dbClient.getDatabase().getDataSource();
+  private ConnectionPoolStats pool() {
+    return ConnectionPoolStats.of(dbClient.getDatabase().getDataSource());
   }
 
   private void completeDbAttributes(Map<String, Object> attributes) {
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.platform.monitoring;
 
+import java.util.Map;
+
 public interface DatabaseMonitorMBean {
 
   /**
@@ -61,6 +63,7 @@ public interface DatabaseMonitorMBean {
 
   /**
    * Flag to remove abandoned connections if they exceed the {@link #getPoolRemoveAbandonedTimeoutSeconds()}.
+   * With HikariCP, abandoned connections are only logged as leaks.
    */
   boolean getPoolRemoveAbandoned();
 
@@ -68,4 +71,24 @@ public interface DatabaseMonitorMBean {
    * Timeout in seconds before an abandoned connection can be removed.
    */
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Implementation of the pool: "dbcp" or "hikaricp"
+   */
+  String getPoolImplementation();
+
+  /**
+   * Number of threads currently waiting for a connection
+   */
+  int getPoolWaitingThreads();
+
+  /**
+   * Number of requests of connection which failed, for example because of timeout
+   */
+  long getPoolAcquisitionFailures();
+
+  /**
+   * Number of connections acquired by range of waiting time
+   */
+  Map<String, Long> getPoolAcquisitionHistogram();
 }
@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.ws;
+
+import com.google.common.io.Resources;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.WebServiceMetrics;
+import org.sonar.server.ws.WsActionStats;
+
+/**
+ * Implementation of the {@code ws_stats} action for the System WebService.
+ */
+public class WsStatsAction implements SystemWsAction {
+
+  private final UserSession userSession;
+  private final WebServiceMetrics metrics;
+
+  public WsStatsAction(UserSession userSession, WebServiceMetrics metrics) {
+    this.userSession = userSession;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    controller.createAction("ws_stats")
+      .setDescription("Get the statistics of the web services requested since server startup: number of requests and errors, " +
+        "latency percentiles in milliseconds, bytes written in responses and number of SQL and Elasticsearch requests.<br/>" +
+        "The same statistics are exported as JMX beans named 'SonarQube:name=WebServices,action=&lt;path&gt;'.<br/>" +
+        "Requires 'Administer System' permission.")
+      .setSince("6.4")
+      .setInternal(true)
+      .setResponseExample(Resources.getResource(this.getClass(), "example-ws_stats.json"))
+      .setHandler(this);
+  }
+
+  @Override
+  public void handle(Request request, Response response) {
+    userSession.checkIsSystemAdministrator();
+
+    try (JsonWriter json = response.newJsonWriter()) {
+      json.beginObject();
+      json.name("actions").beginArray();
+      for (WsActionStats stats : metrics.getStats()) {
+        writeStats(json, stats);
+      }
+      json.endArray();
+      json.endObject();
+    }
+  }
+
+  private static void writeStats(JsonWriter json, WsActionStats stats) {
+    json.beginObject()
+      .prop("path", stats.getActionPath())
+      .prop("requests", stats.getRequestCount())
+      .prop("errors", stats.getErrorCount());
+    json.name("latency").beginObject()
+      .prop("mean", stats.getMeanLatencyMs())
+      .prop("p50", stats.getP50LatencyMs())
+      .prop("p95", stats.getP95LatencyMs())
+      .prop("p99", stats.getP99LatencyMs())
+      .prop("max", stats.getMaxLatencyMs())
+      .endObject();
+    json.prop("responseBytes", stats.getResponseBytes())
+      .prop("sqlRequests", stats.getSqlCount())
+      .prop("esRequests", stats.getEsCount())
+      .endObject();
+  }
+}
@@ -30,6 +30,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.ComponentCleanerService;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 
 import static org.sonar.db.permission.OrganizationPermission.ADMINISTER;
@@ -45,13 +46,15 @@ public class BulkDeleteAction implements ProjectsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final ProjectsWsSupport support;
+  private final MeasureResponseCache measureResponseCache;
 
   public BulkDeleteAction(ComponentCleanerService componentCleanerService, DbClient dbClient, UserSession userSession,
-    ProjectsWsSupport support) {
+    ProjectsWsSupport support, MeasureResponseCache measureResponseCache) {
     this.componentCleanerService = componentCleanerService;
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -94,6 +97,7 @@ public class BulkDeleteAction implements ProjectsWsAction {
       projects.stream()
         .filter(p -> !org.isPresent() || org.get().getUuid().equals(p.getOrganizationUuid()))
         .forEach(p -> componentCleanerService.delete(dbSession, p));
+      measureResponseCache.invalidate();
     }
 
     response.noContent();
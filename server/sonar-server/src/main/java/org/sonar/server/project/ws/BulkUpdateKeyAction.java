@@ -34,6 +34,7 @@ import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.ComponentFinder.ParamNames;
 import org.sonar.server.component.ComponentService;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.WsProjects.BulkUpdateKeyWsResponse;
 import org.sonarqube.ws.client.project.BulkUpdateKeyWsRequest;
@@ -55,13 +56,16 @@ public class BulkUpdateKeyAction implements ProjectsWsAction {
   private final ComponentKeyUpdaterDao componentKeyUpdater;
   private final ComponentService componentService;
   private final UserSession userSession;
+  private final MeasureResponseCache measureResponseCache;
 
-  public BulkUpdateKeyAction(DbClient dbClient, ComponentFinder componentFinder, ComponentService componentService, UserSession userSession) {
+  public BulkUpdateKeyAction(DbClient dbClient, ComponentFinder componentFinder, ComponentService componentService, UserSession userSession,
+    MeasureResponseCache measureResponseCache) {
     this.dbClient = dbClient;
     this.componentKeyUpdater = dbClient.componentKeyUpdaterDao();
     this.componentFinder = componentFinder;
     this.componentService = componentService;
     this.userSession = userSession;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -156,6 +160,7 @@ public class BulkUpdateKeyAction implements ProjectsWsAction {
   private void bulkUpdateKey(DbSession dbSession, BulkUpdateKeyWsRequest request, ComponentDto projectOrModule) {
     componentService.bulkUpdateKey(dbSession, projectOrModule.uuid(), request.getFrom(), request.getTo());
     dbSession.commit();
+    measureResponseCache.invalidate();
   }
 
   private static BulkUpdateKeyWsResponse buildResponse(Map<String, String> newKeysByOldKeys, Map<String, Boolean> newKeysWithDuplicateMap) {
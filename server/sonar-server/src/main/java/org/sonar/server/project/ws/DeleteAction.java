@@ -29,6 +29,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.db.permission.OrganizationPermission;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 
 import static org.sonar.server.component.ComponentFinder.ParamNames.PROJECT_ID_AND_PROJECT;
@@ -43,12 +44,15 @@ public class DeleteAction implements ProjectsWsAction {
   private final ComponentFinder componentFinder;
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final MeasureResponseCache measureResponseCache;
 
-  public DeleteAction(ComponentCleanerService componentCleanerService, ComponentFinder componentFinder, DbClient dbClient, UserSession userSession) {
+  public DeleteAction(ComponentCleanerService componentCleanerService, ComponentFinder componentFinder, DbClient dbClient, UserSession userSession,
+    MeasureResponseCache measureResponseCache) {
     this.componentCleanerService = componentCleanerService;
     this.componentFinder = componentFinder;
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -86,6 +90,7 @@ public class DeleteAction implements ProjectsWsAction {
       ComponentDto project = componentFinder.getByUuidOrKey(dbSession, uuid, key, PROJECT_ID_AND_PROJECT);
       checkPermission(project);
       componentCleanerService.delete(dbSession, project);
+      measureResponseCache.invalidate();
     }
 
     response.noContent();
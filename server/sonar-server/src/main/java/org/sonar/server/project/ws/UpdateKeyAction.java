@@ -30,6 +30,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.ComponentFinder.ParamNames;
 import org.sonar.server.component.ComponentService;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonarqube.ws.client.project.UpdateKeyWsRequest;
 
 import static org.sonar.core.util.Uuids.UUID_EXAMPLE_01;
@@ -42,11 +43,13 @@ public class UpdateKeyAction implements ProjectsWsAction {
   private final DbClient dbClient;
   private final ComponentFinder componentFinder;
   private final ComponentService componentService;
+  private final MeasureResponseCache measureResponseCache;
 
-  public UpdateKeyAction(DbClient dbClient, ComponentFinder componentFinder, ComponentService componentService) {
+  public UpdateKeyAction(DbClient dbClient, ComponentFinder componentFinder, ComponentService componentService, MeasureResponseCache measureResponseCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.componentService = componentService;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -102,6 +105,7 @@ public class UpdateKeyAction implements ProjectsWsAction {
       ComponentDto projectOrModule = componentFinder.getByUuidOrKey(dbSession, request.getId(), request.getKey(), ParamNames.PROJECT_ID_AND_FROM);
       componentService.updateKey(dbSession, projectOrModule, request.getNewKey());
       dbSession.commit();
+      measureResponseCache.invalidate();
     }
   }
 
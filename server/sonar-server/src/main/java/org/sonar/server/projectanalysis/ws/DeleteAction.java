@@ -31,6 +31,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.projectanalysis.DeleteRequest;
 
@@ -42,10 +43,12 @@ import static org.sonarqube.ws.client.projectanalysis.ProjectAnalysesWsParameter
 public class DeleteAction implements ProjectAnalysesWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final MeasureResponseCache measureResponseCache;
 
-  public DeleteAction(DbClient dbClient, UserSession userSession) {
+  public DeleteAction(DbClient dbClient, UserSession userSession, MeasureResponseCache measureResponseCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.measureResponseCache = measureResponseCache;
   }
 
   @Override
@@ -94,6 +97,7 @@ public class DeleteAction implements ProjectAnalysesWsAction {
         analysis.setStatus(STATUS_UNPROCESSED);
         dbClient.snapshotDao().update(dbSession, analysis);
         dbSession.commit();
+        measureResponseCache.invalidate();
       }
     };
   }
@@ -48,6 +48,7 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.server.es.Facets;
@@ -57,6 +58,7 @@ import org.sonar.server.qualityprofile.ActiveRule;
 import org.sonar.server.rule.index.RuleIndex;
 import org.sonar.server.rule.index.RuleIndexDefinition;
 import org.sonar.server.rule.index.RuleQuery;
+import org.sonar.server.ws.ETags;
 import org.sonarqube.ws.Common;
 import org.sonarqube.ws.Rules.SearchResponse;
 import org.sonarqube.ws.client.rule.SearchWsRequest;
@@ -79,6 +81,7 @@ import static org.sonar.server.rule.index.RuleIndex.FACET_SEVERITIES;
 import static org.sonar.server.rule.index.RuleIndex.FACET_STATUSES;
 import static org.sonar.server.rule.index.RuleIndex.FACET_TAGS;
 import static org.sonar.server.rule.index.RuleIndex.FACET_TYPES;
+import static org.sonar.server.ws.ETags.checkNotModified;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.OPTIONAL_FIELDS;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.PARAM_ACTIVATION;
@@ -153,6 +156,10 @@ public class SearchAction implements RulesWsAction {
   public void handle(Request request, Response response) throws Exception {
     try (DbSession dbSession = dbClient.openSession(false)) {
       SearchWsRequest searchWsRequest = toSearchWsRequest(request);
+      String etag = computeETag(dbSession, searchWsRequest);
+      if (etag != null && checkNotModified(request, response, etag)) {
+        return;
+      }
       SearchOptions context = buildSearchOptions(searchWsRequest);
       RuleQuery query = ruleQueryFactory.createRuleQuery(request);
       SearchResult searchResult = doSearch(dbSession, query, context);
@@ -161,6 +168,27 @@ public class SearchAction implements RulesWsAction {
     }
   }
 
+  /**
+   * Rules activated in a profile, as requested by scanners, are versioned by the date of last change
+   * of profile and by the date of last update of rules. Other searches do not support conditional requests.
+   */
+  @CheckForNull
+  private String computeETag(DbSession dbSession, SearchWsRequest request) {
+    String profileKey = request.getQProfile();
+    if (profileKey == null || !Boolean.TRUE.equals(request.getActivation())) {
+      return null;
+    }
+    QualityProfileDto profile = dbClient.qualityProfileDao().selectByKey(dbSession, profileKey);
+    if (profile == null) {
+      return null;
+    }
+    return ETags.of(profileKey, profile.getRulesUpdatedAt(), dbClient.ruleDao().selectMaxUpdatedAt(dbSession),
+      request.getActiveSeverities(), request.getAsc(), request.getAvailableSince(), request.getFields(), request.getFacets(),
+      request.getInheritance(), request.getIsTemplate(), request.getLanguages(), request.getPage(), request.getPageSize(),
+      request.getQuery(), request.getRepositories(), request.getRuleKey(), request.getSort(), request.getSeverities(),
+      request.getStatuses(), request.getTags(), request.getTemplateKey(), request.getTypes());
+  }
+
   private SearchResponse buildResponse(DbSession dbSession, SearchWsRequest request, SearchOptions context, SearchResult result, RuleQuery query) {
     SearchResponse.Builder responseBuilder = SearchResponse.newBuilder();
     writeStatistics(responseBuilder, result, context);
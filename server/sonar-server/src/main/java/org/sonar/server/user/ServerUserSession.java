@@ -23,7 +23,6 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -50,18 +49,18 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
-  private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
+  private final Supplier<UserPermissionCache.Entry> permissions;
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
   private final Map<String, String> projectUuidByComponentUuid = newHashMap();
-  private Map<String, Set<OrganizationPermission>> permissionsByOrganizationUuid;
-  private Map<String, Set<String>> permissionsByProjectUuid;
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    DefaultOrganizationProvider defaultOrganizationProvider, UserPermissionCache permissionCache, @Nullable UserDto userDto) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.userDto = userDto;
+    // the same entry is used during the whole request, even if cache is invalidated in the meantime
+    this.permissions = Suppliers.memoize(() -> permissionCache.get(userDto == null ? null : userDto.getId()));
   }
 
   private Collection<GroupDto> loadGroups() {
@@ -93,7 +92,7 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   public Collection<GroupDto> getGroups() {
-    return groups.get();
+    return permissions.get().getGroups(this::loadGroups);
   }
 
   @Override
@@ -108,11 +107,7 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected boolean hasPermissionImpl(OrganizationPermission permission, String organizationUuid) {
-    if (permissionsByOrganizationUuid == null) {
-      permissionsByOrganizationUuid = new HashMap<>();
-    }
-    Set<OrganizationPermission> permissions = permissionsByOrganizationUuid.computeIfAbsent(organizationUuid, this::loadOrganizationPermissions);
-    return permissions.contains(permission);
+    return permissions.get().getOrganizationPermissions(organizationUuid, this::loadOrganizationPermissions).contains(permission);
   }
 
   private Set<OrganizationPermission> loadOrganizationPermissions(String organizationUuid) {
@@ -148,11 +143,7 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected boolean hasProjectUuidPermission(String permission, String projectUuid) {
-    if (permissionsByProjectUuid == null) {
-      permissionsByProjectUuid = new HashMap<>();
-    }
-    Set<String> permissions = permissionsByProjectUuid.computeIfAbsent(projectUuid, this::loadProjectPermissions);
-    return permissions.contains(permission);
+    return permissions.get().getProjectPermissions(projectUuid, this::loadProjectPermissions).contains(permission);
   }
 
   private Set<String> loadProjectPermissions(String projectUuid) {
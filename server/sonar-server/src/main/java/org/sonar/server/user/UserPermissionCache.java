@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.permission.OrganizationPermission;
+import org.sonar.db.user.GroupDto;
+
+/**
+ * Cache of the groups and permissions of users, shared by the {@link ServerUserSession} of all
+ * the HTTP requests. It avoids loading the same permissions from database on each request of
+ * the users who frequently call web services, for example the scanners of CI builds.
+ * <p/>
+ * The cache is bounded by number of users and entries expire after {@link #TTL_IN_SECONDS}.
+ * It is versioned: {@link #invalidate()} must be called when permissions or group memberships are
+ * updated, so that the entries loaded before the change are not used anymore.
+ */
+@ServerSide
+public class UserPermissionCache {
+
+  static final int MAX_USERS = 10_000;
+  static final int MAX_PROJECTS_PER_USER = 1_000;
+  static final long TTL_IN_SECONDS = 60L;
+  private static final int ANONYMOUS = -1;
+
+  private final AtomicLong version = new AtomicLong();
+  private final Cache<Integer, Entry> entries = CacheBuilder.newBuilder()
+    .maximumSize(MAX_USERS)
+    .expireAfterWrite(TTL_IN_SECONDS, TimeUnit.SECONDS)
+    .build();
+
+  /**
+   * Permissions of the given user, or of anonymous if {@code userId} is null
+   */
+  Entry get(@Nullable Integer userId) {
+    long currentVersion = version.get();
+    int key = userId == null ? ANONYMOUS : userId;
+    Entry entry = entries.getIfPresent(key);
+    if (entry == null || entry.version != currentVersion) {
+      entry = new Entry(currentVersion);
+      entries.put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Drops all the entries. Must be called after commit of the changes of permissions, of groups or of group memberships.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    entries.invalidateAll();
+  }
+
+  static class Entry {
+    private final long version;
+    private volatile Collection<GroupDto> groups;
+    private final Map<String, Set<OrganizationPermission>> permissionsByOrganizationUuid = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> permissionsByProjectUuid = new ConcurrentHashMap<>();
+
+    private Entry(long version) {
+      this.version = version;
+    }
+
+    Collection<GroupDto> getGroups(Supplier<Collection<GroupDto>> loader) {
+      Collection<GroupDto> result = groups;
+      if (result == null) {
+        result = loader.get();
+        groups = result;
+      }
+      return result;
+    }
+
+    Set<OrganizationPermission> getOrganizationPermissions(String organizationUuid, Function<String, Set<OrganizationPermission>> loader) {
+      return permissionsByOrganizationUuid.computeIfAbsent(organizationUuid, loader);
+    }
+
+    Set<String> getProjectPermissions(String projectUuid, Function<String, Set<String>> loader) {
+      Set<String> result = permissionsByProjectUuid.get(projectUuid);
+      if (result == null) {
+        result = loader.apply(projectUuid);
+        // do not let the users who browse many projects fill the memory
+        if (permissionsByProjectUuid.size() < MAX_PROJECTS_PER_USER) {
+          permissionsByProjectUuid.put(projectUuid, result);
+        }
+      }
+      return result;
+    }
+  }
+}
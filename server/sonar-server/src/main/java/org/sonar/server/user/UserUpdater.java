@@ -77,9 +77,10 @@ public class UserUpdater {
   private final System2 system2;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationCreation organizationCreation;
+  private final UserPermissionCache permissionCache;
 
   public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2,
-    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation) {
+    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, UserPermissionCache permissionCache) {
     this.newUserNotifier = newUserNotifier;
     this.settings = settings;
     this.dbClient = dbClient;
@@ -87,6 +88,7 @@ public class UserUpdater {
     this.system2 = system2;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationCreation = organizationCreation;
+    this.permissionCache = permissionCache;
   }
 
   public UserDto create(NewUser newUser) {
@@ -127,6 +129,7 @@ public class UserUpdater {
     updateUser(dbSession, existingUser);
     addDefaultGroup(dbSession, existingUser);
     dbSession.commit();
+    permissionCache.invalidate();
   }
 
   public void update(DbSession dbSession, UpdateUser updateUser) {
@@ -358,6 +361,7 @@ public class UserUpdater {
     addDefaultGroup(dbSession, userDto);
     organizationCreation.createForUser(dbSession, userDto);
     dbSession.commit();
+    permissionCache.invalidate();
     userIndexer.index(userDto.getLogin());
     return res;
   }
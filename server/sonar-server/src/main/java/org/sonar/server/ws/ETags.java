@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.net.HttpHeaders;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * Support of conditional GET requests. The ETag of a response is computed from the versions
+ * of the data it is built from, so that it can be checked before loading these data.
+ */
+public class ETags {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+
+  private ETags() {
+    // only statics
+  }
+
+  /**
+   * Strong ETag built from versions of data, for example a date of last update. Null versions are supported.
+   */
+  public static String of(Object... versions) {
+    return "\"" + DigestUtils.sha1Hex(Joiner.on('\n').useForNull("").join(versions)) + "\"";
+  }
+
+  /**
+   * Sets the header ETag of the response. Returns {@code true} and sets the status 304 (Not Modified)
+   * if the header If-None-Match of request matches the ETag, in which case the response must not have a body.
+   */
+  public static boolean checkNotModified(Request request, Response response, String etag) {
+    response.setHeader(HttpHeaders.ETAG, etag);
+    boolean notModified = request.header(HttpHeaders.IF_NONE_MATCH)
+      .map(ifNoneMatch -> matches(ifNoneMatch, etag))
+      .orElse(false);
+    if (notModified) {
+      response.stream().setStatus(HTTP_NOT_MODIFIED);
+    }
+    return notModified;
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    for (String candidate : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+      if (ANY.equals(candidate) || etag.equals(removeWeakPrefix(candidate))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String removeWeakPrefix(String etag) {
+    return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Thread-safe histogram of durations in milliseconds, with log-linear buckets in the style of
+ * HdrHistogram: values lower than {@link #SUB_BUCKETS} are exact, then each power of two is split
+ * into {@link #SUB_BUCKETS} buckets of the same width. The relative error of percentiles is
+ * lower than 1/{@link #SUB_BUCKETS}.
+ */
+class LatencyHistogram {
+
+  static final int SUB_BUCKETS = 8;
+  private static final int SUB_BUCKETS_BITS = 3;
+  private static final long MAX_VALUE = Integer.MAX_VALUE;
+  private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long durationMs) {
+    long value = Math.min(Math.max(durationMs, 0L), MAX_VALUE);
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  double getMean() {
+    long c = count.sum();
+    return c == 0 ? 0d : ((double) sum.sum() / c);
+  }
+
+  /**
+   * Upper bound of the bucket containing the given percentile, for example 99.0. Returns 0 if
+   * no values have been recorded.
+   */
+  long getPercentile(double percentile) {
+    checkArgument(percentile > 0d && percentile <= 100d, "Percentile must be in ]0, 100]: %s", percentile);
+    long total = count.sum();
+    if (total == 0) {
+      return 0L;
+    }
+    long rank = (long) Math.ceil(percentile * total / 100d);
+    long cumulated = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulated += counts.get(i);
+      if (cumulated >= rank) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKETS_BITS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >> shift) - SUB_BUCKETS);
+  }
+
+  static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+}
@@ -27,7 +27,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.Collection;
+import javax.annotation.CheckForNull;
 import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.utils.text.JsonWriter;
 import org.sonar.api.utils.text.XmlWriter;
@@ -42,6 +44,8 @@ public class ServletResponse implements Response {
 
   public static class ServletStream implements Stream {
     private final HttpServletResponse response;
+    @CheckForNull
+    private CountingOutputStream output;
 
     public ServletStream(HttpServletResponse response) {
       this.response = response;
@@ -64,11 +68,21 @@ public class ServletResponse implements Response {
 
     @Override
     public OutputStream output() {
-      try {
-        return response.getOutputStream();
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+      if (output == null) {
+        try {
+          output = new CountingOutputStream(response.getOutputStream());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
       }
+      return output;
+    }
+
+    /**
+     * Number of bytes written in {@link #output()} since creation or last call to {@link #reset()}
+     */
+    long outputBytes() {
+      return output == null ? 0L : output.getByteCount();
     }
 
     HttpServletResponse response() {
@@ -77,6 +91,7 @@ public class ServletResponse implements Response {
 
     public ServletStream reset() {
       response.reset();
+      output = null;
       return this;
     }
   }
@@ -36,6 +36,7 @@ import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.db.profiling.CallRecorder;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonarqube.ws.MediaTypes;
@@ -43,6 +44,7 @@ import org.sonarqube.ws.MediaTypes;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.commons.lang.StringUtils.substring;
 import static org.apache.commons.lang.StringUtils.substringAfterLast;
 import static org.apache.commons.lang.StringUtils.substringBeforeLast;
@@ -59,8 +61,10 @@ public class WebServiceEngine implements LocalConnector, Startable {
   private static final Logger LOGGER = Loggers.get(WebServiceEngine.class);
 
   private final WebService.Context context;
+  private final WebServiceMetrics metrics;
 
-  public WebServiceEngine(WebService[] webServices) {
+  public WebServiceEngine(WebService[] webServices, WebServiceMetrics metrics) {
+    this.metrics = metrics;
     context = new WebService.Context();
     for (WebService webService : webServices) {
       webService.define(context);
@@ -90,9 +94,13 @@ public class WebServiceEngine implements LocalConnector, Startable {
   }
 
   public void execute(Request request, Response response) {
+    long startNanos = System.nanoTime();
+    CallRecorder calls = CallRecorder.start(metrics.isSlowRequestLogEnabled());
+    WebService.Action action = null;
+    boolean succeeded = false;
     try {
       ActionExtractor actionExtractor = new ActionExtractor(request.getPath());
-      WebService.Action action = getAction(actionExtractor);
+      action = getAction(actionExtractor);
       checkFound(action, "Unknown url : %s", request.getPath());
       if (request instanceof ValidatingRequest) {
         ((ValidatingRequest) request).setAction(action);
@@ -101,6 +109,7 @@ public class WebServiceEngine implements LocalConnector, Startable {
       checkActionExtension(actionExtractor.getExtension());
       verifyRequest(action, request);
       action.handler().handle(request, response);
+      succeeded = true;
     } catch (IllegalArgumentException e) {
       sendErrors(response, 400, singletonList(e.getMessage()));
     } catch (BadRequestException e) {
@@ -118,9 +127,19 @@ public class WebServiceEngine implements LocalConnector, Startable {
       // Sending exception message into response is a vulnerability. Error must be
       // displayed only in logs.
       sendErrors(response, 500, singletonList("An error has occurred. Please contact your administrator"));
+    } finally {
+      calls.stop();
+      if (action != null) {
+        metrics.record(action.path(), NANOSECONDS.toMillis(System.nanoTime() - startNanos), succeeded, outputBytes(response), calls);
+      }
     }
   }
 
+  private static long outputBytes(Response response) {
+    Response.Stream stream = response.stream();
+    return stream instanceof ServletResponse.ServletStream ? ((ServletResponse.ServletStream) stream).outputBytes() : 0L;
+  }
+
   @CheckForNull
   private WebService.Action getAction(ActionExtractor actionExtractor) {
     String controllerPath = actionExtractor.getController();
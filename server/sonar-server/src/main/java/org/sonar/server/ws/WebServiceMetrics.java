@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.profiling.CallRecorder;
+import org.sonar.process.Jmx;
+
+import static java.util.stream.Collectors.toList;
+import static org.sonar.db.profiling.CallRecorder.SQL_CALL_TYPE;
+import static org.sonar.server.es.EsClient.ES_CALL_TYPE;
+
+/**
+ * Latency, response size and database/Elasticsearch usage of each web service action. Statistics
+ * of each action are exported as a JMX bean once the component is started.
+ * <p/>
+ * Requests slower than the threshold defined by {@link #SLOW_REQUEST_THRESHOLD_PROPERTY} are logged along with
+ * the SQL and Elasticsearch requests they executed. This log is disabled by default.
+ */
+@ServerSide
+public class WebServiceMetrics implements Startable {
+
+  public static final String SLOW_REQUEST_THRESHOLD_PROPERTY = "sonar.web.ws.slowRequestThresholdInMs";
+
+  private static final Logger LOGGER = Loggers.get(WebServiceMetrics.class);
+  private static final String JMX_NAME_PREFIX = "SonarQube:name=WebServices,action=";
+
+  private final ConcurrentMap<String, WsActionStats> statsByAction = new ConcurrentHashMap<>();
+  private final long slowRequestThresholdMs;
+  private boolean started = false;
+
+  public WebServiceMetrics(Settings settings) {
+    this.slowRequestThresholdMs = settings.getLong(SLOW_REQUEST_THRESHOLD_PROPERTY);
+  }
+
+  @Override
+  public synchronized void start() {
+    started = true;
+    statsByAction.values().forEach(WebServiceMetrics::register);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (started) {
+      statsByAction.keySet().forEach(actionPath -> Jmx.unregister(JMX_NAME_PREFIX + actionPath));
+      started = false;
+    }
+  }
+
+  /**
+   * Whether the details of the calls to database and Elasticsearch must be kept while executing requests
+   */
+  boolean isSlowRequestLogEnabled() {
+    return slowRequestThresholdMs > 0;
+  }
+
+  void record(String actionPath, long durationMs, boolean succeeded, long responseBytes, CallRecorder calls) {
+    WsActionStats stats = statsByAction.computeIfAbsent(actionPath, this::createStats);
+    stats.record(durationMs, succeeded, responseBytes, calls.getCount(SQL_CALL_TYPE), calls.getCount(ES_CALL_TYPE));
+    if (isSlowRequestLogEnabled() && durationMs >= slowRequestThresholdMs) {
+      logSlowRequest(actionPath, durationMs, calls);
+    }
+  }
+
+  /**
+   * Statistics of the actions that have been requested at least once, sorted by path
+   */
+  public List<WsActionStats> getStats() {
+    return statsByAction.values().stream()
+      .sorted(Comparator.comparing(WsActionStats::getActionPath))
+      .collect(toList());
+  }
+
+  private synchronized WsActionStats createStats(String actionPath) {
+    WsActionStats stats = new WsActionStats(actionPath);
+    if (started) {
+      register(stats);
+    }
+    return stats;
+  }
+
+  private static void register(WsActionStats stats) {
+    Jmx.register(JMX_NAME_PREFIX + stats.getActionPath(), stats);
+  }
+
+  private static void logSlowRequest(String actionPath, long durationMs, CallRecorder calls) {
+    StringBuilder message = new StringBuilder();
+    message.append(String.format("Slow web service request %s: %dms, %d SQL requests (%dms), %d Elasticsearch requests (%dms)",
+      actionPath, durationMs, calls.getCount(SQL_CALL_TYPE), calls.getTimeMs(SQL_CALL_TYPE),
+      calls.getCount(ES_CALL_TYPE), calls.getTimeMs(ES_CALL_TYPE)));
+    for (String call : calls.getCalls()) {
+      message.append(System.lineSeparator()).append("  ").append(call);
+    }
+    LOGGER.warn(message.toString());
+  }
+}
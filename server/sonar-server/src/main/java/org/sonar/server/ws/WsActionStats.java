@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class WsActionStats implements WsActionStatsMBean {
+
+  private final String actionPath;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder responseBytes = new LongAdder();
+  private final LongAdder sqlCount = new LongAdder();
+  private final LongAdder esCount = new LongAdder();
+
+  WsActionStats(String actionPath) {
+    this.actionPath = actionPath;
+  }
+
+  void record(long durationMs, boolean succeeded, long bytes, int sqlRequests, int esRequests) {
+    latencies.record(durationMs);
+    if (!succeeded) {
+      errors.increment();
+    }
+    responseBytes.add(bytes);
+    sqlCount.add(sqlRequests);
+    esCount.add(esRequests);
+  }
+
+  public String getActionPath() {
+    return actionPath;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return latencies.getCount();
+  }
+
+  @Override
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  @Override
+  public double getMeanLatencyMs() {
+    return latencies.getMean();
+  }
+
+  @Override
+  public long getP50LatencyMs() {
+    return latencies.getPercentile(50d);
+  }
+
+  @Override
+  public long getP95LatencyMs() {
+    return latencies.getPercentile(95d);
+  }
+
+  @Override
+  public long getP99LatencyMs() {
+    return latencies.getPercentile(99d);
+  }
+
+  @Override
+  public long getMaxLatencyMs() {
+    return latencies.getMax();
+  }
+
+  @Override
+  public long getResponseBytes() {
+    return responseBytes.sum();
+  }
+
+  @Override
+  public long getSqlCount() {
+    return sqlCount.sum();
+  }
+
+  @Override
+  public long getEsCount() {
+    return esCount.sum();
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+/**
+ * Statistics of the requests to a web service action, exported as a JMX bean
+ * named "SonarQube:name=WebServices,action=&lt;action path&gt;".
+ */
+public interface WsActionStatsMBean {
+
+  /**
+   * Number of requests, including failed requests
+   */
+  long getRequestCount();
+
+  /**
+   * Number of requests that failed with an error response
+   */
+  long getErrorCount();
+
+  double getMeanLatencyMs();
+
+  long getP50LatencyMs();
+
+  long getP95LatencyMs();
+
+  long getP99LatencyMs();
+
+  long getMaxLatencyMs();
+
+  /**
+   * Total number of bytes written in responses
+   */
+  long getResponseBytes();
+
+  /**
+   * Total number of SQL statements executed through MyBatis mappers
+   */
+  long getSqlCount();
+
+  /**
+   * Total number of Elasticsearch requests
+   */
+  long getEsCount();
+}
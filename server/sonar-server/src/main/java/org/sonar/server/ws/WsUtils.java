@@ -20,10 +20,13 @@
 package org.sonar.server.ws;
 
 import com.google.common.base.Optional;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
 import com.google.protobuf.Message;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -36,6 +39,7 @@ import org.sonar.server.exceptions.NotFoundException;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.MessageFormatter;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
 
 public class WsUtils {
@@ -63,6 +67,38 @@ public class WsUtils {
     }
   }
 
+  /**
+   * Same as {@link #writeProtobuf(Message, Request, Response)}, except that the values of the repeated field
+   * {@code repeatedFieldName} are pulled from {@code values} while writing the response. The values can be lazily
+   * built, so that they do not need to be all kept in memory.
+   */
+  public static void writeProtobuf(Message msg, String repeatedFieldName, Iterator<? extends Message> values, Request request, Response response) {
+    Descriptors.FieldDescriptor field = msg.getDescriptorForType().findFieldByName(repeatedFieldName);
+    checkArgument(field != null && field.isRepeated(), "Field %s is not a repeated field of %s", repeatedFieldName, msg.getDescriptorForType().getFullName());
+    OutputStream output = response.stream().output();
+    try {
+      if (request.getMediaType().equals(MediaTypes.PROTOBUF)) {
+        response.stream().setMediaType(MediaTypes.PROTOBUF);
+        // concatenated messages are merged when parsed, so the repeated values can be appended after the other fields
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        msg.writeTo(codedOutput);
+        while (values.hasNext()) {
+          codedOutput.writeMessage(field.getNumber(), values.next());
+        }
+        codedOutput.flush();
+      } else {
+        response.stream().setMediaType(MediaTypes.JSON);
+        try (JsonWriter writer = JsonWriter.of(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+          ProtobufJsonFormat.write(msg, repeatedFieldName, values, writer);
+        }
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(format("Error while writing protobuf message %s", MessageFormatter.print(msg)), e);
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+
   /**
    * @throws BadRequestException
    */
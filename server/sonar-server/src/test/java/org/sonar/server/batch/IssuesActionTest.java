@@ -20,7 +20,10 @@
 package org.sonar.server.batch;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -280,6 +283,60 @@ public class IssuesActionTest {
     assertThat(previousIssue.getAssigneeLogin()).isEqualTo("john");
   }
 
+  @Test
+  public void issues_on_files_are_not_returned_when_files_is_false() throws Exception {
+    OrganizationDto organizationDto = db.organizations().insert();
+    ComponentDto project = ComponentTesting.newProjectDto(organizationDto, PROJECT_UUID).setKey(PROJECT_KEY);
+    ComponentDto module = ComponentTesting.newModuleDto(MODULE_UUID, project).setKey(MODULE_KEY);
+    ComponentDto directory = ComponentTesting.newDirectory(module, "DIR_UUID", "src/org/struts").setKey("struts-core:src/org/struts");
+    ComponentDto file = ComponentTesting.newFileDto(module, directory, FILE_UUID).setKey(FILE_KEY).setPath("src/org/struts/Action.java");
+    db.getDbClient().componentDao().insert(db.getSession(), project, module, directory, file);
+    db.getSession().commit();
+
+    indexIssues(
+      IssueDocTesting.newDoc("ON_PROJECT", project).setRuleKey("squid:AvoidCycle"),
+      IssueDocTesting.newDoc("ON_MODULE", module).setRuleKey("squid:AvoidCycle"),
+      IssueDocTesting.newDoc("ON_DIRECTORY", directory).setRuleKey("squid:AvoidCycle"),
+      IssueDocTesting.newDoc("ON_FILE", file).setRuleKey("squid:AvoidCycle"));
+
+    addBrowsePermissionOnComponent(project);
+
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY).setParam("files", "false")))
+      .containsOnly("ON_PROJECT", "ON_MODULE", "ON_DIRECTORY");
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", MODULE_KEY).setParam("files", "false")))
+      .containsOnly("ON_MODULE", "ON_DIRECTORY");
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY)))
+      .containsOnly("ON_PROJECT", "ON_MODULE", "ON_DIRECTORY", "ON_FILE");
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", FILE_KEY).setParam("files", "false")))
+      .containsOnly("ON_FILE");
+  }
+
+  @Test
+  public void return_only_issues_of_requested_files_and_ignore_unknown_files() throws Exception {
+    OrganizationDto organizationDto = db.organizations().insert();
+    ComponentDto project = ComponentTesting.newProjectDto(organizationDto, PROJECT_UUID).setKey(PROJECT_KEY);
+    ComponentDto module = ComponentTesting.newModuleDto(MODULE_UUID, project).setKey(MODULE_KEY);
+    ComponentDto file = ComponentTesting.newFileDto(module, null, FILE_UUID).setKey(FILE_KEY).setPath("src/org/struts/Action.java");
+    ComponentDto otherFile = ComponentTesting.newFileDto(module, null, "OTHER_FILE_UUID").setKey("struts-core:src/org/struts/Other.java");
+    db.getDbClient().componentDao().insert(db.getSession(), project, module, file, otherFile);
+    db.getSession().commit();
+
+    indexIssues(
+      IssueDocTesting.newDoc("ON_MODULE", module).setRuleKey("squid:AvoidCycle"),
+      IssueDocTesting.newDoc("ON_FILE", file).setRuleKey("squid:AvoidCycle"),
+      IssueDocTesting.newDoc("ON_OTHER_FILE", otherFile).setRuleKey("squid:AvoidCycle"));
+
+    addBrowsePermissionOnComponent(project);
+
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY).setParam("fileKeys", FILE_KEY)))
+      .containsOnly("ON_FILE");
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY).setParam("fileKeys", "struts-core:src/org/struts/New.java")))
+      .isEmpty();
+    // keys of components that are not files are ignored
+    assertThat(readIssueKeys(tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY).setParam("fileKeys", MODULE_KEY)))
+      .isEmpty();
+  }
+
   @Test
   public void project_issues_attached_file_on_removed_module() throws Exception {
     ComponentDto project = ComponentTesting.newProjectDto(db.getDefaultOrganization(), PROJECT_UUID).setKey(PROJECT_KEY);
@@ -319,6 +376,17 @@ public class IssuesActionTest {
     tester.newGetRequest("batch", "issues").setParam("key", file.key()).execute();
   }
 
+  private static List<String> readIssueKeys(WsTester.TestRequest request) throws Exception {
+    List<String> keys = new ArrayList<>();
+    InputStream input = new ByteArrayInputStream(request.execute().output());
+    ServerIssue serverIssue = ServerIssue.parseDelimitedFrom(input);
+    while (serverIssue != null) {
+      keys.add(serverIssue.getKey());
+      serverIssue = ServerIssue.parseDelimitedFrom(input);
+    }
+    return keys;
+  }
+
   private void indexIssues(IssueDoc... issues) {
     issueIndexer.index(Arrays.asList(issues).iterator());
     for (IssueDoc issue : issues) {
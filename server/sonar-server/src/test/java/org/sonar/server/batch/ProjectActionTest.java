@@ -19,10 +19,12 @@
  */
 package org.sonar.server.batch;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.sonar.scanner.protocol.input.FileData;
+import org.sonar.scanner.protocol.input.FilesFingerprint;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
@@ -32,6 +34,8 @@ import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.test.JsonAssert.assertJson;
 
@@ -51,6 +55,7 @@ public class ProjectActionTest {
 
     ProjectRepositories projectReferentials = mock(ProjectRepositories.class);
     when(projectReferentials.toJson()).thenReturn("{\"settingsByModule\": {}}");
+    when(projectReferentials.filesFingerprint()).thenReturn(new FilesFingerprint());
 
     ArgumentCaptor<ProjectDataQuery> queryArgumentCaptor = ArgumentCaptor.forClass(ProjectDataQuery.class);
     when(projectDataLoader.load(queryArgumentCaptor.capture())).thenReturn(projectReferentials);
@@ -86,4 +91,75 @@ public class ProjectActionTest {
     WsProjectResponse wsProjectResponse = WsProjectResponse.parseFrom(result.getInputStream());
     assertThat(wsProjectResponse.getFileDataByModuleAndPath()).isEmpty();
   }
+
+  @Test
+  public void return_304_if_project_is_not_modified() throws Exception {
+    when(projectDataLoader.loadETag(any(ProjectDataQuery.class))).thenReturn("\"abc\"");
+
+    TestResponse response = ws.newRequest()
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .setHeader("If-None-Match", "\"abc\"")
+      .execute();
+
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getHeader("ETag")).isEqualTo("\"abc\"");
+    assertThat(response.getInput()).isEmpty();
+    verify(projectDataLoader, never()).load(any(ProjectDataQuery.class));
+  }
+
+  @Test
+  public void forbid_storage_of_secured_settings() throws Exception {
+    when(projectDataLoader.loadETag(any(ProjectDataQuery.class))).thenReturn("\"def\"");
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(new ProjectRepositories()
+      .addSettings("org.codehaus.sonar:sonar", ImmutableMap.of("sonar.jira.login.secured", "john")));
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .execute();
+
+    assertThat(response.getHeader("Cache-Control")).isEqualTo("no-store");
+  }
+
+  @Test
+  public void return_data_and_etag_if_project_is_modified() throws Exception {
+    when(projectDataLoader.loadETag(any(ProjectDataQuery.class))).thenReturn("\"def\"");
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(new ProjectRepositories());
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .setHeader("If-None-Match", "\"abc\"")
+      .execute();
+
+    assertThat(response.getStatus()).isNotEqualTo(304);
+    assertThat(response.getHeader("ETag")).isEqualTo("\"def\"");
+    assertThat(response.getHeader("Cache-Control")).isNull();
+    assertThat(WsProjectResponse.parseFrom(response.getInputStream()).getFileDataByModuleAndPath()).isEmpty();
+  }
+
+  @Test
+  public void return_delta_of_files_changed_since_analysis() throws Exception {
+    ProjectRepositories delta = new ProjectRepositories()
+      .addFileData("module-1", "src/Changed.java", new FileData("hash1", "rev1"))
+      .addUnchangedFile("module-1", "src/Unchanged.java", new FileData("hash2", "rev2"));
+    delta.setDelta(true);
+    delta.setLastAnalysisUuid("ANALYSIS_2");
+    ArgumentCaptor<ProjectDataQuery> queryArgumentCaptor = ArgumentCaptor.forClass(ProjectDataQuery.class);
+    when(projectDataLoader.load(queryArgumentCaptor.capture())).thenReturn(delta);
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .setParam("since_analysis", "ANALYSIS_1")
+      .execute();
+
+    assertThat(queryArgumentCaptor.getValue().getSinceAnalysis()).isEqualTo("ANALYSIS_1");
+    WsProjectResponse wsProjectResponse = WsProjectResponse.parseFrom(response.getInputStream());
+    assertThat(wsProjectResponse.getDelta()).isTrue();
+    assertThat(wsProjectResponse.getLastAnalysisUuid()).isEqualTo("ANALYSIS_2");
+    assertThat(wsProjectResponse.getFileDataByModuleAndPath().get("module-1").getFileDataByPath()).containsOnlyKeys("src/Changed.java");
+    assertThat(wsProjectResponse.getFilesCount()).isEqualTo(2);
+    assertThat(wsProjectResponse.getFilesChecksum()).isEqualTo(delta.filesFingerprint().checksum());
+  }
 }
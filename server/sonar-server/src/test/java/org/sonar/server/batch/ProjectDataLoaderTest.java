@@ -32,7 +32,11 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.property.PropertyDto;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -42,6 +46,9 @@ import org.sonar.server.tester.UserSessionRule;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newModuleDto;
 import static org.sonar.db.permission.OrganizationPermission.SCAN;
 
 public class ProjectDataLoaderTest {
@@ -179,4 +186,115 @@ public class ProjectDataLoaderTest {
 
     assertThat(repositories).isNotNull();
   }
+
+  @Test
+  public void etag_changes_when_project_is_analyzed_or_its_settings_are_changed() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto module = dbTester.components().insertComponent(newModuleDto(project));
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+    ProjectDataQuery query = ProjectDataQuery.create().setModuleKey(project.key());
+
+    String etag = underTest.loadETag(query);
+    assertThat(underTest.loadETag(query)).isEqualTo(etag);
+    assertThat(underTest.loadETag(ProjectDataQuery.create().setModuleKey(module.key()))).isNotEqualTo(etag);
+
+    dbTester.components().insertSnapshot(project);
+    String etagAfterAnalysis = underTest.loadETag(query);
+    assertThat(etagAfterAnalysis).isNotEqualTo(etag);
+
+    dbTester.properties().insertProperty(new PropertyDto().setKey("sonar.exclusions").setValue("**/*.xml").setResourceId(module.getId()));
+    assertThat(underTest.loadETag(query)).isNotEqualTo(etagAfterAnalysis);
+  }
+
+  @Test
+  public void etag_depends_on_permissions() {
+    ComponentDto project = dbTester.components().insertProject();
+    ProjectDataQuery query = ProjectDataQuery.create().setModuleKey(project.key()).setIssuesMode(true);
+    userSession.logIn().addProjectUuidPermissions(UserRole.USER, project.uuid());
+    String etagOfBrowse = underTest.loadETag(query);
+
+    userSession.logIn().addProjectUuidPermissions(UserRole.USER, project.uuid()).addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+
+    assertThat(underTest.loadETag(query)).isNotEqualTo(etagOfBrowse);
+  }
+
+  @Test
+  public void etag_fails_with_ForbiddenException_if_no_permission() {
+    ComponentDto project = dbTester.components().insertProject();
+    userSession.logIn();
+
+    expectedException.expect(ForbiddenException.class);
+
+    underTest.loadETag(ProjectDataQuery.create().setModuleKey(project.key()));
+  }
+
+  @Test
+  public void load_all_files_if_no_analysis_is_requested() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file1 = insertFileWithSource(project, "src/A.java", 1_000L);
+    ComponentDto file2 = insertFileWithSource(project, "src/B.java", 2_000L);
+    SnapshotDto analysis = dbTester.components().insertSnapshot(project, a -> a.setBuildDate(1_500L));
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+
+    ProjectRepositories repositories = underTest.load(ProjectDataQuery.create().setModuleKey(project.key()));
+
+    assertThat(repositories.isDelta()).isFalse();
+    assertThat(repositories.lastAnalysisUuid()).isEqualTo(analysis.getUuid());
+    assertThat(repositories.fileDataByPath(project.key()).keySet()).containsOnly(file1.path(), file2.path());
+    assertThat(repositories.filesFingerprint().count()).isEqualTo(2);
+  }
+
+  @Test
+  public void load_only_files_changed_since_requested_analysis() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto unchangedFile = insertFileWithSource(project, "src/A.java", 1_000L);
+    ComponentDto changedFile = insertFileWithSource(project, "src/B.java", 2_000L);
+    SnapshotDto analysis = dbTester.components().insertSnapshot(project, a -> a.setBuildDate(1_500L));
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+    ProjectRepositories all = underTest.load(ProjectDataQuery.create().setModuleKey(project.key()));
+
+    ProjectRepositories delta = underTest.load(ProjectDataQuery.create().setModuleKey(project.key()).setSinceAnalysis(analysis.getUuid()));
+
+    assertThat(delta.isDelta()).isTrue();
+    assertThat(delta.fileDataByPath(project.key()).keySet()).containsOnly(changedFile.path());
+    assertThat(delta.fileData(project.key(), unchangedFile.path())).isNull();
+    assertThat(delta.filesFingerprint().matches(all.filesFingerprint().count(), all.filesFingerprint().checksum())).isTrue();
+  }
+
+  @Test
+  public void load_all_files_if_requested_analysis_is_unknown_or_belongs_to_another_project() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto otherProject = dbTester.components().insertProject();
+    insertFileWithSource(project, "src/A.java", 1_000L);
+    SnapshotDto otherAnalysis = dbTester.components().insertSnapshot(otherProject, a -> a.setBuildDate(1_500L));
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+
+    assertThat(underTest.load(ProjectDataQuery.create().setModuleKey(project.key()).setSinceAnalysis("unknown")).isDelta()).isFalse();
+    ProjectRepositories repositories = underTest.load(ProjectDataQuery.create().setModuleKey(project.key()).setSinceAnalysis(otherAnalysis.getUuid()));
+    assertThat(repositories.isDelta()).isFalse();
+    assertThat(repositories.fileDataByPath(project.key())).hasSize(1);
+  }
+
+  @Test
+  public void etag_depends_on_requested_analysis() {
+    ComponentDto project = dbTester.components().insertProject();
+    SnapshotDto analysis = dbTester.components().insertSnapshot(project);
+    userSession.logIn().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+
+    assertThat(underTest.loadETag(ProjectDataQuery.create().setModuleKey(project.key()).setSinceAnalysis(analysis.getUuid())))
+      .isNotEqualTo(underTest.loadETag(ProjectDataQuery.create().setModuleKey(project.key())));
+  }
+
+  private ComponentDto insertFileWithSource(ComponentDto project, String path, long sourceUpdatedAt) {
+    ComponentDto file = dbTester.components().insertComponent(newFileDto(project).setPath(path));
+    dbClient.fileSourceDao().insert(dbSession, new FileSourceDto()
+      .setFileUuid(file.uuid())
+      .setProjectUuid(file.projectUuid())
+      .setDataType(Type.SOURCE)
+      .setSrcHash("hash of " + path)
+      .setCreatedAt(sourceUpdatedAt)
+      .setUpdatedAt(sourceUpdatedAt));
+    dbSession.commit();
+    return file;
+  }
 }
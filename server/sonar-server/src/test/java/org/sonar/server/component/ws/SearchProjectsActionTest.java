@@ -45,6 +45,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.server.es.EsTester;
+import org.sonar.server.es.ScrollCursor;
 import org.sonar.server.measure.index.ProjectMeasuresDoc;
 import org.sonar.server.measure.index.ProjectMeasuresIndex;
 import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
@@ -89,6 +90,7 @@ import static org.sonar.db.component.SnapshotTesting.newAnalysis;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX_TYPE_PROJECT_MEASURES;
 import static org.sonar.test.JsonAssert.assertJson;
+import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_FILTER;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_ORGANIZATION;
 import static org.sonarqube.ws.client.project.ProjectsWsParameters.FILTER_LANGUAGES;
@@ -132,7 +134,7 @@ public class SearchProjectsActionTest {
     assertThat(def.isInternal()).isTrue();
     assertThat(def.isPost()).isFalse();
     assertThat(def.responseExampleAsString()).isNotEmpty();
-    assertThat(def.params().stream().map(Param::key).collect(toList())).containsOnly("organization", "filter", "facets", "s", "asc", "ps", "p", "f");
+    assertThat(def.params().stream().map(Param::key).collect(toList())).containsOnly("organization", "filter", "facets", "s", "asc", "ps", "p", "f", "cursor");
 
     Param organization = def.param("organization");
     assertThat(organization.isRequired()).isFalse();
@@ -212,6 +214,61 @@ public class SearchProjectsActionTest {
       .containsExactly("PROJECT-4", "PROJECT-5", "PROJECT-6");
   }
 
+  @Test
+  public void paginate_result_with_cursor() {
+    IntStream.rangeClosed(1, 7).forEach(i -> insertProjectInDbAndEs(newProjectDto(db.getDefaultOrganization()).setName("PROJECT-" + i)));
+
+    SearchProjectsWsResponse page1 = call(request.setPageSize(3).setCursor(ScrollCursor.START));
+    assertThat(page1.getPaging().getPageIndex()).isEqualTo(1);
+    assertThat(page1.getPaging().getPageSize()).isEqualTo(3);
+    assertThat(page1.getPaging().getTotal()).isEqualTo(7);
+    assertThat(page1.getComponentsList()).extracting(Component::getName).containsExactly("PROJECT-1", "PROJECT-2", "PROJECT-3");
+    assertThat(page1.hasCursor()).isTrue();
+
+    // page size is defined by the first request
+    SearchProjectsWsResponse page2 = call(request.setPageSize(100).setCursor(page1.getCursor()));
+    assertThat(page2.getPaging().getPageIndex()).isEqualTo(2);
+    assertThat(page2.getPaging().getPageSize()).isEqualTo(3);
+    assertThat(page2.getComponentsList()).extracting(Component::getName).containsExactly("PROJECT-4", "PROJECT-5", "PROJECT-6");
+
+    SearchProjectsWsResponse page3 = call(request.setCursor(page2.getCursor()));
+    assertThat(page3.getPaging().getPageIndex()).isEqualTo(3);
+    assertThat(page3.getComponentsList()).extracting(Component::getName).containsExactly("PROJECT-7");
+    assertThat(page3.hasCursor()).isFalse();
+  }
+
+  @Test
+  public void fail_if_cursor_is_replayed_by_another_user() {
+    IntStream.rangeClosed(1, 4).forEach(i -> insertProjectInDbAndEs(newProjectDto(db.getDefaultOrganization()).setName("PROJECT-" + i)));
+    userSession.logIn("john");
+    SearchProjectsWsResponse page1 = call(request.setPageSize(3).setCursor(ScrollCursor.START));
+
+    userSession.logIn("jane");
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + page1.getCursor());
+
+    call(request.setCursor(page1.getCursor()));
+  }
+
+  @Test
+  public void fail_if_cursor_is_replayed_with_another_sort() {
+    IntStream.rangeClosed(1, 4).forEach(i -> insertProjectInDbAndEs(newProjectDto(db.getDefaultOrganization()).setName("PROJECT-" + i)));
+    SearchProjectsWsResponse page1 = call(request.setPageSize(3).setCursor(ScrollCursor.START));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + page1.getCursor());
+
+    call(request.setAsc(false).setCursor(page1.getCursor()));
+  }
+
+  @Test
+  public void fail_if_cursor_is_invalid() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: foo");
+
+    call(request.setCursor("foo"));
+  }
+
   @Test
   public void empty_result() {
     SearchProjectsWsResponse result = call(request);
@@ -650,6 +707,7 @@ public class SearchProjectsActionTest {
     httpRequest.setParam(PAGE_SIZE, String.valueOf(wsRequest.getPageSize()));
     httpRequest.setParam(FACETS, Joiner.on(",").join(wsRequest.getFacets()));
     httpRequest.setParam(FIELDS, Joiner.on(",").join(wsRequest.getAdditionalFields()));
+    ofNullable(wsRequest.getCursor()).ifPresent(cursor -> httpRequest.setParam(PARAM_CURSOR, cursor));
     try {
       return SearchProjectsWsResponse.parseFrom(httpRequest.execute().getInputStream());
     } catch (IOException e) {
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.computation.dbcleaner;
 
+import java.util.concurrent.Executor;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
@@ -30,21 +33,28 @@ import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeInterruptedException;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public class ProjectCleanerTest {
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
   private ProjectCleaner underTest;
   private PurgeDao dao = mock(PurgeDao.class);
   private PurgeProfiler profiler = mock(PurgeProfiler.class);
@@ -94,6 +104,43 @@ public class ProjectCleanerTest {
     verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
 
+  @Test
+  public void purge_dao_deletes_partitions_with_executor_if_provided() {
+    Executor executor = mock(Executor.class);
+
+    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList(), executor, 1_000L);
+
+    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), eq(executor), eq(1_000L));
+  }
+
+  @Test
+  public void fail_if_dao_purge_is_interrupted() {
+    Executor executor = mock(Executor.class);
+    doThrow(new PurgeInterruptedException("deadline")).when(dao)
+      .purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class), eq(executor), eq(1_000L));
+
+    expectedException.expect(PurgeInterruptedException.class);
+
+    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList(), executor, 1_000L);
+  }
+
+  @Test
+  public void purge_only_disabled_components() {
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings, asList("FILE_1"));
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), eq(purgeListener));
+    verifyNoMoreInteractions(dao, periodCleaner);
+  }
+
+  @Test
+  public void if_purge_of_disabled_components_fails_it_should_not_interrupt_program_execution() {
+    doThrow(RuntimeException.class).when(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings, asList("FILE_1"));
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+  }
+
   @Test
   public void if_profiler_cleaning_fails_it_should_not_interrupt_program_execution() {
     doThrow(RuntimeException.class).when(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
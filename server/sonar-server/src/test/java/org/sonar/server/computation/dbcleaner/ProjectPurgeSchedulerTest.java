@@ -0,0 +1,171 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeInterruptedException;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.dbcleaner.ProjectPurgeScheduler.PAUSE_BETWEEN_SLICES_MS;
+import static org.sonar.server.computation.dbcleaner.ProjectPurgeScheduler.SLICE_DURATION_MS;
+
+public class ProjectPurgeSchedulerTest {
+
+  private static final IdUuidPair PROJECT_1 = new IdUuidPair(1L, "P1");
+  private static final IdUuidPair PROJECT_2 = new IdUuidPair(2L, "P2");
+
+  private DbClient dbClient = mock(DbClient.class);
+  private DbSession dbSession = mock(DbSession.class);
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private PurgeExecutorService executorService = mock(PurgeExecutorService.class);
+  private System2 system = mock(System2.class);
+  private Settings settings = new MapSettings();
+  private List<Runnable> submittedTasks = new ArrayList<>();
+
+  private ProjectPurgeScheduler underTest = new ProjectPurgeScheduler(dbClient, projectCleaner, executorService, system);
+
+  public ProjectPurgeSchedulerTest() {
+    when(dbClient.openSession(true)).thenReturn(dbSession);
+    doAnswer(invocation -> submittedTasks.add((Runnable) invocation.getArguments()[0])).when(executorService).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void schedule_does_not_purge_in_calling_thread() {
+    underTest.schedule(PROJECT_1, settings);
+
+    verifyZeroInteractions(projectCleaner);
+    assertThat(submittedTasks).hasSize(1);
+    assertThat(underTest.getPendingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void slice_purges_pending_projects_with_executor_for_partitions() {
+    underTest.schedule(PROJECT_1, settings);
+    underTest.schedule(PROJECT_2, settings);
+
+    submittedTasks.get(0).run();
+
+    verify(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(projectCleaner).purge(dbSession, PROJECT_2, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(dbSession, times(2)).commit();
+    assertThat(submittedTasks).hasSize(1);
+    assertThat(underTest.getPendingCount()).isZero();
+  }
+
+  @Test
+  public void project_scheduled_several_times_is_purged_once() {
+    underTest.schedule(PROJECT_1, settings);
+    underTest.schedule(PROJECT_1, settings);
+
+    submittedTasks.get(0).run();
+
+    verify(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+  }
+
+  @Test
+  public void new_slice_is_submitted_when_previous_one_is_finished() {
+    underTest.schedule(PROJECT_1, settings);
+    submittedTasks.get(0).run();
+
+    underTest.schedule(PROJECT_2, settings);
+
+    assertThat(submittedTasks).hasSize(2);
+  }
+
+  @Test
+  public void remaining_projects_are_purged_by_next_slice_when_slice_duration_is_exceeded() {
+    when(system.now()).thenReturn(0L, 0L, SLICE_DURATION_MS);
+    underTest.schedule(PROJECT_1, settings);
+    underTest.schedule(PROJECT_2, settings);
+
+    underTest.runSlice();
+
+    verify(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(projectCleaner, never()).purge(dbSession, PROJECT_2, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(executorService).schedule(any(Runnable.class), eq(PAUSE_BETWEEN_SLICES_MS), eq(TimeUnit.MILLISECONDS));
+    assertThat(underTest.getPendingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void interrupted_purge_is_resumed_by_next_slice() {
+    doThrow(new PurgeInterruptedException("deadline")).when(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    underTest.schedule(PROJECT_1, settings);
+    underTest.schedule(PROJECT_2, settings);
+
+    underTest.runSlice();
+
+    verify(projectCleaner, never()).purge(dbSession, PROJECT_2, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(dbSession).commit();
+    verify(executorService).schedule(any(Runnable.class), eq(PAUSE_BETWEEN_SLICES_MS), eq(TimeUnit.MILLISECONDS));
+    assertThat(underTest.getPendingCount()).isEqualTo(2);
+
+    doReturn(projectCleaner).when(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    underTest.runSlice();
+
+    verify(projectCleaner, times(2)).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    verify(projectCleaner).purge(dbSession, PROJECT_2, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    assertThat(underTest.getPendingCount()).isZero();
+  }
+
+  @Test
+  public void failure_of_a_project_does_not_prevent_purge_of_next_projects() {
+    doThrow(new IllegalStateException("db error")).when(projectCleaner).purge(dbSession, PROJECT_1, settings, emptyList(), executorService, SLICE_DURATION_MS);
+    underTest.schedule(PROJECT_1, settings);
+    underTest.schedule(PROJECT_2, settings);
+
+    submittedTasks.get(0).run();
+
+    verify(projectCleaner).purge(dbSession, PROJECT_2, settings, emptyList(), executorService, SLICE_DURATION_MS);
+  }
+
+  @Test
+  public void schedule_does_not_fail_when_executor_is_stopped() {
+    doThrow(new RejectedExecutionException()).when(executorService).execute(any(Runnable.class));
+
+    underTest.schedule(PROJECT_1, settings);
+
+    verify(projectCleaner, never()).purge(any(DbSession.class), any(IdUuidPair.class), any(Settings.class), anyCollection(), any(PurgeExecutorService.class), anyLong());
+    verify(executorService, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+}
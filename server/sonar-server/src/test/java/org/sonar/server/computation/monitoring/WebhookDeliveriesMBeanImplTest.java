@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebhookDeliveriesMBeanImplTest {
+
+  private WebhookDeliveryStatus status = mock(WebhookDeliveryStatus.class);
+  private WebhookDeliveriesMBeanImpl underTest = new WebhookDeliveriesMBeanImpl(status);
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @Test
+  public void get_methods_delegate_to_the_WebhookDeliveryStatus_instance() {
+    when(status.getPendingCount()).thenReturn(1L);
+    when(status.getSuccessCount()).thenReturn(7L);
+    when(status.getFailureCount()).thenReturn(3L);
+    when(status.getRetryCount()).thenReturn(4L);
+    when(status.getRejectedCount()).thenReturn(2L);
+    when(status.getDroppedCount()).thenReturn(6L);
+    when(status.getLatency()).thenReturn(5_000L);
+    when(status.getMaxLatency()).thenReturn(1_200L);
+
+    assertThat(underTest.getPendingCount()).isEqualTo(1L);
+    assertThat(underTest.getSuccessCount()).isEqualTo(7L);
+    assertThat(underTest.getFailureCount()).isEqualTo(3L);
+    assertThat(underTest.getRetryCount()).isEqualTo(4L);
+    assertThat(underTest.getRejectedCount()).isEqualTo(2L);
+    assertThat(underTest.getDroppedCount()).isEqualTo(6L);
+    assertThat(underTest.getAverageLatency()).isEqualTo(500L);
+    assertThat(underTest.getMaxLatency()).isEqualTo(1_200L);
+  }
+
+  @Test
+  public void average_latency_is_zero_when_no_deliveries() {
+    assertThat(underTest.getAverageLatency()).isEqualTo(0L);
+  }
+
+  @Test
+  public void export_system_info() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+    assertThat(section.getName()).isEqualTo("Compute Engine Webhooks");
+    assertThat(section.getAttributesCount()).isEqualTo(8);
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(WebhookDeliveriesMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -44,6 +44,8 @@ public class AnalysisMetadataHolderRule extends ExternalResource implements Muta
 
   private final InitializedProperty<Boolean> crossProjectDuplicationEnabled = new InitializedProperty<>();
 
+  private final InitializedProperty<Boolean> incrementalAnalysis = new InitializedProperty<>();
+
   private final InitializedProperty<String> branch = new InitializedProperty<>();
 
   private final InitializedProperty<Integer> rootComponentRef = new InitializedProperty<>();
@@ -136,6 +138,18 @@ public class AnalysisMetadataHolderRule extends ExternalResource implements Muta
     return crossProjectDuplicationEnabled.getProperty();
   }
 
+  @Override
+  public AnalysisMetadataHolderRule setIncrementalAnalysis(boolean isIncrementalAnalysis) {
+    this.incrementalAnalysis.setProperty(isIncrementalAnalysis);
+    return this;
+  }
+
+  @Override
+  public boolean isIncrementalAnalysis() {
+    checkState(incrementalAnalysis.isInitialized(), "Incremental analysis flag has not been set");
+    return incrementalAnalysis.getProperty();
+  }
+
   @Override
   public AnalysisMetadataHolderRule setBranch(@Nullable String branch) {
     this.branch.setProperty(branch);
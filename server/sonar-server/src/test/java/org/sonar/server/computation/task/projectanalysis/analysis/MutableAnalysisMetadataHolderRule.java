@@ -97,6 +97,17 @@ public class MutableAnalysisMetadataHolderRule extends ExternalResource implemen
     return this;
   }
 
+  @Override
+  public boolean isIncrementalAnalysis() {
+    return delegate.isIncrementalAnalysis();
+  }
+
+  @Override
+  public MutableAnalysisMetadataHolderRule setIncrementalAnalysis(boolean isIncrementalAnalysis) {
+    delegate.setIncrementalAnalysis(isIncrementalAnalysis);
+    return this;
+  }
+
   @Override
   public String getBranch() {
     return delegate.getBranch();
@@ -489,6 +489,14 @@ public class ComponentRootBuilderTest {
     assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(10).build()).getLines()).isEqualTo(10);
   }
 
+  @Test
+  public void createFileAttributes_sets_unchanged_from_Scanner_Component_status() {
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).build()).isUnchanged()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setStatus(ScannerReport.Component.FileStatus.ADDED).setLines(1).build()).isUnchanged()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setStatus(ScannerReport.Component.FileStatus.CHANGED).setLines(1).build()).isUnchanged()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setStatus(ScannerReport.Component.FileStatus.SAME).setLines(1).build()).isUnchanged()).isTrue();
+  }
+
   @Test
   public void fail_with_IAE_when_createFileAttributes_lines_is_not_set() throws Exception {
     expectedException.expect(IllegalArgumentException.class);
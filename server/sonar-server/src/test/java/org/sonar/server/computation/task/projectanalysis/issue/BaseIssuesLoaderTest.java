@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueTesting;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleTesting;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRule;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class BaseIssuesLoaderTest {
+
+  private static final FileAttributes UNCHANGED = new FileAttributes(false, null, 1, true);
+
+  private Component unchangedFile1 = builder(Component.Type.FILE, 2).setUuid("FILE_1").setFileAttributes(UNCHANGED).build();
+  private Component unchangedFile2 = builder(Component.Type.FILE, 3).setUuid("FILE_2").setFileAttributes(UNCHANGED).build();
+  private Component changedFile = builder(Component.Type.FILE, 4).setUuid("FILE_3").build();
+  private Component unknownFile = builder(Component.Type.FILE, 5).setUuid("FILE_4").setFileAttributes(UNCHANGED).build();
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(builder(Component.Type.PROJECT, 1).setUuid("PROJECT").addChildren(unchangedFile1, unchangedFile2, changedFile).build());
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+  @Rule
+  public ActiveRulesHolderRule activeRulesHolder = new ActiveRulesHolderRule();
+
+  private ComponentDto project;
+  private RuleDto rule;
+
+  private BaseIssuesLoader underTest = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepository, activeRulesHolder);
+
+  @Before
+  public void setUp() {
+    project = ComponentTesting.newProjectDto(dbTester.organizations().insert(), "PROJECT");
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project);
+    rule = RuleTesting.newXooX1();
+    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), rule);
+    ruleRepository.add(rule.getKey());
+    activeRulesHolder.put(new ActiveRule(rule.getKey(), Severity.MAJOR, Collections.emptyMap(), 1_000L));
+  }
+
+  @Test
+  public void load_issues_of_unchanged_files() {
+    insertIssue(insertFile("FILE_1"), "ISSUE_1", Issue.STATUS_OPEN);
+    ComponentDto file2 = insertFile("FILE_2");
+    insertIssue(file2, "ISSUE_2", Issue.STATUS_OPEN);
+    insertIssue(file2, "ISSUE_3", Issue.STATUS_CLOSED);
+    insertIssue(insertFile("FILE_3"), "ISSUE_4", Issue.STATUS_OPEN);
+    insertIssue(insertFile("FILE_4"), "ISSUE_5", Issue.STATUS_OPEN);
+
+    assertThat(underTest.loadForUnchangedFile(unchangedFile1)).extracting(DefaultIssue::key).containsOnly("ISSUE_1");
+    assertThat(underTest.loadForUnchangedFile(unchangedFile2)).extracting(DefaultIssue::key).containsOnly("ISSUE_2");
+    assertThat(underTest.loadForUnchangedFile(unknownFile)).extracting(DefaultIssue::key).containsOnly("ISSUE_5");
+  }
+
+  @Test
+  public void load_no_issues_for_unchanged_file_without_issues() {
+    insertFile("FILE_1");
+    insertIssue(insertFile("FILE_2"), "ISSUE_1", Issue.STATUS_OPEN);
+
+    assertThat(underTest.loadForUnchangedFile(unchangedFile1)).isEmpty();
+    assertThat(underTest.loadForUnchangedFile(unchangedFile2)).extracting(DefaultIssue::key).containsOnly("ISSUE_1");
+  }
+
+  private ComponentDto insertFile(String uuid) {
+    ComponentDto file = ComponentTesting.newFileDto(project, null, uuid);
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), file);
+    dbTester.getSession().commit();
+    return file;
+  }
+
+  private void insertIssue(ComponentDto file, String key, String status) {
+    IssueDto issue = IssueTesting.newDto(rule, file, project).setKee(key).setStatus(status);
+    dbTester.getDbClient().issueDao().insert(dbTester.getSession(), issue);
+    dbTester.getSession().commit();
+  }
+}
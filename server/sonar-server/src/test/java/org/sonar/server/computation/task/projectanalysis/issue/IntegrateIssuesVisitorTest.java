@@ -42,19 +42,23 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.scanner.protocol.Constants;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommonRuleEngineImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.filter.IssueFilter;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRule;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -98,6 +102,8 @@ public class IntegrateIssuesVisitorTest {
   public ComponentIssuesRepositoryRule componentIssuesRepository = new ComponentIssuesRepositoryRule(treeRootHolder);
   @Rule
   public SourceLinesRepositoryRule fileSourceRepository = new SourceLinesRepositoryRule();
+  @Rule
+  public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
 
   ArgumentCaptor<DefaultIssue> defaultIssueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
 
@@ -124,7 +130,8 @@ public class IntegrateIssuesVisitorTest {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
     when(issueFilter.accept(any(DefaultIssue.class), eq(FILE))).thenReturn(true);
     when(movedFilesRepository.getOriginalFile(any(Component.class))).thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
-    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository);
+    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository,
+      baseIssuesLoader, analysisMetadataHolder, activeRulesHolderRule);
   }
 
   @Test
@@ -225,6 +232,65 @@ public class IntegrateIssuesVisitorTest {
     assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
   }
 
+  @Test
+  public void copy_base_issue_of_unchanged_file_of_incremental_analysis() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, PROJECT_REF).setKey(PROJECT_KEY).setUuid(PROJECT_UUID).addChildren(unchangedFile).build());
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    RuleKey ruleKey = RuleTesting.XOO_X1;
+    addBaseIssue(ruleKey);
+    activeRulesHolderRule.put(new ActiveRule(ruleKey, Severity.MAJOR, Collections.emptyMap(), 1_000L));
+
+    // No issue in the report
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle).doAutomaticTransition(defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().isBeingClosed()).isFalse();
+    verify(issueVisitor).onIssue(eq(unchangedFile), defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().key()).isEqualTo("ISSUE");
+    List<DefaultIssue> issues = newArrayList(issueCache.traverse());
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).isNew()).isFalse();
+    assertThat(issues.get(0).severity()).isEqualTo(Severity.MAJOR);
+
+    assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
+  }
+
+  @Test
+  public void close_base_issue_of_unchanged_file_of_incremental_analysis_when_rule_is_no_longer_active() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    BaseIssuesLoader loader = mock(BaseIssuesLoader.class);
+    when(loader.loadForUnchangedFile(unchangedFile)).thenReturn(singletonList(new DefaultIssue()
+      .setKey("ISSUE")
+      .setRuleKey(RuleTesting.XOO_X1)
+      .setComponentUuid(FILE_UUID)
+      .setSeverity(Severity.MAJOR)
+      .setStatus(Issue.STATUS_OPEN)
+      .setNew(false)));
+    // rule is not active anymore
+    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository,
+      loader, analysisMetadataHolder, activeRulesHolderRule);
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle).doAutomaticTransition(defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().key()).isEqualTo("ISSUE");
+    assertThat(defaultIssueCaptor.getValue().isBeingClosed()).isTrue();
+    assertThat(defaultIssueCaptor.getValue().isOnDisabledRule()).isTrue();
+  }
+
   @Test
   public void feed_component_issues_repo() throws Exception {
     componentsWithUnprocessedIssues.setUuids(Collections.<String>emptySet());
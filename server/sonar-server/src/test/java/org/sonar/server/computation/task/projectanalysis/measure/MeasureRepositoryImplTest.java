@@ -27,6 +27,7 @@ import com.google.common.collect.SetMultimap;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Before;
@@ -34,17 +35,24 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
@@ -55,7 +63,10 @@ import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.guava.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -70,6 +81,10 @@ public class MeasureRepositoryImplTest {
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+  @Rule
+  public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
 
   private static final String FILE_COMPONENT_KEY = "file cpt key";
   private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey(FILE_COMPONENT_KEY).build();
@@ -89,11 +104,13 @@ public class MeasureRepositoryImplTest {
 
   private DbClient dbClient = dbTester.getDbClient();
   private MetricRepository metricRepository = mock(MetricRepository.class);
-  private MeasureRepositoryImpl underTest = new MeasureRepositoryImpl(dbClient, reportReader, metricRepository, reportMetricValidator);
+  private MeasureRepositoryImpl underTest = new MeasureRepositoryImpl(dbClient, reportReader, metricRepository, reportMetricValidator, analysisMetadataHolder,
+    treeRootHolder);
 
   private DbClient mockedDbClient = mock(DbClient.class);
   private BatchReportReader mockBatchReportReader = mock(BatchReportReader.class);
-  private MeasureRepositoryImpl underTestWithMock = new MeasureRepositoryImpl(mockedDbClient, mockBatchReportReader, metricRepository, reportMetricValidator);
+  private MeasureRepositoryImpl underTestWithMock = new MeasureRepositoryImpl(mockedDbClient, mockBatchReportReader, metricRepository, reportMetricValidator,
+    analysisMetadataHolder, treeRootHolder);
 
   private DbSession dbSession = dbTester.getSession();
 
@@ -341,6 +358,75 @@ public class MeasureRepositoryImplTest {
     assertThat(underTest.getRawMeasure(OTHER_COMPONENT, metric1)).isAbsent();
   }
 
+  @Test
+  public void getRawMeasure_returns_measure_of_previous_analysis_for_unchanged_file_of_incremental_analysis() {
+    ReportComponent unchangedFile = ReportComponent.builder(Component.Type.FILE, 1).setKey(FILE_COMPONENT_KEY).setFileAttributes(new FileAttributes(false, null, 1, true)).build();
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 10).setUuid(FILE_COMPONENT.getUuid()).addChildren(unchangedFile).build());
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    prepareMeasuresOfPreviousAnalysis();
+
+    Measure measure = underTest.getRawMeasure(unchangedFile, metric1).get();
+    assertThat(measure.getStringValue()).isEqualTo(SOME_DATA);
+    assertThat(measure.hasVariation()).isFalse();
+    // only metrics which can be sent by the scanner are carried over
+    assertThat(underTest.getRawMeasure(unchangedFile, metric2)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_does_not_return_measure_of_previous_analysis_for_unchanged_file_of_full_analysis() {
+    ReportComponent unchangedFile = ReportComponent.builder(Component.Type.FILE, 1).setKey(FILE_COMPONENT_KEY).setFileAttributes(new FileAttributes(false, null, 1, true)).build();
+    analysisMetadataHolder.setIncrementalAnalysis(false);
+    prepareMeasuresOfPreviousAnalysis();
+
+    assertThat(underTest.getRawMeasure(unchangedFile, metric1)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_does_not_return_measure_of_previous_analysis_for_changed_file_of_incremental_analysis() {
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    prepareMeasuresOfPreviousAnalysis();
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1)).isAbsent();
+  }
+
+  @Test
+  public void load_measures_of_previous_analysis_of_all_unchanged_files_at_once() {
+    ReportComponent unchangedFile1 = ReportComponent.builder(Component.Type.FILE, 1).setFileAttributes(new FileAttributes(false, null, 1, true)).build();
+    ReportComponent unchangedFile2 = ReportComponent.builder(Component.Type.FILE, 2).setFileAttributes(new FileAttributes(false, null, 1, true)).build();
+    ReportComponent changedFile = ReportComponent.builder(Component.Type.FILE, 3).build();
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 10).addChildren(unchangedFile1, unchangedFile2, changedFile).build());
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    when(metric1.getId()).thenReturn(METRIC_ID_1);
+    when(metricRepository.getAll()).thenReturn(ImmutableList.of(metric1));
+    when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
+    when(mockBatchReportReader.readComponentMeasures(anyInt())).thenAnswer(invocation -> CloseableIterator.emptyCloseableIterator());
+    MeasureDao measureDao = mock(MeasureDao.class);
+    when(mockedDbClient.measureDao()).thenReturn(measureDao);
+    when(measureDao.selectByQuery(any(DbSession.class), any(MeasureQuery.class))).thenReturn(Collections.emptyList());
+
+    underTestWithMock.getRawMeasure(unchangedFile1, metric1);
+    underTestWithMock.getRawMeasure(unchangedFile2, metric1);
+    underTestWithMock.getRawMeasure(changedFile, metric1);
+
+    ArgumentCaptor<MeasureQuery> query = ArgumentCaptor.forClass(MeasureQuery.class);
+    verify(measureDao).selectByQuery(any(DbSession.class), query.capture());
+    assertThat(query.getValue().getProjectUuid()).isEqualTo("uuid_10");
+    assertThat(query.getValue().getComponentUuids()).containsOnly(unchangedFile1.getUuid(), unchangedFile2.getUuid());
+  }
+
+  private void prepareMeasuresOfPreviousAnalysis() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_1, FILE_COMPONENT.getUuid(), LAST_ANALYSIS_UUID).setVariation(1d));
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_2, FILE_COMPONENT.getUuid(), LAST_ANALYSIS_UUID));
+    dbSession.commit();
+    when(metric1.getId()).thenReturn(METRIC_ID_1);
+    when(metric2.getId()).thenReturn(METRIC_ID_2);
+    when(metricRepository.getAll()).thenReturn(ImmutableList.of(metric1, metric2));
+    when(metricRepository.getById(METRIC_ID_1)).thenReturn(metric1);
+    when(metricRepository.getById(METRIC_ID_2)).thenReturn(metric2);
+    when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
+  }
+
   @Test
   public void getRawMeasure_returns_only_validate_measure_from_batch_if_not_added_through_add_method() {
     when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
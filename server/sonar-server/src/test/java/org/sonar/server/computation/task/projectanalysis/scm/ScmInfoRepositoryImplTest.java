@@ -45,6 +45,7 @@ import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetada
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
@@ -134,6 +135,33 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from db for file 'FILE_KEY'");
   }
 
+  @Test
+  public void getScmInfo_returns_ScmInfo_from_DB_without_source_in_report_for_unchanged_file_of_incremental_analysis() throws Exception {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF).setKey("FILE_KEY").setUuid("FILE_UUID")
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    addFileSourceInDb("henry", DATE_1, "rev-1", computeSourceHash(1));
+    // no source in report
+    addCopyFromPreviousChangesetInReport();
+
+    ScmInfo scmInfo = underTest.getScmInfo(unchangedFile).get();
+
+    assertThat(scmInfo.getChangesetForLine(1).getAuthor()).isEqualTo("henry");
+  }
+
+  @Test
+  public void getScmInfo_compares_hashes_of_changed_file_of_incremental_analysis() throws Exception {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    addFileSourceInDb("henry", DATE_1, "rev-1", computeSourceHash(1) + "_different");
+    addFileSourceInReport(1);
+    addCopyFromPreviousChangesetInReport();
+
+    assertThat(underTest.getScmInfo(FILE)).isAbsent();
+  }
+
   @Test
   public void read_from_report_even_if_data_in_db_exists() throws Exception {
     analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
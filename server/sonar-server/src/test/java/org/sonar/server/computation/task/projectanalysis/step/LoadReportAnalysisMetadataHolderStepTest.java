@@ -151,6 +151,29 @@ public class LoadReportAnalysisMetadataHolderStepTest {
     assertThat(analysisMetadataHolder.isCrossProjectDuplicationEnabled()).isEqualTo(false);
   }
 
+  @Test
+  public void set_incremental_analysis_to_true() throws Exception {
+    reportReader.setMetadata(
+      newBatchReportBuilder()
+        .setIncremental(true)
+        .build());
+
+    underTest.execute();
+
+    assertThat(analysisMetadataHolder.isIncrementalAnalysis()).isTrue();
+  }
+
+  @Test
+  public void set_incremental_analysis_to_false_when_nothing_in_the_report() throws Exception {
+    reportReader.setMetadata(
+      newBatchReportBuilder()
+        .build());
+
+    underTest.execute();
+
+    assertThat(analysisMetadataHolder.isIncrementalAnalysis()).isFalse();
+  }
+
   @Test
   public void execute_fails_with_MessageException_if_projectKey_is_null_in_CE_task() {
     CeTask res = mock(CeTask.class);
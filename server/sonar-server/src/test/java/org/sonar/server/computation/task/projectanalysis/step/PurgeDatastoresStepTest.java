@@ -35,6 +35,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+import org.sonar.server.computation.dbcleaner.ProjectPurgeScheduler;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepositoryRule;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDisabledComponentsHolder;
@@ -68,20 +69,21 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   public MutableDbIdsRepositoryRule dbIdsRepository = MutableDbIdsRepositoryRule.standalone();
 
   private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectPurgeScheduler purgeScheduler = mock(ProjectPurgeScheduler.class);
   private SettingsRepository settingsRepository = mock(SettingsRepository.class);
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
 
-  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS), projectCleaner, dbIdsRepository, treeRootHolder, settingsRepository, disabledComponentsHolder);
+  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS), projectCleaner, purgeScheduler, dbIdsRepository, treeRootHolder, settingsRepository, disabledComponentsHolder);
 
   @Test
-  public void call_purge_method_of_the_purge_task_for_project() {
+  public void purge_disabled_components_and_schedule_purge_of_project() {
     Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
 
     verify_call_purge_method_of_the_purge_task(project);
   }
 
   @Test
-  public void call_purge_method_of_the_purge_task_for_view() {
+  public void purge_disabled_components_and_schedule_purge_of_view() {
     Component project = ViewsComponent.builder(Component.Type.VIEW, PROJECT_KEY).setUuid(PROJECT_UUID).build();
 
     verify_call_purge_method_of_the_purge_task(project);
@@ -128,7 +130,7 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verifyNoMoreInteractions(projectCleaner);
+    verifyNoMoreInteractions(projectCleaner, purgeScheduler);
   }
 
   private void verify_call_purge_method_of_the_purge_task(Component project) {
@@ -139,9 +141,15 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
     underTest.execute();
 
     ArgumentCaptor<IdUuidPair> argumentCaptor = ArgumentCaptor.forClass(IdUuidPair.class);
-    verify(projectCleaner).purge(any(DbSession.class), argumentCaptor.capture(), any(Settings.class), anyList());
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), argumentCaptor.capture(), any(Settings.class), anyList());
     assertThat(argumentCaptor.getValue().getId()).isEqualTo(PROJECT_ID);
     assertThat(argumentCaptor.getValue().getUuid()).isEqualTo(PROJECT_UUID);
+
+    ArgumentCaptor<IdUuidPair> scheduledCaptor = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(purgeScheduler).schedule(scheduledCaptor.capture(), any(Settings.class));
+    assertThat(scheduledCaptor.getValue().getId()).isEqualTo(PROJECT_ID);
+    assertThat(scheduledCaptor.getValue().getUuid()).isEqualTo(PROJECT_UUID);
+    verifyNoMoreInteractions(projectCleaner);
   }
 
   private static Object[][] dataproviderFromComponentTypeValues(Predicate<Component.Type> predicate) {
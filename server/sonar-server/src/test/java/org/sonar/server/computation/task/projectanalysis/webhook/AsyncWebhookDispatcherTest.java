@@ -0,0 +1,222 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.webhook.AsyncWebhookDispatcher.INITIAL_BACKOFF_MS;
+import static org.sonar.server.computation.task.projectanalysis.webhook.AsyncWebhookDispatcher.MAX_PENDING_DELIVERIES;
+import static org.sonar.server.computation.task.projectanalysis.webhook.AsyncWebhookDispatcher.STOP_TIMEOUT_MS;
+
+public class AsyncWebhookDispatcherTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+
+  private final Webhook webhook = new Webhook("P1_UUID", "CE_TASK_UUID", "First", "http://url1");
+  private final WebhookPayload payload = new WebhookPayload("P1", "{}");
+  private final TestWebhookCaller caller = new TestWebhookCaller();
+  private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private final TestWebhookExecutorService executorService = new TestWebhookExecutorService();
+  private final WebhookDeliveryStatus status = new WebhookDeliveryStatus();
+  private final TestSystem2 system = new TestSystem2().setNow(NOW);
+
+  private AsyncWebhookDispatcher underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, executorService, status, system);
+
+  @Test
+  public void persist_successful_delivery() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(persistedDelivery().isSuccess()).isTrue();
+    assertThat(executorService.getScheduledDelaysMs()).isEmpty();
+    assertThat(status.getSuccessCount()).isEqualTo(1);
+    assertThat(status.getPendingCount()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
+  }
+
+  @Test
+  public void retry_network_errors_with_exponential_backoff() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 200, 10);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(caller.countSent()).isEqualTo(3);
+    assertThat(executorService.getScheduledDelaysMs()).containsExactly(INITIAL_BACKOFF_MS, 2 * INITIAL_BACKOFF_MS);
+    assertThat(persistedDelivery().isSuccess()).isTrue();
+    assertThat(status.getRetryCount()).isEqualTo(2);
+    assertThat(status.getSuccessCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retry_server_errors_until_max_attempts() {
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueSuccess(NOW, 500, 10);
+    caller.enqueueSuccess(NOW, 502, 10);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(caller.countSent()).isEqualTo(AsyncWebhookDispatcher.MAX_ATTEMPTS);
+    WebhookDelivery delivery = persistedDelivery();
+    assertThat(delivery.isSuccess()).isFalse();
+    assertThat(delivery.getHttpStatus()).contains(502);
+    assertThat(status.getFailureCount()).isEqualTo(1);
+    assertThat(status.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void do_not_retry_client_errors() {
+    caller.enqueueSuccess(NOW, 404, 10);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(persistedDelivery().getHttpStatus()).contains(404);
+    assertThat(status.getRetryCount()).isEqualTo(0);
+    assertThat(status.getFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void measure_latency_of_deliveries() {
+    caller.enqueueSuccess(NOW, 200, 10);
+    WebhookCaller slowCaller = (w, p) -> {
+      system.setNow(NOW + 300);
+      return caller.call(w, p);
+    };
+    underTest = new AsyncWebhookDispatcher(slowCaller, deliveryStorage, executorService, status, system);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(status.getLatency()).isEqualTo(300);
+    assertThat(status.getMaxLatency()).isEqualTo(300);
+  }
+
+  @Test
+  public void persist_failed_delivery_when_executor_rejects_it() {
+    WebhookExecutorService rejectingExecutor = mock(WebhookExecutorService.class);
+    doThrow(new RejectedExecutionException("shutdown")).when(rejectingExecutor).execute(any(Runnable.class));
+    underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, rejectingExecutor, status, system);
+
+    underTest.dispatch(webhook, payload);
+
+    WebhookDelivery delivery = persistedDelivery();
+    assertThat(delivery.isSuccess()).isFalse();
+    assertThat(delivery.getErrorMessage()).contains("shutdown");
+    assertThat(status.getRejectedCount()).isEqualTo(1);
+    assertThat(status.getPendingCount()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Webhook 'First' is not sent | url=http://url1 | message=shutdown");
+  }
+
+  @Test
+  public void reject_deliveries_when_too_many_are_pending() {
+    WebhookExecutorService blockedExecutor = mock(WebhookExecutorService.class);
+    underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, blockedExecutor, status, system);
+    for (int i = 0; i < MAX_PENDING_DELIVERIES; i++) {
+      underTest.dispatch(webhook, payload);
+    }
+    verifyZeroInteractions(deliveryStorage);
+
+    underTest.dispatch(webhook, payload);
+
+    assertThat(persistedDelivery().getErrorMessage()).contains("Too many pending webhook deliveries");
+    assertThat(status.getPendingCount()).isEqualTo(MAX_PENDING_DELIVERIES);
+    assertThat(status.getRejectedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void wait_for_pending_deliveries_on_stop() throws InterruptedException {
+    WebhookExecutorService stoppingExecutor = mock(WebhookExecutorService.class);
+    when(stoppingExecutor.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
+    underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, stoppingExecutor, status, system);
+
+    underTest.stop();
+
+    InOrder inOrder = inOrder(stoppingExecutor);
+    inOrder.verify(stoppingExecutor).shutdown();
+    inOrder.verify(stoppingExecutor).awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    verify(stoppingExecutor, never()).shutdownNow();
+    assertThat(status.getDroppedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void drop_deliveries_still_pending_after_stop_timeout() throws InterruptedException {
+    WebhookExecutorService blockedExecutor = mock(WebhookExecutorService.class);
+    when(blockedExecutor.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(false);
+    underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, blockedExecutor, status, system);
+    underTest.dispatch(webhook, payload);
+
+    underTest.stop();
+
+    verify(blockedExecutor).shutdownNow();
+    verifyZeroInteractions(deliveryStorage);
+    assertThat(status.getPendingCount()).isEqualTo(0);
+    assertThat(status.getDroppedCount()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Webhook 'First' is dropped, server is stopping | url=http://url1");
+  }
+
+  @Test
+  public void do_not_count_twice_a_delivery_completed_after_stop() throws InterruptedException {
+    WebhookExecutorService blockedExecutor = mock(WebhookExecutorService.class);
+    when(blockedExecutor.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(false);
+    underTest = new AsyncWebhookDispatcher(caller, deliveryStorage, blockedExecutor, status, system);
+    underTest.dispatch(webhook, payload);
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(blockedExecutor).execute(task.capture());
+    underTest.stop();
+
+    caller.enqueueSuccess(NOW, 200, 10);
+    task.getValue().run();
+
+    assertThat(status.getPendingCount()).isEqualTo(0);
+    assertThat(status.getDroppedCount()).isEqualTo(1);
+    assertThat(status.getSuccessCount()).isEqualTo(0);
+  }
+
+  private WebhookDelivery persistedDelivery() {
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage).persist(captor.capture());
+    return captor.getValue();
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.sonar.server.util.AbstractStoppableScheduledExecutorServiceImpl;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs tasks immediately in the calling thread, ignoring the delays of scheduled tasks.
+ */
+public class TestWebhookExecutorService extends AbstractStoppableScheduledExecutorServiceImpl<ScheduledExecutorService>
+  implements WebhookExecutorService {
+
+  private final List<Long> scheduledDelaysMs = new ArrayList<>();
+
+  public TestWebhookExecutorService() {
+    super(mock(ScheduledExecutorService.class));
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    command.run();
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    scheduledDelaysMs.add(unit.toMillis(delay));
+    command.run();
+    return null;
+  }
+
+  public List<Long> getScheduledDelaysMs() {
+    return scheduledDelaysMs;
+  }
+}
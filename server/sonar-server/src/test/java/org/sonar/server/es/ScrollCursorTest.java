@@ -0,0 +1,169 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.Paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScrollCursorTest {
+
+  private static final String CONTEXT = ScrollCursor.context("john", "api/issues/search", "query");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void parse_start() {
+    ScrollCursor underTest = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT);
+
+    assertThat(underTest.isStart()).isTrue();
+    assertThat(underTest.getPageIndex()).isEqualTo(1);
+    assertThat(underTest.getPageSize()).isEqualTo(50);
+    assertThat(underTest.getScrollId()).isNull();
+  }
+
+  @Test
+  public void format_and_parse_next_cursor() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("scroll/id==", 50);
+
+    ScrollCursor underTest = ScrollCursor.parse(next, 100, CONTEXT);
+
+    assertThat(underTest.isStart()).isFalse();
+    assertThat(underTest.getPageIndex()).isEqualTo(2);
+    // page size is the one of first page
+    assertThat(underTest.getPageSize()).isEqualTo(50);
+    assertThat(underTest.getScrollId()).isEqualTo("scroll/id==");
+    assertThat(underTest.formatNext("other", 50)).isNotEqualTo(next);
+  }
+
+  @Test
+  public void next_cursor_is_null_on_last_page() {
+    ScrollCursor underTest = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT);
+
+    assertThat(underTest.formatNext("id", 49)).isNull();
+    assertThat(underTest.formatNext(null, 50)).isNull();
+  }
+
+  @Test
+  public void toPaging() {
+    Paging paging = ScrollCursor.parse(ScrollCursor.parse(ScrollCursor.START, 10, CONTEXT).formatNext("id", 10), 10, CONTEXT).toPaging(35);
+
+    assertThat(paging.pageIndex()).isEqualTo(2);
+    assertThat(paging.pageSize()).isEqualTo(10);
+    assertThat(paging.total()).isEqualTo(35);
+  }
+
+  @Test
+  public void fail_to_parse_invalid_base64() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: %%");
+
+    ScrollCursor.parse("%%", 10, CONTEXT);
+  }
+
+  @Test
+  public void fail_to_parse_cursor_without_scroll_id() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: foo");
+
+    ScrollCursor.parse("foo", 10, CONTEXT);
+  }
+
+  @Test
+  public void is_last_page() {
+    ScrollCursor underTest = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT);
+
+    assertThat(underTest.isLastPage(49)).isTrue();
+    assertThat(underTest.isLastPage(0)).isTrue();
+    assertThat(underTest.isLastPage(50)).isFalse();
+  }
+
+  @Test
+  public void fail_to_parse_cursor_of_another_user() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("id", 50);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + next);
+
+    ScrollCursor.parse(next, 50, ScrollCursor.context("jane", "api/issues/search", "query"));
+  }
+
+  @Test
+  public void fail_to_parse_cursor_of_anonymous_user_when_authenticated() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, ScrollCursor.context(null, "api/issues/search", "query")).formatNext("id", 50);
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    ScrollCursor.parse(next, 50, CONTEXT);
+  }
+
+  @Test
+  public void fail_to_parse_cursor_of_another_web_service() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("id", 50);
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    ScrollCursor.parse(next, 50, ScrollCursor.context("john", "api/components/search_projects", "query"));
+  }
+
+  @Test
+  public void fail_to_parse_cursor_of_another_query() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("id", 50);
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    ScrollCursor.parse(next, 50, ScrollCursor.context("john", "api/issues/search", "other query"));
+  }
+
+  @Test
+  public void fail_to_parse_tampered_scroll_id() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("id", 50);
+    String tampered = encode(decode(next).replaceFirst(":id$", ":other_id"));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + tampered);
+
+    ScrollCursor.parse(tampered, 50, CONTEXT);
+  }
+
+  @Test
+  public void fail_to_parse_tampered_page() {
+    String next = ScrollCursor.parse(ScrollCursor.START, 50, CONTEXT).formatNext("id", 50);
+    String tampered = encode(decode(next).replaceFirst("^2:50:", "3:500:"));
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    ScrollCursor.parse(tampered, 50, CONTEXT);
+  }
+
+  private static String decode(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
+
+  private static String encode(String cursor) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -24,6 +24,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.profiling.CallRecorder;
+import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.FakeIndexDefinition;
 import org.sonar.server.es.IndexType;
@@ -60,6 +62,20 @@ public class ProxySearchRequestBuilderTest {
     assertThat(logTester.logs(LoggerLevel.TRACE)).hasSize(1);
   }
 
+  @Test
+  public void record_call() {
+    CallRecorder recorder = CallRecorder.start(true);
+    try {
+      esTester.client().prepareSearch(FakeIndexDefinition.INDEX).get();
+    } finally {
+      recorder.stop();
+    }
+
+    assertThat(recorder.getCount(EsClient.ES_CALL_TYPE)).isEqualTo(1);
+    assertThat(recorder.getCalls()).hasSize(1);
+    assertThat(recorder.getCalls().get(0)).startsWith("ES (").contains("ES search request '");
+  }
+
   @Test
   public void fail_to_search_bad_query() {
     try {
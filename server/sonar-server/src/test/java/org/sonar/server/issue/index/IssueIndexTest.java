@@ -22,6 +22,7 @@ package org.sonar.server.issue.index;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -40,6 +41,7 @@ import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.organization.OrganizationDto;
@@ -549,6 +551,53 @@ public class IssueIndexTest {
     assertThat(result.getFacets().get("assignees")).containsOnly(entry("steph", 1L), entry("simon", 2L), entry("", 1L));
   }
 
+  @Test
+  public void facets_are_read_from_counters_when_query_is_restricted_to_projects() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    IssueDoc issue1 = IssueDocTesting.newDoc("ISSUE1", file).setAssignee("steph").setSeverity(Severity.MAJOR).setResolution(null);
+    IssueDoc issue2 = IssueDocTesting.newDoc("ISSUE2", file).setAssignee(null).setSeverity(Severity.MAJOR).setResolution(null);
+    IssueDoc issue3 = IssueDocTesting.newDoc("ISSUE3", file).setAssignee("simon").setSeverity(Severity.INFO).setResolution(Issue.RESOLUTION_FIXED);
+    indexIssues(issue1, issue2, issue3);
+    // counters differ from the indexed issues in order to check where facets are computed
+    tester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, new IssueCountersDoc(project.uuid()).add(issue1).add(issue1).add(issue2).add(issue3));
+    userSessionRule.addProjectUuidPermissions(UserRole.USER, project.uuid());
+
+    SearchResult<IssueDoc> result = underTest.search(IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build(),
+      new SearchOptions().addFacets(newArrayList("severities", "assignees", "languages")));
+    assertThat(result.getDocs()).hasSize(3);
+    assertThat(result.getFacets().getNames()).containsOnly("severities", "assignees", "languages");
+    assertThat(result.getFacets().get("severities")).containsExactly(entry("MAJOR", 3L), entry("INFO", 1L));
+    assertThat(result.getFacets().get("assignees")).containsExactly(entry("steph", 2L), entry("simon", 1L), entry("", 1L));
+
+    result = underTest.search(IssueQuery.builder().projectUuids(newArrayList(project.uuid())).resolved(false).build(),
+      new SearchOptions().addFacets(newArrayList("severities")));
+    assertThat(result.getFacets().get("severities")).containsExactly(entry("MAJOR", 3L));
+
+    // aggregations are used as soon as another criterion is set
+    result = underTest.search(IssueQuery.builder().projectUuids(newArrayList(project.uuid())).assignees(newArrayList("steph")).build(),
+      new SearchOptions().addFacets(newArrayList("severities")));
+    assertThat(result.getFacets().get("severities")).containsOnly(entry("MAJOR", 1L));
+  }
+
+  @Test
+  public void facets_are_aggregated_when_counters_are_missing_or_project_is_not_authorized() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    IssueDoc issue = IssueDocTesting.newDoc("ISSUE1", file).setSeverity(Severity.MAJOR);
+    indexIssues(issue);
+    userSessionRule.addProjectUuidPermissions(UserRole.USER, project.uuid());
+    IssueQuery query = IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build();
+
+    assertThat(underTest.search(query, new SearchOptions().addFacets(newArrayList("severities"))).getFacets().get("severities"))
+      .containsOnly(entry("MAJOR", 1L));
+
+    tester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, new IssueCountersDoc(project.uuid()).add(issue).add(issue));
+    userSessionRule.logIn();
+    assertThat(underTest.search(query, new SearchOptions().addFacets(newArrayList("severities"))).getFacets().get("severities"))
+      .containsOnly(entry("MAJOR", 1L));
+  }
+
   @Test
   public void facets_on_assignees_supports_dashes() {
     ComponentDto project = newProjectDto(newOrganizationDto());
@@ -918,6 +967,37 @@ public class IssueIndexTest {
     assertThat(result.getTotal()).isEqualTo(12);
   }
 
+  @Test
+  public void scroll_pages() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    for (int i = 0; i < 12; i++) {
+      indexIssues(IssueDocTesting.newDoc("ISSUE" + i, file));
+    }
+
+    SearchResult<IssueDoc> page1 = underTest.search(IssueQuery.builder().build(), new SearchOptions().setPage(1, 5).setScroll(true));
+    assertThat(page1.getDocs()).hasSize(5);
+    assertThat(page1.getTotal()).isEqualTo(12);
+    assertThat(page1.getScrollId()).isNotNull();
+
+    SearchResult<IssueDoc> page2 = underTest.scroll(page1.getScrollId());
+    SearchResult<IssueDoc> page3 = underTest.scroll(page2.getScrollId());
+    assertThat(page2.getDocs()).hasSize(5);
+    assertThat(page3.getDocs()).hasSize(2);
+    assertThat(page3.getTotal()).isEqualTo(12);
+    List<String> keys = new ArrayList<>();
+    Arrays.asList(page1, page2, page3).forEach(page -> page.getDocs().forEach(doc -> keys.add(doc.key())));
+    assertThat(keys).doesNotHaveDuplicates().hasSize(12);
+  }
+
+  @Test
+  public void search_without_scroll_has_no_scroll_id() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    indexIssues(IssueDocTesting.newDoc("ISSUE1", newFileDto(project, null)));
+
+    assertThat(underTest.search(IssueQuery.builder().build(), new SearchOptions()).getScrollId()).isNull();
+  }
+
   @Test
   public void search_with_max_limit() {
     ComponentDto project = newProjectDto(newOrganizationDto());
@@ -24,17 +24,23 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
+import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -103,6 +109,74 @@ public class IssueIndexerTest {
     verifyIssueKeys("ABCDE");
   }
 
+  @Test
+  public void indexProject_computes_counters_of_project() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    underTest.indexProject("THE_PROJECT_1", ProjectIndexer.Cause.NEW_ANALYSIS);
+
+    List<IssueCountersDoc> counters = esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, IssueCountersDoc.class);
+    assertThat(counters).extracting(IssueCountersDoc::projectUuid).containsOnly("THE_PROJECT_1");
+    IssueCountersDoc doc = counters.get(0);
+    assertThat(doc.getCounts("severities", null)).containsOnly(entry("BLOCKER", 1L));
+    assertThat(doc.getCounts("severities", true)).containsOnly(entry("BLOCKER", 1L));
+    assertThat(doc.getCounts("severities", false)).isEmpty();
+    assertThat(doc.getCounts("rules", null)).containsOnly(entry("squid:AvoidCycles", 1L));
+    assertThat(doc.getCounts("assignees", null)).containsOnly(entry("winner", 1L));
+  }
+
+  @Test
+  public void indexOnStartup_computes_counters_of_each_project() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    underTest.indexOnStartup(null);
+
+    List<IssueCountersDoc> counters = esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, IssueCountersDoc.class);
+    assertThat(counters).extracting(IssueCountersDoc::projectUuid).containsOnly("THE_PROJECT_1", "THE_PROJECT_2");
+    assertThat(counters).extracting(doc -> doc.getCounts("severities", null)).containsOnly(singletonMap("BLOCKER", 1L));
+  }
+
+  @Test
+  public void index_issues_updates_counters_of_their_projects() {
+    IssueDoc previousIssue = newDoc().setKey("Issue1").setProjectUuid("P1").setSeverity("MAJOR");
+    IssueDoc otherIssue = newDoc().setKey("Issue2").setProjectUuid("P1").setSeverity("MAJOR");
+    esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE, previousIssue, otherIssue);
+    esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, new IssueCountersDoc("P1").add(previousIssue).add(otherIssue));
+
+    underTest.index(asList(
+      newDoc().setKey("Issue1").setProjectUuid("P1").setSeverity("BLOCKER"),
+      newDoc().setKey("Issue3").setProjectUuid("P1").setSeverity("MINOR"),
+      // counters of projects that are not computed yet are ignored
+      newDoc().setKey("Issue4").setProjectUuid("P2")).iterator());
+
+    List<IssueCountersDoc> counters = esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, IssueCountersDoc.class);
+    assertThat(counters).extracting(IssueCountersDoc::projectUuid).containsOnly("P1");
+    assertThat(counters.get(0).getCounts("severities", null)).containsOnly(entry("MAJOR", 1L), entry("BLOCKER", 1L), entry("MINOR", 1L));
+    assertThat(counters.get(0).getCounts("assignees", null)).containsOnly(entry("steve", 3L));
+  }
+
+  @Test
+  public void concurrent_updates_of_counters_of_a_project_are_not_lost() {
+    esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, new IssueCountersDoc("P1"));
+    EsClient client = spy(esTester.client());
+    AtomicBoolean concurrentUpdateDone = new AtomicBoolean();
+    // counters are updated by another indexer between read and write of the counters by the first one
+    doAnswer(invocation -> {
+      if (!concurrentUpdateDone.getAndSet(true)) {
+        underTest.index(singletonList(newDoc().setKey("Issue2").setProjectUuid("P1").setSeverity("MINOR")).iterator());
+      }
+      return invocation.callRealMethod();
+    }).when(client).prepareIndex(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS);
+
+    new IssueIndexer(client, new IssueIteratorFactory(dbTester.getDbClient()))
+      .index(singletonList(newDoc().setKey("Issue1").setProjectUuid("P1").setSeverity("MAJOR")).iterator());
+
+    assertThat(concurrentUpdateDone.get()).isTrue();
+    List<IssueCountersDoc> counters = esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, IssueCountersDoc.class);
+    assertThat(counters).hasSize(1);
+    assertThat(counters.get(0).getCounts("severities", null)).containsOnly(entry("MAJOR", 1L), entry("MINOR", 1L));
+  }
+
   @Test
   public void indexProject_does_nothing_when_project_is_being_created() {
     dbTester.prepareDbUnit(getClass(), "index_project.xml");
@@ -128,24 +202,31 @@ public class IssueIndexerTest {
     underTest.indexOnStartup(null);
 
     assertThat(esTester.countDocuments("issues", "issue")).isEqualTo(1);
+    assertThat(esTester.countDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS)).isEqualTo(1);
 
     underTest.deleteProject("THE_PROJECT");
 
     assertThat(esTester.countDocuments("issues", "issue")).isZero();
+    assertThat(esTester.countDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS)).isZero();
   }
 
   @Test
   public void deleteByKeys_deletes_docs_by_keys() throws Exception {
     addIssue("P1", "Issue1");
     addIssue("P1", "Issue2");
-    addIssue("P1", "Issue3");
+    addIssue("P1", "Issue3", "MINOR");
     addIssue("P2", "Issue4");
 
     verifyIssueKeys("Issue1", "Issue2", "Issue3", "Issue4");
+    esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, new IssueCountersDoc("P1")
+      .add(newDoc().setSeverity("MAJOR")).add(newDoc().setSeverity("MAJOR")).add(newDoc().setSeverity("MINOR")));
 
     underTest.deleteByKeys("P1", asList("Issue1", "Issue2"));
 
     verifyIssueKeys("Issue3", "Issue4");
+    List<IssueCountersDoc> counters = esTester.getDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE_COUNTERS, IssueCountersDoc.class);
+    assertThat(counters).hasSize(1);
+    assertThat(counters.get(0).getCounts("severities", null)).containsOnly(entry("MINOR", 1L));
   }
 
   @Test
@@ -194,8 +275,12 @@ public class IssueIndexerTest {
   }
 
   private void addIssue(String projectUuid, String issueKey) throws Exception {
+    addIssue(projectUuid, issueKey, "MAJOR");
+  }
+
+  private void addIssue(String projectUuid, String issueKey, String severity) throws Exception {
     esTester.putDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE,
-      newDoc().setKey(issueKey).setProjectUuid(projectUuid));
+      newDoc().setKey(issueKey).setProjectUuid(projectUuid).setSeverity(severity));
   }
 
   private void verifyIssueKeys(String... expectedKeys) {
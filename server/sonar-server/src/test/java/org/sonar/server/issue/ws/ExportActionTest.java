@@ -0,0 +1,281 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.Durations;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.TestResponse;
+import org.sonar.server.ws.WsActionTester;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.db.component.ComponentTesting.newDirectory;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newModuleDto;
+import static org.sonar.db.component.ComponentTesting.newView;
+import static org.sonar.db.issue.IssueTesting.newDto;
+import static org.sonar.db.rule.RuleTesting.newRuleDto;
+
+public class ExportActionTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+
+  private WsActionTester ws = new WsActionTester(new ExportAction(db.getDbClient(), userSession, new ComponentFinder(db.getDbClient()), new Durations()));
+
+  private OrganizationDto organization;
+  private RuleDto rule;
+  private ComponentDto project;
+
+  @Test
+  public void definition() {
+    WebService.Action action = ws.getDef();
+
+    assertThat(action.key()).isEqualTo("export");
+    assertThat(action.since()).isEqualTo("6.4");
+    assertThat(action.isInternal()).isTrue();
+    assertThat(action.isPost()).isFalse();
+    assertThat(action.params()).extracting(WebService.Param::key).containsOnly("component");
+    assertThat(action.param("component").isRequired()).isTrue();
+  }
+
+  @Test
+  public void export_issues_of_project_as_delimited_protobuf_ordered_by_key() throws Exception {
+    insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto issue2 = insertIssue(file, "KEY_2");
+    IssueDto issue1 = insertIssue(project, "KEY_1");
+    IssueDto issue3 = insertIssue(file, "KEY_3");
+    // issue of another project
+    ComponentDto otherProject = db.components().insertProject(organization);
+    insertIssue(otherProject, "OTHER");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("component", project.key())
+      .execute();
+
+    assertThat(response.getMediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    List<Issues.Issue> issues = parseDelimited(response.getInputStream());
+    assertThat(issues).extracting(Issues.Issue::getKey).containsExactly(issue1.getKey(), issue2.getKey(), issue3.getKey());
+    Issues.Issue issue = issues.get(1);
+    assertThat(issue.getOrganization()).isEqualTo(organization.getKey());
+    assertThat(issue.getProject()).isEqualTo(project.key());
+    assertThat(issue.getComponent()).isEqualTo(file.key());
+    assertThat(issue.getRule()).isEqualTo(rule.getKey().toString());
+    assertThat(issue.getSeverity().name()).isEqualTo(issue2.getSeverity());
+    assertThat(issue.getStatus()).isEqualTo(issue2.getStatus());
+    assertThat(issue.hasCreationDate()).isTrue();
+  }
+
+  @Test
+  public void export_issues_as_ndjson() {
+    insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    insertIssue(file, "KEY_1");
+    insertIssue(file, "KEY_2");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    TestResponse response = ws.newRequest()
+      .setParam("component", project.key())
+      .execute();
+
+    assertThat(response.getMediaType()).isEqualTo(ExportAction.NDJSON);
+    String[] lines = response.getInput().split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(lines[0]).contains("\"key\":\"KEY_1\"", "\"component\":\"" + file.key() + "\"");
+    assertThat(lines[1]).contains("\"key\":\"KEY_2\"");
+  }
+
+  @Test
+  public void compress_response_if_client_accepts_gzip() throws Exception {
+    insertProject();
+    insertIssue(project, "KEY_1");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setHeader("Accept-Encoding", "deflate, gzip;q=1.0")
+      .setParam("component", project.key())
+      .execute();
+
+    assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+    assertThat(parseDelimited(new GZIPInputStream(response.getInputStream()))).extracting(Issues.Issue::getKey).containsExactly("KEY_1");
+  }
+
+  @Test
+  public void do_not_compress_response_if_client_refuses_gzip() throws Exception {
+    insertProject();
+    insertIssue(project, "KEY_1");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setHeader("Accept-Encoding", "identity, gzip;q=0")
+      .setParam("component", project.key())
+      .execute();
+
+    assertThat(response.getHeader("Content-Encoding")).isNull();
+    assertThat(parseDelimited(response.getInputStream())).extracting(Issues.Issue::getKey).containsExactly("KEY_1");
+  }
+
+  @Test
+  public void export_nothing_when_no_issues() {
+    insertProject();
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    TestResponse response = ws.newRequest()
+      .setParam("component", project.key())
+      .execute();
+
+    assertThat(response.getInput()).isEmpty();
+  }
+
+  @Test
+  public void export_issues_of_module() throws Exception {
+    insertProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto subModule = db.components().insertComponent(newModuleDto(module));
+    insertIssue(db.components().insertComponent(newFileDto(project)), "PROJECT_FILE");
+    insertIssue(module, "MODULE");
+    insertIssue(db.components().insertComponent(newFileDto(module)), "MODULE_FILE");
+    insertIssue(db.components().insertComponent(newFileDto(subModule)), "SUB_MODULE_FILE");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    assertThat(exportKeys(module)).containsExactly("MODULE", "MODULE_FILE", "SUB_MODULE_FILE");
+  }
+
+  @Test
+  public void export_issues_of_directory() throws Exception {
+    insertProject();
+    ComponentDto directory = db.components().insertComponent(newDirectory(project, "src/main/xoo/org/sonar"));
+    ComponentDto otherDirectory = db.components().insertComponent(newDirectory(project, "src/main/xoo/org/sonarqube"));
+    insertIssue(directory, "DIRECTORY");
+    insertIssue(db.components().insertComponent(newFileDto(project, directory).setPath("src/main/xoo/org/sonar/File.xoo")), "FILE");
+    insertIssue(db.components().insertComponent(newFileDto(project, directory).setPath("src/main/xoo/org/sonar/samples/File.xoo")), "SUB_DIR_FILE");
+    insertIssue(db.components().insertComponent(newFileDto(project, otherDirectory).setPath("src/main/xoo/org/sonarqube/File.xoo")), "OTHER_DIR_FILE");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    assertThat(exportKeys(directory)).containsExactly("DIRECTORY", "FILE", "SUB_DIR_FILE");
+  }
+
+  @Test
+  public void export_issues_of_file() throws Exception {
+    insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    insertIssue(file, "FILE");
+    insertIssue(db.components().insertComponent(newFileDto(project)), "OTHER_FILE");
+    userSession.logIn().addProjectUuidPermissions(USER, project.uuid());
+
+    assertThat(exportKeys(file)).containsExactly("FILE");
+  }
+
+  @Test
+  public void fail_if_not_allowed_to_browse_component() {
+    insertProject();
+    userSession.logIn();
+
+    expectedException.expect(ForbiddenException.class);
+
+    ws.newRequest()
+      .setParam("component", project.key())
+      .execute();
+  }
+
+  @Test
+  public void fail_if_component_does_not_exist() {
+    expectedException.expect(NotFoundException.class);
+
+    ws.newRequest()
+      .setParam("component", "unknown")
+      .execute();
+  }
+
+  @Test
+  public void fail_if_component_is_a_view() {
+    ComponentDto view = db.components().insertComponent(newView(db.organizations().insert()));
+    userSession.logIn().addProjectUuidPermissions(USER, view.uuid());
+
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Component '" + view.key() + "' (qualifier 'VW') is not supported");
+
+    ws.newRequest()
+      .setParam("component", view.key())
+      .execute();
+  }
+
+  private void insertProject() {
+    organization = db.organizations().insert();
+    rule = db.rules().insertRule(newRuleDto());
+    project = db.components().insertProject(organization);
+  }
+
+  private IssueDto insertIssue(ComponentDto component, String key) {
+    ComponentDto componentProject = db.getDbClient().componentDao().selectOrFailByUuid(db.getSession(), component.projectUuid());
+    return db.issues().insertIssue(newDto(rule, component, componentProject).setKee(key));
+  }
+
+  private List<String> exportKeys(ComponentDto component) throws Exception {
+    TestResponse response = ws.newRequest()
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam("component", component.key())
+      .execute();
+    List<String> keys = new ArrayList<>();
+    parseDelimited(response.getInputStream()).forEach(issue -> keys.add(issue.getKey()));
+    return keys;
+  }
+
+  private static List<Issues.Issue> parseDelimited(InputStream input) throws Exception {
+    List<Issues.Issue> issues = new ArrayList<>();
+    Issues.Issue issue;
+    while ((issue = Issues.Issue.parseDelimitedFrom(input)) != null) {
+      issues.add(issue);
+    }
+    return issues;
+  }
+}
@@ -19,7 +19,9 @@
  */
 package org.sonar.server.issue.ws;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -48,6 +50,7 @@ import org.sonar.db.rule.RuleDao;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.ScrollCursor;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.issue.index.IssueIndexer;
@@ -61,6 +64,8 @@ import org.sonar.server.tester.ServerTester;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.usergroups.ws.GroupIdOrAnyone;
 import org.sonar.server.ws.WsTester;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,9 +78,11 @@ import static org.sonarqube.ws.client.issue.IssuesWsParameters.FACET_MODE_EFFORT
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ADDITIONAL_FIELDS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_COMPONENTS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFTER;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_HIDE_COMMENTS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_PAGE_INDEX;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_PAGE_SIZE;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_SEVERITIES;
 
 public class SearchActionMediumTest {
 
@@ -126,7 +133,7 @@ public class SearchActionMediumTest {
     assertThat(search.isPost()).isFalse();
     assertThat(search.isInternal()).isFalse();
     assertThat(search.responseExampleAsString()).isNotEmpty();
-    assertThat(search.params()).hasSize(39);
+    assertThat(search.params()).hasSize(40);
   }
 
   @Test
@@ -619,6 +626,94 @@ public class SearchActionMediumTest {
     result.assertJson(this.getClass(), "paging.json");
   }
 
+  @Test
+  public void paging_with_cursor() throws Exception {
+    RuleDto rule = newRule();
+    ComponentDto project = insertComponent(ComponentTesting.newProjectDto(otherOrganization1, "PROJECT_ID").setKey("PROJECT_KEY"));
+    setDefaultProjectPermission(project);
+    ComponentDto file = insertComponent(ComponentTesting.newFileDto(project, null, "FILE_ID").setKey("FILE_KEY"));
+    for (int i = 0; i < 12; i++) {
+      IssueDto issue = IssueTesting.newDto(rule, file, project);
+      tester.get(IssueDao.class).insert(session, issue);
+    }
+    session.commit();
+    IssueIndexer r = tester.get(IssueIndexer.class);
+    r.indexOnStartup(r.getIndexTypes());
+
+    Issues.SearchWsResponse page1 = searchWithCursor(ScrollCursor.START, "9");
+    assertThat(page1.getIssuesCount()).isEqualTo(9);
+    assertThat(page1.getPaging().getPageIndex()).isEqualTo(1);
+    assertThat(page1.getPaging().getTotal()).isEqualTo(12);
+    assertThat(page1.hasCursor()).isTrue();
+
+    Issues.SearchWsResponse page2 = searchWithCursor(page1.getCursor(), "100");
+    assertThat(page2.getIssuesCount()).isEqualTo(3);
+    assertThat(page2.getPaging().getPageIndex()).isEqualTo(2);
+    assertThat(page2.getPaging().getPageSize()).isEqualTo(9);
+    assertThat(page2.hasCursor()).isFalse();
+    assertThat(page2.getIssuesList()).extracting(Issues.Issue::getKey)
+      .doesNotContainAnyElementsOf(page1.getIssuesList().stream().map(Issues.Issue::getKey).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void fail_if_cursor_is_replayed_by_another_user() throws Exception {
+    RuleDto rule = newRule();
+    ComponentDto project = insertComponent(ComponentTesting.newProjectDto(otherOrganization1, "PROJECT_ID").setKey("PROJECT_KEY"));
+    setDefaultProjectPermission(project);
+    ComponentDto file = insertComponent(ComponentTesting.newFileDto(project, null, "FILE_ID").setKey("FILE_KEY"));
+    for (int i = 0; i < 3; i++) {
+      IssueDto issue = IssueTesting.newDto(rule, file, project);
+      tester.get(IssueDao.class).insert(session, issue);
+    }
+    session.commit();
+    IssueIndexer r = tester.get(IssueIndexer.class);
+    r.indexOnStartup(r.getIndexTypes());
+    userSessionRule.logIn("john");
+    Issues.SearchWsResponse page1 = searchWithCursor(ScrollCursor.START, "2");
+
+    userSessionRule.logIn("jane");
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + page1.getCursor());
+
+    searchWithCursor(page1.getCursor(), "2");
+  }
+
+  @Test
+  public void fail_if_criteria_change_between_pages() throws Exception {
+    RuleDto rule = newRule();
+    ComponentDto project = insertComponent(ComponentTesting.newProjectDto(otherOrganization1, "PROJECT_ID").setKey("PROJECT_KEY"));
+    setDefaultProjectPermission(project);
+    ComponentDto file = insertComponent(ComponentTesting.newFileDto(project, null, "FILE_ID").setKey("FILE_KEY"));
+    for (int i = 0; i < 3; i++) {
+      IssueDto issue = IssueTesting.newDto(rule, file, project);
+      tester.get(IssueDao.class).insert(session, issue);
+    }
+    session.commit();
+    IssueIndexer r = tester.get(IssueIndexer.class);
+    r.indexOnStartup(r.getIndexTypes());
+    Issues.SearchWsResponse page1 = searchWithCursor(ScrollCursor.START, "2");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + page1.getCursor());
+
+    wsTester.newGetRequest(CONTROLLER_ISSUES, ACTION_SEARCH)
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam(PARAM_CURSOR, page1.getCursor())
+      .setParam(WebService.Param.PAGE_SIZE, "2")
+      .setParam(PARAM_SEVERITIES, "MAJOR")
+      .execute();
+  }
+
+  @Test
+  public void fail_if_cursor_is_tampered() throws Exception {
+    String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString("2:100:signature:scroll_id".getBytes(StandardCharsets.UTF_8));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor: " + cursor);
+
+    searchWithCursor(cursor, "100");
+  }
+
   @Test
   public void paging_with_page_size_to_minus_one() throws Exception {
     RuleDto rule = newRule();
@@ -707,6 +802,14 @@ public class SearchActionMediumTest {
       .execute();
   }
 
+  private Issues.SearchWsResponse searchWithCursor(String cursor, String pageSize) throws Exception {
+    WsTester.TestRequest request = wsTester.newGetRequest(CONTROLLER_ISSUES, ACTION_SEARCH)
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setParam(PARAM_CURSOR, cursor)
+      .setParam(WebService.Param.PAGE_SIZE, pageSize);
+    return Issues.SearchWsResponse.parseFrom(request.execute().output());
+  }
+
   private RuleDto newRule() {
     RuleDto rule = RuleTesting.newXooX1()
       .setName("Rule name")
@@ -0,0 +1,226 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache.CachedResponse;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonarqube.ws.Common.Paging;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
+import static org.sonar.server.measure.MeasureResponseCache.ANALYSES_CHECK_DELAY_MS;
+
+public class MeasureResponseCacheTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private AtomicInteger loads = new AtomicInteger();
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
+  private ComponentDto project;
+  private MeasureResponseCache underTest = newCache(new MapSettings());
+
+  @Before
+  public void setUp() {
+    project = db.components().insertProject();
+    userSession.logIn().addProjectUuidPermissions(UserRole.USER, project.uuid());
+  }
+
+  @Test
+  public void key_depends_on_all_parts() {
+    String key = MeasureResponseCache.keyOf("component_tree", "uuid", null, asList("ncloc", "coverage"), 1);
+
+    assertThat(MeasureResponseCache.keyOf("component_tree", "uuid", null, asList("ncloc", "coverage"), 1)).isEqualTo(key);
+    assertThat(MeasureResponseCache.keyOf("search_history", "uuid", null, asList("ncloc", "coverage"), 1)).isNotEqualTo(key);
+    assertThat(MeasureResponseCache.keyOf("component_tree", "uuid", "key", asList("ncloc", "coverage"), 1)).isNotEqualTo(key);
+    assertThat(MeasureResponseCache.keyOf("component_tree", "uuid", null, asList("ncloc"), 1)).isNotEqualTo(key);
+    assertThat(MeasureResponseCache.keyOf("component_tree", "uuid", null, asList("ncloc", "coverage"), 2)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void load_response_once() {
+    Paging response = get("key", () -> load(10));
+
+    assertThat(get("key", () -> load(20))).isEqualTo(response);
+    assertThat(get("other_key", () -> load(30)).getTotal()).isEqualTo(30);
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void check_permission_when_response_is_already_cached() {
+    get("key", () -> load(10));
+    userSession.logIn();
+
+    expectedException.expect(ForbiddenException.class);
+
+    get("key", () -> load(20));
+  }
+
+  @Test
+  public void new_analysis_is_taken_into_account_after_check_delay() {
+    analyze(project);
+    get("key", () -> load(10));
+
+    analyze(project);
+    assertThat(get("key", () -> load(20)).getTotal()).isEqualTo(10);
+
+    system2.setNow(NOW + ANALYSES_CHECK_DELAY_MS);
+    assertThat(get("key", () -> load(30)).getTotal()).isEqualTo(30);
+  }
+
+  @Test
+  public void analysis_of_another_project_does_not_drop_responses() {
+    ComponentDto otherProject = db.components().insertProject();
+    analyze(project);
+    analyze(otherProject);
+    Paging response = get("key", () -> load(10));
+
+    analyze(otherProject);
+    system2.setNow(NOW + ANALYSES_CHECK_DELAY_MS);
+
+    assertThat(get("key", () -> load(20))).isEqualTo(response);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void responses_of_components_of_a_project_depend_on_the_last_analysis_of_the_project() {
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    analyze(project);
+    underTest.get(null, file.getKey(), "key", () -> load(10));
+
+    assertThat(underTest.get(file.uuid(), null, "key", () -> load(20)).getTotal()).isEqualTo(10);
+
+    analyze(project);
+    system2.setNow(NOW + ANALYSES_CHECK_DELAY_MS);
+
+    assertThat(underTest.get(null, file.getKey(), "key", () -> load(30)).getTotal()).isEqualTo(30);
+  }
+
+  @Test
+  public void do_not_cache_responses_of_unknown_components() {
+    underTest.get(null, "unknown", "key", () -> load(10));
+    underTest.get(null, "unknown", "key", () -> load(20));
+
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void invalidate_drops_all_responses() {
+    get("key", () -> load(10));
+
+    underTest.invalidate();
+
+    assertThat(underTest.size()).isZero();
+    assertThat(get("key", () -> load(20)).getTotal()).isEqualTo(20);
+  }
+
+  @Test
+  public void response_loaded_during_invalidation_is_not_returned() {
+    get("key", () -> {
+      underTest.invalidate();
+      return load(10);
+    });
+
+    assertThat(get("key", () -> load(20)).getTotal()).isEqualTo(20);
+  }
+
+  @Test
+  public void do_not_cache_responses_if_size_is_zero() {
+    underTest = newCache(new MapSettings().setProperty(MeasureResponseCache.SIZE_PROPERTY, 0));
+
+    get("key", () -> load(10));
+    get("key", () -> load(20));
+
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void size_of_cache_is_bounded_by_weight_of_responses() {
+    underTest = newCache(new MapSettings().setProperty(MeasureResponseCache.SIZE_PROPERTY, 1));
+    String bigKey = new String(new char[100_000]);
+
+    for (int i = 0; i < 20; i++) {
+      get(bigKey + i, () -> load(10));
+    }
+
+    assertThat(underTest.size()).isLessThan(20);
+  }
+
+  @Test
+  public void exceptions_of_loader_are_propagated_and_not_cached() {
+    try {
+      get("key", () -> {
+        throw new NotFoundException("not found");
+      });
+      fail();
+    } catch (NotFoundException e) {
+      assertThat(e).hasMessage("not found");
+    }
+
+    assertThat(get("key", () -> load(10)).getTotal()).isEqualTo(10);
+  }
+
+  private void analyze(ComponentDto analyzedProject) {
+    SnapshotDto analysis = db.components().insertSnapshot(newAnalysis(analyzedProject).setLast(false));
+    db.getDbClient().snapshotDao().switchIsLastFlagAndSetProcessedStatus(db.getSession(), analyzedProject.uuid(), analysis.getUuid());
+    db.commit();
+  }
+
+  private Paging get(String key, Supplier<CachedResponse<Paging>> loader) {
+    return underTest.get(project.uuid(), null, key, loader);
+  }
+
+  private MeasureResponseCache newCache(Settings settings) {
+    return new MeasureResponseCache(settings, db.getDbClient(), userSession, system2);
+  }
+
+  private CachedResponse<Paging> load(int total) {
+    loads.incrementAndGet();
+    return CachedResponse.of(project, Paging.newBuilder().setTotal(total).build());
+  }
+}
@@ -27,10 +27,12 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.measures.Metric.ValueType;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.api.web.UserRole;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -45,6 +47,7 @@ import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.i18n.I18nRule;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.TestResponse;
@@ -65,6 +68,7 @@ import static org.sonar.db.component.ComponentTesting.newProjectDto;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
 import static org.sonar.db.measure.MeasureTesting.newMeasureDto;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
+import static org.sonar.server.measure.MeasureResponseCache.ANALYSES_CHECK_DELAY_MS;
 import static org.sonar.server.measure.ws.ComponentTreeAction.CHILDREN_STRATEGY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
@@ -98,10 +102,13 @@ public class ComponentTreeActionTest {
   private DbClient dbClient = db.getDbClient();
   private DbSession dbSession = db.getSession();
 
+  private TestSystem2 system2 = new TestSystem2().setNow(1_500_000_000_000L);
+  private MeasureResponseCache responseCache = new MeasureResponseCache(new MapSettings(), dbClient, userSession, system2);
+
   private WsActionTester ws = new WsActionTester(
     new ComponentTreeAction(
       new ComponentTreeDataLoader(dbClient, new ComponentFinder(dbClient), userSession, resourceTypes),
-      i18n, resourceTypes));
+      i18n, resourceTypes, responseCache));
 
   @Before
   public void setUp() {
@@ -173,6 +180,28 @@ public class ComponentTreeActionTest {
     assertThat(response.getPeriods().getPeriodsList()).extracting("mode").containsOnly("last_version");
   }
 
+  @Test
+  public void response_is_cached_until_a_new_analysis_is_enabled() {
+    ComponentDto project = newProjectDto(db.getDefaultOrganization(), "project-uuid");
+    componentDb.insertProjectAndSnapshot(project);
+    userSession.anonymous().addProjectUuidPermissions(UserRole.USER, "project-uuid");
+    componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    insertNclocMetric();
+    TestRequest request = ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, "project-uuid")
+      .setParam(PARAM_METRIC_KEYS, "ncloc");
+    assertThat(call(request).getComponentsList()).extracting("id").containsOnly("file-uuid-1");
+
+    componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    assertThat(call(request).getComponentsList()).extracting("id").containsOnly("file-uuid-1");
+
+    SnapshotDto newAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false));
+    dbClient.snapshotDao().switchIsLastFlagAndSetProcessedStatus(dbSession, project.uuid(), newAnalysis.getUuid());
+    db.commit();
+    system2.setNow(system2.now() + ANALYSES_CHECK_DELAY_MS);
+    assertThat(call(request).getComponentsList()).extracting("id").containsOnly("file-uuid-1", "file-uuid-2");
+  }
+
   @Test
   public void load_measures_with_best_value() {
     ComponentDto projectDto = newProjectDto(db.getDefaultOrganization(), "project-uuid");
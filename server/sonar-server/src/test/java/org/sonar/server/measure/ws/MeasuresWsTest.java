@@ -26,12 +26,13 @@ import org.junit.Test;
 import org.sonar.api.i18n.I18n;
 import org.sonar.api.resources.ResourceTypes;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.ws.WsTester;
 
 public class MeasuresWsTest {
   WsTester ws = new WsTester(
     new MeasuresWs(
-      new ComponentTreeAction(mock(ComponentTreeDataLoader.class), mock(I18n.class), mock(ResourceTypes.class))));
+      new ComponentTreeAction(mock(ComponentTreeDataLoader.class), mock(I18n.class), mock(ResourceTypes.class), mock(MeasureResponseCache.class))));
 
   @Test
   public void define_ws() {
@@ -28,10 +28,12 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.measures.Metric.ValueType;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
@@ -43,6 +45,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
@@ -66,6 +69,7 @@ import static org.sonar.db.component.SnapshotDto.STATUS_UNPROCESSED;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
 import static org.sonar.db.measure.MeasureTesting.newMeasureDto;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
+import static org.sonar.server.measure.MeasureResponseCache.ANALYSES_CHECK_DELAY_MS;
 import static org.sonar.test.JsonAssert.assertJson;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_COMPONENT;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_FROM;
@@ -83,7 +87,9 @@ public class SearchHistoryActionTest {
   private DbClient dbClient = db.getDbClient();
   private DbSession dbSession = db.getSession();
 
-  private WsActionTester ws = new WsActionTester(new SearchHistoryAction(dbClient, new ComponentFinder(dbClient), userSession));
+  private TestSystem2 system2 = new TestSystem2().setNow(1_500_000_000_000L);
+  private MeasureResponseCache responseCache = new MeasureResponseCache(new MapSettings(), dbClient, userSession, system2);
+  private WsActionTester ws = new WsActionTester(new SearchHistoryAction(dbClient, new ComponentFinder(dbClient), userSession, responseCache));
 
   private ComponentDto project;
   private SnapshotDto analysis;
@@ -137,7 +143,7 @@ public class SearchHistoryActionTest {
 
   @Test
   public void return_measures() {
-    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(analysis.getCreatedAt() + 42_000));
+    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setCreatedAt(analysis.getCreatedAt() + 42_000));
     ComponentDto file = db.components().insertComponent(newFileDto(project));
     dbClient.measureDao().insert(dbSession,
       newMeasureDto(complexityMetric, project, analysis).setValue(101d),
@@ -173,12 +179,29 @@ public class SearchHistoryActionTest {
       .containsExactly(tuple(analysisDate, "5"), tuple(laterAnalysisDate, "10"));
   }
 
+  @Test
+  public void response_is_cached_until_a_new_analysis_is_enabled() {
+    dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, analysis).setValue(101d));
+    db.commit();
+    assertThat(call().getMeasures(0).getHistoryCount()).isEqualTo(1);
+
+    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setCreatedAt(analysis.getCreatedAt() + 42_000));
+    dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, laterAnalysis).setValue(100d));
+    db.commit();
+    assertThat(call().getMeasures(0).getHistoryCount()).isEqualTo(1);
+
+    dbClient.snapshotDao().switchIsLastFlagAndSetProcessedStatus(dbSession, project.uuid(), laterAnalysis.getUuid());
+    db.commit();
+    system2.setNow(system2.now() + ANALYSES_CHECK_DELAY_MS);
+    assertThat(call().getMeasures(0).getHistoryCount()).isEqualTo(2);
+  }
+
   @Test
   public void pagination_applies_to_analyses() {
     project = db.components().insertProject();
     userSession.addProjectUuidPermissions(UserRole.USER, project.uuid());
     List<String> analysisDates = LongStream.rangeClosed(1, 9)
-      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(i * 1_000_000_000)))
+      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setCreatedAt(i * 1_000_000_000)))
       .peek(a -> dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, a).setValue(101d)))
       .map(a -> formatDateTime(a.getCreatedAt()))
       .collect(Collectors.toList());
@@ -197,7 +220,7 @@ public class SearchHistoryActionTest {
     project = db.components().insertProject();
     userSession.addProjectUuidPermissions(UserRole.USER, project.uuid());
     List<String> analysisDates = LongStream.rangeClosed(1, 9)
-      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(System2.INSTANCE.now() + i * 1_000_000_000L)))
+      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setCreatedAt(System2.INSTANCE.now() + i * 1_000_000_000L)))
       .peek(a -> dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, a).setValue(Double.valueOf(a.getCreatedAt()))))
       .map(a -> formatDateTime(a.getCreatedAt()))
       .collect(Collectors.toList());
@@ -233,7 +256,7 @@ public class SearchHistoryActionTest {
 
   @Test
   public void do_not_return_unprocessed_analyses() {
-    dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setStatus(STATUS_UNPROCESSED));
+    dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setStatus(STATUS_UNPROCESSED));
     db.commit();
 
     SearchHistoryResponse result = call();
@@ -299,7 +322,7 @@ public class SearchHistoryActionTest {
     userSession.addProjectUuidPermissions(UserRole.USER, project.uuid());
     long now = parseDateTime("2017-01-23T17:00:53+0100").getTime();
     LongStream.rangeClosed(0, 2)
-      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(now + i * 24 * 1_000 * 60 * 60)))
+      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setLast(false).setCreatedAt(now + i * 24 * 1_000 * 60 * 60)))
       .forEach(analysis -> dbClient.measureDao().insert(dbSession,
         newMeasureDto(complexityMetric, project, analysis).setValue(45d),
         newMeasureDto(newViolationMetric, project, analysis).setVariation(46d),
@@ -35,10 +35,13 @@ import org.sonar.db.metric.MetricDao;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
 
 public class DeleteActionTest {
@@ -54,11 +57,12 @@ public class DeleteActionTest {
   private final DbSession dbSession = db.getSession();
   private MetricDao metricDao;
   private WsTester ws;
+  private MeasureResponseCache measureResponseCache = mock(MeasureResponseCache.class);
 
   @Before
   public void setUp() {
     userSessionRule.logIn().setSystemAdministrator();
-    ws = new WsTester(new MetricsWs(new DeleteAction(dbClient, userSessionRule)));
+    ws = new WsTester(new MetricsWs(new DeleteAction(dbClient, userSessionRule, measureResponseCache)));
     metricDao = dbClient.metricDao();
   }
 
@@ -86,6 +90,7 @@ public class DeleteActionTest {
 
     assertThat(metricDao.selectEnabled(dbSession)).isEmpty();
     result.assertNoContent();
+    verify(measureResponseCache).invalidate();
   }
 
   @Test
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.ws.WsTester;
 
@@ -40,8 +41,8 @@ public class MetricsWsTest {
     ws = new WsTester(new MetricsWs(
       new SearchAction(dbClient),
       new CreateAction(dbClient, userSession),
-      new UpdateAction(dbClient, userSession),
-      new DeleteAction(dbClient, userSession),
+      new UpdateAction(dbClient, userSession, mock(MeasureResponseCache.class)),
+      new DeleteAction(dbClient, userSession, mock(MeasureResponseCache.class)),
       new TypesAction(),
       new DomainsAction(dbClient)));
   }
@@ -58,6 +58,23 @@ public class SearchActionTest {
     result.assertJson(getClass(), "search_metrics.json");
   }
 
+  @Test
+  public void return_304_if_metrics_are_not_modified() throws Exception {
+    insertNewCustomMetric("1", "2", "3");
+    WsTester.Result result = newRequest().execute();
+    String etag = result.header("ETag");
+
+    result = newRequest().setHeader("If-None-Match", etag).execute();
+
+    result.assertNotModified().assertHeader("ETag", etag);
+    assertThat(result.outputAsString()).isEmpty();
+
+    insertNewCustomMetric("4");
+    result = newRequest().setHeader("If-None-Match", etag).execute();
+    assertThat(result.header("ETag")).isNotEqualTo(etag);
+    assertThat(result.outputAsString()).contains("custom-key-4");
+  }
+
   @Test
   public void search_metrics_ordered_by_name_case_insensitive() throws Exception {
     insertNewCustomMetric("3", "1", "2");
@@ -24,6 +24,7 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -36,11 +37,13 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
+import org.sonar.server.notification.DefaultNotificationManager.QueuedNotification;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -121,6 +124,78 @@ public class DefaultNotificationManagerTest {
     verify(manager, times(1)).logDeserializationIssue();
   }
 
+  @Test
+  public void getFromQueue_by_batch_does_not_remove_notifications_from_queue() {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test2"));
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    List<QueuedNotification> notifications = manager.getFromQueue(10);
+
+    assertThat(notifications).extracting(n -> n.getNotification().getType()).containsExactly("test1", "test2");
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void removeFromQueue_deletes_the_notification() {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test2"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto1, dto2));
+    List<QueuedNotification> notifications = manager.getFromQueue(10);
+
+    manager.removeFromQueue(notifications.get(1));
+
+    verify(notificationQueueDao).delete(Collections.singletonList(dto2));
+    verify(notificationQueueDao, never()).delete(Collections.singletonList(dto1));
+  }
+
+  @Test
+  public void getFromQueue_by_batch_returns_empty_list_if_queue_is_empty() {
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Collections.emptyList());
+
+    assertThat(manager.getFromQueue(10)).isEmpty();
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void getFromQueue_by_batch_removes_notifications_which_can_not_be_deserialized() throws Exception {
+    NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
+    when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test2"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto1, dto2));
+
+    assertThat(manager.getFromQueue(10)).extracting(n -> n.getNotification().getType()).containsExactly("test2");
+    verify(notificationQueueDao).delete(Collections.singletonList(dto1));
+  }
+
+  @Test
+  public void subscribers_are_cached() {
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", null)).thenReturn(Lists.newArrayList("user1"));
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user2"));
+
+    for (int i = 0; i < 5; i++) {
+      Multimap<String, NotificationChannel> multiMap = manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+      assertThat(multiMap.keySet()).containsOnly("user1", "user2");
+    }
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_46");
+
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", null);
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_46");
+  }
+
+  @Test
+  public void notification_subscribers_are_cached() {
+    when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    Multimap<String, NotificationChannel> multiMap = manager.findNotificationSubscribers(dispatcher, "struts");
+
+    assertThat(multiMap.get("user1")).containsOnly(emailChannel);
+    verify(propertiesDao, times(1)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+  }
+
   @Test
   public void shouldFindNoRecipient() {
     assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").asMap().entrySet()).hasSize(0);
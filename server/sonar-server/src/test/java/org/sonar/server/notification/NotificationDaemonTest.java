@@ -21,7 +21,13 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonar.api.config.Settings;
@@ -29,12 +35,19 @@ import org.sonar.api.config.MapSettings;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
+import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
+import org.sonar.server.notification.DefaultNotificationManager.QueuedNotification;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
@@ -68,7 +81,7 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenReturn(singletonList(queued(notification))).thenReturn(emptyList());
 
     Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
 
@@ -174,7 +187,7 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(singletonList(queued(notification))).thenReturn(emptyList());
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -215,8 +228,8 @@ public class NotificationDaemonTest {
   @Test
   public void shouldLogEvery10Minutes() {
     setUpMocks();
-    // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    // Emulate 2 batches of notifications in DB
+    when(manager.getFromQueue(anyInt())).thenReturn(singletonList(queued(notification))).thenReturn(singletonList(queued(notification))).thenReturn(emptyList());
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -227,6 +240,67 @@ public class NotificationDaemonTest {
     underTest.stop();
   }
 
+  @Test
+  public void dequeue_notifications_by_batches() {
+    setUpMocks();
+    Notification notification2 = mock(Notification.class);
+    when(manager.getFromQueue(anyInt())).thenReturn(Arrays.asList(queued(notification), queued(notification2))).thenReturn(emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    Settings settings = new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty("sonar.notifications.batchSize", 50);
+    underTest = new NotificationDaemon(settings, manager, service);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel, timeout(2000)).deliver(notification2, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    verify(manager, atLeastOnce()).getFromQueue(50);
+    verify(manager, never()).getFromQueue();
+  }
+
+  @Test
+  public void remove_each_notification_from_queue_once_delivered() {
+    setUpMocks();
+    QueuedNotification queuedNotification = queued(notification);
+    when(manager.getFromQueue(anyInt())).thenReturn(singletonList(queuedNotification)).thenReturn(emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+
+    underTest.start();
+    verify(manager, timeout(2000)).removeFromQueue(queuedNotification);
+    underTest.stop();
+
+    InOrder inOrder = inOrder(emailChannel, manager);
+    inOrder.verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    inOrder.verify(manager).removeFromQueue(queuedNotification);
+  }
+
+  @Test
+  public void deliver_notifications_concurrently() {
+    setUpMocks();
+    List<Notification> notifications = Arrays.asList(mock(Notification.class), mock(Notification.class), mock(Notification.class), mock(Notification.class));
+    when(manager.getFromQueue(anyInt())).thenReturn(notifications.stream().map(NotificationDaemonTest::queued).collect(Collectors.toList())).thenReturn(emptyList());
+    Set<String> threadNames = Collections.synchronizedSet(new HashSet<>());
+    doAnswer(invocation -> {
+      threadNames.add(Thread.currentThread().getName());
+      return null;
+    }).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    Settings settings = new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty("sonar.notifications.threads", 2);
+    underTest = new NotificationDaemon(settings, manager, service);
+
+    underTest.start();
+    for (Notification n : notifications) {
+      verify(commentOnIssueAssignedToMe, timeout(2000)).dispatch(same(n), any(NotificationDispatcher.Context.class));
+    }
+    underTest.stop();
+
+    assertThat(threadNames).isNotEmpty();
+    threadNames.forEach(name -> assertThat(name).startsWith("sq-notification-delivery-"));
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
@@ -243,6 +317,10 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  private static QueuedNotification queued(Notification notification) {
+    return new QueuedNotification(new NotificationQueueDto(), notification);
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[]{channel});
   }
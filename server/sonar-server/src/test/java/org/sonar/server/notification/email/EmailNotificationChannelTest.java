@@ -157,6 +157,19 @@ public class EmailNotificationChannelTest {
     assertThat((String) email.getContent()).startsWith("Bar");
   }
 
+  @Test
+  public void send_several_emails_through_the_same_connection() throws Exception {
+    configure();
+
+    underTest.deliver(new EmailMessage().setTo("user1@nowhere").setSubject("Foo").setMessage("Bar"));
+    underTest.deliver(new EmailMessage().setTo("user2@nowhere").setSubject("Foo").setMessage("Bar"));
+    underTest.stop();
+
+    List<WiserMessage> messages = smtpServer.getMessages();
+    assertThat(messages).extracting(WiserMessage::getEnvelopeReceiver).containsExactly("user1@nowhere", "user2@nowhere");
+    assertThat(messages.get(1).getMimeMessage().getHeader("Subject", null)).isEqualTo("[SONARQUBE] Foo");
+  }
+
   @Test
   public void shouldNotThrowAnExceptionWhenUnableToSendEmail() {
     configure();
@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.subethamail.wiser.Wiser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SmtpConnectionPoolTest {
+
+  private Wiser smtpServer;
+  private AtomicLong now = new AtomicLong(1_000L);
+  private SmtpConnectionPool underTest = new SmtpConnectionPool(now::get);
+
+  @Before
+  public void setUp() {
+    smtpServer = new Wiser(0);
+    smtpServer.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.closeAll();
+    smtpServer.stop();
+  }
+
+  @Test
+  public void reuse_connection_to_send_several_emails() throws Exception {
+    Session session = session();
+
+    underTest.send(session, "server", message(session, "first"));
+    underTest.send(session, "server", message(session, "second"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(smtpServer.getMessages().get(0).getMimeMessage().getSubject()).isEqualTo("first");
+    assertThat(smtpServer.getMessages().get(1).getMimeMessage().getSubject()).isEqualTo("second");
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void open_new_connection_when_idle_connection_expired() throws Exception {
+    Session session = session();
+    underTest.send(session, "server", message(session, "first"));
+
+    now.addAndGet(SmtpConnectionPool.MAX_IDLE_MS + 1);
+    underTest.send(session, "server", message(session, "second"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void do_not_reuse_connection_opened_with_other_settings() throws Exception {
+    Session session = session();
+    underTest.send(session, "server", message(session, "first"));
+
+    underTest.send(session, "other server", message(session, "second"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void closeAll_closes_idle_connections() throws Exception {
+    Session session = session();
+    underTest.send(session, "server", message(session, "first"));
+
+    underTest.closeAll();
+
+    assertThat(underTest.countIdleConnections()).isEqualTo(0);
+  }
+
+  private Session session() {
+    Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "smtp");
+    properties.setProperty("mail.smtp.host", "localhost");
+    properties.setProperty("mail.smtp.port", String.valueOf(smtpServer.getServer().getPort()));
+    return Session.getInstance(properties);
+  }
+
+  private static MimeMessage message(Session session, String subject) throws Exception {
+    MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("server@nowhere"));
+    message.setRecipient(Message.RecipientType.TO, new InternetAddress("user@nowhere"));
+    message.setSubject(subject);
+    message.setText("body");
+    return message;
+  }
+}
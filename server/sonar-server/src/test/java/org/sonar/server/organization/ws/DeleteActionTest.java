@@ -39,9 +39,11 @@ import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.organization.TestOrganizationFlags;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.UserPermissionCache;
 import org.sonar.server.ws.WsActionTester;
 
 import static com.google.common.collect.ImmutableList.of;
@@ -66,7 +68,9 @@ public class DeleteActionTest {
   private ComponentCleanerService componentCleanerService = mock(ComponentCleanerService.class);
   private TestOrganizationFlags organizationFlags = TestOrganizationFlags.standalone().setEnabled(true);
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
-  private DeleteAction underTest = new DeleteAction(userSession, dbTester.getDbClient(), defaultOrganizationProvider, componentCleanerService, organizationFlags);
+  private UserPermissionCache permissionCache = mock(UserPermissionCache.class);
+  private DeleteAction underTest = new DeleteAction(userSession, dbTester.getDbClient(), defaultOrganizationProvider, componentCleanerService, organizationFlags,
+    mock(MeasureResponseCache.class), permissionCache);
   private WsActionTester wsTester = new WsActionTester(underTest);
 
   @Test
@@ -273,6 +277,7 @@ public class DeleteActionTest {
       .extracting(row -> (String) row.get("role"))
       .doesNotContain("u1", "u3", "u4", "u5")
       .contains("not deleted u1", "not deleted u3", "not deleted u4", "not deleted u5");
+    verify(permissionCache).invalidate();
   }
 
   private void verifyOrganizationDoesNotExist(OrganizationDto organization) {
@@ -62,5 +62,8 @@ public class DatabaseMonitorTest {
   public void pool_info() {
     Map<String, Object> attributes = underTest.attributes();
     assertThat((int) attributes.get("Pool Max Connections")).isGreaterThan(0);
+    assertThat(attributes.get("Pool Implementation")).isEqualTo("dbcp");
+    assertThat((int) attributes.get("Pool Waiting Threads")).isEqualTo(0);
+    assertThat(attributes).containsKey("Pool Acquisition Time");
   }
 }
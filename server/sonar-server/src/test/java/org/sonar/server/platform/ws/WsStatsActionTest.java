@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WebServiceMetrics;
+import org.sonar.server.ws.WsActionStats;
+import org.sonar.server.ws.WsActionTester;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.test.JsonAssert.assertJson;
+
+public class WsStatsActionTest {
+
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private WebServiceMetrics metrics = mock(WebServiceMetrics.class);
+  private WsActionTester ws = new WsActionTester(new WsStatsAction(userSession, metrics));
+
+  @Test
+  public void test_definition() {
+    assertThat(ws.getDef().key()).isEqualTo("ws_stats");
+    assertThat(ws.getDef().since()).isEqualTo("6.4");
+    assertThat(ws.getDef().isInternal()).isTrue();
+    assertThat(ws.getDef().responseExampleAsString()).isNotEmpty();
+    assertThat(ws.getDef().params()).isEmpty();
+  }
+
+  @Test
+  public void write_stats_of_actions() {
+    userSession.logIn().setSystemAdministrator();
+    WsActionStats stats = mock(WsActionStats.class);
+    when(stats.getActionPath()).thenReturn("api/issues/search");
+    when(stats.getRequestCount()).thenReturn(1204L);
+    when(stats.getErrorCount()).thenReturn(3L);
+    when(stats.getMeanLatencyMs()).thenReturn(84.2d);
+    when(stats.getP50LatencyMs()).thenReturn(47L);
+    when(stats.getP95LatencyMs()).thenReturn(319L);
+    when(stats.getP99LatencyMs()).thenReturn(703L);
+    when(stats.getMaxLatencyMs()).thenReturn(2410L);
+    when(stats.getResponseBytes()).thenReturn(98326011L);
+    when(stats.getSqlCount()).thenReturn(7224L);
+    when(stats.getEsCount()).thenReturn(1204L);
+    when(metrics.getStats()).thenReturn(singletonList(stats));
+
+    String json = ws.newRequest().execute().getInput();
+
+    assertJson(json).isSimilarTo("{\"actions\": [{" +
+      "\"path\": \"api/issues/search\"," +
+      "\"requests\": 1204," +
+      "\"errors\": 3," +
+      "\"latency\": {\"mean\": 84.2, \"p50\": 47, \"p95\": 319, \"p99\": 703, \"max\": 2410}," +
+      "\"responseBytes\": 98326011," +
+      "\"sqlRequests\": 7224," +
+      "\"esRequests\": 1204" +
+      "}]}");
+  }
+
+  @Test
+  public void write_empty_stats() {
+    userSession.logIn().setSystemAdministrator();
+    when(metrics.getStats()).thenReturn(emptyList());
+
+    assertJson(ws.newRequest().execute().getInput()).isSimilarTo("{\"actions\":[]}");
+  }
+
+  @Test
+  public void fail_if_not_system_administrator() {
+    userSession.logIn().setNonSystemAdministrator();
+
+    expectedException.expect(ForbiddenException.class);
+
+    ws.newRequest().execute();
+  }
+}
@@ -43,6 +43,7 @@ import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.TestRequest;
@@ -89,7 +90,7 @@ public class BulkUpdateKeyActionTest {
   private ComponentFinder componentFinder = new ComponentFinder(dbClient);
   private ComponentService componentService = mock(ComponentService.class);
   private WsActionTester ws = new WsActionTester(
-    new BulkUpdateKeyAction(dbClient, componentFinder, componentService, userSession));
+    new BulkUpdateKeyAction(dbClient, componentFinder, componentService, userSession, mock(MeasureResponseCache.class)));
 
   @Before
   public void setUp() {
@@ -35,6 +35,7 @@ import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
@@ -66,6 +67,7 @@ public class DeleteActionTest {
   private DbClient dbClient = db.getDbClient();
   private ComponentDbTester componentDbTester = new ComponentDbTester(db);
   private ComponentCleanerService componentCleanerService = mock(ComponentCleanerService.class);
+  private MeasureResponseCache measureResponseCache = mock(MeasureResponseCache.class);
 
   @Before
   public void setUp() {
@@ -74,7 +76,8 @@ public class DeleteActionTest {
             componentCleanerService,
             new ComponentFinder(dbClient),
             dbClient,
-            userSessionRule)));
+            userSessionRule,
+            measureResponseCache)));
   }
 
   @Test
@@ -86,6 +89,7 @@ public class DeleteActionTest {
     call(request);
 
     assertThat(verifyDeletedKey()).isEqualTo(project.key());
+    verify(measureResponseCache).invalidate();
   }
 
   @Test
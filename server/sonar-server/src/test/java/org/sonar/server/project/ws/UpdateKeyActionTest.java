@@ -35,6 +35,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.ComponentService;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
 
@@ -58,8 +59,9 @@ public class UpdateKeyActionTest {
   DbClient dbClient = db.getDbClient();
 
   ComponentService componentService = mock(ComponentService.class);
+  MeasureResponseCache measureResponseCache = mock(MeasureResponseCache.class);
 
-  WsActionTester ws = new WsActionTester(new org.sonar.server.project.ws.UpdateKeyAction(dbClient, new ComponentFinder(dbClient), componentService));
+  WsActionTester ws = new WsActionTester(new org.sonar.server.project.ws.UpdateKeyAction(dbClient, new ComponentFinder(dbClient), componentService, measureResponseCache));
 
   @Test
   public void call_by_key() {
@@ -68,6 +70,7 @@ public class UpdateKeyActionTest {
     callByKey(project.key(), ANOTHER_KEY);
 
     assertCallComponentService(ANOTHER_KEY);
+    verify(measureResponseCache).invalidate();
   }
 
   @Test
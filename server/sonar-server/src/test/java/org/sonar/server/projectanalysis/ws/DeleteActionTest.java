@@ -31,12 +31,15 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.MeasureResponseCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsActionTester;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.db.component.SnapshotDto.STATUS_PROCESSED;
 import static org.sonar.db.component.SnapshotDto.STATUS_UNPROCESSED;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
@@ -52,7 +55,9 @@ public class DeleteActionTest {
   private DbClient dbClient = db.getDbClient();
   private DbSession dbSession = db.getSession();
 
-  private WsActionTester ws = new WsActionTester(new DeleteAction(dbClient, userSession));
+  private MeasureResponseCache measureResponseCache = mock(MeasureResponseCache.class);
+
+  private WsActionTester ws = new WsActionTester(new DeleteAction(dbClient, userSession, measureResponseCache));
 
   @Test
   public void project_administrator_deletes_analysis() {
@@ -67,6 +72,7 @@ public class DeleteActionTest {
     assertThat(dbClient.snapshotDao().selectByUuids(dbSession, newArrayList("A1", "A2"))).extracting(SnapshotDto::getUuid, SnapshotDto::getStatus).containsExactly(
       tuple("A1", STATUS_UNPROCESSED),
       tuple("A2", STATUS_PROCESSED));
+    verify(measureResponseCache).invalidate();
   }
 
   @Test
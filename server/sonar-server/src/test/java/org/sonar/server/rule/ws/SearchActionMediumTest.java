@@ -399,6 +399,56 @@ public class SearchActionMediumTest {
       .assertJson(this.getClass(), "search_no_rules.json");
   }
 
+  @Test
+  public void search_profile_active_rules_supports_conditional_requests() throws Exception {
+    QualityProfileDto profile = QProfileTesting.newXooP1("org-123").setRulesUpdatedAt("2017-01-01T10:00:00+0000");
+    tester.get(QualityProfileDao.class).insert(dbSession, profile);
+    RuleDto rule = RuleTesting.newXooX1();
+    ruleDao.insert(dbSession, rule);
+    tester.get(ActiveRuleDao.class).insert(dbSession, newActiveRule(profile, rule));
+    dbSession.commit();
+    ruleIndexer.index();
+    activeRuleIndexer.index();
+
+    WsTester.Result result = newActiveRulesRequest(profile).execute();
+    String etag = result.header("ETag");
+    assertThat(etag).isNotNull();
+    assertThat(result.outputAsString()).contains(rule.getKey().toString());
+
+    result = newActiveRulesRequest(profile).setHeader("If-None-Match", etag).execute();
+    result.assertNotModified().assertHeader("ETag", etag);
+    assertThat(result.outputAsString()).isEmpty();
+
+    // another page
+    assertThat(newActiveRulesRequest(profile).setParam(WebService.Param.PAGE, "2").setHeader("If-None-Match", etag).execute()
+      .header("ETag")).isNotEqualTo(etag);
+
+    // profile is changed
+    profile.setRulesUpdatedAt("2017-01-01T11:00:00+0000");
+    tester.get(QualityProfileDao.class).update(dbSession, profile);
+    dbSession.commit();
+    result = newActiveRulesRequest(profile).setHeader("If-None-Match", etag).execute();
+    assertThat(result.header("ETag")).isNotEqualTo(etag);
+    assertThat(result.outputAsString()).contains(rule.getKey().toString());
+  }
+
+  @Test
+  public void search_without_profile_does_not_support_conditional_requests() throws Exception {
+    WsTester.Result result = tester.wsTester().newGetRequest(API_ENDPOINT, API_SEARCH_METHOD)
+      .setHeader("If-None-Match", "*")
+      .execute();
+
+    assertThat(result.header("ETag")).isNull();
+    result.assertJson("{\"total\": 0, \"rules\": []}");
+  }
+
+  private WsTester.TestRequest newActiveRulesRequest(QualityProfileDto profile) {
+    return tester.wsTester().newGetRequest(API_ENDPOINT, API_SEARCH_METHOD)
+      .setParam(PARAM_ACTIVATION, "true")
+      .setParam(PARAM_QPROFILE, profile.getKey())
+      .setParam(WebService.Param.FIELDS, "actives");
+  }
+
   @Test
   public void search_profile_active_rules_with_inheritance() throws Exception {
     QualityProfileDto profile = QProfileTesting.newXooP1("org-123");
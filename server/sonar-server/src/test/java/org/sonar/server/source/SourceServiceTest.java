@@ -91,6 +91,18 @@ public class SourceServiceTest {
     assertThat(lines).containsExactly("HTML_5", "HTML_6", "HTML_7");
   }
 
+  @Test
+  public void get_range_of_lines_of_huge_file() throws Exception {
+    FileSourceDto dto = new FileSourceDto().setFileUuid("HUGE_FILE_UUID").setProjectUuid("PROJECT_UUID");
+    dto.setSourceData(FileSourceTesting.newFakeData(5_000).build());
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
+    dbTester.commit();
+
+    Optional<Iterable<String>> linesOpt = underTest.getLinesAsRawText(dbTester.getSession(), "HUGE_FILE_UUID", 2_499, 2_501);
+
+    assertThat(linesOpt.get()).containsExactly("SOURCE_2499", "SOURCE_2500", "SOURCE_2501");
+  }
+
   @Test
   public void getLines_fails_if_range_starts_at_zero() {
     expectedException.expect(IllegalArgumentException.class);
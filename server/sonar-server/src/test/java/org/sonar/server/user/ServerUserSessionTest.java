@@ -208,6 +208,20 @@ public class ServerUserSessionTest {
     assertThat(session.hasPermission(PROVISION_PROJECTS, "another-org")).isFalse();
   }
 
+  @Test
+  public void permissions_are_shared_by_sessions_until_cache_is_invalidated() {
+    OrganizationDto org = db.organizations().insert();
+    UserPermissionCache cache = new UserPermissionCache();
+    db.users().insertPermissionOnUser(org, userDto, PROVISION_PROJECTS);
+    assertThat(newUserSession(userDto, cache).hasPermission(PROVISION_PROJECTS, org.getUuid())).isTrue();
+
+    db.users().deletePermissionFromUser(org, userDto, PROVISION_PROJECTS);
+    assertThat(newUserSession(userDto, cache).hasPermission(PROVISION_PROJECTS, org.getUuid())).isTrue();
+
+    cache.invalidate();
+    assertThat(newUserSession(userDto, cache).hasPermission(PROVISION_PROJECTS, org.getUuid())).isFalse();
+  }
+
   @Test
   public void test_hasPermission_on_organization_for_anonymous_user() {
     OrganizationDto org = db.organizations().insert();
@@ -406,7 +420,11 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    return newUserSession(userDto, new UserPermissionCache());
+  }
+
+  private ServerUserSession newUserSession(@Nullable UserDto userDto, UserPermissionCache cache) {
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, cache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
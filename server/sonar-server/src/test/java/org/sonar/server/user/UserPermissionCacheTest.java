@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserPermissionCacheTest {
+
+  private UserPermissionCache underTest = new UserPermissionCache();
+
+  @Test
+  public void get_returns_same_entry_for_same_user() {
+    assertThat(underTest.get(10)).isSameAs(underTest.get(10));
+    assertThat(underTest.get(null)).isSameAs(underTest.get(null));
+  }
+
+  @Test
+  public void get_returns_different_entries_for_different_users() {
+    assertThat(underTest.get(10)).isNotSameAs(underTest.get(11));
+    assertThat(underTest.get(10)).isNotSameAs(underTest.get(null));
+  }
+
+  @Test
+  public void invalidate_drops_existing_entries() {
+    UserPermissionCache.Entry entry = underTest.get(10);
+
+    underTest.invalidate();
+
+    assertThat(underTest.get(10)).isNotSameAs(entry);
+  }
+
+  @Test
+  public void project_permissions_are_loaded_once() {
+    AtomicInteger loads = new AtomicInteger();
+    UserPermissionCache.Entry entry = underTest.get(10);
+
+    Set<String> first = entry.getProjectPermissions("P1", uuid -> {
+      loads.incrementAndGet();
+      return ImmutableSet.of("user");
+    });
+    Set<String> second = entry.getProjectPermissions("P1", uuid -> {
+      loads.incrementAndGet();
+      return ImmutableSet.of("admin");
+    });
+
+    assertThat(first).containsOnly("user");
+    assertThat(second).containsOnly("user");
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void number_of_cached_projects_is_bounded() {
+    AtomicInteger loads = new AtomicInteger();
+    UserPermissionCache.Entry entry = underTest.get(10);
+    for (int i = 0; i < UserPermissionCache.MAX_PROJECTS_PER_USER; i++) {
+      entry.getProjectPermissions("P" + i, uuid -> ImmutableSet.of());
+    }
+
+    entry.getProjectPermissions("other", uuid -> {
+      loads.incrementAndGet();
+      return ImmutableSet.of();
+    });
+    entry.getProjectPermissions("other", uuid -> {
+      loads.incrementAndGet();
+      return ImmutableSet.of();
+    });
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ETagsTest {
+
+  private static final String ETAG = ETags.of("project", 1_500L, null);
+
+  private TestRequest request = new TestRequest();
+  private DumbResponse response = new DumbResponse();
+
+  @Test
+  public void etag_is_quoted_and_depends_on_versions() {
+    assertThat(ETAG).startsWith("\"").endsWith("\"").hasSize(42);
+    assertThat(ETags.of("project", 1_500L, null)).isEqualTo(ETAG);
+    assertThat(ETags.of("project", 1_501L, null)).isNotEqualTo(ETAG);
+    assertThat(ETags.of("project", 1_500L, "")).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void modified_if_no_header_if_none_match() {
+    assertThat(ETags.checkNotModified(request, response, ETAG)).isFalse();
+
+    assertThat(response.getHeader("ETag")).isEqualTo(ETAG);
+    assertThat(response.stream().status()).isNotEqualTo(304);
+  }
+
+  @Test
+  public void modified_if_etag_does_not_match() {
+    request.setHeader("If-None-Match", ETags.of("other"));
+
+    assertThat(ETags.checkNotModified(request, response, ETAG)).isFalse();
+
+    assertThat(response.getHeader("ETag")).isEqualTo(ETAG);
+    assertThat(response.stream().status()).isNotEqualTo(304);
+  }
+
+  @Test
+  public void not_modified_if_etag_matches() {
+    request.setHeader("If-None-Match", ETAG);
+
+    assertThat(ETags.checkNotModified(request, response, ETAG)).isTrue();
+
+    assertThat(response.getHeader("ETag")).isEqualTo(ETAG);
+    assertThat(response.stream().status()).isEqualTo(304);
+  }
+
+  @Test
+  public void not_modified_if_one_of_etags_matches() {
+    request.setHeader("If-None-Match", ETags.of("other") + ", W/" + ETAG);
+
+    assertThat(ETags.checkNotModified(request, response, ETAG)).isTrue();
+  }
+
+  @Test
+  public void not_modified_if_any_etag_is_accepted() {
+    request.setHeader("If-None-Match", "*");
+
+    assertThat(ETags.checkNotModified(request, response, ETAG)).isTrue();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private LatencyHistogram underTest = new LatencyHistogram();
+
+  @Test
+  public void empty_histogram() {
+    assertThat(underTest.getCount()).isEqualTo(0L);
+    assertThat(underTest.getMean()).isEqualTo(0d);
+    assertThat(underTest.getMax()).isEqualTo(0L);
+    assertThat(underTest.getPercentile(99d)).isEqualTo(0L);
+  }
+
+  @Test
+  public void small_values_are_exact() {
+    for (long i = 0; i < LatencyHistogram.SUB_BUCKETS; i++) {
+      assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(i))).isEqualTo(i);
+    }
+  }
+
+  @Test
+  public void buckets_are_contiguous_with_bounded_relative_error() {
+    long previousUpperBound = -1L;
+    for (int index = 0; index < LatencyHistogram.indexOf(Integer.MAX_VALUE); index++) {
+      long upperBound = LatencyHistogram.upperBoundOf(index);
+      assertThat(upperBound).isGreaterThan(previousUpperBound);
+      assertThat(LatencyHistogram.indexOf(upperBound)).isEqualTo(index);
+      assertThat(LatencyHistogram.indexOf(previousUpperBound + 1)).isEqualTo(index);
+      assertThat((double) (upperBound - previousUpperBound - 1)).isLessThanOrEqualTo((previousUpperBound + 1) / (double) LatencyHistogram.SUB_BUCKETS);
+      previousUpperBound = upperBound;
+    }
+  }
+
+  @Test
+  public void compute_percentiles() {
+    for (int i = 1; i <= 1000; i++) {
+      underTest.record(i);
+    }
+
+    assertThat(underTest.getCount()).isEqualTo(1000L);
+    assertThat(underTest.getMax()).isEqualTo(1000L);
+    assertThat(underTest.getMean()).isEqualTo(500.5d, within(0.001d));
+    assertThat(underTest.getPercentile(50d)).isBetween(500L, 500L + 500L / LatencyHistogram.SUB_BUCKETS);
+    assertThat(underTest.getPercentile(99d)).isBetween(990L, 1000L);
+    assertThat(underTest.getPercentile(100d)).isEqualTo(1000L);
+  }
+
+  @Test
+  public void negative_values_are_recorded_as_zero() {
+    underTest.record(-5L);
+
+    assertThat(underTest.getCount()).isEqualTo(1L);
+    assertThat(underTest.getMax()).isEqualTo(0L);
+  }
+
+  @Test
+  public void fail_if_percentile_is_out_of_range() {
+    expectedException.expect(IllegalArgumentException.class);
+
+    underTest.getPercentile(0d);
+  }
+}
@@ -90,7 +90,22 @@ public class ServletResponseTest {
 
   @Test
   public void test_output() throws Exception {
-    assertThat(underTest.stream().output()).isEqualTo(output);
+    underTest.stream().output().write(new byte[] {1, 2, 3});
+
+    verify(output).write(new byte[] {1, 2, 3});
+    assertThat(underTest.stream().output()).isSameAs(underTest.stream().output());
+  }
+
+  @Test
+  public void count_output_bytes() throws Exception {
+    assertThat(underTest.stream().outputBytes()).isEqualTo(0L);
+
+    underTest.stream().output().write(new byte[] {1, 2, 3});
+    underTest.stream().output().write(4);
+    assertThat(underTest.stream().outputBytes()).isEqualTo(4L);
+
+    underTest.stream().reset();
+    assertThat(underTest.stream().outputBytes()).isEqualTo(0L);
   }
 
 
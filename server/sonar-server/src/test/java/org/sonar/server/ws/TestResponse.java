@@ -22,6 +22,7 @@ package org.sonar.server.ws;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import javax.annotation.CheckForNull;
 
 public class TestResponse {
 
@@ -46,4 +47,9 @@ public class TestResponse {
   public int getStatus() {
     return dumbResponse.stream().status();
   }
+
+  @CheckForNull
+  public String getHeader(String name) {
+    return dumbResponse.getHeader(name);
+  }
 }
@@ -22,6 +22,7 @@ package org.sonar.server.ws;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.catalina.connector.ClientAbortException;
 import org.apache.commons.io.IOUtils;
@@ -30,6 +31,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.internal.ValidatingRequest;
@@ -39,6 +41,7 @@ import org.sonar.server.exceptions.BadRequestException;
 import org.sonarqube.ws.MediaTypes;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -50,7 +53,8 @@ public class WebServiceEngineTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()});
+  private WebServiceMetrics metrics = new WebServiceMetrics(new MapSettings());
+  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()}, metrics);
 
   @Before
   public void start() {
@@ -318,6 +322,37 @@ public class WebServiceEngineTest {
     assertThat(logTester.logs(LoggerLevel.DEBUG)).isNotEmpty();
   }
 
+  @Test
+  public void record_stats_of_executed_actions() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/fail_bad_request"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/fail"), new DumbResponse());
+
+    assertThat(metrics.getStats()).extracting(WsActionStats::getActionPath, WsActionStats::getRequestCount, WsActionStats::getErrorCount)
+      .containsExactly(
+        tuple("api/system/fail", 1L, 1L),
+        tuple("api/system/fail_bad_request", 1L, 1L),
+        tuple("api/system/health", 2L, 0L));
+  }
+
+  @Test
+  public void do_not_record_stats_of_unknown_actions() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/xxx"), new DumbResponse());
+
+    assertThat(metrics.getStats()).isEmpty();
+  }
+
+  @Test
+  public void record_bytes_written_in_servlet_response() throws Exception {
+    HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+    when(httpServletResponse.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new ServletResponse(httpServletResponse));
+
+    assertThat(metrics.getStats()).extracting(WsActionStats::getResponseBytes).containsExactly(4L);
+  }
+
   static class SystemWs implements WebService {
     @Override
     public void define(Context context) {
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.profiling.CallRecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.profiling.CallRecorder.SQL_CALL_TYPE;
+import static org.sonar.server.es.EsClient.ES_CALL_TYPE;
+import static org.sonar.server.ws.WebServiceMetrics.SLOW_REQUEST_THRESHOLD_PROPERTY;
+
+public class WebServiceMetricsTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private MapSettings settings = new MapSettings();
+  private WebServiceMetrics underTest = new WebServiceMetrics(settings);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void record_stats_by_action() {
+    underTest.record("api/issues/search", 10L, true, 100L, recordCalls(3, 1));
+    underTest.record("api/issues/search", 30L, false, 50L, recordCalls(2, 0));
+    underTest.record("api/components/show", 5L, true, 10L, recordCalls(1, 0));
+
+    assertThat(underTest.getStats()).extracting(WsActionStats::getActionPath).containsExactly("api/components/show", "api/issues/search");
+    WsActionStats stats = underTest.getStats().get(1);
+    assertThat(stats.getRequestCount()).isEqualTo(2L);
+    assertThat(stats.getErrorCount()).isEqualTo(1L);
+    assertThat(stats.getMaxLatencyMs()).isEqualTo(30L);
+    assertThat(stats.getMeanLatencyMs()).isEqualTo(20d);
+    assertThat(stats.getResponseBytes()).isEqualTo(150L);
+    assertThat(stats.getSqlCount()).isEqualTo(5L);
+    assertThat(stats.getEsCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void slow_request_log_is_disabled_by_default() {
+    assertThat(underTest.isSlowRequestLogEnabled()).isFalse();
+
+    underTest.record("api/issues/search", 100_000L, true, 100L, recordCalls(3, 1));
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+  }
+
+  @Test
+  public void log_requests_slower_than_threshold() {
+    settings.setProperty(SLOW_REQUEST_THRESHOLD_PROPERTY, 1000);
+    underTest = new WebServiceMetrics(settings);
+    assertThat(underTest.isSlowRequestLogEnabled()).isTrue();
+
+    underTest.record("api/issues/search", 999L, true, 100L, recordCalls(3, 1));
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+
+    CallRecorder calls = CallRecorder.start(true);
+    CallRecorder.record(SQL_CALL_TYPE, System.currentTimeMillis(), () -> "select 1");
+    CallRecorder.record(ES_CALL_TYPE, System.currentTimeMillis(), () -> "search");
+    calls.stop();
+    underTest.record("api/issues/search", 1000L, true, 100L, calls);
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0))
+      .startsWith("Slow web service request api/issues/search: 1000ms, 1 SQL requests")
+      .contains("1 Elasticsearch requests")
+      .contains("): select 1")
+      .contains("): search");
+  }
+
+  @Test
+  public void export_stats_as_jmx_beans_once_started() throws Exception {
+    underTest.record("api/foo/before_start", 10L, true, 100L, recordCalls(0, 0));
+    underTest.start();
+    underTest.record("api/foo/after_start", 10L, true, 100L, recordCalls(0, 0));
+
+    assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName("SonarQube:name=WebServices,action=api/foo/before_start"), "RequestCount"))
+      .isEqualTo(1L);
+    assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName("SonarQube:name=WebServices,action=api/foo/after_start"), "RequestCount"))
+      .isEqualTo(1L);
+
+    underTest.stop();
+
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName("SonarQube:name=WebServices,action=api/foo/before_start"))).isFalse();
+  }
+
+  private static CallRecorder recordCalls(int sql, int es) {
+    CallRecorder calls = CallRecorder.start(false);
+    for (int i = 0; i < sql; i++) {
+      CallRecorder.record(SQL_CALL_TYPE, System.currentTimeMillis(), () -> "sql");
+    }
+    for (int i = 0; i < es; i++) {
+      CallRecorder.record(ES_CALL_TYPE, System.currentTimeMillis(), () -> "es");
+    }
+    calls.stop();
+    return calls;
+  }
+}
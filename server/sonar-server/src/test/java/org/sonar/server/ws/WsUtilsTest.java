@@ -20,6 +20,7 @@
 package org.sonar.server.ws;
 
 import java.io.IOException;
+import java.util.Collections;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -29,6 +30,7 @@ import org.sonarqube.ws.Issues;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsPermissions;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.test.ExceptionCauseMatcher.hasType;
 
@@ -68,6 +70,41 @@ public class WsUtilsTest {
     assertThat(Issues.Issue.parseFrom(response.getFlushedOutput()).getKey()).isEqualTo("I1");
   }
 
+  @Test
+  public void write_repeated_field_from_iterator_as_json() throws Exception {
+    TestRequest request = new TestRequest();
+    DumbResponse response = new DumbResponse();
+
+    Issues.SearchWsResponse msg = Issues.SearchWsResponse.newBuilder().setTotal(2).build();
+    WsUtils.writeProtobuf(msg, "issues", asList(newIssue("I1"), newIssue("I2")).iterator(), request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertThat(response.outputAsString()).isEqualTo("{\"total\":2,\"issues\":[{\"key\":\"I1\",\"flows\":[],\"tags\":[]},{\"key\":\"I2\",\"flows\":[],\"tags\":[]}],\"components\":[]}");
+  }
+
+  @Test
+  public void write_repeated_field_from_iterator_as_protobuf() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setMediaType(MediaTypes.PROTOBUF);
+    DumbResponse response = new DumbResponse();
+
+    Issues.SearchWsResponse msg = Issues.SearchWsResponse.newBuilder().setTotal(2).build();
+    WsUtils.writeProtobuf(msg, "issues", asList(newIssue("I1"), newIssue("I2")).iterator(), request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    Issues.SearchWsResponse result = Issues.SearchWsResponse.parseFrom(response.getFlushedOutput());
+    assertThat(result.getTotal()).isEqualTo(2);
+    assertThat(result.getIssuesList()).extracting(Issues.Issue::getKey).containsExactly("I1", "I2");
+  }
+
+  @Test
+  public void fail_to_write_iterator_if_field_is_not_repeated() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field total is not a repeated field of sonarqube.ws.issues.SearchWsResponse");
+
+    WsUtils.writeProtobuf(Issues.SearchWsResponse.getDefaultInstance(), "total", Collections.emptyIterator(), new TestRequest(), new DumbResponse());
+  }
+
   @Test
   public void log_message_when_error_writing_message() throws IOException {
     TestRequest request = new TestRequest();
@@ -96,4 +133,8 @@ public class WsUtilsTest {
     WsUtils.checkRequest(false, "Missing param: %s", "foo");
   }
 
+  private static Issues.Issue newIssue(String key) {
+    return Issues.Issue.newBuilder().setKey(key).build();
+  }
+
 }
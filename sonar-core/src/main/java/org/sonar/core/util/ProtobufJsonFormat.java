@@ -25,7 +25,9 @@ import com.google.protobuf.Message;
 import java.io.StringWriter;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
 /**
@@ -159,6 +161,18 @@ public class ProtobufJsonFormat {
     writer.endObject();
   }
 
+  /**
+   * Same as {@link #write(Message, JsonWriter)}, except that the values of the repeated field {@code repeatedFieldName}
+   * are not read from {@code message} but from {@code values}. They can be lazily built, so that the elements of
+   * large arrays do not have to be all kept in memory.
+   */
+  public static void write(Message message, String repeatedFieldName, Iterator<? extends Message> values, JsonWriter writer) {
+    writer.setSerializeNulls(false).setSerializeEmptys(true);
+    writer.beginObject();
+    writeMessage(message, writer, repeatedFieldName, values);
+    writer.endObject();
+  }
+
   public static String toJson(Message message) {
     StringWriter json = new StringWriter();
     try (JsonWriter jsonWriter = JsonWriter.of(json)) {
@@ -168,9 +182,20 @@ public class ProtobufJsonFormat {
   }
 
   private static void writeMessage(Message message, JsonWriter writer) {
+    writeMessage(message, writer, null, null);
+  }
+
+  private static void writeMessage(Message message, JsonWriter writer, @Nullable String streamedFieldName, @Nullable Iterator<? extends Message> streamedValues) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
-      if (fieldDescriptor.isRepeated()) {
+      if (streamedValues != null && fieldDescriptor.getName().equals(streamedFieldName)) {
+        writer.name(fieldDescriptor.getName());
+        writer.beginArray();
+        while (streamedValues.hasNext()) {
+          writeMessageValue(streamedValues.next(), writer);
+        }
+        writer.endArray();
+      } else if (fieldDescriptor.isRepeated()) {
         writer.name(fieldDescriptor.getName());
         if (fieldDescriptor.isMapField()) {
           writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
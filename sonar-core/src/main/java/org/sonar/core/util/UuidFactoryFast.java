@@ -20,16 +20,17 @@
 package org.sonar.core.util;
 
 import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * NOT thread safe
+ * Thread safe
  * About 10x faster than {@link UuidFactoryImpl}
  * It does not take into account the MAC address to calculate the ids, so it is machine-independent.
  */
 public class UuidFactoryFast implements UuidFactory {
   private static UuidFactoryFast instance = new UuidFactoryFast();
   private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
-  private static int sequenceNumber = new SecureRandom().nextInt();
+  private static final AtomicInteger sequenceNumber = new AtomicInteger(new SecureRandom().nextInt());
 
   private UuidFactoryFast() {
     //
@@ -55,7 +56,7 @@ public class UuidFactoryFast implements UuidFactory {
   }
   
   private static int getSequenceNumber() {
-    return sequenceNumber++;
+    return sequenceNumber.getAndIncrement();
   }
 
   /** Puts the lower numberOfLongBytes from l into the array, starting index pos. */
@@ -38,6 +38,7 @@ import org.sonar.core.test.Test.TestNullableMap;
 import org.sonar.core.test.Test.Translations;
 import org.sonar.test.TestUtils;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.core.util.ProtobufJsonFormat.toJson;
 
@@ -104,6 +105,24 @@ public class ProtobufJsonFormatTest {
       .isEqualTo("{\"strings\":[\"one\",\"two\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
   }
 
+  @Test
+  public void write_array_of_messages_from_iterator() {
+    TestArray msg = TestArray.newBuilder()
+      .addStrings("one").addStrings("two")
+      .addNesteds(NestedMsg.newBuilder().setLabel("ignored"))
+      .build();
+    StringWriter json = new StringWriter();
+
+    try (JsonWriter jsonWriter = JsonWriter.of(json)) {
+      ProtobufJsonFormat.write(msg, "nesteds",
+        asList(NestedMsg.newBuilder().setLabel("nestedOne").build(), NestedMsg.newBuilder().setLabel("nestedTwo").build()).iterator(),
+        jsonWriter);
+    }
+
+    assertThat(json.toString())
+      .isEqualTo("{\"strings\":[\"one\",\"two\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
+  }
+
   @Test
   public void write_empty_array() {
     TestArray msg = TestArray.newBuilder().build();
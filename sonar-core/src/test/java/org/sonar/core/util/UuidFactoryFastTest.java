@@ -19,6 +19,9 @@
  */
 package org.sonar.core.util;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,6 +36,15 @@ public class UuidFactoryFastTest {
     assertThat(underTest.create()).isNotEqualTo(underTest.create());
   }
 
+  @Test
+  public void create_unique_uuids_from_concurrent_threads() {
+    Set<String> uuids = ConcurrentHashMap.newKeySet();
+
+    IntStream.range(0, 100_000).parallel().forEach(i -> uuids.add(underTest.create()));
+
+    assertThat(uuids).hasSize(100_000);
+  }
+
   @Test
   public void test_format_of_uuid() throws Exception {
     String uuid = underTest.create();
@@ -51,7 +51,10 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     this.publish = false;
   }
 
-  public void checkMetadata() {
+  /**
+   * Synchronized, as metadata may be lazily computed by several sensors executed concurrently.
+   */
+  public synchronized void checkMetadata() {
     if (metadata == null) {
       metadataGenerator.accept(this);
     }
@@ -27,13 +27,12 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -72,232 +71,48 @@ public class FileMetadata {
     }
   }
 
-  private static class LineCounter extends CharHandler {
-    private int lines = 1;
-    private int nonBlankLines = 0;
-    private boolean blankLine = true;
-    boolean alreadyLoggedInvalidCharacter = false;
-    private final File file;
-    private final Charset encoding;
-
-    LineCounter(File file, Charset encoding) {
-      this.file = file;
-      this.encoding = encoding;
-    }
-
-    @Override
-    protected void handleAll(char c) {
-      if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", file,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
-        alreadyLoggedInvalidCharacter = true;
-      }
-    }
-
-    @Override
-    protected void newLine() {
-      lines++;
-      if (!blankLine) {
-        nonBlankLines++;
-      }
-      blankLine = true;
-    }
-
-    @Override
-    protected void handleIgnoreEoL(char c) {
-      if (!Character.isWhitespace(c)) {
-        blankLine = false;
-      }
-    }
-
-    @Override
-    protected void eof() {
-      if (!blankLine) {
-        nonBlankLines++;
-      }
-    }
-
-    public int lines() {
-      return lines;
-    }
-
-    public int nonBlankLines() {
-      return nonBlankLines;
-    }
-
-  }
-
-  private static class FileHashComputer extends CharHandler {
-    private MessageDigest globalMd5Digest = DigestUtils.getMd5Digest();
-    private StringBuilder sb = new StringBuilder();
-    private final CharsetEncoder encoder;
-    private final File file;
-
-    public FileHashComputer(File f) {
-      encoder = StandardCharsets.UTF_8.newEncoder()
-        .onMalformedInput(CodingErrorAction.REPLACE)
-        .onUnmappableCharacter(CodingErrorAction.REPLACE);
-      file = f;
-    }
-
-    @Override
-    protected void handleIgnoreEoL(char c) {
-      sb.append(c);
-    }
-
-    @Override
-    protected void newLine() {
-      sb.append(LINE_FEED);
-      processBuffer();
-      sb.setLength(0);
-    }
-
-    @Override
-    protected void eof() {
-      if (sb.length() > 0) {
-        processBuffer();
-      }
-    }
-
-    private void processBuffer() {
-      try {
-        if (sb.length() > 0) {
-          ByteBuffer encoded = encoder.encode(CharBuffer.wrap(sb));
-          globalMd5Digest.update(encoded.array(), 0, encoded.limit());
-        }
-      } catch (CharacterCodingException e) {
-        throw new IllegalStateException("Error encoding line hash in file: " + file.getAbsolutePath(), e);
-      }
-    }
-
-    @CheckForNull
-    public String getHash() {
-      return Hex.encodeHexString(globalMd5Digest.digest());
-    }
-  }
-
-  private static class LineHashComputer extends CharHandler {
-    private final MessageDigest lineMd5Digest = DigestUtils.getMd5Digest();
-    private final CharsetEncoder encoder;
-    private final StringBuilder sb = new StringBuilder();
-    private final LineHashConsumer consumer;
-    private final File file;
-    private int line = 1;
-
-    public LineHashComputer(LineHashConsumer consumer, File f) {
-      this.consumer = consumer;
-      this.file = f;
-      this.encoder = StandardCharsets.UTF_8.newEncoder()
-        .onMalformedInput(CodingErrorAction.REPLACE)
-        .onUnmappableCharacter(CodingErrorAction.REPLACE);
-    }
-
-    @Override
-    protected void handleIgnoreEoL(char c) {
-      if (!Character.isWhitespace(c)) {
-        sb.append(c);
-      }
-    }
-
-    @Override
-    protected void newLine() {
-      processBuffer();
-      sb.setLength(0);
-      line++;
-    }
-
-    @Override
-    protected void eof() {
-      if (this.line > 0) {
-        processBuffer();
-      }
-    }
-
-    private void processBuffer() {
-      try {
-        if (sb.length() > 0) {
-          ByteBuffer encoded = encoder.encode(CharBuffer.wrap(sb));
-          lineMd5Digest.update(encoded.array(), 0, encoded.limit());
-          consumer.consume(line, lineMd5Digest.digest());
-        }
-      } catch (CharacterCodingException e) {
-        throw new IllegalStateException("Error encoding line hash in file: " + file.getAbsolutePath(), e);
-      }
-    }
-  }
-
-  private static class LineOffsetCounter extends CharHandler {
-    private long currentOriginalOffset = 0;
-    private IntArrayList originalLineOffsets = new IntArrayList();
-    private long lastValidOffset = 0;
-
-    public LineOffsetCounter() {
-      originalLineOffsets.add(0);
-    }
-
-    @Override
-    protected void handleAll(char c) {
-      currentOriginalOffset++;
-    }
-
-    @Override
-    protected void newLine() {
-      if (currentOriginalOffset > Integer.MAX_VALUE) {
-        throw new IllegalStateException("File is too big: " + currentOriginalOffset);
-      }
-      originalLineOffsets.add((int) currentOriginalOffset);
-    }
-
-    @Override
-    protected void eof() {
-      lastValidOffset = currentOriginalOffset;
-    }
-
-    public int[] getOriginalLineOffsets() {
-      return originalLineOffsets.trimAndGet();
-    }
-
-    public int getLastValidOffset() {
-      if (lastValidOffset > Integer.MAX_VALUE) {
-        throw new IllegalStateException("File is too big: " + lastValidOffset);
-      }
-      return (int) lastValidOffset;
-    }
-
-  }
-
   /**
    * Compute hash of a file ignoring line ends differences.
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
-    LineCounter lineCounter = new LineCounter(file, encoding);
-    FileHashComputer fileHashComputer = new FileHashComputer(file);
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
-    return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
-      lineOffsetCounter.getLastValidOffset());
+    return readMetadata(file, encoding, new CharHandler[0]);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)}, with additional handlers fed while the file is read, so that
+   * other computations on the content do not need to read the file again.
+   * @since 6.4
+   */
+  public Metadata readMetadata(File file, Charset encoding, CharHandler... otherHandlers) {
+    MetadataReader reader = MetadataReader.acquire();
+    try {
+      reader.start(file, encoding, true, null, otherHandlers);
+      reader.readFile(file, encoding);
+      return reader.metadata();
+    } finally {
+      reader.release();
+    }
   }
 
   /**
    * For testing purpose
    */
   public Metadata readMetadata(Reader reader) {
-    LineCounter lineCounter = new LineCounter(new File("fromString"), StandardCharsets.UTF_16);
-    FileHashComputer fileHashComputer = new FileHashComputer(new File("fromString"));
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
+    MetadataReader metadataReader = MetadataReader.acquire();
     try {
-      read(reader, lineCounter, fileHashComputer, lineOffsetCounter);
+      metadataReader.start(new File("fromString"), StandardCharsets.UTF_16, true, null, new CharHandler[0]);
+      metadataReader.read(reader);
+      return metadataReader.metadata();
     } catch (IOException e) {
       throw new IllegalStateException("Should never occurs", e);
+    } finally {
+      metadataReader.release();
     }
-    return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
-      lineOffsetCounter.getLastValidOffset());
   }
 
   public static void readFile(File file, Charset encoding, CharHandler... handlers) {
-    try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
-      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+    try (BOMInputStream bomIn = newBOMInputStream(file);
       Reader reader = new BufferedReader(new InputStreamReader(bomIn, encoding))) {
       read(reader, handlers);
     } catch (IOException e) {
@@ -305,6 +120,11 @@ public class FileMetadata {
     }
   }
 
+  private static BOMInputStream newBOMInputStream(File file) throws IOException {
+    return new BOMInputStream(new FileInputStream(file),
+      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+  }
+
   private static void read(Reader reader, CharHandler... handlers) throws IOException {
     char c;
     int i = reader.read();
@@ -363,6 +183,327 @@ public class FileMetadata {
    * Compute a MD5 hash of each line of the file after removing of all blank chars
    */
   public static void computeLineHashesForIssueTracking(InputFile f, LineHashConsumer consumer) {
-    readFile(f.file(), f.charset(), new LineHashComputer(consumer, f.file()));
+    MetadataReader reader = MetadataReader.acquire();
+    try {
+      reader.start(f.file(), f.charset(), false, consumer, new CharHandler[0]);
+      reader.readFile(f.file(), f.charset());
+    } finally {
+      reader.release();
+    }
+  }
+
+  /**
+   * Reads a file once and computes in the same loop the line counts, line offsets, the hash of the file and optionally
+   * the hashes of lines. Content is decoded from a byte buffer and encoded to UTF-8 for hashing without creating
+   * intermediate strings. Buffers, decoder and digests are reused by the thread for the next files.
+   * <p>
+   * The computed values are the same as with {@link CharHandler}s fed by {@link #readFile(File, Charset, CharHandler...)}.
+   */
+  private static final class MetadataReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<MetadataReader> READERS = ThreadLocal.withInitial(MetadataReader::new);
+
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    private final char[] chars = new char[BUFFER_SIZE / 2];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private final Utf8Digest fileDigest = new Utf8Digest();
+    private final Utf8Digest lineDigest = new Utf8Digest();
+    private CharsetDecoder decoder;
+    private boolean inUse = false;
+
+    // state of the current file
+    private File file;
+    private Charset encoding;
+    private boolean computeMetadata;
+    private LineHashConsumer lineHashConsumer;
+    private CharHandler[] handlers;
+    private boolean afterCR;
+    private int lines;
+    private int nonBlankLines;
+    private boolean blankLine;
+    private boolean alreadyLoggedInvalidCharacter;
+    private long currentOriginalOffset;
+    private long lastValidOffset;
+    private IntArrayList originalLineOffsets;
+
+    static MetadataReader acquire() {
+      MetadataReader reader = READERS.get();
+      if (reader.inUse) {
+        // reentrant call from a handler
+        reader = new MetadataReader();
+      }
+      reader.inUse = true;
+      return reader;
+    }
+
+    void release() {
+      file = null;
+      lineHashConsumer = null;
+      handlers = null;
+      originalLineOffsets = null;
+      inUse = false;
+    }
+
+    void start(File file, Charset encoding, boolean computeMetadata, @Nullable LineHashConsumer lineHashConsumer, CharHandler[] handlers) {
+      this.file = file;
+      this.encoding = encoding;
+      this.computeMetadata = computeMetadata;
+      this.lineHashConsumer = lineHashConsumer;
+      this.handlers = handlers;
+      this.afterCR = false;
+      this.lines = 1;
+      this.nonBlankLines = 0;
+      this.blankLine = true;
+      this.alreadyLoggedInvalidCharacter = false;
+      this.currentOriginalOffset = 0;
+      this.lastValidOffset = 0;
+      this.originalLineOffsets = new IntArrayList();
+      this.originalLineOffsets.add(0);
+      fileDigest.reset();
+      lineDigest.reset();
+    }
+
+    void readFile(File file, Charset encoding) {
+      try (BOMInputStream in = newBOMInputStream(file)) {
+        CharsetDecoder charsetDecoder = decoder(encoding);
+        byteBuffer.clear();
+        boolean endOfInput = false;
+        while (true) {
+          if (!endOfInput && byteBuffer.hasRemaining()) {
+            int read = in.read(bytes, byteBuffer.position(), byteBuffer.remaining());
+            if (read < 0) {
+              endOfInput = true;
+            } else {
+              byteBuffer.position(byteBuffer.position() + read);
+            }
+          }
+          byteBuffer.flip();
+          CoderResult result = charsetDecoder.decode(byteBuffer, charBuffer, endOfInput);
+          processCharBuffer();
+          byteBuffer.compact();
+          if (endOfInput && result.isUnderflow()) {
+            break;
+          }
+        }
+        while (charsetDecoder.flush(charBuffer).isOverflow()) {
+          processCharBuffer();
+        }
+        processCharBuffer();
+        eof();
+      } catch (IOException e) {
+        throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
+      }
+    }
+
+    void read(Reader reader) throws IOException {
+      int read;
+      while ((read = reader.read(chars, 0, chars.length)) != -1) {
+        process(chars, read);
+      }
+      eof();
+    }
+
+    private CharsetDecoder decoder(Charset charset) {
+      if (decoder == null || !decoder.charset().equals(charset)) {
+        // same replacement of invalid input as InputStreamReader
+        decoder = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      } else {
+        decoder.reset();
+      }
+      return decoder;
+    }
+
+    private void processCharBuffer() {
+      charBuffer.flip();
+      process(chars, charBuffer.limit());
+      charBuffer.clear();
+    }
+
+    private void process(char[] buffer, int length) {
+      for (int i = 0; i < length; i++) {
+        char c = buffer[i];
+        if (afterCR) {
+          if (c == CARRIAGE_RETURN) {
+            newLine();
+            handleAll(c);
+          } else if (c == LINE_FEED) {
+            handleAll(c);
+            newLine();
+            afterCR = false;
+          } else {
+            newLine();
+            handleIgnoreEoL(c);
+            handleAll(c);
+            afterCR = false;
+          }
+        } else if (c == LINE_FEED) {
+          handleAll(c);
+          newLine();
+        } else if (c == CARRIAGE_RETURN) {
+          afterCR = true;
+          handleAll(c);
+        } else {
+          handleIgnoreEoL(c);
+          handleAll(c);
+        }
+      }
+    }
+
+    private void handleAll(char c) {
+      currentOriginalOffset++;
+      if (!alreadyLoggedInvalidCharacter && c == '\ufffd' && computeMetadata) {
+        LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", file,
+          lines, encoding, CoreProperties.ENCODING_PROPERTY);
+        alreadyLoggedInvalidCharacter = true;
+      }
+      for (CharHandler handler : handlers) {
+        handler.handleAll(c);
+      }
+    }
+
+    private void handleIgnoreEoL(char c) {
+      if (!Character.isWhitespace(c)) {
+        blankLine = false;
+        if (lineHashConsumer != null) {
+          lineDigest.append(c);
+        }
+      }
+      if (computeMetadata) {
+        fileDigest.append(c);
+      }
+      for (CharHandler handler : handlers) {
+        handler.handleIgnoreEoL(c);
+      }
+    }
+
+    private void newLine() {
+      if (computeMetadata) {
+        if (!blankLine) {
+          nonBlankLines++;
+        }
+        fileDigest.append(LINE_FEED);
+        if (currentOriginalOffset > Integer.MAX_VALUE) {
+          throw new IllegalStateException("File is too big: " + currentOriginalOffset);
+        }
+        originalLineOffsets.add((int) currentOriginalOffset);
+      }
+      if (lineHashConsumer != null) {
+        consumeLineHash();
+      }
+      blankLine = true;
+      lines++;
+      for (CharHandler handler : handlers) {
+        handler.newLine();
+      }
+    }
+
+    private void eof() {
+      if (afterCR) {
+        newLine();
+      }
+      if (!blankLine) {
+        nonBlankLines++;
+      }
+      lastValidOffset = currentOriginalOffset;
+      if (lineHashConsumer != null) {
+        consumeLineHash();
+      }
+      for (CharHandler handler : handlers) {
+        handler.eof();
+      }
+    }
+
+    private void consumeLineHash() {
+      if (lineDigest.hasContent()) {
+        lineHashConsumer.consume(lines, lineDigest.digest());
+      }
+    }
+
+    Metadata metadata() {
+      if (lastValidOffset > Integer.MAX_VALUE) {
+        throw new IllegalStateException("File is too big: " + lastValidOffset);
+      }
+      return new Metadata(lines, nonBlankLines, Hex.encodeHexString(fileDigest.digest()), originalLineOffsets.trimAndGet(), (int) lastValidOffset);
+    }
+  }
+
+  /**
+   * MD5 of chars encoded to UTF-8. Unpaired surrogates are replaced by '?', like the replacement
+   * of the UTF-8 {@link java.nio.charset.CharsetEncoder}.
+   */
+  private static final class Utf8Digest {
+    private static final byte REPLACEMENT = '?';
+
+    private final MessageDigest md5 = DigestUtils.getMd5Digest();
+    private final byte[] buffer = new byte[8 * 1024];
+    private int length = 0;
+    private boolean content = false;
+    private char pendingHighSurrogate = 0;
+
+    void reset() {
+      md5.reset();
+      length = 0;
+      content = false;
+      pendingHighSurrogate = 0;
+    }
+
+    void append(char c) {
+      if (length > buffer.length - 4) {
+        flush();
+      }
+      content = true;
+      if (pendingHighSurrogate != 0) {
+        char high = pendingHighSurrogate;
+        pendingHighSurrogate = 0;
+        if (Character.isLowSurrogate(c)) {
+          int codePoint = Character.toCodePoint(high, c);
+          buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+          buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+          return;
+        }
+        buffer[length++] = REPLACEMENT;
+      }
+      if (c < 0x80) {
+        buffer[length++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[length++] = (byte) (0xC0 | (c >> 6));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)) {
+        pendingHighSurrogate = c;
+      } else if (Character.isLowSurrogate(c)) {
+        buffer[length++] = REPLACEMENT;
+      } else {
+        buffer[length++] = (byte) (0xE0 | (c >> 12));
+        buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[length++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+
+    boolean hasContent() {
+      return content;
+    }
+
+    private void flush() {
+      md5.update(buffer, 0, length);
+      length = 0;
+    }
+
+    /**
+     * Digest of the chars appended since the previous digest
+     */
+    byte[] digest() {
+      if (pendingHighSurrogate != 0) {
+        pendingHighSurrogate = 0;
+        buffer[length++] = REPLACEMENT;
+      }
+      flush();
+      content = false;
+      return md5.digest();
+    }
   }
 }
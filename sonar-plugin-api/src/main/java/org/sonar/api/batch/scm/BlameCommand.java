@@ -43,6 +43,16 @@ public abstract class BlameCommand {
    */
   public abstract void blame(BlameInput input, BlameOutput output);
 
+  /**
+   * Whether {@link #blame(BlameInput, BlameOutput)} can be called concurrently. In this case the scanner
+   * splits the files to blame into partitions, which are blamed by a pool of threads, each call receiving
+   * the {@link BlameInput} of a single partition. Default is false.
+   * @since 6.4
+   */
+  public boolean supportsConcurrency() {
+    return false;
+  }
+
   /**
    * Callback for the provider to report results of blame per file.
    */
@@ -84,4 +84,17 @@ public interface SensorDescriptor {
    * @since 6.4
    */
   SensorDescriptor global();
+
+  /**
+   * This sensor does not depend on data produced by other sensors, and does not share mutable state with them.
+   * When parallel execution of sensors is enabled on scanner side, it can be executed concurrently with the other
+   * independent sensors that do not work on the same languages.
+   * See {@link #onlyOnLanguages(String...)}
+   * <p/>
+   * The default implementation does nothing, so that other implementations of this interface are still compatible.
+   * @since 6.4
+   */
+  default SensorDescriptor independent() {
+    return this;
+  }
 }
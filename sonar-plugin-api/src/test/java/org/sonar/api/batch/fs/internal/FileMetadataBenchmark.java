@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the fused reader of {@link FileMetadata} with the computation by one {@link FileMetadata.CharHandler} per value.
+ * Not executed by the build. Run it from the IDE or with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.sonar.api.batch.fs.internal.FileMetadataBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  @Param({"100", "10000"})
+  public int lines;
+
+  private File file;
+  private DefaultInputFile inputFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    File dir = Files.createTempDirectory("file-metadata-benchmark").toFile();
+    file = new File(dir, "Sample.java");
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      if (i % 10 == 0) {
+        content.append('\n');
+      } else {
+        content.append("    String value").append(i).append(" = \"résumé \" + compute(").append(i).append(", \"").append(i).append("\");\n");
+      }
+    }
+    FileUtils.write(file, content, StandardCharsets.UTF_8);
+    inputFile = new TestInputFileBuilder("foo", file.getName())
+      .setModuleBaseDir(dir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(file.getParentFile());
+  }
+
+  @Benchmark
+  public Metadata metadata_with_fused_reader() {
+    return new FileMetadata().readMetadata(file, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Metadata metadata_with_char_handlers() {
+    return CharHandlerFileMetadata.readMetadata(file, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void line_hashes_with_fused_reader(Blackhole blackhole) {
+    FileMetadata.computeLineHashesForIssueTracking(inputFile, (line, hash) -> blackhole.consume(hash));
+  }
+
+  @Benchmark
+  public void line_hashes_with_char_handlers(Blackhole blackhole) {
+    CharHandlerFileMetadata.computeLineHashes(file, StandardCharsets.UTF_8, (line, hash) -> blackhole.consume(hash));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FileMetadataBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -22,6 +22,10 @@ package org.sonar.api.batch.fs.internal;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
@@ -61,6 +65,31 @@ public class FileMetadataTest {
     assertThat(metadata.lastValidOffset()).isEqualTo(0);
   }
 
+  @Test
+  public void feed_other_handlers_while_reading_metadata() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "foo\r\nbar\nbaz", StandardCharsets.UTF_8, true);
+    StringBuilder content = new StringBuilder();
+    int[] newLines = new int[1];
+
+    Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8, new FileMetadata.CharHandler() {
+      @Override
+      protected void handleIgnoreEoL(char c) {
+        content.append(c);
+      }
+
+      @Override
+      protected void newLine() {
+        newLines[0]++;
+      }
+    });
+
+    assertThat(metadata.lines()).isEqualTo(3);
+    assertThat(metadata.hash()).isEqualTo(md5Hex("foo\nbar\nbaz"));
+    assertThat(content.toString()).isEqualTo("foobarbaz");
+    assertThat(newLines[0]).isEqualTo(2);
+  }
+
   @Test
   public void windows_without_latest_eol() throws Exception {
     File tempFile = temp.newFile();
@@ -318,4 +347,51 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+  @Test
+  public void compute_same_values_as_char_handlers() throws Exception {
+    Random random = new Random(42);
+    char[] alphabet = {'a', 'Z', '0', ' ', '\t', '\n', '\r', '\u00e9', '\u20ac', '\ud83d', '\ude00', '\ufffd', '\u00a0', '\u2028'};
+    for (int i = 0; i < 30; i++) {
+      // content up to 3 times the size of the read buffers
+      StringBuilder content = new StringBuilder();
+      int length = i < 10 ? i : random.nextInt(200_000);
+      for (int j = 0; j < length; j++) {
+        content.append(alphabet[random.nextInt(alphabet.length)]);
+      }
+      for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, StandardCharsets.ISO_8859_1)) {
+        File file = temp.newFile();
+        FileUtils.write(file, content, charset);
+        assertSameValues(file, charset);
+      }
+    }
+  }
+
+  @Test
+  public void compute_same_values_as_char_handlers_on_binary_file() throws Exception {
+    File woff = new File(this.getClass().getResource("glyphicons-halflings-regular.woff").toURI());
+
+    assertSameValues(woff, StandardCharsets.UTF_8);
+    assertSameValues(woff, StandardCharsets.UTF_16);
+  }
+
+  private static void assertSameValues(File file, Charset charset) {
+    Metadata expected = CharHandlerFileMetadata.readMetadata(file, charset);
+    Metadata metadata = new FileMetadata().readMetadata(file, charset);
+    assertThat(metadata.lines()).isEqualTo(expected.lines());
+    assertThat(metadata.nonBlankLines()).isEqualTo(expected.nonBlankLines());
+    assertThat(metadata.hash()).isEqualTo(expected.hash());
+    assertThat(metadata.originalLineOffsets()).isEqualTo(expected.originalLineOffsets());
+    assertThat(metadata.lastValidOffset()).isEqualTo(expected.lastValidOffset());
+
+    Map<Integer, String> expectedLineHashes = new HashMap<>();
+    CharHandlerFileMetadata.computeLineHashes(file, charset, (line, hash) -> expectedLineHashes.put(line, Hex.encodeHexString(hash)));
+    Map<Integer, String> lineHashes = new HashMap<>();
+    DefaultInputFile f = new TestInputFileBuilder("foo", file.getName())
+      .setModuleBaseDir(file.getParentFile().toPath())
+      .setCharset(charset)
+      .build();
+    FileMetadata.computeLineHashesForIssueTracking(f, (line, hash) -> lineHashes.put(line, Hex.encodeHexString(hash)));
+    assertThat(lineHashes).isEqualTo(expectedLineHashes);
+  }
+
 }
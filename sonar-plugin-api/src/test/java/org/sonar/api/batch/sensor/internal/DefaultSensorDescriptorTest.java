@@ -41,6 +41,16 @@ public class DefaultSensorDescriptorTest {
     assertThat(descriptor.type()).isEqualTo(InputFile.Type.MAIN);
     assertThat(descriptor.properties()).containsOnly("sonar.foo.reportPath");
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
+    assertThat(descriptor.isIndependent()).isFalse();
+  }
+
+  @Test
+  public void describe_independent_sensor() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor()
+      .onlyOnLanguage("java")
+      .independent();
+
+    assertThat(descriptor.isIndependent()).isTrue();
   }
 
 }
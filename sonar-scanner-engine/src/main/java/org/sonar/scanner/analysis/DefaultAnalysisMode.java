@@ -34,8 +34,10 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultAnalysisMode.class);
   private static final String KEY_SCAN_ALL = "sonar.scanAllFiles";
+  private static final String KEY_INCREMENTAL = "sonar.incremental";
 
   private boolean scanAllFiles;
+  private boolean incremental;
 
   public DefaultAnalysisMode(GlobalProperties globalProps, AnalysisProperties props) {
     init(globalProps.properties(), props.properties());
@@ -45,6 +47,15 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
     return scanAllFiles;
   }
 
+  /**
+   * In incremental mode, only files changed or added since the previous analysis are analyzed and the report
+   * published to the server carries no data for the unchanged ones.
+   * @since 6.4
+   */
+  public boolean isIncremental() {
+    return incremental;
+  }
+
   private void init(Map<String, String> globalProps, Map<String, String> analysisProps) {
     // make sure analysis is consistent with global properties
     boolean globalPreview = isIssues(globalProps);
@@ -62,8 +73,9 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
     validate(mode);
     issues = CoreProperties.ANALYSIS_MODE_ISSUES.equals(mode) || CoreProperties.ANALYSIS_MODE_PREVIEW.equals(mode);
     mediumTestMode = "true".equals(getPropertyWithFallback(analysisProps, globalProps, MEDIUM_TEST_ENABLED));
+    incremental = !issues && "true".equals(getPropertyWithFallback(analysisProps, globalProps, KEY_INCREMENTAL));
     String scanAllStr = getPropertyWithFallback(analysisProps, globalProps, KEY_SCAN_ALL);
-    scanAllFiles = !issues || "true".equals(scanAllStr);
+    scanAllFiles = !incremental && (!issues || "true".equals(scanAllStr));
   }
 
   public void printMode() {
@@ -77,6 +89,9 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
     if (mediumTestMode) {
       LOG.info("Medium test mode");
     }
+    if (incremental) {
+      LOG.info("Incremental mode");
+    }
     if (!scanAllFiles) {
       LOG.info("Scanning only changed files");
     }
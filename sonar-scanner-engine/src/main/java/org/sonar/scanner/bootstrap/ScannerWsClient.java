@@ -28,34 +28,53 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.scanner.bootstrap.WsResponseCache.CachedWsResponse;
+import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.WsClient;
 import org.sonarqube.ws.client.WsConnector;
 import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+import static org.apache.commons.lang.StringUtils.defaultString;
 
 public class ScannerWsClient {
 
   private static final Logger LOG = Loggers.get(ScannerWsClient.class);
+  private static final String NO_STORE = "no-store";
 
   private final WsClient target;
   private final boolean hasCredentials;
   private final GlobalMode globalMode;
+  @Nullable
+  private final WsResponseCache cache;
 
   public ScannerWsClient(WsClient target, boolean hasCredentials, GlobalMode globalMode) {
+    this(target, hasCredentials, globalMode, null);
+  }
+
+  public ScannerWsClient(WsClient target, boolean hasCredentials, GlobalMode globalMode, @Nullable WsResponseCache cache) {
     this.target = target;
     this.hasCredentials = hasCredentials;
     this.globalMode = globalMode;
+    this.cache = cache;
   }
 
   /**
@@ -68,11 +87,70 @@ public class ScannerWsClient {
    * @throws HttpException if the response code is not in range [200..300)
    */
   public WsResponse call(WsRequest request) {
+    WsResponse response = execute(request);
+    failIfUnauthorized(response);
+    return response;
+  }
+
+  /**
+   * Same as {@link #call(WsRequest)}, except that responses having an ETag are kept in a local cache. When a
+   * response is already cached, the request is sent with the header If-None-Match and the cached response
+   * is returned if server answers 304 (Not Modified). Responses with header Cache-Control: no-store, for example
+   * when they contain secured settings, are never cached.
+   */
+  public WsResponse callWithCache(GetRequest request) {
+    if (cache == null) {
+      return call(request);
+    }
+    String key = WsResponseCache.keyOf(baseUrl(), request);
+    Optional<CachedWsResponse> cached = cache.get(key, request.getPath());
+    cached.ifPresent(c -> request.setHeader(IF_NONE_MATCH, c.etag()));
+    WsResponse response = execute(request);
+    if (response.code() == HTTP_NOT_MODIFIED && cached.isPresent()) {
+      response.close();
+      LOG.debug("Use cached response of {}", response.requestUrl());
+      return cached.get();
+    }
+    failIfUnauthorized(response);
+    Optional<String> etag = response.header(ETAG);
+    if (etag.isPresent() && !isNoStore(response)) {
+      return cache.put(key, etag.get(), response);
+    }
+    cache.remove(key);
+    return response;
+  }
+
+  /**
+   * Keeps in the local cache, as the response of the given request, a content derived from another response of server,
+   * for example a complete response built from a previous cached response and the changes returned by server.
+   * The ETag and the header Cache-Control of the server response apply. As the ETag is not the one of the given request,
+   * the next conditional request does not match and the cached content is replaced by the response of server.
+   * Does nothing if the cache is disabled.
+   */
+  public void cacheAs(GetRequest request, WsResponse serverResponse, byte[] content) {
+    if (cache == null) {
+      return;
+    }
+    String key = WsResponseCache.keyOf(baseUrl(), request);
+    Optional<String> etag = serverResponse.header(ETAG);
+    if (etag.isPresent() && !isNoStore(serverResponse)) {
+      cache.put(key, etag.get(), serverResponse.requestUrl(), defaultString(serverResponse.contentType()), content);
+    } else {
+      cache.remove(key);
+    }
+  }
+
+  private static boolean isNoStore(WsResponse response) {
+    return response.header(CACHE_CONTROL)
+      .map(value -> value.toLowerCase(Locale.ENGLISH).contains(NO_STORE))
+      .orElse(false);
+  }
+
+  private WsResponse execute(WsRequest request) {
     Preconditions.checkState(!globalMode.isMediumTest(), "No WS call should be made in medium test mode");
     Profiler profiler = Profiler.createIfDebug(LOG).start();
     WsResponse response = target.wsConnector().call(request);
     profiler.stopDebug(format("%s %d %s", request.getMethod(), response.code(), response.requestUrl()));
-    failIfUnauthorized(response);
     return response;
   }
 
@@ -85,6 +163,23 @@ public class ScannerWsClient {
     return target.wsConnector();
   }
 
+  /**
+   * The response of a request kept in the local cache by {@link #callWithCache(GetRequest)}, without calling server.
+   * Empty if the cache is disabled or does not contain the response.
+   */
+  public Optional<WsResponse> cachedResponse(GetRequest request) {
+    if (cache == null) {
+      return Optional.empty();
+    }
+    return cache.get(WsResponseCache.keyOf(baseUrl(), request), request.getPath()).map(WsResponse.class::cast);
+  }
+
+  @VisibleForTesting
+  @CheckForNull
+  WsResponseCache cache() {
+    return cache;
+  }
+
   private void failIfUnauthorized(WsResponse response) {
     int code = response.code();
     if (code == HTTP_UNAUTHORIZED) {
@@ -19,10 +19,13 @@
  */
 package org.sonar.scanner.bootstrap;
 
+import javax.annotation.CheckForNull;
 import org.picocontainer.injectors.ProviderAdapter;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.batch.bootstrapper.EnvironmentInformation;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.FileCacheBuilder;
 import org.sonarqube.ws.client.HttpConnector;
 import org.sonarqube.ws.client.WsClientFactories;
 
@@ -36,6 +39,8 @@ public class ScannerWsClientProvider extends ProviderAdapter {
   static final int CONNECT_TIMEOUT_MS = 5_000;
   static final String READ_TIMEOUT_SEC_PROPERTY = "sonar.ws.timeout";
   static final int DEFAULT_READ_TIMEOUT_SEC = 60;
+  static final String CACHE_ENABLED_PROPERTY = "sonar.ws.cache";
+  static final String CACHE_DIR = "_ws";
 
   private ScannerWsClient wsClient;
 
@@ -59,8 +64,21 @@ public class ScannerWsClientProvider extends ProviderAdapter {
         connectorBuilder.proxyCredentials(proxyUser, System.getProperty("http.proxyPassword"));
       }
 
-      wsClient = new ScannerWsClient(WsClientFactories.getDefault().newClient(connectorBuilder.build()), login != null, globalMode);
+      wsClient = new ScannerWsClient(WsClientFactories.getDefault().newClient(connectorBuilder.build()), login != null, globalMode,
+        createCache(settings));
     }
     return wsClient;
   }
+
+  @CheckForNull
+  private static WsResponseCache createCache(GlobalProperties settings) {
+    if ("false".equals(settings.property(CACHE_ENABLED_PROPERTY))) {
+      return null;
+    }
+    // same location as the cache of plugins, see FileCacheProvider
+    FileCache fileCache = new FileCacheBuilder(new Slf4jLogger()).setUserHome(settings.property("sonar.userHome")).build();
+    WsResponseCache cache = new WsResponseCache(fileCache.getDir().toPath().resolve(CACHE_DIR));
+    cache.cleanUp(System.currentTimeMillis(), WsResponseCache.MAX_AGE_MS, WsResponseCache.MAX_SIZE_BYTES);
+    return cache;
+  }
 }
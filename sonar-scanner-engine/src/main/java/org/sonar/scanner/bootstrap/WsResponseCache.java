@@ -0,0 +1,347 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.apache.commons.lang.StringUtils.defaultString;
+
+/**
+ * Local cache of the responses of web services, stored with their ETag so that they can be
+ * revalidated against server with conditional requests.
+ * <p/>
+ * Each response is stored in a single file, replaced atomically, so that the cache can be shared
+ * by concurrent analyses. Files are created with owner-only permissions when supported by the file system.
+ * <p/>
+ * The date of last modification of a file is updated each time the response is read, so that the least recently
+ * used responses can be removed by {@link #cleanUp(long, long, long)}.
+ */
+public class WsResponseCache {
+
+  private static final Logger LOG = Loggers.get(WsResponseCache.class);
+  private static final String ETAG_HEADER = "ETag";
+  static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+  static final long MAX_SIZE_BYTES = 100L * 1024 * 1024;
+
+  private final Path dir;
+
+  public WsResponseCache(Path dir) {
+    this.dir = dir;
+  }
+
+  Path dir() {
+    return dir;
+  }
+
+  static String keyOf(String baseUrl, WsRequest request) {
+    StringBuilder url = new StringBuilder(baseUrl).append(request.getPath()).append('\n').append(request.getMediaType());
+    request.getParameters().getKeys()
+      .forEach(key -> request.getParameters().getValues(key).forEach(value -> url.append('\n').append(key).append('=').append(value)));
+    return Hashing.sha256().hashString(url, UTF_8).toString();
+  }
+
+  Optional<CachedWsResponse> get(String key, String requestUrl) {
+    Path file = dir.resolve(key);
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      String etag = input.readUTF();
+      String contentType = input.readUTF();
+      touch(file);
+      return Optional.of(new CachedWsResponse(file, requestUrl, etag, contentType));
+    } catch (IOException e) {
+      LOG.debug(format("Fail to read cached response of %s", requestUrl), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores the body of a successful response. The response is consumed, the returned one must be used instead.
+   * If the body can't be written to disk, it is still returned but is not cached.
+   */
+  WsResponse put(String key, String etag, WsResponse response) {
+    String contentType = defaultString(response.contentType());
+    byte[] body;
+    try (InputStream input = response.contentStream()) {
+      body = IOUtils.toByteArray(input);
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to read response of %s", response.requestUrl()), e);
+    } finally {
+      response.close();
+    }
+    return put(key, etag, response.requestUrl(), contentType, body);
+  }
+
+  /**
+   * Stores a body that has already been read, for example a response built from a previous cached response.
+   * If the body can't be written to disk, it is still returned but is not cached.
+   */
+  WsResponse put(String key, String etag, String requestUrl, String contentType, byte[] body) {
+    Path tmp = null;
+    try {
+      Files.createDirectories(dir);
+      tmp = Files.createTempFile(dir, key, ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        output.writeUTF(etag);
+        output.writeUTF(contentType);
+        output.write(body);
+      }
+      Path file = dir.resolve(key);
+      Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+      return new CachedWsResponse(file, requestUrl, etag, contentType);
+    } catch (IOException e) {
+      LOG.debug(format("Fail to cache response of %s in %s", requestUrl, dir), e);
+      deleteQuietly(tmp);
+      return new BufferedWsResponse(body, requestUrl, etag, contentType);
+    }
+  }
+
+  void remove(String key) {
+    try {
+      Files.deleteIfExists(dir.resolve(key));
+    } catch (IOException e) {
+      LOG.debug(format("Fail to remove cached response %s", key), e);
+    }
+  }
+
+  /**
+   * Removes the responses that have not been used since {@code maxAgeMs}, then the least recently used ones
+   * until the size of the cache is below {@code maxSizeBytes}. A response removed while it is used by a concurrent
+   * analysis is simply requested again from server by the next analysis.
+   */
+  void cleanUp(long nowMs, long maxAgeMs, long maxSizeBytes) {
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    List<CacheFile> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path file : stream) {
+        readCacheFile(file).ifPresent(files::add);
+      }
+    } catch (IOException e) {
+      LOG.debug(format("Fail to list cached responses in %s", dir), e);
+      return;
+    }
+    // most recently used first
+    files.sort(Comparator.comparingLong((CacheFile f) -> f.lastModifiedMs).reversed());
+    long size = 0L;
+    for (CacheFile file : files) {
+      size += file.size;
+      if (nowMs - file.lastModifiedMs > maxAgeMs || size > maxSizeBytes) {
+        deleteQuietly(file.path);
+      }
+    }
+  }
+
+  private static Optional<CacheFile> readCacheFile(Path file) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      if (attributes.isRegularFile()) {
+        return Optional.of(new CacheFile(file, attributes.lastModifiedTime().toMillis(), attributes.size()));
+      }
+    } catch (IOException e) {
+      // removed by a concurrent analysis
+      LOG.debug(format("Fail to read attributes of %s", file), e);
+    }
+    return Optional.empty();
+  }
+
+  private static void touch(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      LOG.debug(format("Fail to update date of %s", file), e);
+    }
+  }
+
+  private static void deleteQuietly(@Nullable Path file) {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.debug(format("Fail to delete %s", file), e);
+      }
+    }
+  }
+
+  private static class CacheFile {
+    private final Path path;
+    private final long lastModifiedMs;
+    private final long size;
+
+    private CacheFile(Path path, long lastModifiedMs, long size) {
+      this.path = path;
+      this.lastModifiedMs = lastModifiedMs;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Successful response whose body is not streamed from server anymore
+   */
+  private abstract static class StoredWsResponse implements WsResponse {
+    private final String requestUrl;
+    private final String etag;
+    private final String contentType;
+
+    private StoredWsResponse(String requestUrl, String etag, String contentType) {
+      this.requestUrl = requestUrl;
+      this.etag = etag;
+      this.contentType = contentType;
+    }
+
+    abstract InputStream openContent() throws IOException;
+
+    String etag() {
+      return etag;
+    }
+
+    @Override
+    public String requestUrl() {
+      return requestUrl;
+    }
+
+    @Override
+    public int code() {
+      return HTTP_OK;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+      return true;
+    }
+
+    @Override
+    public WsResponse failIfNotSuccessful() {
+      return this;
+    }
+
+    @Override
+    public String contentType() {
+      return contentType;
+    }
+
+    @Override
+    public Optional<String> header(String name) {
+      return ETAG_HEADER.equalsIgnoreCase(name) ? Optional.of(etag) : Optional.empty();
+    }
+
+    @Override
+    public boolean hasContent() {
+      return true;
+    }
+
+    @Override
+    public InputStream contentStream() {
+      try {
+        return openContent();
+      } catch (IOException e) {
+        throw new IllegalStateException(format("Fail to read cached response of %s", requestUrl), e);
+      }
+    }
+
+    @Override
+    public Reader contentReader() {
+      return new InputStreamReader(contentStream(), UTF_8);
+    }
+
+    @Override
+    public String content() {
+      try (InputStream input = contentStream()) {
+        return IOUtils.toString(input, UTF_8);
+      } catch (IOException e) {
+        throw new IllegalStateException(format("Fail to read cached response of %s", requestUrl), e);
+      }
+    }
+
+    @Override
+    public void close() {
+      // streams are closed by callers
+    }
+  }
+
+  static class CachedWsResponse extends StoredWsResponse {
+    private final Path file;
+
+    private CachedWsResponse(Path file, String requestUrl, String etag, String contentType) {
+      super(requestUrl, etag, contentType);
+      this.file = file;
+    }
+
+    @Override
+    InputStream openContent() throws IOException {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+      try {
+        // skip ETag and content type
+        input.readUTF();
+        input.readUTF();
+        return input;
+      } catch (IOException e) {
+        IOUtils.closeQuietly(input);
+        throw e;
+      }
+    }
+  }
+
+  private static class BufferedWsResponse extends StoredWsResponse {
+    private final byte[] content;
+
+    private BufferedWsResponse(byte[] content, String requestUrl, String etag, String contentType) {
+      super(requestUrl, etag, contentType);
+      this.content = content;
+    }
+
+    @Override
+    InputStream openContent() {
+      return new ByteArrayInputStream(content);
+    }
+  }
+}
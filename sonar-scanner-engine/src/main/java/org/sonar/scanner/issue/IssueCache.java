@@ -26,7 +26,7 @@ import org.sonar.scanner.storage.Storages;
 import java.util.Collection;
 
 /**
- * Shared issues among all project modules
+ * Shared issues among all project modules. Issues can be put concurrently, as issues of components are tracked in parallel.
  */
 @ScannerSide
 public class IssueCache {
@@ -50,12 +50,12 @@ public class IssueCache {
     return cache.keySet();
   }
 
-  public IssueCache put(TrackedIssue issue) {
+  public synchronized IssueCache put(TrackedIssue issue) {
     cache.put(issue.componentKey(), issue.key(), issue);
     return this;
   }
 
-  public void clear(String componentKey) {
+  public synchronized void clear(String componentKey) {
     cache.clear(componentKey);
   }
 }
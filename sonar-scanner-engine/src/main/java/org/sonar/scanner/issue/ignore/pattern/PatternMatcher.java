@@ -24,17 +24,21 @@ import org.sonar.api.scan.issue.filter.FilterableIssue;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
 
+/**
+ * Patterns are added while files are indexed in parallel, so access is synchronized.
+ */
 public class PatternMatcher {
 
   private Multimap<String, IssuePattern> patternByComponent = LinkedHashMultimap.create();
 
-  public IssuePattern getMatchingPattern(FilterableIssue issue) {
+  public synchronized IssuePattern getMatchingPattern(FilterableIssue issue) {
     IssuePattern matchingPattern = null;
-    Iterator<IssuePattern> patternIterator = getPatternsForComponent(issue.componentKey()).iterator();
+    Iterator<IssuePattern> patternIterator = patternByComponent.get(issue.componentKey()).iterator();
     while(matchingPattern == null && patternIterator.hasNext()) {
       IssuePattern nextPattern = patternIterator.next();
       if (nextPattern.match(issue)) {
@@ -44,19 +48,19 @@ public class PatternMatcher {
     return matchingPattern;
   }
 
-  public Collection<IssuePattern> getPatternsForComponent(String componentKey) {
-    return patternByComponent.get(componentKey);
+  public synchronized Collection<IssuePattern> getPatternsForComponent(String componentKey) {
+    return new ArrayList<>(patternByComponent.get(componentKey));
   }
 
-  public void addPatternForComponent(String component, IssuePattern pattern) {
+  public synchronized void addPatternForComponent(String component, IssuePattern pattern) {
     patternByComponent.put(component, pattern.forResource(component));
   }
 
-  public void addPatternToExcludeResource(String resource) {
+  public synchronized void addPatternToExcludeResource(String resource) {
     addPatternForComponent(resource, new IssuePattern(resource, "*").setCheckLines(false));
   }
 
-  public void addPatternToExcludeLines(String resource, Set<LineRange> lineRanges) {
+  public synchronized void addPatternToExcludeLines(String resource, Set<LineRange> lineRanges) {
     addPatternForComponent(resource, new IssuePattern(resource, "*", lineRanges).setCheckLines(true));
   }
 
@@ -26,17 +26,18 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssueInclusionPatternInitializer;
 
+/**
+ * Initializes the issue exclusion patterns of each file. The content of files is scanned by {@link IssueExclusionsRegexpScanner}
+ * while their metadata is computed, so this only triggers the computation of metadata that was not loaded during indexing.
+ */
 public final class IssueExclusionsLoader {
 
-  private final IssueExclusionsRegexpScanner regexpScanner;
   private final IssueExclusionPatternInitializer exclusionPatternInitializer;
   private final IssueInclusionPatternInitializer inclusionPatternInitializer;
   private final FileSystem fileSystem;
 
-  public IssueExclusionsLoader(IssueExclusionsRegexpScanner regexpScanner, IssueExclusionPatternInitializer exclusionPatternInitializer,
-    IssueInclusionPatternInitializer inclusionPatternInitializer,
+  public IssueExclusionsLoader(IssueExclusionPatternInitializer exclusionPatternInitializer, IssueInclusionPatternInitializer inclusionPatternInitializer,
     FileSystem fileSystem) {
-    this.regexpScanner = regexpScanner;
     this.exclusionPatternInitializer = exclusionPatternInitializer;
     this.inclusionPatternInitializer = inclusionPatternInitializer;
     this.fileSystem = fileSystem;
@@ -61,7 +62,7 @@ public final class IssueExclusionsLoader {
           inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
           exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
           if (exclusionPatternInitializer.hasFileContentPattern()) {
-            regexpScanner.scan(componentEffectiveKey, inputFile.file(), sourcesEncoding);
+            ((DefaultInputFile) inputFile).checkMetadata();
           }
         }
       } catch (Exception e) {
@@ -19,139 +19,199 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.FileMetadata.CharHandler;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
+/**
+ * Looks for the all-file and block exclusion patterns in the content of files. The scanning is done by a {@link CharHandler},
+ * so that it can be done while the file is read to compute its metadata. Handlers are created per file and
+ * can be used concurrently.
+ */
 @ScannerSide
 public class IssueExclusionsRegexpScanner {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
 
-  private IssueExclusionPatternInitializer exclusionPatternInitializer;
-  private List<java.util.regex.Pattern> allFilePatterns;
-  private List<DoubleRegexpMatcher> blockMatchers;
-
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
+  private final IssueExclusionPatternInitializer exclusionPatternInitializer;
+  private final MultiPatternMatcher allFileMatcher;
+  private final List<DoubleRegexpMatcher> blockMatchers;
+  private final MultiPatternMatcher beginBlockMatcher;
 
   public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = new ArrayList<>();
-    allFilePatterns = new ArrayList<>();
-    blockMatchers = new ArrayList<>();
-
+    List<Pattern> allFilePatterns = new ArrayList<>();
     for (IssuePattern pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern.getAllFileRegexp()));
+      allFilePatterns.add(Pattern.compile(pattern.getAllFileRegexp()));
     }
+    allFileMatcher = new MultiPatternMatcher(allFilePatterns);
+
+    blockMatchers = new ArrayList<>();
+    List<Pattern> beginBlockPatterns = new ArrayList<>();
     for (IssuePattern pattern : patternsInitializer.getBlockPatterns()) {
-      blockMatchers.add(new DoubleRegexpMatcher(
-        java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-        java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+      DoubleRegexpMatcher matcher = new DoubleRegexpMatcher(
+        Pattern.compile(pattern.getBeginBlockRegexp()),
+        Pattern.compile(pattern.getEndBlockRegexp()));
+      blockMatchers.add(matcher);
+      beginBlockPatterns.add(matcher.firstPattern);
     }
+    beginBlockMatcher = new MultiPatternMatcher(beginBlockPatterns);
+  }
 
-    init();
+  /**
+   * Whether some all-file or block patterns are configured, so that the content of files has to be scanned.
+   */
+  public boolean hasPatterns() {
+    return !allFileMatcher.isEmpty() || !beginBlockMatcher.isEmpty();
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  public void scan(String resource, File file, Charset sourcesEncoding) {
+    FileMetadata.readFile(file, sourcesEncoding, createCharHandlerFor(resource));
   }
 
-  public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
+  /**
+   * Handler scanning the content of a file. Exclusions found are registered in the pattern matcher at the end of the file.
+   */
+  public CharHandler createCharHandlerFor(String resource) {
     LOG.debug("Scanning {}", resource);
-    init();
+    return new ExclusionsHandler(resource);
+  }
 
-    List<String> lines = Files.readAllLines(file.toPath(), sourcesEncoding);
-    int lineIndex = 0;
-    for (String line : lines) {
+  private class ExclusionsHandler extends CharHandler {
+
+    private final String resource;
+    private final StringBuilder line = new StringBuilder();
+    private int lineIndex = 1;
+    private boolean fileExcluded = false;
+    private DoubleRegexpMatcher currentMatcher;
+    private final List<LineExclusion> lineExclusions = new ArrayList<>();
+    private LineExclusion currentLineExclusion;
+
+    ExclusionsHandler(String resource) {
+      this.resource = resource;
+    }
+
+    @Override
+    protected void handleIgnoreEoL(char c) {
+      if (!fileExcluded) {
+        line.append(c);
+      }
+    }
+
+    @Override
+    protected void newLine() {
+      processLine();
+      line.setLength(0);
       lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
+    }
+
+    @Override
+    protected void eof() {
+      int lastLine;
+      if (line.length() > 0) {
+        processLine();
+        lastLine = lineIndex;
+      } else {
+        // a file ending with an EOL does not have an extra empty line
+        lastLine = lineIndex - 1;
+      }
+      if (fileExcluded) {
+        return;
+      }
+
+      if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+        // this will happen when there is a start block regexp but no end block regexp
+        endExclusion(lastLine + 1);
+      }
+
+      // now create the new line-based pattern for this file if there are exclusions
+      if (!lineExclusions.isEmpty()) {
+        Set<LineRange> lineRanges = convertLineExclusionsToLineRanges(lastLine);
+        LOG.debug("- Line exclusions found: {}", lineRanges);
+        exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+      }
+    }
+
+    private void processLine() {
+      if (fileExcluded || isBlank(line)) {
+        return;
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
-          // nothing more to do on this file
-          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
-          return;
-        }
+      int allFilePattern = allFileMatcher.firstMatch(line);
+      if (allFilePattern >= 0) {
+        exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+        // nothing more to do on this file
+        LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", allFileMatcher.get(allFilePattern));
+        fileExcluded = true;
+        return;
       }
 
       // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
+      checkDoubleRegexps();
     }
 
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
+    private void checkDoubleRegexps() {
+      if (currentMatcher == null) {
+        int blockPattern = beginBlockMatcher.firstMatch(line);
+        if (blockPattern >= 0) {
+          startExclusion();
+          currentMatcher = blockMatchers.get(blockPattern);
+        }
+      } else {
+        if (currentMatcher.matchesSecondPattern(line)) {
+          endExclusion(lineIndex);
+          currentMatcher = null;
+        }
+      }
     }
 
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+    private void startExclusion() {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
     }
-  }
 
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
     }
-    return lineRanges;
-  }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
-        }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
-        endExclusion(lineIndex);
-        currentMatcher = null;
+    private Set<LineRange> convertLineExclusionsToLineRanges(int fileLength) {
+      Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
+      for (LineExclusion lineExclusion : lineExclusions) {
+        lineRanges.add(lineExclusion.toLineRange(fileLength));
       }
+      return lineRanges;
     }
   }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
-
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+  /**
+   * Same as {@link String#trim()} being empty, without creating the string.
+   */
+  private static boolean isBlank(CharSequence line) {
+    for (int i = 0; i < line.length(); i++) {
+      if (line.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -165,7 +225,7 @@ public class IssueExclusionsRegexpScanner {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
@@ -173,19 +233,15 @@ public class IssueExclusionsRegexpScanner {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private Pattern firstPattern;
+    private Pattern secondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
+    DoubleRegexpMatcher(Pattern firstPattern, Pattern secondPattern) {
       this.firstPattern = firstPattern;
       this.secondPattern = secondPattern;
     }
 
-    boolean matchesFirstPattern(String line) {
-      return firstPattern.matcher(line).find();
-    }
-
-    boolean matchesSecondPattern(String line) {
+    boolean matchesSecondPattern(CharSequence line) {
       return hasSecondPattern() && secondPattern.matcher(line).find();
     }
 
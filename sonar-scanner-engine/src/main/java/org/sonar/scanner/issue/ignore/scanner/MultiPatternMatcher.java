@@ -0,0 +1,90 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.CheckForNull;
+
+/**
+ * Finds which of several regular expressions is found in a line. All the expressions are combined into a single
+ * alternation, so a line is scanned once whatever the number of patterns, and the patterns are only evaluated one by one
+ * on the lines where the combined expression is found. Expressions that cannot be safely combined (back references,
+ * unterminated quotes) disable the combination.
+ */
+class MultiPatternMatcher {
+
+  private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\([1-9]|k<|Q)");
+
+  private final Pattern[] patterns;
+  @CheckForNull
+  private final Pattern combined;
+
+  MultiPatternMatcher(List<Pattern> patterns) {
+    this.patterns = patterns.toArray(new Pattern[patterns.size()]);
+    this.combined = combine(this.patterns);
+  }
+
+  @CheckForNull
+  private static Pattern combine(Pattern[] patterns) {
+    if (patterns.length < 2) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Pattern pattern : patterns) {
+      if (pattern.flags() != 0 || NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+        return null;
+      }
+      if (sb.length() > 0) {
+        sb.append('|');
+      }
+      sb.append("(?:").append(pattern.pattern()).append(')');
+    }
+    try {
+      return Pattern.compile(sb.toString());
+    } catch (PatternSyntaxException e) {
+      return null;
+    }
+  }
+
+  boolean isEmpty() {
+    return patterns.length == 0;
+  }
+
+  Pattern get(int index) {
+    return patterns[index];
+  }
+
+  /**
+   * @return index of the first pattern, in declaration order, found in the line, or -1 if none of them is found
+   */
+  int firstMatch(CharSequence line) {
+    if (combined != null && !combined.matcher(line).find()) {
+      return -1;
+    }
+    for (int i = 0; i < patterns.length; i++) {
+      if (patterns[i].matcher(line).find()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -19,9 +19,25 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.ProjectAnalysisInfo;
 import org.sonar.scanner.issue.IssueCache;
@@ -31,43 +47,51 @@ import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 import org.sonar.scanner.util.ProgressReport;
-import javax.annotation.Nullable;
-
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @ScannerSide
 public class IssueTransition {
+  static final String THREADS_PROPERTY = "sonar.scanner.issueTracking.threads";
+
+  private static final Logger LOG = Loggers.get(IssueTransition.class);
+
   private final IssueCache issueCache;
   private final InputComponentStore inputComponentStore;
   private final ReportPublisher reportPublisher;
   private final Date analysisDate;
   @Nullable
   private final LocalIssueTracking localIssueTracking;
+  private final int threads;
 
   public IssueTransition(InputComponentStore inputComponentCache, ProjectAnalysisInfo projectAnalysisInfo, IssueCache issueCache, ReportPublisher reportPublisher,
-    @Nullable LocalIssueTracking localIssueTracking) {
+    Settings settings, @Nullable LocalIssueTracking localIssueTracking) {
     this.inputComponentStore = inputComponentCache;
     this.issueCache = issueCache;
     this.reportPublisher = reportPublisher;
     this.localIssueTracking = localIssueTracking;
     this.analysisDate = projectAnalysisInfo.analysisDate();
+    int configuredThreads = settings.getInt(THREADS_PROPERTY);
+    this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
   }
 
-  public IssueTransition(InputComponentStore inputComponentCache, ProjectAnalysisInfo projectAnalysisInfo, IssueCache issueCache, ReportPublisher reportPublisher) {
-    this(inputComponentCache, projectAnalysisInfo, issueCache, reportPublisher, null);
+  public IssueTransition(InputComponentStore inputComponentCache, ProjectAnalysisInfo projectAnalysisInfo, IssueCache issueCache, ReportPublisher reportPublisher,
+    Settings settings) {
+    this(inputComponentCache, projectAnalysisInfo, issueCache, reportPublisher, settings, null);
   }
 
-  public void execute() {
+  public void loadServerIssues() {
     if (localIssueTracking != null) {
       localIssueTracking.init();
     }
+  }
 
+  /**
+   * Tracks the issues of each component. Components are independent from each other, so they are tracked
+   * concurrently when more than one thread is available.
+   */
+  public void execute() {
     ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
-    int nbComponents = inputComponentStore.all().size();
+    Collection<InputComponent> components = inputComponentStore.all();
+    int nbComponents = components.size();
 
     if (nbComponents == 0) {
       return;
@@ -75,16 +99,62 @@ public class IssueTransition {
 
     ProgressReport progressReport = new ProgressReport("issue-tracking-report", TimeUnit.SECONDS.toMillis(10));
     progressReport.start("Performing issue tracking");
-    int count = 0;
+    AtomicInteger count = new AtomicInteger();
 
     try {
-      for (InputComponent component : inputComponentStore.all()) {
-        trackIssues(reader, (DefaultInputComponent) component);
-        count++;
-        progressReport.message(count + "/" + nbComponents + " components tracked");
+      if (threads > 1 && nbComponents > 1) {
+        trackConcurrently(reader, components, () -> progressReport.message(count.incrementAndGet() + "/" + nbComponents + " components tracked"));
+      } else {
+        for (InputComponent component : components) {
+          trackIssues(reader, (DefaultInputComponent) component);
+          progressReport.message(count.incrementAndGet() + "/" + nbComponents + " components tracked");
+        }
       }
     } finally {
-      progressReport.stop(count + "/" + nbComponents + " components tracked");
+      progressReport.stop(count.get() + "/" + nbComponents + " components tracked");
+    }
+  }
+
+  private void trackConcurrently(ScannerReportReader reader, Collection<InputComponent> components, Runnable onTracked) {
+    int poolSize = Math.min(threads, components.size());
+    LOG.debug("Track issues with {} threads", poolSize);
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("issue-tracking-%d")
+      .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>(components.size());
+      for (InputComponent component : components) {
+        futures.add(executor.submit(() -> {
+          trackIssues(reader, (DefaultInputComponent) component);
+          onTracked.run();
+        }));
+      }
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for all the components, so that no component is still being tracked when the first failure is rethrown.
+   */
+  private static void awaitAll(List<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while tracking issues", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
     }
   }
 
@@ -19,17 +19,24 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.component.ComponentKeys;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
 import org.sonar.scanner.repository.ServerIssuesLoader;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
@@ -49,24 +56,54 @@ public class ServerIssueRepository {
   private final ServerIssuesLoader previousIssuesLoader;
   private final ImmutableProjectReactor reactor;
   private final InputComponentStore resourceCache;
+  private final DefaultAnalysisMode mode;
 
-  public ServerIssueRepository(Storages caches, ServerIssuesLoader previousIssuesLoader, ImmutableProjectReactor reactor, InputComponentStore resourceCache) {
+  public ServerIssueRepository(Storages caches, ServerIssuesLoader previousIssuesLoader, ImmutableProjectReactor reactor, InputComponentStore resourceCache,
+    DefaultAnalysisMode mode) {
     this.caches = caches;
     this.previousIssuesLoader = previousIssuesLoader;
     this.reactor = reactor;
     this.resourceCache = resourceCache;
+    this.mode = mode;
   }
 
   public void load() {
     Profiler profiler = Profiler.create(LOG).startInfo(LOG_MSG);
     this.issuesCache = caches.createCache("previousIssues");
-    caches.registerValueCoder(ServerIssue.class, new ServerIssueValueCoder());
-    previousIssuesLoader.load(reactor.getRoot().getKeyWithBranch(), new SaveIssueConsumer());
+    caches.registerCodec(ServerIssue.class, new ServerIssueValueCoder());
+    String projectKey = reactor.getRoot().getKeyWithBranch();
+    previousIssuesLoader.load(projectKey, new SaveIssueConsumer(), mode.scanAllFiles());
+    if (!mode.scanAllFiles()) {
+      // only changed files are analyzed. Added files have no issues on server and issues of unchanged files are not tracked.
+      List<String> changedFileKeys = changedFileKeys();
+      if (!changedFileKeys.isEmpty()) {
+        previousIssuesLoader.load(projectKey, changedFileKeys, new SaveIssueConsumer());
+      }
+    }
     profiler.stopInfo();
   }
 
+  private List<String> changedFileKeys() {
+    List<String> keys = new ArrayList<>();
+    for (InputFile inputFile : resourceCache.allFiles()) {
+      if (inputFile.status() == InputFile.Status.CHANGED) {
+        DefaultInputFile file = (DefaultInputFile) inputFile;
+        DefaultInputModule module = (DefaultInputModule) resourceCache.getModule(file.moduleKey());
+        keys.add(ComponentKeys.createEffectiveKey(module.definition().getKeyWithBranch(), file));
+      }
+    }
+    return keys;
+  }
+
   public Iterable<ServerIssue> byComponent(InputComponent component) {
-    return issuesCache.values(((DefaultInputComponent) component).batchId());
+    return storedIssues(((DefaultInputComponent) component).batchId());
+  }
+
+  /**
+   * Storage is not thread-safe, while components are tracked concurrently
+   */
+  private synchronized List<ServerIssue> storedIssues(int batchId) {
+    return Lists.newArrayList(issuesCache.values(batchId));
   }
 
   private class SaveIssueConsumer implements Function<ServerIssue, Void> {
@@ -93,6 +130,6 @@ public class ServerIssueRepository {
   }
 
   public Iterable<ServerIssue> issuesOnMissingComponents() {
-    return issuesCache.values(0);
+    return storedIssues(0);
   }
 }
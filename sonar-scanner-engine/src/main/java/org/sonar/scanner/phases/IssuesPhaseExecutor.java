@@ -53,12 +53,20 @@ public final class IssuesPhaseExecutor extends AbstractPhaseExecutor {
 
   @Override
   protected void executeOnRoot() {
+    loadServerIssues();
     localIssueTracking();
     issuesCallback();
     issuesReport();
     LOG.info("ANALYSIS SUCCESSFUL");
   }
 
+  private void loadServerIssues() {
+    String stepName = "Load Server Issues";
+    eventBus.fireEvent(new BatchStepEvent(stepName, true));
+    localIssueTracking.loadServerIssues();
+    eventBus.fireEvent(new BatchStepEvent(stepName, false));
+  }
+
   private void localIssueTracking() {
     String stepName = "Local Issue Tracking";
     eventBus.fireEvent(new BatchStepEvent(stepName, true));
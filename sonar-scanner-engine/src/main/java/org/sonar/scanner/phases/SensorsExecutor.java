@@ -19,33 +19,66 @@
  */
 package org.sonar.scanner.phases;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
+import org.sonar.scanner.events.BatchEvent;
 import org.sonar.scanner.events.EventBus;
 import org.sonar.scanner.sensor.SensorStrategy;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+/**
+ * Executes sensors in the order defined by {@link ScannerExtensionDictionnary}.
+ * <p>
+ * When {@link #PARALLEL_PROPERTY} is enabled, consecutive sensors declared as independent
+ * (see {@link org.sonar.api.batch.sensor.SensorDescriptor#independent()}) are executed concurrently, except
+ * those working on a same language, which are executed one after the other. Other sensors are still executed alone.
+ * </p>
+ */
 @ScannerSide
 public class SensorsExecutor {
+  static final String PARALLEL_PROPERTY = "sonar.scanner.parallelSensors";
+  static final String THREADS_PROPERTY = "sonar.scanner.parallelSensors.threads";
+
+  private static final Logger LOG = Loggers.get(SensorsExecutor.class);
+
   private final ScannerExtensionDictionnary selector;
   private final DefaultInputModule module;
   private final EventBus eventBus;
   private final SensorStrategy strategy;
   private final boolean isRoot;
+  private final boolean parallel;
+  private final int threads;
 
-  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus, SensorStrategy strategy) {
+  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus, SensorStrategy strategy, Settings settings) {
     this.selector = selector;
     this.module = module;
     this.eventBus = eventBus;
     this.strategy = strategy;
     this.isRoot = module.definition().getParent() == null;
+    this.parallel = settings.getBoolean(PARALLEL_PROPERTY);
+    int configuredThreads = settings.getInt(THREADS_PROPERTY);
+    this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
   }
 
   public void execute(SensorContext context) {
@@ -62,7 +95,7 @@ public class SensorsExecutor {
 
     Collection<Sensor> allSensors = new ArrayList<>(perModuleSensors);
     allSensors.addAll(globalSensors);
-    eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(allSensors), true));
+    fireEvent(new SensorsPhaseEvent(Lists.newArrayList(allSensors), true));
 
     execute(context, perModuleSensors);
 
@@ -73,18 +106,120 @@ public class SensorsExecutor {
       strategy.setGlobal(orig);
     }
 
-    eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(allSensors), false));
+    fireEvent(new SensorsPhaseEvent(Lists.newArrayList(allSensors), false));
   }
 
   private void execute(SensorContext context, Collection<Sensor> sensors) {
+    if (!parallel) {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
+      return;
+    }
+    List<SensorWrapper> independentSensors = new ArrayList<>();
     for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+      if (sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isIndependent()) {
+        independentSensors.add((SensorWrapper) sensor);
+      } else {
+        executeConcurrently(context, independentSensors);
+        independentSensors.clear();
+        executeSensor(context, sensor);
+      }
+    }
+    executeConcurrently(context, independentSensors);
+  }
+
+  private void executeConcurrently(SensorContext context, List<SensorWrapper> sensors) {
+    List<List<Sensor>> groups = groupByLanguage(sensors);
+    if (groups.size() <= 1) {
+      groups.forEach(group -> group.forEach(sensor -> executeSensor(context, sensor)));
+      return;
+    }
+    LOG.debug("Execute {} groups of sensors concurrently", groups.size());
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, groups.size()), new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("sensor-%d")
+      .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>(groups.size());
+      for (List<Sensor> group : groups) {
+        futures.add(executor.submit(() -> group.forEach(sensor -> executeSensor(context, sensor))));
+      }
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for the completion of all the groups, so that no sensor is still running when the first failure is rethrown.
+   */
+  private static void awaitAll(List<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing sensors", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
     }
   }
 
+  /**
+   * Sensors sharing a language belong to the same group, in which they keep their relative order.
+   * Sensors without languages are alone in their group.
+   */
+  @VisibleForTesting
+  static List<List<Sensor>> groupByLanguage(List<SensorWrapper> sensors) {
+    int[] groupOf = new int[sensors.size()];
+    Map<String, Integer> firstSensorByLanguage = new HashMap<>();
+    for (int i = 0; i < sensors.size(); i++) {
+      groupOf[i] = i;
+      for (String language : sensors.get(i).languages()) {
+        Integer first = firstSensorByLanguage.putIfAbsent(language, i);
+        if (first != null) {
+          merge(groupOf, find(groupOf, first), find(groupOf, i));
+        }
+      }
+    }
+    Map<Integer, List<Sensor>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < sensors.size(); i++) {
+      groups.computeIfAbsent(find(groupOf, i), k -> new ArrayList<>()).add(sensors.get(i));
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  private static int find(int[] groupOf, int i) {
+    int root = i;
+    while (groupOf[root] != root) {
+      root = groupOf[root];
+    }
+    return root;
+  }
+
+  private static void merge(int[] groupOf, int root1, int root2) {
+    // the group is identified by its first sensor
+    groupOf[Math.max(root1, root2)] = Math.min(root1, root2);
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(new Project(module.definition()), context);
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+    fireEvent(new SensorExecutionEvent(sensor, false));
+  }
+
+  /**
+   * Event handlers are not thread-safe
+   */
+  private synchronized void fireEvent(BatchEvent event) {
+    eventBus.fireEvent(event);
   }
 }
@@ -40,6 +40,7 @@ import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReport.Component.ComponentType;
+import org.sonar.scanner.protocol.output.ScannerReport.Component.FileStatus;
 import org.sonar.scanner.protocol.output.ScannerReport.ComponentLink;
 import org.sonar.scanner.protocol.output.ScannerReport.ComponentLink.ComponentLinkType;
 import org.sonar.scanner.protocol.output.ScannerReport.Issue;
@@ -109,6 +110,10 @@ public class ComponentsPublisher implements ReportPublisherStep {
       DefaultInputFile file = (DefaultInputFile) component;
       builder.setIsTest(file.type() == InputFile.Type.TEST);
       builder.setLines(file.lines());
+      FileStatus status = getStatus(file);
+      if (status != null) {
+        builder.setStatus(status);
+      }
 
       String lang = getLanguageKey(file);
       if (lang != null) {
@@ -222,6 +227,24 @@ public class ComponentsPublisher implements ReportPublisherStep {
     return module.definition().getDescription();
   }
 
+  @CheckForNull
+  private static FileStatus getStatus(InputFile file) {
+    InputFile.Status status = file.status();
+    if (status == null) {
+      return null;
+    }
+    switch (status) {
+      case SAME:
+        return FileStatus.SAME;
+      case CHANGED:
+        return FileStatus.CHANGED;
+      case ADDED:
+        return FileStatus.ADDED;
+      default:
+        throw new IllegalArgumentException("Unknown file status: " + status);
+    }
+  }
+
   private ComponentType getType(InputComponent r) {
     if (r instanceof InputFile) {
       return ComponentType.FILE;
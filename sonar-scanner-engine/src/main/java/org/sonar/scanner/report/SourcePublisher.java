@@ -22,7 +22,9 @@ package org.sonar.scanner.report;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
@@ -37,14 +39,20 @@ import java.nio.charset.StandardCharsets;
 public class SourcePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentCache;
+  private final DefaultAnalysisMode mode;
 
-  public SourcePublisher(InputComponentStore componentStore) {
+  public SourcePublisher(InputComponentStore componentStore, DefaultAnalysisMode mode) {
     this.componentCache = componentStore;
+    this.mode = mode;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
     for (final DefaultInputFile inputFile : componentCache.allFilesToPublish()) {
+      if (mode.isIncremental() && inputFile.status() == InputFile.Status.SAME) {
+        // source is kept on server side from the previous analysis
+        continue;
+      }
       File iofile = writer.getSourceFile(inputFile.batchId());
 
       try (FileOutputStream output = new FileOutputStream(iofile);
@@ -54,7 +54,7 @@ public class DefaultMetricsRepositoryLoader implements MetricsRepositoryLoader {
     WsMetricsResponse response;
     do {
       GetRequest getRequest = new GetRequest(METRICS_SEARCH_URL + page);
-      try (Reader reader = wsClient.call(getRequest).contentReader()) {
+      try (Reader reader = wsClient.callWithCache(getRequest).contentReader()) {
         response = GsonHelper.create().fromJson(reader, WsMetricsResponse.class);
         for (WsMetric metric : response.metrics) {
           metrics.add(new Metric.Builder(metric.getKey(), metric.getName(), ValueType.valueOf(metric.getType()))
@@ -26,12 +26,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.MessageException;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.input.FilesFingerprint;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.WsBatch;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
@@ -41,6 +46,11 @@ import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.WsResponse;
 
+/**
+ * Loads the project repository from server. When the local cache of web services is enabled, the last response
+ * containing all the files is kept in cache, so that only the files changed since its analysis are requested to server.
+ * The cached response is then replaced by the one built from these changes.
+ */
 public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoader {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultProjectRepositoriesLoader.class);
   private static final String BATCH_PROJECT_URL = "/batch/project.protobuf";
@@ -52,10 +62,8 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
 
   @Override
   public ProjectRepositories load(String projectKey, boolean issuesMode) {
-    GetRequest request = new GetRequest(getUrl(projectKey, issuesMode));
-    try (WsResponse response = wsClient.call(request)) {
-      InputStream is = response.contentStream();
-      return processStream(is, projectKey);
+    try {
+      return toProjectRepositories(loadResponse(projectKey, issuesMode));
     } catch (RuntimeException e) {
       if (shouldThrow(e)) {
         throw e;
@@ -66,7 +74,73 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     }
   }
 
-  private static String getUrl(String projectKey, boolean issuesMode) {
+  private WsProjectResponse loadResponse(String projectKey, boolean issuesMode) {
+    GetRequest fullRequest = new GetRequest(getUrl(projectKey, issuesMode, null));
+    WsProjectResponse previous = readCachedResponse(fullRequest, projectKey);
+    if (previous != null) {
+      // changed files are not cached. The complete response built from them replaces the cached one, so that
+      // the cache holds a single response per project and next analysis requests only its own changes.
+      GetRequest deltaRequest = new GetRequest(getUrl(projectKey, issuesMode, previous.getLastAnalysisUuid()));
+      try (WsResponse deltaResponse = wsClient.call(deltaRequest)) {
+        WsProjectResponse response = parse(deltaResponse.contentStream(), projectKey);
+        WsProjectResponse complete = response.getDelta() ? merge(previous, response) : response;
+        if (complete != null) {
+          wsClient.cacheAs(fullRequest, deltaResponse, complete.toByteArray());
+          return complete;
+        }
+      }
+      LOG.debug("Fail to apply changed files to cached project repository - loading all files");
+    }
+    try (WsResponse response = wsClient.callWithCache(fullRequest)) {
+      return parse(response.contentStream(), projectKey);
+    }
+  }
+
+  /**
+   * The last response containing all the files, as kept in cache by {@link ScannerWsClient#callWithCache(GetRequest)}
+   */
+  @CheckForNull
+  private WsProjectResponse readCachedResponse(GetRequest fullRequest, String projectKey) {
+    Optional<WsResponse> cached = wsClient.cachedResponse(fullRequest);
+    if (!cached.isPresent()) {
+      return null;
+    }
+    try {
+      WsProjectResponse response = parse(cached.get().contentStream(), projectKey);
+      return response.hasLastAnalysisUuid() ? response : null;
+    } catch (RuntimeException e) {
+      LOG.debug("Ignore invalid cached project repository", e);
+      return null;
+    }
+  }
+
+  /**
+   * Applies the files changed since the previous response. Returns {@code null} if the result does not contain
+   * exactly the files known by server, for example when files have been deleted or moved.
+   */
+  @CheckForNull
+  private static WsProjectResponse merge(WsProjectResponse previous, WsProjectResponse delta) {
+    Map<String, Map<String, WsProjectResponse.FileData>> fileDataByModuleAndPath = new HashMap<>();
+    previous.getFileDataByModuleAndPath()
+      .forEach((module, fileDataByPath) -> fileDataByModuleAndPath.put(module, new HashMap<>(fileDataByPath.getFileDataByPath())));
+    delta.getFileDataByModuleAndPath()
+      .forEach((module, fileDataByPath) -> fileDataByModuleAndPath.computeIfAbsent(module, m -> new HashMap<>()).putAll(fileDataByPath.getFileDataByPath()));
+
+    FilesFingerprint fingerprint = new FilesFingerprint();
+    fileDataByModuleAndPath.forEach((module, fileDataByPath) -> fileDataByPath.keySet().forEach(path -> fingerprint.add(module, path)));
+    if (!fingerprint.matches(delta.getFilesCount(), delta.getFilesChecksum())) {
+      return null;
+    }
+
+    WsProjectResponse.Builder merged = delta.toBuilder().setDelta(false);
+    Map<String, FileDataByPath> mergedFileDataByModuleAndPath = merged.getMutableFileDataByModuleAndPath();
+    mergedFileDataByModuleAndPath.clear();
+    fileDataByModuleAndPath.forEach((module, fileDataByPath) -> mergedFileDataByModuleAndPath
+      .put(module, FileDataByPath.newBuilder().putAllFileDataByPath(fileDataByPath).build()));
+    return merged.build();
+  }
+
+  private static String getUrl(String projectKey, boolean issuesMode, @Nullable String sinceAnalysis) {
     StringBuilder builder = new StringBuilder();
 
     builder.append(BATCH_PROJECT_URL)
@@ -74,6 +148,9 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     if (issuesMode) {
       builder.append("&issues_mode=true");
     }
+    if (sinceAnalysis != null) {
+      builder.append("&since_analysis=").append(ScannerUtils.encodeForUrl(sinceAnalysis));
+    }
     return builder.toString();
   }
 
@@ -91,33 +168,35 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     return false;
   }
 
-  private static ProjectRepositories processStream(InputStream is, String projectKey) {
+  private static WsProjectResponse parse(InputStream is, String projectKey) {
     try {
-      WsProjectResponse response = WsProjectResponse.parseFrom(is);
+      return WsProjectResponse.parseFrom(is);
+    } catch (IOException e) {
+      throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+  }
 
-      Table<String, String, FileData> fileDataTable = HashBasedTable.create();
-      Table<String, String, String> settings = HashBasedTable.create();
+  private static ProjectRepositories toProjectRepositories(WsProjectResponse response) {
+    Table<String, String, FileData> fileDataTable = HashBasedTable.create();
+    Table<String, String, String> settings = HashBasedTable.create();
 
-      Map<String, Settings> settingsByModule = response.getSettingsByModule();
-      for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
-        for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
-          settings.put(e1.getKey(), e2.getKey(), e2.getValue());
-        }
+    Map<String, Settings> settingsByModule = response.getSettingsByModule();
+    for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
+      for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
+        settings.put(e1.getKey(), e2.getKey(), e2.getValue());
       }
+    }
 
-      Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
-      for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
-        for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
-          FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
-          fileDataTable.put(e1.getKey(), e2.getKey(), fd);
-        }
+    Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
+    for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
+      for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
+        FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
+        fileDataTable.put(e1.getKey(), e2.getKey(), fd);
       }
-
-      return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
-    } catch (IOException e) {
-      throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
-    } finally {
-      IOUtils.closeQuietly(is);
     }
+
+    return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
   }
 }
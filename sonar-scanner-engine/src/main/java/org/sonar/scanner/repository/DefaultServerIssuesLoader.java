@@ -21,8 +21,11 @@ package org.sonar.scanner.repository;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 
+import com.google.common.collect.Iterables;
 import org.apache.commons.io.IOUtils;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
@@ -31,6 +34,11 @@ import org.sonarqube.ws.client.GetRequest;
 
 public class DefaultServerIssuesLoader implements ServerIssuesLoader {
 
+  /**
+   * Maximum number of file keys per request, so that the URL stays short
+   */
+  private static final int FILE_KEYS_BATCH_SIZE = 50;
+
   private final ScannerWsClient wsClient;
 
   public DefaultServerIssuesLoader(ScannerWsClient wsClient) {
@@ -38,12 +46,26 @@ public class DefaultServerIssuesLoader implements ServerIssuesLoader {
   }
 
   @Override
-  public void load(String componentKey, Function<ServerIssue, Void> consumer) {
-    GetRequest getRequest = new GetRequest("/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey));
+  public void load(String componentKey, Function<ServerIssue, Void> consumer, boolean includeFiles) {
+    String url = "/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey);
+    if (!includeFiles) {
+      url += "&files=false";
+    }
+    GetRequest getRequest = new GetRequest(url);
     InputStream is = wsClient.call(getRequest).contentStream();
     parseIssues(is, consumer);
   }
 
+  @Override
+  public void load(String projectKey, Collection<String> fileKeys, Function<ServerIssue, Void> consumer) {
+    for (List<String> batch : Iterables.partition(fileKeys, FILE_KEYS_BATCH_SIZE)) {
+      StringBuilder url = new StringBuilder("/batch/issues.protobuf?key=").append(ScannerUtils.encodeForUrl(projectKey));
+      batch.forEach(fileKey -> url.append("&fileKeys=").append(ScannerUtils.encodeForUrl(fileKey)));
+      InputStream is = wsClient.call(new GetRequest(url.toString())).contentStream();
+      parseIssues(is, consumer);
+    }
+  }
+
   private static void parseIssues(InputStream is, Function<ServerIssue, Void> consumer) {
     try {
       ServerIssue previousIssue = ServerIssue.parseDelimitedFrom(is);
@@ -19,12 +19,23 @@
  */
 package org.sonar.scanner.repository;
 
+import java.util.Collection;
 import java.util.function.Function;
 
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
 
 public interface ServerIssuesLoader {
 
-  void load(String componentKey, Function<ServerIssue, Void> consumer);
+  /**
+   * Streams the open issues of the given project, module or file to the consumer.
+   * When {@code includeFiles} is false, issues of files are not loaded: they are expected to be loaded file by file.
+   */
+  void load(String componentKey, Function<ServerIssue, Void> consumer, boolean includeFiles);
+
+  /**
+   * Streams the open issues of the given files of the project to the consumer. Files unknown to the server,
+   * for example added files, are ignored.
+   */
+  void load(String projectKey, Collection<String> fileKeys, Function<ServerIssue, Void> consumer);
 
 }
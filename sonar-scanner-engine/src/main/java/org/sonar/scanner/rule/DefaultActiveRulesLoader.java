@@ -58,7 +58,7 @@ public class DefaultActiveRulesLoader implements ActiveRulesLoader {
 
     while (true) {
       GetRequest getRequest = new GetRequest(getUrl(qualityProfileKey, page, pageSize));
-      SearchResponse response = loadFromStream(wsClient.call(getRequest).contentStream());
+      SearchResponse response = loadFromStream(wsClient.callWithCache(getRequest).contentStream());
       List<LoadedActiveRule> pageRules = readPage(response);
       ruleList.addAll(pageRules);
       loaded += response.getPs();
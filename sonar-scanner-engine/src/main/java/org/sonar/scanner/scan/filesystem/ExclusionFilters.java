@@ -40,6 +40,11 @@ public class ExclusionFilters {
   private PathPattern[] testInclusions;
   private PathPattern[] testExclusions;
 
+  private PathPatternAutomaton mainInclusionsAutomaton;
+  private PathPatternAutomaton mainExclusionsAutomaton;
+  private PathPatternAutomaton testInclusionsAutomaton;
+  private PathPatternAutomaton testExclusionsAutomaton;
+
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
   }
@@ -49,6 +54,10 @@ public class ExclusionFilters {
     mainExclusions = prepareMainExclusions();
     testInclusions = prepareTestInclusions();
     testExclusions = prepareTestExclusions();
+    mainInclusionsAutomaton = PathPatternAutomaton.compile(mainInclusions);
+    mainExclusionsAutomaton = PathPatternAutomaton.compile(mainExclusions);
+    testInclusionsAutomaton = PathPatternAutomaton.compile(testInclusions);
+    testExclusionsAutomaton = PathPatternAutomaton.compile(testExclusions);
     log("Included sources: ", mainInclusions);
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
@@ -69,35 +78,38 @@ public class ExclusionFilters {
   }
 
   public boolean accept(IndexedFile indexedFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
-    if (InputFile.Type.MAIN == type) {
-      inclusionPatterns = mainInclusions;
-      exclusionPatterns = mainExclusions;
-    } else if (InputFile.Type.TEST == type) {
-      inclusionPatterns = testInclusions;
-      exclusionPatterns = testExclusions;
-    } else {
-      throw new IllegalArgumentException("Unknown file type: " + type);
+    PathPatternAutomaton inclusions = inclusions(type);
+    if (!inclusions.isEmpty() && !inclusions.match(indexedFile)) {
+      return false;
     }
+    return !exclusions(type).match(indexedFile);
+  }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(indexedFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
+  /**
+   * Returns true if none of the files located under the directory can be accepted, so that the whole subtree can be skipped.
+   *
+   * @param relativeDir path of the directory relative to the module base directory, empty for the base directory itself
+   * @param absoluteDir absolute path of the directory
+   */
+  public boolean excludesSubtree(String relativeDir, String absoluteDir, InputFile.Type type) {
+    PathPatternAutomaton inclusions = inclusions(type);
+    if (!inclusions.isEmpty() && !inclusions.canMatchUnder(relativeDir, absoluteDir)) {
+      return true;
     }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(indexedFile)) {
-          return false;
-        }
-      }
+    return exclusions(type).matchesAllUnder(relativeDir, absoluteDir);
+  }
+
+  private PathPatternAutomaton inclusions(InputFile.Type type) {
+    if (InputFile.Type.MAIN == type) {
+      return mainInclusionsAutomaton;
+    } else if (InputFile.Type.TEST == type) {
+      return testInclusionsAutomaton;
     }
-    return true;
+    throw new IllegalArgumentException("Unknown file type: " + type);
+  }
+
+  private PathPatternAutomaton exclusions(InputFile.Type type) {
+    return InputFile.Type.MAIN == type ? mainExclusionsAutomaton : testExclusionsAutomaton;
   }
 
   PathPattern[] prepareMainInclusions() {
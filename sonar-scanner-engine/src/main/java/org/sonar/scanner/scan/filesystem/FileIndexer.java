@@ -53,6 +53,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.batch.fs.InputFileFilter;
 import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.PathUtils;
 import org.sonar.scanner.scan.DefaultComponentTree;
 import org.sonar.scanner.util.ProgressReport;
 
@@ -205,6 +206,7 @@ public class FileIndexer {
     private DefaultModuleFileSystem fileSystem;
     private Progress status;
     private Type type;
+    private final PathResolver pathResolver = new PathResolver();
 
     IndexFileVisitor(DefaultModuleFileSystem fileSystem, Progress status, InputFile.Type type) {
       this.fileSystem = fileSystem;
@@ -222,9 +224,23 @@ public class FileIndexer {
       if (Files.isHidden(dir)) {
         return FileVisitResult.SKIP_SUBTREE;
       }
+      if (isExcludedByPatterns(dir)) {
+        LOG.debug("'{}' excluded by inclusion/exclusion patterns", dir);
+        return FileVisitResult.SKIP_SUBTREE;
+      }
       return FileVisitResult.CONTINUE;
     }
 
+    private boolean isExcludedByPatterns(Path dir) {
+      String relativePath = pathResolver.relativePath(fileSystem.baseDirPath(), dir);
+      if (relativePath == null) {
+        // files outside of the module basedir are reported when indexed
+        return false;
+      }
+      String absolutePath = PathUtils.sanitize(fileSystem.baseDirPath().resolve(relativePath).toString());
+      return exclusionFilters.excludesSubtree(relativePath, absolutePath, type);
+    }
+
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
       if (!Files.isHidden(file)) {
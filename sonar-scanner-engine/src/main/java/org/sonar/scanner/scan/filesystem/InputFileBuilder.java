@@ -52,7 +52,8 @@ public class InputFileBuilder {
     this.langDetection = langDetection;
     this.metadataGenerator = metadataGenerator;
     this.idGenerator = idGenerator;
-    this.preloadMetadata = settings.getBoolean(PRELOAD_FILE_METADATA_KEY);
+    // content of files is scanned for issue exclusions while reading metadata, better done by the parallel indexing
+    this.preloadMetadata = settings.getBoolean(PRELOAD_FILE_METADATA_KEY) || metadataGenerator.scansFileContent();
   }
 
   @CheckForNull
@@ -0,0 +1,289 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.IndexedFile;
+import org.sonar.api.batch.fs.internal.PathPattern;
+
+/**
+ * All the {@link PathPattern}s of a set compiled into a single automaton over path segments, so that a path is matched
+ * against every pattern in one pass instead of evaluating one regular expression per pattern.
+ * <p>
+ * Literal segments are looked up in a hash map, segments containing <code>*</code> or <code>?</code> are matched as globs and
+ * <code>**</code> becomes a state looping on any segment. The same semantics as {@link org.sonar.api.utils.WildcardPattern} are
+ * applied. The rare patterns mixing <code>**</code> with other characters in a segment (ie <code>foo**.java</code>)
+ * can cross directory boundaries and are still evaluated with their regular expression.
+ * <p>
+ * The automaton can also decide, from the path of a directory, whether no file or every file of its subtree is matched.
+ */
+final class PathPatternAutomaton {
+
+  private static final String FILE_PREFIX = "file:";
+  private static final String ANY_DEPTH = "**";
+
+  private final Node relativeRoot = new Node();
+  private final Node absoluteRoot = new Node();
+  private final List<PathPattern> fallbackPatterns = new ArrayList<>();
+  private final boolean empty;
+
+  private PathPatternAutomaton(PathPattern[] patterns) {
+    for (PathPattern pattern : patterns) {
+      String s = pattern.toString();
+      boolean added;
+      if (StringUtils.startsWithIgnoreCase(s, FILE_PREFIX)) {
+        added = add(absoluteRoot, s.substring(FILE_PREFIX.length()));
+      } else {
+        added = add(relativeRoot, s);
+      }
+      if (!added) {
+        fallbackPatterns.add(pattern);
+      }
+    }
+    this.empty = patterns.length == 0;
+  }
+
+  static PathPatternAutomaton compile(PathPattern[] patterns) {
+    return new PathPatternAutomaton(patterns);
+  }
+
+  boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * Returns true if the file matches at least one of the patterns.
+   */
+  boolean match(IndexedFile indexedFile) {
+    if (empty) {
+      return false;
+    }
+    String relativePath = indexedFile.relativePath();
+    if ((relativePath != null && matchPath(relativeRoot, relativePath)) || matchPath(absoluteRoot, indexedFile.absolutePath())) {
+      return true;
+    }
+    for (PathPattern pattern : fallbackPatterns) {
+      if (pattern.match(indexedFile)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns false if none of the files located under the directory can match a pattern.
+   *
+   * @param relativeDir path of the directory relative to the module base directory, empty for the base directory itself
+   * @param absoluteDir absolute path of the directory
+   */
+  boolean canMatchUnder(String relativeDir, String absoluteDir) {
+    if (!fallbackPatterns.isEmpty()) {
+      return true;
+    }
+    return !advance(relativeRoot, relativeDir).isEmpty() || !advance(absoluteRoot, absoluteDir).isEmpty();
+  }
+
+  /**
+   * Returns true if all the files located under the directory match at least one of the patterns.
+   *
+   * @param relativeDir path of the directory relative to the module base directory, empty for the base directory itself
+   * @param absoluteDir absolute path of the directory
+   */
+  boolean matchesAllUnder(String relativeDir, String absoluteDir) {
+    return matchesAnySuffix(advance(relativeRoot, relativeDir)) || matchesAnySuffix(advance(absoluteRoot, absoluteDir));
+  }
+
+  private static boolean add(Node root, String pattern) {
+    String normalized = StringUtils.removeStart(pattern.replace('\\', '/'), "/");
+    String[] segments = StringUtils.splitPreserveAllTokens(normalized, '/');
+    if (segments.length == 0) {
+      // empty pattern only matches empty path
+      segments = new String[] {""};
+    }
+    Node node = root;
+    for (int i = 0; i < segments.length; i++) {
+      String segment = segments[i];
+      if (ANY_DEPTH.equals(segment)) {
+        if (i == segments.length - 1) {
+          node.anyRest = true;
+          return true;
+        }
+        if (node.anyDepth == null) {
+          node.anyDepth = new Node();
+          node.anyDepth.loop = true;
+        }
+        node = node.anyDepth;
+      } else if (segment.contains(ANY_DEPTH)) {
+        return false;
+      } else if (StringUtils.containsAny(segment, "*?")) {
+        node = node.globs.computeIfAbsent(segment, k -> new Node());
+      } else {
+        node = node.literals.computeIfAbsent(segment, k -> new Node());
+      }
+    }
+    node.terminal = true;
+    return true;
+  }
+
+  private static boolean matchPath(Node root, String path) {
+    String value = StringUtils.removeEnd(StringUtils.removeStart(path, "/"), "/");
+    Set<Node> active = closure(root, new HashSet<>());
+    int start = 0;
+    while (true) {
+      for (Node node : active) {
+        if (node.anyRest) {
+          return true;
+        }
+      }
+      int end = value.indexOf('/', start);
+      String segment = end < 0 ? value.substring(start) : value.substring(start, end);
+      active = step(active, segment);
+      if (active.isEmpty()) {
+        return false;
+      }
+      if (end < 0) {
+        break;
+      }
+      start = end + 1;
+    }
+    for (Node node : active) {
+      if (node.terminal) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * States reached after the segments of a directory. A state matching any remaining path is kept as the only state.
+   */
+  private static Set<Node> advance(Node root, String dir) {
+    String value = StringUtils.removeEnd(StringUtils.removeStart(dir, "/"), "/");
+    Set<Node> active = closure(root, new HashSet<>());
+    int start = 0;
+    while (!value.isEmpty() && !active.isEmpty()) {
+      for (Node node : active) {
+        if (node.anyRest) {
+          return active;
+        }
+      }
+      int end = value.indexOf('/', start);
+      String segment = end < 0 ? value.substring(start) : value.substring(start, end);
+      active = step(active, segment);
+      if (end < 0) {
+        break;
+      }
+      start = end + 1;
+    }
+    return active;
+  }
+
+  private static boolean matchesAnySuffix(Set<Node> active) {
+    for (Node node : active) {
+      if (node.anyRest) {
+        return true;
+      }
+      if (node.loop) {
+        Node anyName = node.globs.get("*");
+        if (anyName != null && anyName.terminal) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Set<Node> step(Set<Node> active, String segment) {
+    Set<Node> next = new HashSet<>();
+    for (Node node : active) {
+      if (node.loop) {
+        next.add(node);
+      }
+      Node literal = node.literals.get(segment);
+      if (literal != null) {
+        closure(literal, next);
+      }
+      for (Map.Entry<String, Node> glob : node.globs.entrySet()) {
+        if (matchGlob(glob.getKey(), segment)) {
+          closure(glob.getValue(), next);
+        }
+      }
+    }
+    return next;
+  }
+
+  private static Set<Node> closure(Node node, Set<Node> states) {
+    Node current = node;
+    while (current != null && states.add(current)) {
+      current = current.anyDepth;
+    }
+    return states;
+  }
+
+  /**
+   * Matches a single segment against a glob made of <code>*</code> (any sequence of characters) and <code>?</code> (any character).
+   */
+  static boolean matchGlob(String glob, String segment) {
+    int g = 0;
+    int s = 0;
+    int starGlob = -1;
+    int starSegment = 0;
+    while (s < segment.length()) {
+      if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == segment.charAt(s))) {
+        g++;
+        s++;
+      } else if (g < glob.length() && glob.charAt(g) == '*') {
+        starGlob = g;
+        starSegment = s;
+        g++;
+      } else if (starGlob >= 0) {
+        g = starGlob + 1;
+        starSegment++;
+        s = starSegment;
+      } else {
+        return false;
+      }
+    }
+    while (g < glob.length() && glob.charAt(g) == '*') {
+      g++;
+    }
+    return g == glob.length();
+  }
+
+  private static class Node {
+    private final Map<String, Node> literals = new HashMap<>();
+    private final Map<String, Node> globs = new LinkedHashMap<>();
+    // state reached through a '**' segment followed by other segments
+    private Node anyDepth;
+    // '**' state consuming any segment
+    private boolean loop;
+    // a pattern ends on this state
+    private boolean terminal;
+    // a pattern ends with '**' on this state: any non empty remaining path matches
+    private boolean anyRest;
+  }
+}
@@ -19,14 +19,17 @@
  */
 package org.sonar.scanner.scan.measure;
 
-import com.persistit.Value;
-import com.persistit.encoding.CoderContext;
-import com.persistit.encoding.ValueCoder;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
+import org.sonar.scanner.storage.ObjectCodec;
+import org.sonar.scanner.storage.StorageCodec;
 
-class MeasureValueCoder implements ValueCoder {
+@SuppressWarnings("rawtypes")
+class MeasureValueCoder implements StorageCodec<DefaultMeasure> {
 
   private final MetricFinder metricFinder;
 
@@ -35,22 +38,20 @@ class MeasureValueCoder implements ValueCoder {
   }
 
   @Override
-  public void put(Value value, Object object, CoderContext context) {
-    DefaultMeasure<?> m = (DefaultMeasure<?>) object;
-    org.sonar.api.batch.measure.Metric<?> metric = m.metric();
-    value.putString(metric.key());
-    value.put(m.value());
+  public void write(DataOutput out, DefaultMeasure m) throws IOException {
+    out.writeUTF(m.metric().key());
+    ObjectCodec.INSTANCE.write(out, m.value());
   }
 
   @Override
-  public Object get(Value value, Class clazz, CoderContext context) {
-    String metricKey = value.getString();
+  public DefaultMeasure read(DataInput in) throws IOException {
+    String metricKey = in.readUTF();
     org.sonar.api.batch.measure.Metric<?> metric = metricFinder.findByKey(metricKey);
     if (metric == null) {
       throw new IllegalStateException("Unknow metric with key " + metricKey);
     }
     return new DefaultMeasure()
       .forMetric(metric)
-      .withValue((Serializable) value.get());
+      .withValue((Serializable) ObjectCodec.INSTANCE.read(in));
   }
 }
@@ -20,12 +20,15 @@
 package org.sonar.scanner.scm;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -39,33 +42,52 @@ import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.util.ProgressReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
+/**
+ * Thread-safe, results can be provided by several threads blaming distinct files.
+ */
 class DefaultBlameOutput implements BlameOutput {
 
   private static final Logger LOG = Loggers.get(DefaultBlameOutput.class);
 
   private final ScannerReportWriter writer;
-  private final Set<InputFile> allFilesToBlame = new HashSet<>();
+  private final Set<InputFile> allFilesToBlame = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger count = new AtomicInteger();
+  private final ConcurrentMap<InputFile, Long> startNanosByFile = new ConcurrentHashMap<>();
+  private final long startNanos;
   private ProgressReport progressReport;
-  private int count;
   private int total;
 
   DefaultBlameOutput(ScannerReportWriter writer, List<InputFile> filesToBlame) {
     this.writer = writer;
     this.allFilesToBlame.addAll(filesToBlame);
-    count = 0;
     total = filesToBlame.size();
+    startNanos = System.nanoTime();
     progressReport = new ProgressReport("Report about progress of SCM blame", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(total + " files to be analyzed");
   }
 
+  /**
+   * Files to be provided to the blame command. The blame of a file is considered as started when the command
+   * iterates over it, so that the time spent on each file can be logged when its result is received.
+   */
+  Iterable<InputFile> timed(List<InputFile> files) {
+    return () -> Iterators.transform(files.iterator(), file -> {
+      startNanosByFile.put(file, System.nanoTime());
+      return file;
+    });
+  }
+
   @Override
-  public synchronized void blameResult(InputFile file, List<BlameLine> lines) {
+  public void blameResult(InputFile file, List<BlameLine> lines) {
     Preconditions.checkNotNull(file);
     Preconditions.checkNotNull(lines);
-    Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
+    Preconditions.checkArgument(allFilesToBlame.remove(file), "It was not expected to blame file %s", file.relativePath());
 
     if (lines.size() != file.lines()) {
       LOG.debug("Ignoring blame result since provider returned {} blame lines but file {} has {} lines", lines.size(), file.relativePath(), file.lines());
+      // blame information is still missing
+      allFilesToBlame.add(file);
+      startNanosByFile.remove(file);
       return;
     }
 
@@ -87,9 +109,16 @@ class DefaultBlameOutput implements BlameOutput {
       lineId++;
     }
     writer.writeComponentChangesets(scmBuilder.build());
-    allFilesToBlame.remove(file);
-    count++;
-    progressReport.message(count + "/" + total + " files analyzed");
+    int analyzed = count.incrementAndGet();
+    progressReport.message(analyzed + "/" + total + " files analyzed");
+    logDuration(file);
+  }
+
+  private void logDuration(InputFile file) {
+    Long fileStartNanos = startNanosByFile.remove(file);
+    if (fileStartNanos != null && LOG.isDebugEnabled()) {
+      LOG.debug("Blame of {} took {} ms", file.relativePath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fileStartNanos));
+    }
   }
 
   private static void validateLine(BlameLine line, int lineId, InputFile file) {
@@ -116,7 +145,10 @@ class DefaultBlameOutput implements BlameOutput {
   }
 
   public void finish(boolean success) {
-    progressReport.stop(count + "/" + total + " files analyzed");
+    int analyzed = count.get();
+    progressReport.stop(analyzed + "/" + total + " files analyzed");
+    long durationMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    LOG.info("{} files blamed in {} ms ({} files/s)", analyzed, durationMs, analyzed * 1000L / durationMs);
     if (success && !allFilesToBlame.isEmpty()) {
       LOG.warn("Missing blame information for the following files:");
       for (InputFile f : allFilesToBlame) {
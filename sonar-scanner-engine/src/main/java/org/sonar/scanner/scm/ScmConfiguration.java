@@ -55,6 +55,7 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String THREADS_KEY = "sonar.scm.threads";
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +148,14 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  /**
+   * Number of threads blaming files, when supported by the provider. Default is the number of processors.
+   */
+  public int threads() {
+    int threads = settings.getInt(THREADS_KEY);
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
   @Override
   public void stop() {
     // Nothing to do
@@ -19,8 +19,14 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
@@ -29,6 +35,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.scm.BlameCommand;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -45,6 +52,8 @@ import org.sonar.scanner.scan.filesystem.ModuleInputComponentStore;
 public final class ScmPublisher {
 
   private static final Logger LOG = Loggers.get(ScmPublisher.class);
+  // more partitions than threads, so that threads which blame the fastest files are not idle
+  private static final int PARTITIONS_PER_THREAD = 4;
 
   private final DefaultInputModule inputModule;
   private final ScmConfiguration configuration;
@@ -78,8 +87,14 @@ public final class ScmPublisher {
       String key = configuration.provider().key();
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
+      BlameCommand blameCommand = configuration.provider().blameCommand();
+      int threads = configuration.threads();
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        if (blameCommand.supportsConcurrency() && threads > 1 && filesToBlame.size() > 1) {
+          blameConcurrently(blameCommand, filesToBlame, output, threads);
+        } else {
+          blame(blameCommand, filesToBlame, output);
+        }
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -88,11 +103,56 @@ public final class ScmPublisher {
     }
   }
 
+  private void blame(BlameCommand blameCommand, List<InputFile> files, DefaultBlameOutput output) {
+    blameCommand.blame(new DefaultBlameInput(fs, output.timed(files)), output);
+  }
+
+  private void blameConcurrently(BlameCommand blameCommand, List<InputFile> filesToBlame, DefaultBlameOutput output, int threads) {
+    int partitionSize = Math.max(1, (int) Math.ceil((double) filesToBlame.size() / (threads * PARTITIONS_PER_THREAD)));
+    List<List<InputFile>> partitions = Lists.partition(filesToBlame, partitionSize);
+    LOG.info("Blame files with {} threads", threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("scm-blame-%d")
+      .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>(partitions.size());
+      for (List<InputFile> partition : partitions) {
+        futures.add(executor.submit(() -> blame(blameCommand, partition, output)));
+      }
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for all the partitions, so that no file is still being blamed when the first failure is rethrown.
+   */
+  private static void awaitAll(List<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while blaming files", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   private List<InputFile> collectFilesToBlame(ScannerReportWriter writer) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.publish()) {
@@ -20,6 +20,7 @@
 package org.sonar.scanner.sensor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Striped;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.sonar.api.batch.fs.InputComponent;
@@ -115,6 +118,7 @@ import static org.sonar.api.measures.CoreMetrics.UNCOVERED_LINES;
 public class DefaultSensorStorage implements SensorStorage {
 
   private static final Logger LOG = Loggers.get(DefaultSensorStorage.class);
+  private static final int LOCK_STRIPES = 64;
 
   private static final List<String> DEPRECATED_METRICS_KEYS = Arrays.asList(
     DEPENDENCY_MATRIX_KEY,
@@ -151,7 +155,9 @@ public class DefaultSensorStorage implements SensorStorage {
   private final Map<Metric<?>, Metric<?>> deprecatedCoverageMetricMapping = new HashMap<>();
   private final Set<Metric<?>> coverageMetrics = new HashSet<>();
   private final Set<Metric<?>> byLineMetrics = new HashSet<>();
-  private Set<String> alreadyLogged = new HashSet<>();
+  private final Set<String> alreadyLogged = ConcurrentHashMap.newKeySet();
+  // sensors may be executed concurrently, but data of a given component must be checked and saved atomically
+  private final Striped<Lock> componentLocks = Striped.lock(LOCK_STRIPES);
 
   public DefaultSensorStorage(MetricFinder metricFinder, ModuleIssues moduleIssues,
     Settings settings,
@@ -211,9 +217,8 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   private void logOnce(String metricKey, String msg, Object... params) {
-    if (!alreadyLogged.contains(metricKey)) {
+    if (alreadyLogged.add(metricKey)) {
       LOG.warn(msg, params);
-      alreadyLogged.add(metricKey);
     }
   }
 
@@ -221,7 +226,11 @@ public class DefaultSensorStorage implements SensorStorage {
     if (component.isFile()) {
       ((DefaultInputFile) component).setPublish(true);
     }
-    
+    lockComponent(component.key(), () -> saveMeasureInternal(component, measure));
+  }
+
+  private void saveMeasureInternal(InputComponent component, DefaultMeasure<?> measure) {
+
     if (isDeprecatedMetric(measure.metric().key())) {
       logOnce(measure.metric().key(), "Metric '{}' is deprecated. Provided value is ignored.", measure.metric().key());
       return;
@@ -354,11 +363,25 @@ public class DefaultSensorStorage implements SensorStorage {
     if (issue.primaryLocation().inputComponent() instanceof DefaultInputFile) {
       ((DefaultInputFile) issue.primaryLocation().inputComponent()).setPublish(true);
     }
-    moduleIssues.initAndAddIssue(issue);
+    lockComponent(issue.primaryLocation().inputComponent().key(), () -> moduleIssues.initAndAddIssue(issue));
+  }
+
+  private void lockComponent(String componentKey, Runnable runnable) {
+    Lock lock = componentLocks.get(componentKey);
+    lock.lock();
+    try {
+      runnable.run();
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
   public void store(DefaultHighlighting highlighting) {
+    lockComponent(highlighting.inputFile().key(), () -> storeHighlighting(highlighting));
+  }
+
+  private void storeHighlighting(DefaultHighlighting highlighting) {
     ScannerReportWriter writer = reportPublisher.getWriter();
     DefaultInputFile inputFile = (DefaultInputFile) highlighting.inputFile();
     inputFile.setPublish(true);
@@ -384,6 +407,10 @@ public class DefaultSensorStorage implements SensorStorage {
 
   @Override
   public void store(DefaultSymbolTable symbolTable) {
+    lockComponent(symbolTable.inputFile().key(), () -> storeSymbols(symbolTable));
+  }
+
+  private void storeSymbols(DefaultSymbolTable symbolTable) {
     ScannerReportWriter writer = reportPublisher.getWriter();
     DefaultInputFile inputFile = (DefaultInputFile) symbolTable.inputFile();
     inputFile.setPublish(true);
@@ -422,6 +449,10 @@ public class DefaultSensorStorage implements SensorStorage {
     if (coverageExclusions.isExcluded(inputFile)) {
       return;
     }
+    lockComponent(inputFile.key(), () -> storeCoverage(inputFile, defaultCoverage));
+  }
+
+  private void storeCoverage(DefaultInputFile inputFile, DefaultCoverage defaultCoverage) {
     if (defaultCoverage.linesToCover() > 0) {
       saveCoverageMetricInternal(inputFile, LINES_TO_COVER, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(defaultCoverage.linesToCover()));
       saveCoverageMetricInternal(inputFile, UNCOVERED_LINES,
@@ -0,0 +1,169 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.collect.Iterators.transform;
+
+/**
+ * Keys are kept on heap in a sorted map, in the same order as Persistit. Values are encoded by the registered
+ * {@link StorageCodec}s into an {@link OffHeapArena}.
+ */
+class InMemoryBackend<V> implements StorageBackend<V> {
+
+  /**
+   * Key part sorted after all the others, used as upper bound of sub-keys
+   */
+  private static final Object AFTER = new Object();
+  private static final Comparator<Object[]> KEY_COMPARATOR = InMemoryBackend::compareKeys;
+
+  private final String name;
+  private final ConcurrentNavigableMap<Object[], ByteBuffer> map = new ConcurrentSkipListMap<>(KEY_COMPARATOR);
+  private final OffHeapArena arena;
+  private final StorageCodecs codecs;
+
+  InMemoryBackend(String name, OffHeapArena arena, StorageCodecs codecs) {
+    this.name = name;
+    this.arena = arena;
+    this.codecs = codecs;
+  }
+
+  @Override
+  public void put(Object[] key, V value) {
+    for (Object part : key) {
+      if (part != null && !(part instanceof Comparable)) {
+        throw new IllegalArgumentException("Key must be comparable: " + part);
+      }
+    }
+    ByteBuffer buffer;
+    try {
+      buffer = arena.store(codecs.encode(value));
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to put element in the storage '" + name + "'", e);
+    }
+    map.put(key.clone(), buffer);
+  }
+
+  @Override
+  @CheckForNull
+  public V get(Object[] key) {
+    ByteBuffer buffer = map.get(key);
+    return buffer == null ? null : decode(buffer);
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    return map.containsKey(key);
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    return map.remove(key) != null;
+  }
+
+  @Override
+  public void clear(Object[] key) {
+    map.subMap(key, true, after(key), false).clear();
+  }
+
+  @Override
+  public void clear() {
+    map.clear();
+  }
+
+  @Override
+  public Set<Object> keySet(Object[] key) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (Object[] subKey : subKeys(key).keySet()) {
+      keys.add(subKey[key.length]);
+    }
+    return keys;
+  }
+
+  @Override
+  public Iterable<V> values(Object[] key) {
+    return () -> transform(subKeys(key).values().iterator(), this::decode);
+  }
+
+  @Override
+  public Iterable<Storage.Entry<V>> entries(Object[] key) {
+    return () -> {
+      Iterator<Map.Entry<Object[], ByteBuffer>> it = subKeys(key).entrySet().iterator();
+      return transform(it, e -> new Storage.Entry<>(e.getKey().clone(), decode(e.getValue())));
+    };
+  }
+
+  private NavigableMap<Object[], ByteBuffer> subKeys(Object[] key) {
+    if (key.length == 0) {
+      return map;
+    }
+    return map.subMap(key, false, after(key), false);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V decode(ByteBuffer buffer) {
+    return (V) codecs.decode(OffHeapArena.read(buffer));
+  }
+
+  private static Object[] after(Object[] key) {
+    Object[] after = new Object[key.length + 1];
+    System.arraycopy(key, 0, after, 0, key.length);
+    after[key.length] = AFTER;
+    return after;
+  }
+
+  private static int compareKeys(Object[] key1, Object[] key2) {
+    int length = Math.min(key1.length, key2.length);
+    for (int i = 0; i < length; i++) {
+      int c = compareParts(key1[i], key2[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return Integer.compare(key1.length, key2.length);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compareParts(Object part1, Object part2) {
+    if (part1 == part2) {
+      return 0;
+    }
+    if (part1 == AFTER || part2 == null) {
+      return 1;
+    }
+    if (part2 == AFTER || part1 == null) {
+      return -1;
+    }
+    if (part1.getClass() != part2.getClass()) {
+      return part1.getClass().getName().compareTo(part2.getClass().getName());
+    }
+    return ((Comparable) part1).compareTo(part2);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Default codec, used for the values without a registered {@link StorageCodec}. Strings and boxed primitives are
+ * encoded natively, other objects must be {@link Serializable}.
+ *
+ * @since 6.4
+ */
+public final class ObjectCodec implements StorageCodec<Object> {
+
+  public static final ObjectCodec INSTANCE = new ObjectCodec();
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INTEGER = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte BOOLEAN = 5;
+  private static final byte SERIALIZED = 6;
+
+  private ObjectCodec() {
+    // singleton
+  }
+
+  @Override
+  public void write(DataOutput out, @Nullable Object object) throws IOException {
+    if (object == null) {
+      out.writeByte(NULL);
+    } else if (object instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) object);
+    } else if (object instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) object);
+    } else if (object instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) object);
+    } else if (object instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) object);
+    } else if (object instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) object);
+    } else if (object instanceof Serializable) {
+      out.writeByte(SERIALIZED);
+      writeBytes(out, serialize(object));
+    } else {
+      throw new IllegalArgumentException("Object can not be stored, it is not serializable: " + object.getClass());
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public Object read(DataInput in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING:
+        return new String(readBytes(in), UTF_8);
+      case INTEGER:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case DOUBLE:
+        return in.readDouble();
+      case BOOLEAN:
+        return in.readBoolean();
+      case SERIALIZED:
+        return deserialize(readBytes(in));
+      default:
+        throw new IllegalStateException("Unknown type of stored object: " + type);
+    }
+  }
+
+  private static void writeString(DataOutput out, String string) throws IOException {
+    // fail before encoding, as each char is encoded in at least one byte
+    if (string.length() > StorageCodecs.MAX_VALUE_SIZE) {
+      throw new IOException("String is too big to be stored: " + string.length() + " chars");
+    }
+    writeBytes(out, string.getBytes(UTF_8));
+  }
+
+  private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) throws IOException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to read stored object", e);
+    }
+  }
+}
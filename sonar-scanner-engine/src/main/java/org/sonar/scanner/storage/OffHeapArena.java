@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Append-only off-heap memory of the in-memory storages. Values are copied into large direct buffers, so that
+ * they are not scanned by the garbage collector. Memory of removed values is not reclaimed before the
+ * storages are stopped, which is fine for the lifetime of an analysis.
+ */
+class OffHeapArena {
+
+  static final int CHUNK_SIZE = 1024 * 1024;
+
+  private ByteBuffer chunk = null;
+  private long allocatedBytes = 0L;
+
+  /**
+   * @return a buffer positioned on the copy of the bytes. Only {@link #read(ByteBuffer)} must be used to read it,
+   * so that the buffer can be shared by several threads.
+   */
+  synchronized ByteBuffer store(byte[] bytes) {
+    if (bytes.length > CHUNK_SIZE / 4) {
+      allocatedBytes += bytes.length;
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+      buffer.put(bytes).flip();
+      return buffer;
+    }
+    if (chunk == null || chunk.remaining() < bytes.length) {
+      allocatedBytes += CHUNK_SIZE;
+      chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+    }
+    ByteBuffer slice = chunk.slice();
+    slice.limit(bytes.length);
+    slice.put(bytes).flip();
+    chunk.position(chunk.position() + bytes.length);
+    return slice;
+  }
+
+  static byte[] read(ByteBuffer buffer) {
+    ByteBuffer view = buffer.duplicate();
+    byte[] bytes = new byte[view.remaining()];
+    view.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Size of the off-heap memory, in bytes
+   */
+  synchronized long size() {
+    return allocatedBytes;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+/**
+ * Engine of a {@link Storage}. Keys are made of one or several parts.
+ */
+interface StorageBackend<V> {
+
+  void put(Object[] key, V value);
+
+  @CheckForNull
+  V get(Object[] key);
+
+  boolean containsKey(Object[] key);
+
+  boolean remove(Object[] key);
+
+  /**
+   * Removes the key and all its sub-keys
+   */
+  void clear(Object[] key);
+
+  void clear();
+
+  /**
+   * Distinct parts following the given key parts
+   */
+  Set<Object> keySet(Object[] key);
+
+  /**
+   * Lazy-loading values of the sub-keys of the given key parts
+   */
+  Iterable<V> values(Object[] key);
+
+  /**
+   * Lazy-loading entries of the sub-keys of the given key parts
+   */
+  Iterable<Storage.Entry<V>> entries(Object[] key);
+
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.persistit.Value;
+import com.persistit.encoding.CoderContext;
+import com.persistit.encoding.ValueCoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Codecs registered in {@link Storages}. Encoded values start with the index of their codec, 0 being
+ * the {@link ObjectCodec}.
+ */
+class StorageCodecs {
+
+  /**
+   * Same limit as Persistit
+   */
+  static final int MAX_VALUE_SIZE = Value.MAXIMUM_SIZE;
+
+  private final List<StorageCodec<?>> codecs = new CopyOnWriteArrayList<>();
+  private final Map<Class<?>, Integer> codecIdsByClass = new ConcurrentHashMap<>();
+
+  synchronized <T> void register(Class<T> clazz, StorageCodec<T> codec) {
+    Integer id = codecIdsByClass.get(clazz);
+    if (id == null) {
+      codecs.add(codec);
+      codecIdsByClass.put(clazz, codecs.size());
+    } else {
+      codecs.set(id - 1, codec);
+    }
+  }
+
+  /**
+   * Registered codecs, adapted to the {@link ValueCoder} of Persistit
+   */
+  void forEachValueCoder(BiConsumer<Class<?>, ValueCoder> consumer) {
+    codecIdsByClass.forEach((clazz, id) -> consumer.accept(clazz, new CodecValueCoder(codecs.get(id - 1))));
+  }
+
+  byte[] encode(@Nullable Object value) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      Integer id = value == null ? null : codecIdsByClass.get(value.getClass());
+      if (id == null) {
+        out.writeByte(0);
+        ObjectCodec.INSTANCE.write(out, value);
+      } else {
+        out.writeByte(id);
+        write(codecs.get(id - 1), out, value);
+      }
+      if (bytes.size() > MAX_VALUE_SIZE) {
+        throw new IllegalArgumentException("Value is too big to be stored: " + bytes.size() + " bytes");
+      }
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode value", e);
+    }
+  }
+
+  @CheckForNull
+  Object decode(byte[] bytes) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+      int id = in.readUnsignedByte();
+      if (id == 0) {
+        return ObjectCodec.INSTANCE.read(in);
+      }
+      return codecs.get(id - 1).read(in);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode stored value", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void write(StorageCodec<T> codec, DataOutputStream out, Object value) throws IOException {
+    codec.write(out, (T) value);
+  }
+
+  private static class CodecValueCoder implements ValueCoder {
+    private final StorageCodec<?> codec;
+
+    private CodecValueCoder(StorageCodec<?> codec) {
+      this.codec = codec;
+    }
+
+    @Override
+    public void put(Value value, Object object, CoderContext context) {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(codec, new DataOutputStream(bytes), object);
+        value.putByteArray(bytes.toByteArray());
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to encode " + object, e);
+      }
+    }
+
+    @Override
+    public Object get(Value value, Class<?> clazz, CoderContext context) {
+      try {
+        return codec.read(new DataInputStream(new ByteArrayInputStream(value.getByteArray())));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to decode stored value", e);
+      }
+    }
+  }
+}
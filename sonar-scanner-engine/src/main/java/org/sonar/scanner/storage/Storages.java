@@ -24,34 +24,89 @@ import com.persistit.Exchange;
 import com.persistit.Persistit;
 import com.persistit.Value;
 import com.persistit.Volume;
-import com.persistit.encoding.CoderManager;
-import com.persistit.encoding.ValueCoder;
 import com.persistit.exception.PersistitException;
-
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.analysis.AnalysisProperties;
 
+/**
+ * Storages of an analysis. Data is kept off-heap while it does not exceed {@link #MAX_IN_MEMORY_SIZE_PROPERTY},
+ * then all the storages are moved to Persistit, which spills to disk. The Persistit engine is started only
+ * in this case.
+ */
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = new HashMap<>();
+
+  /**
+   * Maximum size in MB of the in-memory storages. Zero to always store on disk.
+   */
+  public static final String MAX_IN_MEMORY_SIZE_PROPERTY = "sonar.scanner.storage.maxInMemorySize";
+  private static final long DEFAULT_MAX_IN_MEMORY_SIZE_MB = 64L;
+  private static final long MB = 1024L * 1024L;
+
+  private static final Logger LOG = Loggers.get(Storages.class);
+
+  private final Map<String, Storage<?>> cacheMap = new HashMap<>();
+  private final StoragesManager storagesManager;
+  private final StorageCodecs codecs = new StorageCodecs();
+  // held by all the operations while data is in memory, and exclusively when moving it to disk
+  private final ReadWriteLock engineLock = new ReentrantReadWriteLock();
+  private final long maxInMemorySize;
+  private volatile OffHeapArena arena;
+  private volatile boolean onDisk = false;
   private Persistit persistit;
-  private Volume volume;
+  private volatile Volume volume;
 
-  public Storages(StoragesManager storagesManager) {
-    persistit = storagesManager.persistit();
+  public Storages(StoragesManager storagesManager, AnalysisProperties properties) {
+    this(storagesManager, maxInMemorySize(properties));
+  }
+
+  Storages(StoragesManager storagesManager, long maxInMemorySize) {
+    this.storagesManager = storagesManager;
+    this.maxInMemorySize = maxInMemorySize;
     doStart();
   }
 
+  private static long maxInMemorySize(AnalysisProperties properties) {
+    String value = properties.property(MAX_IN_MEMORY_SIZE_PROPERTY);
+    if (StringUtils.isBlank(value)) {
+      return DEFAULT_MAX_IN_MEMORY_SIZE_MB * MB;
+    }
+    try {
+      return Long.parseLong(value.trim()) * MB;
+    } catch (NumberFormatException e) {
+      throw MessageException.of(String.format("Property '%s' must be a number of MB: %s", MAX_IN_MEMORY_SIZE_PROPERTY, value), e);
+    }
+  }
+
   @Override
   public void start() {
     // done in constructor
   }
 
   private void doStart() {
+    if (maxInMemorySize > 0) {
+      arena = new OffHeapArena();
+    } else {
+      startPersistit();
+      onDisk = true;
+    }
+  }
+
+  private void startPersistit() {
     try {
+      persistit = storagesManager.persistit();
+      codecs.forEachValueCoder(persistit.getCoderManager()::registerValueCoder);
       persistit.flush();
       volume = persistit.createTemporaryVolume();
     } catch (Exception e) {
@@ -59,32 +114,98 @@ public class Storages implements Startable {
     }
   }
 
-  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
-    CoderManager cm = persistit.getCoderManager();
-    cm.registerValueCoder(clazz, coder);
+  public synchronized <T> void registerCodec(Class<T> clazz, StorageCodec<T> codec) {
+    codecs.register(clazz, codec);
+    if (persistit != null) {
+      codecs.forEachValueCoder(persistit.getCoderManager()::registerValueCoder);
+    }
   }
 
-  public <V> Storage<V> createCache(String cacheName) {
-    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
+  public synchronized <V> Storage<V> createCache(String cacheName) {
+    Preconditions.checkState(arena != null || (volume != null && volume.isOpened()), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
     try {
-      Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
+      StorageBackend<V> backend = onDisk ? newPersistitBackend(cacheName) : new InMemoryBackend<>(cacheName, arena, codecs);
+      Storage<V> cache = new Storage<>(cacheName, this, backend);
+      cacheMap.put(cacheName, cache);
       return cache;
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create cache: " + cacheName, e);
     }
   }
 
-  @Override
-  public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+  private <V> PersistitBackend<V> newPersistitBackend(String cacheName) {
+    return new PersistitBackend<>(cacheName, () -> newExchange(cacheName));
+  }
+
+  /**
+   * Exchanges are not taken from the pool of Persistit, which is bound to the calling thread,
+   * so they do not have to be released by the thread which created them.
+   */
+  private Exchange newExchange(String cacheName) {
+    try {
+      Exchange exchange = new Exchange(persistit, volume, cacheName, true);
+      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
+      return exchange;
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to access cache: " + cacheName, e);
     }
+  }
 
+  /**
+   * Executes an operation of a {@link Storage}, which is never concurrent with the move of the data to disk.
+   */
+  <T> T access(Supplier<T> operation) {
+    if (onDisk) {
+      return operation.get();
+    }
+    Lock lock = engineLock.readLock();
+    lock.lock();
+    try {
+      return operation.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void afterWrite() {
+    OffHeapArena currentArena = arena;
+    if (currentArena != null && currentArena.size() > maxInMemorySize) {
+      moveToDisk();
+    }
+  }
+
+  private synchronized void moveToDisk() {
+    if (onDisk || arena == null) {
+      return;
+    }
+    Lock lock = engineLock.writeLock();
+    lock.lock();
+    try {
+      LOG.info("Storages exceed {} MB in memory, moving them to disk", maxInMemorySize / MB);
+      startPersistit();
+      for (Storage<?> storage : cacheMap.values()) {
+        moveToDisk(storage);
+      }
+      arena = null;
+      onDisk = true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private <V> void moveToDisk(Storage<V> storage) {
+    storage.moveTo(newPersistitBackend(storage.name()));
+  }
+
+  boolean isOnDisk() {
+    return onDisk;
+  }
+
+  @Override
+  public synchronized void stop() {
     cacheMap.clear();
+    arena = null;
 
     if (volume != null) {
       try {
@@ -24,6 +24,7 @@ import com.persistit.exception.PersistitException;
 import com.persistit.logging.Slf4jAdapter;
 import java.io.File;
 import java.util.Properties;
+import javax.annotation.CheckForNull;
 import org.picocontainer.Startable;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
@@ -32,7 +33,7 @@ import org.sonar.api.utils.TempFolder;
 import static org.sonar.core.util.FileUtils.deleteQuietly;
 
 /**
- * Factory of storages
+ * Factory of storages. The Persistit engine is started only when a storage does not fit in memory.
  *
  * @since 3.6
  */
@@ -44,7 +45,6 @@ public class StoragesManager implements Startable {
 
   public StoragesManager(TempFolder tempFolder) {
     this.tempFolder = tempFolder;
-    initPersistit();
   }
 
   private void initPersistit() {
@@ -71,11 +71,11 @@ public class StoragesManager implements Startable {
 
   @Override
   public void start() {
-    // already started in constructor
+    // Persistit is lazily started
   }
 
   @Override
-  public void stop() {
+  public synchronized void stop() {
     if (persistit != null) {
       try {
         persistit.close(false);
@@ -88,11 +88,22 @@ public class StoragesManager implements Startable {
     tempDir = null;
   }
 
-  File tempDir() {
+  @CheckForNull
+  synchronized File tempDir() {
     return tempDir;
   }
 
-  Persistit persistit() {
+  /**
+   * Starts Persistit if needed
+   */
+  synchronized Persistit persistit() {
+    if (persistit == null) {
+      initPersistit();
+    }
     return persistit;
   }
+
+  synchronized boolean isStarted() {
+    return persistit != null;
+  }
 }
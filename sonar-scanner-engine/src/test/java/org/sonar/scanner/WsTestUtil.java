@@ -23,6 +23,7 @@ import org.apache.commons.lang.StringUtils;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
@@ -39,40 +40,50 @@ public class WsTestUtil {
   public static void mockStream(ScannerWsClient mock, String path, InputStream is) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentStream()).thenReturn(is);
-    when(mock.call(argThat(new RequestMatcher(path)))).thenReturn(response);
+    when(mock.call(argThat(new RequestMatcher<>(path)))).thenReturn(response);
+    when(mock.callWithCache(argThat(new RequestMatcher<>(path)))).thenReturn(response);
   }
 
   public static void mockStream(ScannerWsClient mock, InputStream is) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentStream()).thenReturn(is);
     when(mock.call(any(WsRequest.class))).thenReturn(response);
+    when(mock.callWithCache(any(GetRequest.class))).thenReturn(response);
   }
 
   public static void mockReader(ScannerWsClient mock, Reader reader) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentReader()).thenReturn(reader);
     when(mock.call(any(WsRequest.class))).thenReturn(response);
+    when(mock.callWithCache(any(GetRequest.class))).thenReturn(response);
   }
 
   public static void mockReader(ScannerWsClient mock, String path, Reader reader) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentReader()).thenReturn(reader);
-    when(mock.call(argThat(new RequestMatcher(path)))).thenReturn(response);
+    when(mock.call(argThat(new RequestMatcher<>(path)))).thenReturn(response);
+    when(mock.callWithCache(argThat(new RequestMatcher<>(path)))).thenReturn(response);
   }
 
   public static void mockException(ScannerWsClient mock, Exception e) {
     when(mock.call(any(WsRequest.class))).thenThrow(e);
+    when(mock.callWithCache(any(GetRequest.class))).thenThrow(e);
   }
 
   public static void mockException(ScannerWsClient mock, String path, Exception e) {
-    when(mock.call(argThat(new RequestMatcher(path)))).thenThrow(e);
+    when(mock.call(argThat(new RequestMatcher<>(path)))).thenThrow(e);
+    when(mock.callWithCache(argThat(new RequestMatcher<>(path)))).thenThrow(e);
   }
 
   public static void verifyCall(ScannerWsClient mock, String path) {
-    verify(mock).call(argThat(new RequestMatcher(path)));
+    verify(mock).call(argThat(new RequestMatcher<>(path)));
   }
 
-  private static class RequestMatcher extends BaseMatcher<WsRequest> {
+  public static void verifyCallWithCache(ScannerWsClient mock, String path) {
+    verify(mock).callWithCache(argThat(new RequestMatcher<>(path)));
+  }
+
+  private static class RequestMatcher<T extends WsRequest> extends BaseMatcher<T> {
     private String path;
 
     public RequestMatcher(String path) {
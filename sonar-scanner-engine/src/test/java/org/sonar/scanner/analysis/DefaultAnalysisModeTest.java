@@ -103,11 +103,33 @@ public class DefaultAnalysisModeTest {
     assertThat(mode.scanAllFiles()).isTrue();
   }
 
+  @Test
+  public void incremental_publish_mode() {
+    Map<String, String> props = new HashMap<>();
+    props.put("sonar.incremental", "true");
+    DefaultAnalysisMode mode = new DefaultAnalysisMode(new GlobalProperties(new HashMap<>()), new AnalysisProperties(props));
+
+    assertThat(mode.isPublish()).isTrue();
+    assertThat(mode.isIncremental()).isTrue();
+    assertThat(mode.scanAllFiles()).isFalse();
+  }
+
+  @Test
+  public void incremental_is_ignored_in_issues_mode() {
+    Map<String, String> props = new HashMap<>();
+    props.put(CoreProperties.ANALYSIS_MODE, CoreProperties.ANALYSIS_MODE_ISSUES);
+    props.put("sonar.incremental", "true");
+    DefaultAnalysisMode mode = new DefaultAnalysisMode(new GlobalProperties(props), new AnalysisProperties(props));
+
+    assertThat(mode.isIncremental()).isFalse();
+  }
+
   @Test
   public void default_publish_mode() {
     DefaultAnalysisMode mode = createMode(null);
     assertThat(mode.isPublish()).isTrue();
     assertThat(mode.scanAllFiles()).isTrue();
+    assertThat(mode.isIncremental()).isFalse();
   }
 
   @Test
@@ -19,10 +19,14 @@
  */
 package org.sonar.scanner.bootstrap;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.batch.bootstrapper.EnvironmentInformation;
 import org.sonarqube.ws.client.HttpConnector;
 
@@ -30,12 +34,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class ScannerWsClientProviderTest {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private ScannerWsClientProvider underTest = new ScannerWsClientProvider();
   private EnvironmentInformation env = new EnvironmentInformation("Maven Plugin", "2.3");
 
   @Test
-  public void provide_client_with_default_settings() {
-    GlobalProperties settings = new GlobalProperties(new HashMap<>());
+  public void provide_client_with_default_settings() throws Exception {
+    GlobalProperties settings = new GlobalProperties(userHome());
 
     ScannerWsClient client = underTest.provide(settings, env, new GlobalMode(new GlobalProperties(Collections.emptyMap())));
 
@@ -46,11 +53,22 @@ public class ScannerWsClientProviderTest {
     assertThat(httpConnector.okHttpClient().proxy()).isNull();
     assertThat(httpConnector.okHttpClient().connectTimeoutMillis()).isEqualTo(5_000);
     assertThat(httpConnector.okHttpClient().readTimeoutMillis()).isEqualTo(60_000);
+    assertThat(client.cache().dir()).isEqualTo(new File(settings.property("sonar.userHome"), "cache/_ws").toPath());
   }
 
   @Test
-  public void provide_client_with_custom_settings() {
-    Map<String, String> props = new HashMap<>();
+  public void provide_client_without_cache() throws Exception {
+    Map<String, String> props = userHome();
+    props.put("sonar.ws.cache", "false");
+
+    ScannerWsClient client = underTest.provide(new GlobalProperties(props), env, new GlobalMode(new GlobalProperties(Collections.emptyMap())));
+
+    assertThat(client.cache()).isNull();
+  }
+
+  @Test
+  public void provide_client_with_custom_settings() throws Exception {
+    Map<String, String> props = userHome();
     props.put("sonar.host.url", "https://here/sonarqube");
     props.put("sonar.login", "theLogin");
     props.put("sonar.password", "thePassword");
@@ -66,10 +84,16 @@ public class ScannerWsClientProviderTest {
   }
 
   @Test
-  public void build_singleton() {
-    GlobalProperties settings = new GlobalProperties(new HashMap<>());
+  public void build_singleton() throws Exception {
+    GlobalProperties settings = new GlobalProperties(userHome());
     ScannerWsClient first = underTest.provide(settings, env, new GlobalMode(new GlobalProperties(Collections.emptyMap())));
     ScannerWsClient second = underTest.provide(settings, env, new GlobalMode(new GlobalProperties(Collections.emptyMap())));
     assertThat(first).isSameAs(second);
   }
+
+  private Map<String, String> userHome() throws IOException {
+    Map<String, String> props = new HashMap<>();
+    props.put("sonar.userHome", temp.newFolder().getAbsolutePath());
+    return props;
+  }
 }
@@ -19,16 +19,21 @@
  */
 package org.sonar.scanner.bootstrap;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.MockWsResponse;
 import org.sonarqube.ws.client.WsClient;
 import org.sonarqube.ws.client.WsRequest;
@@ -36,6 +41,8 @@ import org.sonarqube.ws.client.WsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ScannerWsClientTest {
@@ -46,6 +53,9 @@ public class ScannerWsClientTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   WsClient wsClient = mock(WsClient.class, Mockito.RETURNS_DEEP_STUBS);
 
   @Test
@@ -121,11 +131,131 @@ public class ScannerWsClientTest {
     new ScannerWsClient(wsClient, true, new GlobalMode(new GlobalProperties(Collections.emptyMap()))).call(request);
   }
 
+  @Test
+  public void cache_response_and_revalidate_it_with_etag() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    GetRequest request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setContent("content").setHeader("ETag", "\"abc\""));
+
+    assertThat(underTest.callWithCache(request).content()).isEqualTo("content");
+    assertThat(request.getHeaders().getNames()).isEmpty();
+
+    request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setCode(304));
+
+    WsResponse result = underTest.callWithCache(request);
+    assertThat(request.getHeaders().getValue("If-None-Match")).contains("\"abc\"");
+    assertThat(result.code()).isEqualTo(200);
+    assertThat(result.content()).isEqualTo("content");
+    assertThat(result.header("ETag")).contains("\"abc\"");
+  }
+
+  @Test
+  public void replace_cached_response_if_modified() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    GetRequest request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setContent("content").setHeader("ETag", "\"abc\""));
+    underTest.callWithCache(request);
+
+    request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setContent("new content").setHeader("ETag", "\"def\""));
+    assertThat(underTest.callWithCache(request).content()).isEqualTo("new content");
+
+    request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setCode(304));
+    assertThat(underTest.callWithCache(request).content()).isEqualTo("new content");
+    assertThat(request.getHeaders().getValue("If-None-Match")).contains("\"def\"");
+  }
+
+  @Test
+  public void do_not_cache_response_without_etag() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    GetRequest request = newRequest();
+    MockWsResponse response = newResponse().setContent("content");
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    assertThat(underTest.callWithCache(request)).isSameAs(response);
+
+    request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setContent("content"));
+    underTest.callWithCache(request);
+    assertThat(request.getHeaders().getNames()).isEmpty();
+  }
+
+  @Test
+  public void do_not_cache_response_if_storage_is_forbidden() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    GetRequest request = newRequest();
+    MockWsResponse response = newResponse().setContent("secured").setHeader("ETag", "\"abc\"").setHeader("Cache-Control", "no-store");
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    assertThat(underTest.callWithCache(request)).isSameAs(response);
+    assertThat(underTest.cachedResponse(newRequest())).isEmpty();
+  }
+
+  @Test
+  public void read_cached_response_without_calling_server() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    assertThat(underTest.cachedResponse(newRequest())).isEmpty();
+
+    GetRequest request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setContent("content").setHeader("ETag", "\"abc\""));
+    underTest.callWithCache(request);
+
+    request = newRequest();
+    assertThat(underTest.cachedResponse(request).get().content()).isEqualTo("content");
+    verify(wsClient.wsConnector(), never()).call(request);
+    assertThat(new ScannerWsClient(wsClient, false, new GlobalMode(new GlobalProperties(Collections.emptyMap()))).cachedResponse(request)).isEmpty();
+  }
+
+  @Test
+  public void cache_content_derived_from_another_response() throws Exception {
+    ScannerWsClient underTest = newClientWithCache();
+    MockWsResponse serverResponse = newResponse().setContent("changes").setHeader("ETag", "\"abc\"");
+
+    underTest.cacheAs(newRequest(), serverResponse, "complete".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(underTest.cachedResponse(newRequest()).get().content()).isEqualTo("complete");
+
+    // storage is forbidden by server
+    underTest.cacheAs(newRequest(), newResponse().setHeader("ETag", "\"def\"").setHeader("Cache-Control", "no-store"),
+      "secured".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(underTest.cachedResponse(newRequest())).isEmpty();
+  }
+
+  @Test
+  public void call_with_cache_fails_if_not_successful() throws Exception {
+    expectedException.expect(HttpException.class);
+
+    GetRequest request = newRequest();
+    when(wsClient.wsConnector().call(request)).thenReturn(newResponse().setCode(404).setContent(""));
+
+    newClientWithCache().callWithCache(request);
+  }
+
+  @Test
+  public void call_without_cache_if_disabled() throws Exception {
+    GetRequest request = newRequest();
+    MockWsResponse response = newResponse().setContent("content").setHeader("ETag", "\"abc\"");
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    WsResponse result = new ScannerWsClient(wsClient, false, new GlobalMode(new GlobalProperties(Collections.emptyMap()))).callWithCache(request);
+
+    assertThat(result).isSameAs(response);
+  }
+
+  private ScannerWsClient newClientWithCache() throws IOException {
+    when(wsClient.wsConnector().baseUrl()).thenReturn("https://local/");
+    return new ScannerWsClient(wsClient, false, new GlobalMode(new GlobalProperties(Collections.emptyMap())),
+      new WsResponseCache(temp.newFolder().toPath()));
+  }
+
   private MockWsResponse newResponse() {
-    return new MockWsResponse().setRequestUrl("https://local/api/issues/search");
+    return new MockWsResponse().setRequestUrl("https://local/api/issues/search").setContentType(MediaTypes.JSON);
   }
 
-  private WsRequest newRequest() {
+  private GetRequest newRequest() {
     return new GetRequest("api/issues/search");
   }
 }
@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.scanner.bootstrap.WsResponseCache.CachedWsResponse;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.MockWsResponse;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WsResponseCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File dir;
+  private WsResponseCache underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = new File(temp.newFolder(), "_ws");
+    underTest = new WsResponseCache(dir.toPath());
+  }
+
+  @Test
+  public void key_depends_on_server_path_media_type_and_parameters() {
+    String key = WsResponseCache.keyOf("http://foo/", new GetRequest("api/rules/search").setParam("p", 1));
+
+    assertThat(key).hasSize(64).isEqualTo(WsResponseCache.keyOf("http://foo/", new GetRequest("api/rules/search").setParam("p", 1)));
+    assertThat(WsResponseCache.keyOf("http://bar/", new GetRequest("api/rules/search").setParam("p", 1))).isNotEqualTo(key);
+    assertThat(WsResponseCache.keyOf("http://foo/", new GetRequest("api/rules/search").setParam("p", 2))).isNotEqualTo(key);
+    assertThat(WsResponseCache.keyOf("http://foo/", new GetRequest("api/rules/search").setParam("p", 1).setMediaType(MediaTypes.PROTOBUF)))
+      .isNotEqualTo(key);
+  }
+
+  @Test
+  public void put_and_get_response() {
+    assertThat(underTest.get("key", "url")).isEmpty();
+
+    WsResponse put = underTest.put("key", "\"abc\"", new MockWsResponse().setRequestUrl("url").setContent("content").setContentType(MediaTypes.JSON));
+
+    assertThat(put.content()).isEqualTo("content");
+    CachedWsResponse cached = underTest.get("key", "url").get();
+    assertThat(cached.etag()).isEqualTo("\"abc\"");
+    assertThat(cached.contentType()).isEqualTo(MediaTypes.JSON);
+    assertThat(cached.content()).isEqualTo("content");
+    assertThat(cached.requestUrl()).isEqualTo("url");
+    assertThat(dir.list()).containsExactly("key");
+  }
+
+  @Test
+  public void return_response_if_it_can_not_be_stored() throws Exception {
+    // the cache directory can't be created
+    Files.write(dir.toPath(), "x".getBytes(UTF_8));
+
+    WsResponse put = underTest.put("key", "\"abc\"", new MockWsResponse().setRequestUrl("url").setContent("content").setContentType(MediaTypes.JSON));
+
+    assertThat(put.content()).isEqualTo("content");
+    assertThat(put.contentType()).isEqualTo(MediaTypes.JSON);
+    assertThat(put.header("ETag")).contains("\"abc\"");
+    assertThat(underTest.get("key", "url")).isEmpty();
+  }
+
+  @Test
+  public void remove_response() {
+    underTest.put("key", "\"abc\"", new MockWsResponse().setRequestUrl("url").setContent("content").setContentType(MediaTypes.JSON));
+
+    underTest.remove("key");
+    underTest.remove("unknown");
+
+    assertThat(underTest.get("key", "url")).isEmpty();
+  }
+
+  @Test
+  public void clean_up_responses_not_used_recently() throws Exception {
+    long now = System.currentTimeMillis();
+    putWithDate("old", now - 10_000L);
+    putWithDate("recent", now - 1_000L);
+
+    underTest.cleanUp(now, 5_000L, Long.MAX_VALUE);
+
+    assertThat(dir.list()).containsOnly("recent");
+  }
+
+  @Test
+  public void clean_up_least_recently_used_responses_if_cache_is_too_large() throws Exception {
+    long now = System.currentTimeMillis();
+    putWithDate("oldest", now - 3_000L);
+    putWithDate("old", now - 2_000L);
+    putWithDate("recent", now - 1_000L);
+    long fileSize = Files.size(dir.toPath().resolve("recent"));
+
+    underTest.cleanUp(now, Long.MAX_VALUE, 2 * fileSize);
+
+    assertThat(dir.list()).containsOnly("old", "recent");
+  }
+
+  @Test
+  public void reading_a_response_marks_it_as_recently_used() throws Exception {
+    long now = System.currentTimeMillis();
+    putWithDate("key", now - 10_000L);
+
+    underTest.get("key", "url");
+    underTest.cleanUp(System.currentTimeMillis(), 5_000L, Long.MAX_VALUE);
+
+    assertThat(dir.list()).containsOnly("key");
+  }
+
+  @Test
+  public void clean_up_does_nothing_if_cache_does_not_exist() {
+    underTest.cleanUp(System.currentTimeMillis(), 0L, 0L);
+
+    assertThat(dir).doesNotExist();
+  }
+
+  @Test
+  public void ignore_corrupted_file() throws Exception {
+    Files.createDirectories(dir.toPath());
+    Files.write(dir.toPath().resolve("key"), "x".getBytes(UTF_8));
+
+    assertThat(underTest.get("key", "url")).isEmpty();
+  }
+
+  private void putWithDate(String key, long lastModifiedMs) throws Exception {
+    underTest.put(key, "\"abc\"", new MockWsResponse().setRequestUrl("url").setContent("content").setContentType(MediaTypes.JSON));
+    Files.setLastModifiedTime(dir.toPath().resolve(key), FileTime.fromMillis(lastModifiedMs));
+  }
+}
@@ -26,10 +26,12 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import com.google.common.collect.ImmutableMap;
 import org.sonar.api.CoreProperties;
+import org.sonar.scanner.analysis.AnalysisProperties;
 import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.bootstrap.GlobalTempFolderProvider;
 import org.sonar.scanner.storage.Storages;
 import org.sonar.scanner.storage.StoragesManager;
+import java.util.Collections;
 import java.util.Map;
 
 import org.junit.ClassRule;
@@ -57,7 +59,7 @@ public abstract class AbstractCachesTest {
 
   @Before
   public void start() {
-    caches = new Storages(cachesManager);
+    caches = new Storages(cachesManager, new AnalysisProperties(Collections.emptyMap()));
     caches.start();
   }
 
@@ -21,6 +21,8 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,6 +32,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultIndexedFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssueInclusionPatternInitializer;
@@ -37,9 +41,7 @@ import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class IssueExclusionsLoaderTest {
@@ -50,9 +52,6 @@ public class IssueExclusionsLoaderTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
-  @Mock
-  private IssueExclusionsRegexpScanner regexpScanner;
-
   @Mock
   private IssueInclusionPatternInitializer inclusionPatternInitializer;
 
@@ -71,7 +70,7 @@ public class IssueExclusionsLoaderTest {
     baseDir = temp.newFolder();
     fs = new DefaultFileSystem(baseDir.toPath()).setEncoding(UTF_8);
     MockitoAnnotations.initMocks(this);
-    scanner = new IssueExclusionsLoader(regexpScanner, exclusionPatternInitializer, inclusionPatternInitializer, fs);
+    scanner = new IssueExclusionsLoader(exclusionPatternInitializer, inclusionPatternInitializer, fs);
   }
 
   @Test
@@ -101,16 +100,11 @@ public class IssueExclusionsLoaderTest {
 
   @Test
   public void shouldAnalyzeProject() throws IOException {
-    File javaFile1 = new File(baseDir, "src/main/java/Foo.java");
-    fs.add(new TestInputFileBuilder("polop", "src/main/java/Foo.java")
-      .setModuleBaseDir(baseDir.toPath())
-      .setType(InputFile.Type.MAIN)
-      .build());
-    File javaTestFile1 = new File(baseDir, "src/test/java/FooTest.java");
-    fs.add(new TestInputFileBuilder("polop", "src/test/java/FooTest.java")
-      .setModuleBaseDir(baseDir.toPath())
-      .setType(InputFile.Type.TEST)
-      .build());
+    List<String> filesWithMetadata = new ArrayList<>();
+    fs.add(new DefaultInputFile(new DefaultIndexedFile("polop", baseDir.toPath(), "src/main/java/Foo.java", InputFile.Type.MAIN, 1),
+      f -> filesWithMetadata.add(f.key())));
+    fs.add(new DefaultInputFile(new DefaultIndexedFile("polop", baseDir.toPath(), "src/test/java/FooTest.java", InputFile.Type.TEST, 2),
+      f -> filesWithMetadata.add(f.key())));
 
     when(exclusionPatternInitializer.hasFileContentPattern()).thenReturn(true);
 
@@ -120,15 +114,15 @@ public class IssueExclusionsLoaderTest {
     verify(inclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
-    verify(regexpScanner).scan("polop:src/main/java/Foo.java", javaFile1, UTF_8);
-    verify(regexpScanner).scan("polop:src/test/java/FooTest.java", javaTestFile1, UTF_8);
+    // content is scanned while computing metadata
+    assertThat(filesWithMetadata).containsOnly("polop:src/main/java/Foo.java", "polop:src/test/java/FooTest.java");
   }
 
   @Test
   public void shouldAnalyseFilesOnlyWhenRegexConfigured() {
-    fs.add(new TestInputFileBuilder("polop", "src/main/java/Foo.java")
-      .setType(InputFile.Type.MAIN)
-      .build());
+    fs.add(new DefaultInputFile(new DefaultIndexedFile("polop", baseDir.toPath(), "src/main/java/Foo.java"), f -> {
+      throw new IllegalStateException("Metadata should not be loaded");
+    }));
     fs.add(new TestInputFileBuilder("polop", "src/test/java/FooTest.java")
       .setType(InputFile.Type.TEST)
       .build());
@@ -140,19 +134,15 @@ public class IssueExclusionsLoaderTest {
     verify(inclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
-    verifyZeroInteractions(regexpScanner);
   }
 
   @Test
   public void shouldReportFailure() throws IOException {
-    File phpFile1 = new File(baseDir, "src/Foo.php");
-    fs.add(new TestInputFileBuilder("polop", "src/Foo.php")
-      .setModuleBaseDir(baseDir.toPath())
-      .setType(InputFile.Type.MAIN)
-      .build());
+    fs.add(new DefaultInputFile(new DefaultIndexedFile("polop", baseDir.toPath(), "src/Foo.php"), f -> {
+      throw new IllegalStateException("BUG");
+    }));
 
     when(exclusionPatternInitializer.hasFileContentPattern()).thenReturn(true);
-    doThrow(new IOException("BUG")).when(regexpScanner).scan("polop:src/Foo.php", phpFile1, UTF_8);
 
     thrown.expect(IllegalStateException.class);
     thrown.expectMessage("Unable to read the source file");
@@ -21,10 +21,15 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.Metadata;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
@@ -35,6 +40,8 @@ import java.util.Arrays;
 import java.util.Set;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -42,6 +49,9 @@ import static org.mockito.Mockito.when;
 
 public class IssueExclusionsRegexpScannerTest {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private IssueExclusionsRegexpScanner regexpScanner;
 
   private String javaFile;
@@ -165,4 +175,45 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldScanWhileReadingMetadata() throws Exception {
+    File file = new File(Resources.getResource(
+      "org/sonar/scanner/issue/ignore/scanner/IssueExclusionsRegexpScannerTest/file-with-double-regexp.txt").toURI());
+
+    Metadata metadata = new FileMetadata().readMetadata(file, UTF_8, regexpScanner.createCharHandlerFor(javaFile));
+
+    assertThat(metadata.lines()).isGreaterThan(25);
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+  }
+
+  @Test
+  public void shouldUseFirstMatchingBlockPattern() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "first\n// FOO-OFF // SONAR-OFF\nignored\n// SONAR-ON\nstill ignored\n// FOO-ON\nlast\n", UTF_8);
+
+    regexpScanner.scan(javaFile, file, UTF_8);
+
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, Sets.newHashSet(new LineRange(2, 4)));
+  }
+
+  @Test
+  public void shouldExcludeTillTheEndWithoutTrailingEmptyLine() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "first\n// SONAR-OFF\nignored\n", UTF_8);
+
+    regexpScanner.scan(javaFile, file, UTF_8);
+
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, Sets.newHashSet(new LineRange(2, 3)));
+  }
+
+  @Test
+  public void hasPatterns() {
+    assertThat(regexpScanner.hasPatterns()).isTrue();
+
+    IssueExclusionPatternInitializer noPatterns = mock(IssueExclusionPatternInitializer.class);
+    assertThat(new IssueExclusionsRegexpScanner(noPatterns).hasPatterns()).isFalse();
+  }
+
 }
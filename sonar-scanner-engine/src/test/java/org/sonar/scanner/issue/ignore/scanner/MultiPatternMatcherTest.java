@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiPatternMatcherTest {
+
+  @Test
+  public void return_first_pattern_found_in_declaration_order() {
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList(Pattern.compile("SONAR-OFF"), Pattern.compile("FOO-\\w+"), Pattern.compile("(a|b)c")));
+
+    assertThat(matcher.firstMatch("nothing here")).isEqualTo(-1);
+    assertThat(matcher.firstMatch("// FOO-OFF then SONAR-OFF")).isEqualTo(0);
+    assertThat(matcher.firstMatch("// FOO-OFF")).isEqualTo(1);
+    assertThat(matcher.firstMatch("abc")).isEqualTo(2);
+    assertThat(matcher.get(1).pattern()).isEqualTo("FOO-\\w+");
+  }
+
+  @Test
+  public void support_patterns_which_cannot_be_combined() {
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList(Pattern.compile("(x)\\1"), Pattern.compile("\\Q(a|b\\E"),
+      Pattern.compile("foo", Pattern.CASE_INSENSITIVE)));
+
+    assertThat(matcher.firstMatch("xx")).isEqualTo(0);
+    assertThat(matcher.firstMatch("x(a|b")).isEqualTo(1);
+    assertThat(matcher.firstMatch("FOO")).isEqualTo(2);
+    assertThat(matcher.firstMatch("xy a|b")).isEqualTo(-1);
+  }
+
+  @Test
+  public void empty_matcher() {
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.emptyList());
+
+    assertThat(matcher.isEmpty()).isTrue();
+    assertThat(matcher.firstMatch("foo")).isEqualTo(-1);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import java.util.Collection;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.index.AbstractCachesTest;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.repository.ServerIssuesLoader;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+import org.sonar.scanner.scan.filesystem.InputComponentStore;
+import org.sonarqube.ws.client.HttpException;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerIssueRepositoryTest extends AbstractCachesTest {
+
+  private static final String MODULE_KEY = "foo";
+
+  private ServerIssuesLoader loader = mock(ServerIssuesLoader.class);
+  private DefaultAnalysisMode mode = mock(DefaultAnalysisMode.class);
+  private DefaultInputModule module;
+  private DefaultInputFile changedFile;
+  private DefaultInputFile addedFile;
+  private DefaultInputFile sameFile;
+  private ServerIssueRepository underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    module = TestInputFileBuilder.newDefaultInputModule(MODULE_KEY, temp.newFolder());
+    changedFile = new TestInputFileBuilder(MODULE_KEY, "src/Changed.xoo").setStatus(InputFile.Status.CHANGED).build();
+    addedFile = new TestInputFileBuilder(MODULE_KEY, "src/Added.xoo").setStatus(InputFile.Status.ADDED).build();
+    sameFile = new TestInputFileBuilder(MODULE_KEY, "src/Same.xoo").setStatus(InputFile.Status.SAME).build();
+    InputComponentStore componentStore = new InputComponentStore(new PathResolver());
+    componentStore.put(module);
+    componentStore.put(changedFile);
+    componentStore.put(addedFile);
+    componentStore.put(sameFile);
+    underTest = new ServerIssueRepository(caches, loader, new ImmutableProjectReactor(module.definition()), componentStore, mode);
+
+    // as a real server, fail on files that are unknown to the server
+    doAnswer(invocation -> {
+      String componentKey = (String) invocation.getArguments()[0];
+      if (componentKey.equals(addedFile.key())) {
+        throw new HttpException("/batch/issues.protobuf?key=" + componentKey, 404, "Component not found");
+      }
+      Function<ServerIssue, Void> consumer = (Function<ServerIssue, Void>) invocation.getArguments()[1];
+      consumer.apply(serverIssue("on-module", null));
+      if ((Boolean) invocation.getArguments()[2]) {
+        consumer.apply(serverIssue("on-changed-file", changedFile));
+        consumer.apply(serverIssue("on-same-file", sameFile));
+      }
+      return null;
+    }).when(loader).load(anyString(), any(Function.class), anyBoolean());
+    // unknown files are ignored
+    doAnswer(invocation -> {
+      Collection<String> fileKeys = (Collection<String>) invocation.getArguments()[1];
+      Function<ServerIssue, Void> consumer = (Function<ServerIssue, Void>) invocation.getArguments()[2];
+      if (fileKeys.contains(changedFile.key())) {
+        consumer.apply(serverIssue("on-changed-file", changedFile));
+      }
+      if (fileKeys.contains(sameFile.key())) {
+        consumer.apply(serverIssue("on-same-file", sameFile));
+      }
+      return null;
+    }).when(loader).load(anyString(), anyCollectionOf(String.class), any(Function.class));
+  }
+
+  @Test
+  public void load_issues_of_all_files() {
+    when(mode.scanAllFiles()).thenReturn(true);
+
+    underTest.load();
+
+    assertThat(underTest.byComponent(module)).extracting(ServerIssue::getKey).containsOnly("on-module");
+    assertThat(underTest.byComponent(changedFile)).extracting(ServerIssue::getKey).containsOnly("on-changed-file");
+    assertThat(underTest.byComponent(sameFile)).extracting(ServerIssue::getKey).containsOnly("on-same-file");
+    assertThat(underTest.byComponent(addedFile)).isEmpty();
+    verify(loader).load(eq(MODULE_KEY), any(Function.class), eq(true));
+    verify(loader, never()).load(anyString(), anyCollectionOf(String.class), any(Function.class));
+  }
+
+  @Test
+  public void load_issues_of_changed_files_in_a_single_request_when_only_changed_files_are_analyzed() {
+    when(mode.scanAllFiles()).thenReturn(false);
+
+    underTest.load();
+
+    assertThat(underTest.byComponent(module)).extracting(ServerIssue::getKey).containsOnly("on-module");
+    assertThat(underTest.byComponent(changedFile)).extracting(ServerIssue::getKey).containsOnly("on-changed-file");
+    assertThat(underTest.byComponent(sameFile)).isEmpty();
+    assertThat(underTest.byComponent(addedFile)).isEmpty();
+    verify(loader).load(eq(MODULE_KEY), any(Function.class), eq(false));
+    // added files are unknown to the server and unchanged files are not tracked
+    verify(loader).load(eq(MODULE_KEY), eq(singletonList(changedFile.key())), any(Function.class));
+  }
+
+  private static ServerIssue serverIssue(String key, @Nullable DefaultInputFile file) {
+    ServerIssue.Builder builder = ServerIssue.newBuilder().setKey(key).setModuleKey(MODULE_KEY);
+    if (file != null) {
+      builder.setPath(file.relativePath());
+    }
+    return builder.build();
+  }
+}
@@ -526,6 +526,28 @@ public class FileSystemMediumTest {
     assertThat(result.inputFiles()).hasSize(2);
   }
 
+  @Test
+  public void skipExcludedDirectories() throws IOException {
+    File srcDir = new File(baseDir, "src");
+    srcDir.mkdir();
+    FileUtils.write(new File(srcDir, "sample.xoo"), "Sample xoo\ncontent");
+
+    File nodeModules = new File(srcDir, "node_modules/lib");
+    nodeModules.mkdirs();
+    FileUtils.write(new File(nodeModules, "lib.xoo"), "Sample xoo\ncontent");
+
+    TaskResult result = tester.newTask()
+      .properties(createBuilder()
+        .put("sonar.sources", "src")
+        .put("sonar.exclusions", "**/node_modules/**")
+        .build())
+      .start();
+
+    assertThat(result.inputFiles()).hasSize(1);
+    assertThat(logs.getAllAsString()).contains("node_modules' excluded by inclusion/exclusion patterns");
+    assertThat(logs.getAllAsString()).doesNotContain("lib.xoo");
+  }
+
   @Test
   public void failForDuplicateInputFile() throws IOException {
     File srcDir = new File(baseDir, "src");
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.mediumtest.fs;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.scanner.mediumtest.ScannerMediumTester;
+import org.sonar.scanner.mediumtest.TaskResult;
+import org.sonar.scanner.protocol.output.ScannerReport.Component.FileStatus;
+import org.sonar.scanner.repository.FileData;
+import org.sonar.xoo.XooPlugin;
+import org.sonar.xoo.rule.XooRulesDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalMediumTest {
+
+  private static final String UNCHANGED_FILE = "xources/hello/HelloJava.xoo";
+  private static final String CHANGED_FILE = "xources/hello/helloscala.xoo";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ScannerMediumTester tester;
+  private File projectDir;
+
+  @Before
+  public void prepare() throws Exception {
+    projectDir = temp.newFolder();
+    FileUtils.copyDirectory(new File(IncrementalMediumTest.class.getResource("/mediumtest/xoo/sample").toURI()), projectDir);
+
+    tester = ScannerMediumTester.builder()
+      .registerPlugin("xoo", new XooPlugin())
+      .addDefaultQProfile("xoo", "Sonar Way")
+      .addRules(new XooRulesDefinition())
+      .addActiveRule("xoo", "OneIssuePerLine", null, "One issue per line", "MAJOR", null, "xoo")
+      // same hash as on the server => status is SAME
+      .addFileData("sample", UNCHANGED_FILE, new FileData(md5(UNCHANGED_FILE), null))
+      .addFileData("sample", CHANGED_FILE, new FileData("old hash", null))
+      .build();
+    tester.start();
+  }
+
+  @After
+  public void stop() {
+    tester.stop();
+  }
+
+  @Test
+  public void only_analyze_changed_files_in_incremental_mode() {
+    TaskResult result = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.incremental", "true")
+      .start();
+
+    assertThat(result.getReportReader().readMetadata().getIncremental()).isTrue();
+
+    InputFile unchangedFile = result.inputFile(UNCHANGED_FILE);
+    assertThat(result.getReportComponent(unchangedFile.key()).getStatus()).isEqualTo(FileStatus.SAME);
+    assertThat(result.issuesFor(unchangedFile)).isEmpty();
+    assertThat(result.allMeasures().get(unchangedFile.key())).isNullOrEmpty();
+    assertThat(result.getReportReader().readFileSource(result.getReportComponent(unchangedFile.key()).getRef())).isNull();
+
+    InputFile changedFile = result.inputFile(CHANGED_FILE);
+    assertThat(result.getReportComponent(changedFile.key()).getStatus()).isEqualTo(FileStatus.CHANGED);
+    assertThat(result.issuesFor(changedFile)).isNotEmpty();
+    assertThat(result.allMeasures().get(changedFile.key())).isNotEmpty();
+    assertThat(result.getReportReader().readFileSource(result.getReportComponent(changedFile.key()).getRef())).isNotNull();
+  }
+
+  @Test
+  public void analyze_all_files_by_default() {
+    TaskResult result = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .start();
+
+    assertThat(result.getReportReader().readMetadata().getIncremental()).isFalse();
+
+    InputFile unchangedFile = result.inputFile(UNCHANGED_FILE);
+    assertThat(result.getReportComponent(unchangedFile.key()).getStatus()).isEqualTo(FileStatus.SAME);
+    assertThat(result.issuesFor(unchangedFile)).hasSize(8);
+  }
+
+  private String md5(String relativePath) throws IOException {
+    return DigestUtils.md5Hex(FileUtils.readFileToString(new File(projectDir, relativePath)));
+  }
+}
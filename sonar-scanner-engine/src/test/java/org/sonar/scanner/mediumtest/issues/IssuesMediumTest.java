@@ -140,6 +140,26 @@ public class IssuesMediumTest {
     assertThat(result.issuesFor(result.inputFile("xources/hello/helloscala.xoo"))).isEmpty();
   }
 
+  @Test
+  public void testIssueBlockExclusion() throws Exception {
+    File projectDir = new File(IssuesMediumTest.class.getResource("/mediumtest/xoo/sample").toURI());
+    File tmpDir = temp.newFolder();
+    FileUtils.copyDirectory(projectDir, tmpDir);
+
+    TaskResult result = tester
+      .newScanTask(new File(tmpDir, "sonar-project.properties"))
+      .property("sonar.issue.ignore.block", "1")
+      .property("sonar.issue.ignore.block.1.beginBlockRegexp", "public static")
+      .property("sonar.issue.ignore.block.1.endBlockRegexp", "\\}")
+      .start();
+
+    List<Issue> issues = result.issuesFor(result.inputFile("xources/hello/HelloJava.xoo"));
+    assertThat(issues).hasSize(8 - 3 /* lines 5 to 7 */);
+    for (Issue issue : issues) {
+      assertThat(issue.getTextRange().getStartLine()).isNotIn(5, 6, 7);
+    }
+  }
+
   @Test
   public void testIssueDetails() throws IOException {
 
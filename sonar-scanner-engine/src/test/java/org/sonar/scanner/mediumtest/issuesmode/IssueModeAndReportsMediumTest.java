@@ -45,6 +45,7 @@ import org.sonar.scanner.issue.tracking.TrackedIssue;
 import org.sonar.scanner.mediumtest.TaskResult;
 import org.sonar.scanner.protocol.Constants.Severity;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.repository.FileData;
 import org.sonar.scanner.scan.report.ConsoleReport;
 import org.sonar.xoo.XooPlugin;
 import org.sonar.xoo.rule.XooRulesDefinition;
@@ -78,6 +79,9 @@ public class IssueModeAndReportsMediumTest {
     .addActiveRule("xoo", "OneIssueOnDirPerFile", null, "OneIssueOnDirPerFile", "MAJOR", null, "xoo")
     .addActiveRule("xoo", "OneIssuePerModule", null, "OneIssuePerModule", "MAJOR", null, "xoo")
     .setPreviousAnalysisDate(new Date())
+    // file with issues on server, which is changed since previous analysis
+    .addFileData("sample", "xources/hello/HelloJava.xoo", new FileData("changed", null))
+    .mockLineHashes("sample:xources/hello/HelloJava.xoo", new String[0])
     // Existing issue that is still detected
     .mockServerIssue(ServerIssue.newBuilder().setKey("xyz")
       .setModuleKey("sample")
@@ -176,6 +180,21 @@ public class IssueModeAndReportsMediumTest {
     });
   }
 
+  @Test
+  public void testConcurrentIssueTracking() throws Exception {
+    File projectDir = copyProject("/mediumtest/xoo/sample");
+
+    TaskResult result = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.scanner.issueTracking.threads", "4")
+      .start();
+
+    assertThat(result.trackedIssues()).hasSize(19);
+    assertThat(result.trackedIssues()).extracting("key").doesNotHaveDuplicates();
+    assertThat(result.trackedIssues()).filteredOn(TrackedIssue::isNew).hasSize(16);
+    assertThat(result.trackedIssues()).filteredOn(issue -> issue.resolution() != null).extracting("key").containsOnly("resolved");
+  }
+
   @Test
   public void testConsoleReport() throws Exception {
     File projectDir = copyProject("/mediumtest/xoo/sample");
@@ -82,6 +82,9 @@ public class ScanOnlyChangedTest {
       .addActiveRule("xoo", "OneIssuePerModule", null, "OneIssuePerModule", "MAJOR", null, "xoo")
       // this will cause the file to have status==SAME
       .addFileData("sample", filePath, new FileData(md5sum, null))
+      // this will cause the file to have status==CHANGED
+      .addFileData("sample", "xources/hello/helloscala.xoo", new FileData("changed", null))
+      .mockLineHashes("sample:xources/hello/helloscala.xoo", new String[0])
       .setPreviousAnalysisDate(new Date())
       // Existing issue that is copied
       .mockServerIssue(ServerIssue.newBuilder().setKey("xyz")
@@ -96,6 +99,18 @@ public class ScanOnlyChangedTest {
         .setChecksum(DigestUtils.md5Hex("packagehello;"))
         .setStatus("OPEN")
         .build())
+      // Existing issue on changed file that is no longer detected
+      .mockServerIssue(ServerIssue.newBuilder().setKey("closed-on-changed-file")
+        .setModuleKey("sample")
+        .setMsg("Fixed issue")
+        .setPath("xources/hello/helloscala.xoo")
+        .setRuleRepository("xoo")
+        .setRuleKey("OneIssueOnDirPerFile")
+        .setLine(100)
+        .setSeverity(Severity.MAJOR)
+        .setCreationDate(date("14/03/2004"))
+        .setStatus("OPEN")
+        .build())
       // Existing issue on project that is still detected
       .mockServerIssue(ServerIssue.newBuilder().setKey("resolved-on-project")
         .setModuleKey("sample")
@@ -130,7 +145,7 @@ public class ScanOnlyChangedTest {
       .property("sonar.scanAllFiles", "true")
       .start();
 
-    assertNumberIssues(result, 16, 2, 0);
+    assertNumberIssues(result, 16, 2, 1);
 
     /*
      * 8 new per line
@@ -150,14 +165,14 @@ public class ScanOnlyChangedTest {
      * We have:
      * 6 new issues per line (open) in helloscala.xoo
      * 2 new issues per file in helloscala.xoo / ClassOneTest.xoo
-     * 1 server issue (open, not new) copied from server in HelloJava.xoo (this file is unchanged)
-     * 1 manual issue (open, not new) in HelloJava.xoo
+     * 1 server issue (closed, not new) in helloscala.xoo (this file is changed)
      * 1 existing issue on the project (open, not new)
      */
-    assertNumberIssues(result, 8, 2, 0);
+    assertNumberIssues(result, 8, 1, 1);
 
-    // should only have server issues (HelloJava.xoo should not have been analyzed)
-    assertNumberIssuesOnFile(result, "HelloJava.xoo", 1);
+    // server issues of HelloJava.xoo are not loaded, as this file is unchanged and not analyzed
+    assertNumberIssuesOnFile(result, "HelloJava.xoo", 0);
+    assertNumberIssuesOnFile(result, "helloscala.xoo", 7);
   }
 
   private static void assertNumberIssuesOnFile(TaskResult result, final String fileNameEndsWith, int issues) {
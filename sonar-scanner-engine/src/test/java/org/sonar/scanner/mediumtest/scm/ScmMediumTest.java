@@ -255,6 +255,45 @@ public class ScmMediumTest {
     assertThat(logTester.logs()).containsSubsequence(MISSING_BLAME_INFORMATION_FOR_THE_FOLLOWING_FILES, "  * " + noBlameScmOnServer.getPath().replaceAll("\\\\", "/"));
   }
 
+  @Test
+  public void blame_files_concurrently() throws IOException, URISyntaxException {
+    File baseDir = prepareProject();
+    int files = 10;
+    for (int i = 0; i < files; i++) {
+      FileUtils.write(new File(baseDir, "src/concurrent" + i + ".xoo"), "Sample xoo\ncontent\n3\n4\n5");
+      FileUtils.write(new File(baseDir, "src/concurrent" + i + ".xoo.scm"),
+        // revision,author,dateTime
+        "1,foo,2013-01-04\n" +
+          "1,bar,2013-01-04\n" +
+          "2,biz,2014-01-04\n" +
+          "2,biz,2014-01-04\n" +
+          "3,author" + i + ",2015-01-04\n");
+    }
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.projectDescription", "Description of Foo Project")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.threads", "4")
+        .build())
+      .start();
+
+    for (int i = 0; i < files; i++) {
+      ScannerReport.Changesets changesets = getChangesets(baseDir, "src/concurrent" + i + ".xoo");
+      assertThat(changesets.getChangesetIndexByLineList()).hasSize(5);
+      assertThat(changesets.getChangeset(changesets.getChangesetIndexByLine(4)).getAuthor()).isEqualTo("author" + i);
+    }
+    assertThat(getChangesets(baseDir, "src/sample.xoo")).isNotNull();
+    assertThat(logTester.logs()).contains("Blame files with 4 threads");
+    assertThat(logTester.logs()).containsSubsequence("11 files to be analyzed", "11/11 files analyzed");
+  }
+
   @Test
   public void forceReload() throws IOException, URISyntaxException {
 
@@ -20,24 +20,37 @@
 package org.sonar.scanner.phases;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.junit.*;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorOptimizer;
 import org.sonar.scanner.sensor.SensorStrategy;
+import org.sonar.scanner.sensor.SensorWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
 public class SensorsExecutorTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
 
   private SensorsExecutor rootModuleExecutor;
   private SensorsExecutor subModuleExecutor;
@@ -79,11 +92,11 @@ public class SensorsExecutorTest {
     when(selector.selectSensors(any(DefaultInputModule.class), eq(true))).thenReturn(Collections.singleton(globalSensor));
 
     DefaultInputModule rootModule = TestInputFileBuilder.newDefaultInputModule("root", temp.newFolder());
-    rootModuleExecutor = new SensorsExecutor(selector, rootModule, mock(EventBus.class), strategy);
+    rootModuleExecutor = new SensorsExecutor(selector, rootModule, mock(EventBus.class), strategy, new MapSettings());
 
     DefaultInputModule subModule = TestInputFileBuilder.newDefaultInputModule("sub", temp.newFolder());
     rootModule.definition().addSubProject(subModule.definition());
-    subModuleExecutor = new SensorsExecutor(selector, subModule, mock(EventBus.class), strategy);
+    subModuleExecutor = new SensorsExecutor(selector, subModule, mock(EventBus.class), strategy, new MapSettings());
   }
 
   @Test
@@ -104,4 +117,90 @@ public class SensorsExecutorTest {
     assertThat(globalSensor.called).isTrue();
     assertThat(globalSensor.global).isTrue();
   }
+
+  @Test
+  public void should_execute_independent_sensors_concurrently_when_enabled() throws IOException {
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    Consumer<org.sonar.api.batch.sensor.SensorContext> awaitOther = c -> {
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    SensorWrapper javaSensor = newSensor(d -> d.onlyOnLanguage("java").independent(), awaitOther);
+    SensorWrapper jsSensor = newSensor(d -> d.onlyOnLanguage("js").independent(), awaitOther);
+
+    newParallelExecutor(javaSensor, jsSensor).execute(context);
+
+    assertThat(barrier.isBroken()).isFalse();
+  }
+
+  @Test
+  public void should_propagate_failure_of_concurrent_sensor() throws IOException {
+    SensorWrapper javaSensor = newSensor(d -> d.onlyOnLanguage("java").independent(), c -> {
+      throw new IllegalArgumentException("failure");
+    });
+    SensorWrapper jsSensor = newSensor(d -> d.onlyOnLanguage("js").independent(), c -> {
+    });
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("failure");
+
+    newParallelExecutor(javaSensor, jsSensor).execute(context);
+  }
+
+  @Test
+  public void should_execute_sensors_sequentially_by_default() throws IOException {
+    String mainThread = Thread.currentThread().getName();
+    Consumer<org.sonar.api.batch.sensor.SensorContext> checkThread = c -> assertThat(Thread.currentThread().getName()).isEqualTo(mainThread);
+    SensorWrapper javaSensor = newSensor(d -> d.onlyOnLanguage("java").independent(), checkThread);
+    SensorWrapper jsSensor = newSensor(d -> d.onlyOnLanguage("js").independent(), checkThread);
+
+    ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(Arrays.asList(javaSensor, jsSensor));
+    DefaultInputModule module = TestInputFileBuilder.newDefaultInputModule("sub", temp.newFolder());
+    new SensorsExecutor(selector, module, mock(EventBus.class), strategy, new MapSettings()).execute(context);
+  }
+
+  @Test
+  public void should_group_independent_sensors_sharing_a_language() {
+    SensorWrapper java = newSensor(d -> d.onlyOnLanguage("java").independent(), c -> fail("not executed"));
+    SensorWrapper js = newSensor(d -> d.onlyOnLanguage("js").independent(), c -> fail("not executed"));
+    SensorWrapper javaAndXoo = newSensor(d -> d.onlyOnLanguages("java", "xoo").independent(), c -> fail("not executed"));
+    SensorWrapper xoo = newSensor(d -> d.onlyOnLanguage("xoo").independent(), c -> fail("not executed"));
+    SensorWrapper anyLanguage = newSensor(SensorDescriptor::independent, c -> fail("not executed"));
+
+    List<List<Sensor>> groups = SensorsExecutor.groupByLanguage(Arrays.asList(java, js, anyLanguage, javaAndXoo, xoo));
+
+    assertThat(groups).containsExactly(
+      Arrays.asList(java, javaAndXoo, xoo),
+      Collections.singletonList(js),
+      Collections.singletonList(anyLanguage));
+  }
+
+  private SensorsExecutor newParallelExecutor(Sensor... sensors) throws IOException {
+    ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(Arrays.asList(sensors));
+    DefaultInputModule module = TestInputFileBuilder.newDefaultInputModule("sub", temp.newFolder());
+    return new SensorsExecutor(selector, module, mock(EventBus.class), strategy,
+      new MapSettings()
+        .setProperty(SensorsExecutor.PARALLEL_PROPERTY, true)
+        .setProperty(SensorsExecutor.THREADS_PROPERTY, 2));
+  }
+
+  private static SensorWrapper newSensor(Consumer<SensorDescriptor> describe, Consumer<org.sonar.api.batch.sensor.SensorContext> execute) {
+    org.sonar.api.batch.sensor.Sensor sensor = new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        describe.accept(descriptor);
+      }
+
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        execute.accept(context);
+      }
+    };
+    return new SensorWrapper(sensor, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class));
+  }
 }
@@ -33,6 +33,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.scanner.ProjectAnalysisInfo;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
@@ -57,6 +58,7 @@ public class MetadataPublisherTest {
   private ModuleQProfiles qProfiles;
   private ProjectAnalysisInfo projectAnalysisInfo;
   private InputModuleHierarchy inputModuleHierarchy;
+  private DefaultAnalysisMode analysisMode;
 
   @Before
   public void prepare() {
@@ -68,7 +70,8 @@ public class MetadataPublisherTest {
     when(inputModuleHierarchy.root()).thenReturn(rootModule);
     settings = new MapSettings();
     qProfiles = mock(ModuleQProfiles.class);
-    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings, qProfiles);
+    analysisMode = mock(DefaultAnalysisMode.class);
+    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings, qProfiles, analysisMode);
   }
 
   @Test
@@ -91,6 +94,7 @@ public class MetadataPublisherTest {
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getCrossProjectDuplicationActivated()).isTrue();
+    assertThat(metadata.getIncremental()).isFalse();
     assertThat(metadata.getQprofilesPerLanguage()).containsOnly(entry("java", org.sonar.scanner.protocol.output.ScannerReport.Metadata.QProfile.newBuilder()
       .setKey("q1")
       .setName("Q1")
@@ -99,6 +103,18 @@ public class MetadataPublisherTest {
       .build()));
   }
 
+  @Test
+  public void write_incremental_flag() throws Exception {
+    when(analysisMode.isIncremental()).thenReturn(true);
+    File outputDir = temp.newFolder();
+    ScannerReportWriter writer = new ScannerReportWriter(outputDir);
+
+    underTest.publish(writer);
+
+    ScannerReportReader reader = new ScannerReportReader(outputDir);
+    assertThat(reader.readMetadata().getIncremental()).isTrue();
+  }
+
   @Test
   public void write_project_branch() throws Exception {
     settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "true");
@@ -27,13 +27,18 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class SourcePublisherTest {
 
@@ -43,6 +48,7 @@ public class SourcePublisherTest {
   private File sourceFile;
   private ScannerReportWriter writer;
   private DefaultInputFile inputFile;
+  private DefaultAnalysisMode analysisMode = mock(DefaultAnalysisMode.class);
 
   @Before
   public void prepare() throws IOException {
@@ -53,13 +59,14 @@ public class SourcePublisherTest {
       .setLines(5)
       .setModuleBaseDir(baseDir.toPath())
       .setCharset(StandardCharsets.ISO_8859_1)
+      .setStatus(InputFile.Status.SAME)
       .build();
 
     InputComponentStore componentStore = new InputComponentStore(new PathResolver());
     componentStore.put(TestInputFileBuilder.newDefaultInputModule(moduleKey, baseDir));
     componentStore.put(inputFile);
 
-    publisher = new SourcePublisher(componentStore);
+    publisher = new SourcePublisher(componentStore, analysisMode);
     File outputDir = temp.newFolder();
     writer = new ScannerReportWriter(outputDir);
   }
@@ -74,6 +81,16 @@ public class SourcePublisherTest {
     assertThat(FileUtils.readFileToString(out, StandardCharsets.UTF_8)).isEqualTo("");
   }
 
+  @Test
+  public void doNotPublishSourceOfUnchangedFileInIncrementalMode() throws Exception {
+    FileUtils.write(sourceFile, "1\n2\n3\n4\n", StandardCharsets.ISO_8859_1);
+    when(analysisMode.isIncremental()).thenReturn(true);
+
+    publisher.publish(writer);
+
+    assertThat(writer.hasComponentData(FileStructure.Domain.SOURCE, inputFile.batchId())).isFalse();
+  }
+
   @Test
   public void publishSourceWithLastEmptyLine() throws Exception {
     FileUtils.write(sourceFile, "1\n2\n3\n4\n", StandardCharsets.ISO_8859_1);
@@ -58,8 +58,8 @@ public class DefaultMetricsRepositoryLoaderTest {
   public void test() {
     MetricsRepository metricsRepository = metricsRepositoryLoader.load();
     assertThat(metricsRepository.metrics()).hasSize(3);
-    WsTestUtil.verifyCall(wsClient, WS_URL + "1");
-    WsTestUtil.verifyCall(wsClient, WS_URL + "2");
+    WsTestUtil.verifyCallWithCache(wsClient, WS_URL + "1");
+    WsTestUtil.verifyCallWithCache(wsClient, WS_URL + "2");
     verifyNoMoreInteractions(wsClient);
   }
 
@@ -24,6 +24,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,13 +33,19 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.MessageException;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.input.FilesFingerprint;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultProjectRepositoriesLoaderTest {
@@ -51,6 +59,7 @@ public class DefaultProjectRepositoriesLoaderTest {
   @Before
   public void prepare() throws IOException {
     wsClient = mock(ScannerWsClient.class);
+    when(wsClient.cachedResponse(any(GetRequest.class))).thenReturn(Optional.empty());
     InputStream is = mockData();
     WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F", is);
     loader = new DefaultProjectRepositoriesLoader(wsClient);
@@ -58,7 +67,7 @@ public class DefaultProjectRepositoriesLoaderTest {
 
   @Test
   public void continueOnError() {
-    when(wsClient.call(any(WsRequest.class))).thenThrow(IllegalStateException.class);
+    when(wsClient.callWithCache(any(GetRequest.class))).thenThrow(IllegalStateException.class);
     ProjectRepositories proj = loader.load(PROJECT_KEY, false);
     assertThat(proj.exists()).isEqualTo(false);
   }
@@ -93,10 +102,10 @@ public class DefaultProjectRepositoriesLoaderTest {
   @Test
   public void passIssuesModeParameter() {
     loader.load(PROJECT_KEY, false);
-    WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F");
+    WsTestUtil.verifyCallWithCache(wsClient, "/batch/project.protobuf?key=foo%3F");
 
     loader.load(PROJECT_KEY, true);
-    WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F&issues_mode=true");
+    WsTestUtil.verifyCallWithCache(wsClient, "/batch/project.protobuf?key=foo%3F&issues_mode=true");
   }
 
   @Test
@@ -107,7 +116,7 @@ public class DefaultProjectRepositoriesLoaderTest {
   @Test
   public void passAndEncodeProjectKeyParameter() {
     loader.load(PROJECT_KEY, false);
-    WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F");
+    WsTestUtil.verifyCallWithCache(wsClient, "/batch/project.protobuf?key=foo%3F");
   }
 
   private InputStream mockData() throws IOException {
@@ -132,6 +141,133 @@ public class DefaultProjectRepositoriesLoaderTest {
     assertThat(fd.hash()).isEqualTo("edb6b3b9ab92d8dc53ba90ab86cd422e");
   }
 
+  @Test
+  public void load_all_files_if_no_cached_response() throws IOException {
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+
+    assertThat(proj.exists()).isTrue();
+    WsTestUtil.verifyCallWithCache(wsClient, "/batch/project.protobuf?key=foo%3F");
+    verify(wsClient, never()).call(any(WsRequest.class));
+  }
+
+  @Test
+  public void request_changed_files_since_cached_analysis() throws IOException {
+    mockCachedResponse(newResponse("ANALYSIS_1", false, fingerprint("module", "src/A.java", "src/B.java"), "src/A.java", "src/B.java"));
+    WsProjectResponse delta = newResponse("ANALYSIS_2", true, fingerprint("module", "src/A.java", "src/B.java", "src/C.java"), "src/B.java", "src/C.java");
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_1", toStream(delta));
+
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+
+    // changed files are not cached
+    WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_1");
+    verify(wsClient, never()).callWithCache(any(GetRequest.class));
+    assertThat(proj.fileDataByPath("module").keySet()).containsOnly("src/A.java", "src/B.java", "src/C.java");
+    assertThat(proj.fileData("module", "src/B.java").hash()).isEqualTo("hash of src/B.java at ANALYSIS_2");
+    assertThat(proj.fileData("module", "src/A.java").hash()).isEqualTo("hash of src/A.java at ANALYSIS_1");
+  }
+
+  @Test
+  public void load_all_files_if_delta_does_not_match_cached_files() throws IOException {
+    mockCachedResponse(newResponse("ANALYSIS_1", false, fingerprint("module", "src/A.java", "src/B.java"), "src/A.java", "src/B.java"));
+    // src/A.java has been deleted
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_1",
+      toStream(newResponse("ANALYSIS_2", true, fingerprint("module", "src/B.java"))));
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F",
+      toStream(newResponse("ANALYSIS_2", false, fingerprint("module", "src/B.java"), "src/B.java")));
+
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+
+    WsTestUtil.verifyCallWithCache(wsClient, "/batch/project.protobuf?key=foo%3F");
+    assertThat(proj.fileDataByPath("module").keySet()).containsOnly("src/B.java");
+  }
+
+  @Test
+  public void replace_cached_response_by_the_one_built_from_changed_files() throws IOException {
+    AtomicReference<byte[]> cache = mockCache(newResponse("ANALYSIS_1", false, fingerprint("module", "src/A.java", "src/B.java"), "src/A.java", "src/B.java"));
+
+    // second analysis
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_1",
+      toStream(newResponse("ANALYSIS_2", true, fingerprint("module", "src/A.java", "src/B.java", "src/C.java"), "src/B.java", "src/C.java")));
+    loader.load(PROJECT_KEY, false);
+
+    // third analysis only requests the files changed since the second one
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_2",
+      toStream(newResponse("ANALYSIS_3", true, fingerprint("module", "src/A.java", "src/B.java", "src/C.java"), "src/C.java")));
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+
+    WsTestUtil.verifyCall(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_2");
+    verify(wsClient, never()).callWithCache(any(GetRequest.class));
+    assertThat(proj.fileData("module", "src/A.java").hash()).isEqualTo("hash of src/A.java at ANALYSIS_1");
+    assertThat(proj.fileData("module", "src/B.java").hash()).isEqualTo("hash of src/B.java at ANALYSIS_2");
+    assertThat(proj.fileData("module", "src/C.java").hash()).isEqualTo("hash of src/C.java at ANALYSIS_3");
+    WsProjectResponse cached = WsProjectResponse.parseFrom(cache.get());
+    assertThat(cached.getLastAnalysisUuid()).isEqualTo("ANALYSIS_3");
+    assertThat(cached.getDelta()).isFalse();
+    assertThat(cached.getFileDataByModuleAndPath().get("module").getFileDataByPath()).hasSize(3);
+  }
+
+  @Test
+  public void replace_cached_response_if_server_returns_all_files() throws IOException {
+    AtomicReference<byte[]> cache = mockCache(newResponse("ANALYSIS_1", false, fingerprint("module", "src/A.java"), "src/A.java"));
+    // cached analysis has been purged by server
+    WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F&since_analysis=ANALYSIS_1",
+      toStream(newResponse("ANALYSIS_2", false, fingerprint("module", "src/B.java"), "src/B.java")));
+
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+
+    assertThat(proj.fileDataByPath("module").keySet()).containsOnly("src/B.java");
+    assertThat(WsProjectResponse.parseFrom(cache.get()).getLastAnalysisUuid()).isEqualTo("ANALYSIS_2");
+  }
+
+  /**
+   * Cache of the complete response, as read and written by the loader
+   */
+  private AtomicReference<byte[]> mockCache(WsProjectResponse initial) {
+    AtomicReference<byte[]> cache = new AtomicReference<>(initial.toByteArray());
+    when(wsClient.cachedResponse(any(GetRequest.class))).thenAnswer(invocation -> {
+      WsResponse response = mock(WsResponse.class);
+      when(response.contentStream()).thenReturn(new ByteArrayInputStream(cache.get()));
+      return Optional.of(response);
+    });
+    doAnswer(invocation -> {
+      cache.set((byte[]) invocation.getArguments()[2]);
+      return null;
+    }).when(wsClient).cacheAs(any(GetRequest.class), any(WsResponse.class), any(byte[].class));
+    return cache;
+  }
+
+  private void mockCachedResponse(WsProjectResponse cached) throws IOException {
+    WsResponse response = mock(WsResponse.class);
+    when(response.contentStream()).thenReturn(toStream(cached));
+    when(wsClient.cachedResponse(any(GetRequest.class))).thenReturn(Optional.of(response));
+  }
+
+  private static WsProjectResponse newResponse(String analysisUuid, boolean delta, FilesFingerprint fingerprint, String... paths) {
+    WsProjectResponse.FileDataByPath.Builder fileDataByPath = WsProjectResponse.FileDataByPath.newBuilder();
+    for (String path : paths) {
+      fileDataByPath.getMutableFileDataByPath().put(path, WsProjectResponse.FileData.newBuilder().setHash("hash of " + path + " at " + analysisUuid).build());
+    }
+    WsProjectResponse.Builder response = WsProjectResponse.newBuilder()
+      .setLastAnalysisUuid(analysisUuid)
+      .setDelta(delta)
+      .setFilesCount(fingerprint.count())
+      .setFilesChecksum(fingerprint.checksum());
+    response.getMutableFileDataByModuleAndPath().put("module", fileDataByPath.build());
+    return response.build();
+  }
+
+  private static FilesFingerprint fingerprint(String module, String... paths) {
+    FilesFingerprint fingerprint = new FilesFingerprint();
+    for (String path : paths) {
+      fingerprint.add(module, path);
+    }
+    return fingerprint;
+  }
+
+  private static InputStream toStream(WsProjectResponse response) {
+    return new ByteArrayInputStream(response.toByteArray());
+  }
+
   private InputStream getTestResource(String name) throws IOException {
     return Resources.asByteSource(this.getClass().getResource(this.getClass().getSimpleName() + "/" + name))
       .openBufferedStream();
@@ -32,6 +32,8 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -63,9 +65,53 @@ public class DefaultServerIssuesLoaderTest {
     loader.load("foo", issue -> {
       result.add(issue);
       return null;
+    }, true);
+
+    assertThat(result).extracting("key").containsExactly("ab1", "ab2");
+  }
+
+  @Test
+  public void loadWithoutFilesFromWs() throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ServerIssue.newBuilder().setKey("ab1").build()
+      .writeDelimitedTo(bos);
+
+    InputStream is = new ByteArrayInputStream(bos.toByteArray());
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo&files=false", is);
+
+    final List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", issue -> {
+      result.add(issue);
+      return null;
+    }, false);
+
+    assertThat(result).extracting("key").containsExactly("ab1");
+  }
+
+  @Test
+  public void loadFilesFromWsInBatches() throws Exception {
+    List<String> fileKeys = IntStream.range(0, 60).mapToObj(i -> "foo:src/File" + i + ".java").collect(Collectors.toList());
+    String firstBatchUrl = "/batch/issues.protobuf?key=foo" + fileKeys.subList(0, 50).stream().map(k -> "&fileKeys=" + k.replace(":", "%3A").replace("/", "%2F")).collect(Collectors.joining());
+    String secondBatchUrl = "/batch/issues.protobuf?key=foo" + fileKeys.subList(50, 60).stream().map(k -> "&fileKeys=" + k.replace(":", "%3A").replace("/", "%2F")).collect(Collectors.joining());
+    WsTestUtil.mockStream(wsClient, firstBatchUrl, issuesStream("ab1"));
+    WsTestUtil.mockStream(wsClient, secondBatchUrl, issuesStream("ab2"));
+
+    final List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", fileKeys, issue -> {
+      result.add(issue);
+      return null;
     });
 
     assertThat(result).extracting("key").containsExactly("ab1", "ab2");
+    WsTestUtil.verifyCall(wsClient, firstBatchUrl);
+    WsTestUtil.verifyCall(wsClient, secondBatchUrl);
+  }
+
+  private static InputStream issuesStream(String issueKey) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ServerIssue.newBuilder().setKey(issueKey).build()
+      .writeDelimitedTo(bos);
+    return new ByteArrayInputStream(bos.toByteArray());
   }
 
   @Test(expected = IllegalStateException.class)
@@ -73,6 +119,6 @@ public class DefaultServerIssuesLoaderTest {
     InputStream is = mock(InputStream.class);
     when(is.read()).thenThrow(IOException.class);
     WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", is);
-    loader.load("foo", mock(Function.class));
+    loader.load("foo", mock(Function.class), true);
   }
 }
@@ -80,8 +80,8 @@ public class DefaultActiveRulesLoaderTest {
       .extracting(LoadedActiveRule::getSeverity)
       .containsExactly(SEVERITY_VALUE);
 
-    WsTestUtil.verifyCall(wsClient, urlOfPage(1));
-    WsTestUtil.verifyCall(wsClient, urlOfPage(2));
+    WsTestUtil.verifyCallWithCache(wsClient, urlOfPage(1));
+    WsTestUtil.verifyCallWithCache(wsClient, urlOfPage(2));
 
     verifyNoMoreInteractions(wsClient);
   }
@@ -125,6 +125,35 @@ public class ExclusionFiltersTest {
     assertThat(filter.accept(indexedFile, InputFile.Type.MAIN)).isFalse();
   }
 
+  @Test
+  public void exclude_subtree() {
+    Settings settings = new MapSettings();
+    settings.setProperty(CoreProperties.PROJECT_INCLUSIONS_PROPERTY, "src/**/*");
+    settings.setProperty(CoreProperties.PROJECT_TEST_INCLUSIONS_PROPERTY, "src/test/**");
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/node_modules/**");
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(settings));
+
+    filter.prepare();
+
+    assertThat(filter.excludesSubtree("", moduleBaseDir.toString(), InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.excludesSubtree("src/main", moduleBaseDir.resolve("src/main").toString(), InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.excludesSubtree("lib", moduleBaseDir.resolve("lib").toString(), InputFile.Type.MAIN)).isTrue();
+    assertThat(filter.excludesSubtree("src/main/node_modules", moduleBaseDir.resolve("src/main/node_modules").toString(), InputFile.Type.MAIN)).isTrue();
+    // test inclusions are excluded from sources
+    assertThat(filter.excludesSubtree("src/test", moduleBaseDir.resolve("src/test").toString(), InputFile.Type.MAIN)).isTrue();
+    assertThat(filter.excludesSubtree("src/test", moduleBaseDir.resolve("src/test").toString(), InputFile.Type.TEST)).isFalse();
+    assertThat(filter.excludesSubtree("src/main", moduleBaseDir.resolve("src/main").toString(), InputFile.Type.TEST)).isTrue();
+  }
+
+  @Test
+  public void no_subtree_excluded_without_patterns() {
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(new MapSettings()));
+    filter.prepare();
+
+    assertThat(filter.excludesSubtree("node_modules", moduleBaseDir.resolve("node_modules").toString(), InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.excludesSubtree("node_modules", moduleBaseDir.resolve("node_modules").toString(), InputFile.Type.TEST)).isFalse();
+  }
+
   @Test
   public void trim_pattern() {
     Settings settings = new MapSettings();
@@ -40,6 +40,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.utils.PathUtils;
+import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
 
 public class MetadataGeneratorTest {
   @Rule
@@ -49,6 +50,8 @@ public class MetadataGeneratorTest {
   private StatusDetection statusDetection;
   @Mock
   private DefaultModuleFileSystem fs;
+  @Mock
+  private IssueExclusionsRegexpScanner exclusionsScanner;
 
   private FileMetadata metadata;
   private MetadataGenerator generator;
@@ -57,7 +60,7 @@ public class MetadataGeneratorTest {
   public void setUp() {
     MockitoAnnotations.initMocks(this);
     metadata = new FileMetadata();
-    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata);
+    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata, exclusionsScanner);
   }
 
   @Test
@@ -115,4 +118,25 @@ public class MetadataGeneratorTest {
     assertThat(inputFile.relativePath()).isEqualTo("src/main/java/foo/Bar.java");
     assertThat(inputFile.lines()).isEqualTo(1);
   }
+
+  @Test
+  public void scan_issue_exclusions_while_reading_metadata() throws Exception {
+    Path baseDir = temp.newFolder().toPath();
+    Path srcFile = baseDir.resolve("src/main/java/foo/Bar.java");
+    FileUtils.write(srcFile.toFile(), "foo\nbar");
+    StringBuilder scanned = new StringBuilder();
+    when(exclusionsScanner.hasPatterns()).thenReturn(true);
+    when(exclusionsScanner.createCharHandlerFor("struts:src/main/java/foo/Bar.java")).thenReturn(new FileMetadata.CharHandler() {
+      @Override
+      protected void handleIgnoreEoL(char c) {
+        scanned.append(c);
+      }
+    });
+
+    InputFile inputFile = createInputFileWithMetadata(generator, baseDir, "src/main/java/foo/Bar.java");
+
+    assertThat(generator.scansFileContent()).isTrue();
+    assertThat(inputFile.lines()).isEqualTo(2);
+    assertThat(scanned.toString()).isEqualTo("foobar");
+  }
 }
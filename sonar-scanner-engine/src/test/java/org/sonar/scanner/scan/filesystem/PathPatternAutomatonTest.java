@@ -0,0 +1,158 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.IndexedFile;
+import org.sonar.api.batch.fs.internal.DefaultIndexedFile;
+import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.utils.PathUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternAutomatonTest {
+
+  private static final String[] PATTERNS = {
+    "**/*Dao.java", "src/main/java/**/*", "src/**", "**", "**/*", "org/T?st.java", "org/*.java", "org/**/Test.java", "*.xoo",
+    "src/main/*/Foo.java", "**/node_modules/**", "src/main/java/org/**/**/*.java", "/src/foo.js", "src\\main\\**\\*.js", "**/test/**",
+    "src/**.java", "foo**/bar.java", "src/main/java/com/mycompany/Foo.java", "**/*.min.*", "a/**/b/**/c", "**/a*b?c*.java"
+  };
+
+  private static final String[] PATHS = {
+    "src/main/java/com/mycompany/FooDao.java", "src/main/java/com/mycompany/Foo.java", "src/main/java/Foo.java", "src/foo.js",
+    "org/Test.java", "org/Tost.java", "org/foo/Test.java", "org/foo/bar/Test.java", "org/Foo.java", "Foo.xoo", "dir/Foo.xoo",
+    "node_modules/lib/index.js", "web/node_modules/lib/index.js", "src/main/js/app.js", "src/main/js/lib/app.min.js", "src/test/java/FooTest.java",
+    "foo/bar.java", "foobaz/bar.java", "a/b/c", "a/x/b/y/c", "a/b/c/d", "x/aXbYcZ.java", "abc.java", "src", "org/Tst.java"
+  };
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private Path baseDir;
+
+  @Before
+  public void setUp() throws IOException {
+    baseDir = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void match_like_each_path_pattern() {
+    for (String pattern : PATTERNS) {
+      PathPattern pathPattern = PathPattern.create(pattern);
+      PathPatternAutomaton automaton = PathPatternAutomaton.compile(new PathPattern[] {pathPattern});
+      for (String path : PATHS) {
+        IndexedFile file = file(path);
+        assertThat(automaton.match(file)).as(pattern + " on " + path).isEqualTo(pathPattern.match(file));
+      }
+    }
+  }
+
+  @Test
+  public void match_any_of_combined_patterns() {
+    PathPattern[] patterns = PathPattern.create(PATTERNS);
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(patterns);
+    PathPatternAutomaton withoutCatchAll = PathPatternAutomaton.compile(PathPattern.create(new String[] {"org/*.java", "**/node_modules/**", "**/*Dao.java"}));
+
+    for (String path : PATHS) {
+      assertThat(automaton.match(file(path))).as(path).isTrue();
+    }
+    assertThat(withoutCatchAll.match(file("org/Foo.java"))).isTrue();
+    assertThat(withoutCatchAll.match(file("web/node_modules/lib/index.js"))).isTrue();
+    assertThat(withoutCatchAll.match(file("src/main/java/FooDao.java"))).isTrue();
+    assertThat(withoutCatchAll.match(file("org/foo/Foo.java"))).isFalse();
+    assertThat(withoutCatchAll.match(file("node_modules"))).isFalse();
+  }
+
+  @Test
+  public void match_absolute_patterns() {
+    String absolute = PathUtils.sanitize(baseDir.resolve("src/main/java/Foo.java").toString());
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(PathPattern.create(new String[] {"file:" + absolute, "file:**/generated/**"}));
+
+    assertThat(automaton.match(file("src/main/java/Foo.java"))).isTrue();
+    assertThat(automaton.match(file("src/main/java/Bar.java"))).isFalse();
+    assertThat(automaton.match(file("target/generated/Bar.java"))).isTrue();
+  }
+
+  @Test
+  public void empty_automaton_matches_nothing() {
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(new PathPattern[0]);
+
+    assertThat(automaton.isEmpty()).isTrue();
+    assertThat(automaton.match(file("src/Foo.java"))).isFalse();
+  }
+
+  @Test
+  public void decide_whether_files_under_directory_can_match() {
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(PathPattern.create(new String[] {"src/main/java/**/*", "lib/*.js"}));
+
+    assertThat(automaton.canMatchUnder("", abs(""))).isTrue();
+    assertThat(automaton.canMatchUnder("src", abs("src"))).isTrue();
+    assertThat(automaton.canMatchUnder("src/main/java/org/foo", abs("src/main/java/org/foo"))).isTrue();
+    assertThat(automaton.canMatchUnder("src/test", abs("src/test"))).isFalse();
+    assertThat(automaton.canMatchUnder("node_modules", abs("node_modules"))).isFalse();
+    assertThat(automaton.canMatchUnder("lib", abs("lib"))).isTrue();
+    assertThat(automaton.canMatchUnder("lib/sub", abs("lib/sub"))).isFalse();
+  }
+
+  @Test
+  public void decide_whether_all_files_under_directory_match() {
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(PathPattern.create(new String[] {"**/node_modules/**", "target/**/*", "src/*.js"}));
+
+    assertThat(automaton.matchesAllUnder("", abs(""))).isFalse();
+    assertThat(automaton.matchesAllUnder("node_modules", abs("node_modules"))).isTrue();
+    assertThat(automaton.matchesAllUnder("web/app/node_modules", abs("web/app/node_modules"))).isTrue();
+    assertThat(automaton.matchesAllUnder("web/app/node_modules/lib", abs("web/app/node_modules/lib"))).isTrue();
+    assertThat(automaton.matchesAllUnder("web/app", abs("web/app"))).isFalse();
+    assertThat(automaton.matchesAllUnder("target", abs("target"))).isTrue();
+    assertThat(automaton.matchesAllUnder("src", abs("src"))).isFalse();
+  }
+
+  @Test
+  public void patterns_crossing_directories_prevent_pruning_on_inclusions() {
+    PathPatternAutomaton automaton = PathPatternAutomaton.compile(PathPattern.create(new String[] {"src/**.java"}));
+
+    assertThat(automaton.match(file("src/main/Foo.java"))).isTrue();
+    assertThat(automaton.canMatchUnder("test", abs("test"))).isTrue();
+    assertThat(automaton.matchesAllUnder("src", abs("src"))).isFalse();
+  }
+
+  @Test
+  public void match_glob_segment() {
+    assertThat(PathPatternAutomaton.matchGlob("*", "")).isTrue();
+    assertThat(PathPatternAutomaton.matchGlob("*Dao.java", "FooDao.java")).isTrue();
+    assertThat(PathPatternAutomaton.matchGlob("*Dao.java", "FooDto.java")).isFalse();
+    assertThat(PathPatternAutomaton.matchGlob("a*b*c", "aXbYbZc")).isTrue();
+    assertThat(PathPatternAutomaton.matchGlob("a*b*c", "aXbYbZ")).isFalse();
+    assertThat(PathPatternAutomaton.matchGlob("T?st", "Test")).isTrue();
+    assertThat(PathPatternAutomaton.matchGlob("T?st", "Tst")).isFalse();
+  }
+
+  private IndexedFile file(String relativePath) {
+    return new DefaultIndexedFile("foo", baseDir, relativePath);
+  }
+
+  private String abs(String relativePath) {
+    return PathUtils.sanitize(baseDir.resolve(relativePath).toString());
+  }
+}
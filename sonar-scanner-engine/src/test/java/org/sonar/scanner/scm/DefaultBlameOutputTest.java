@@ -19,21 +19,40 @@
  */
 package org.sonar.scanner.scm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scm.DefaultBlameOutput;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 public class DefaultBlameOutputTest {
 
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public LogTester logTester = new LogTester();
+
   @Test
   public void shouldNotFailIfNotSameNumberOfLines() {
     InputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(10).build();
@@ -74,4 +93,64 @@ public class DefaultBlameOutputTest {
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void shouldFailIfFileIsBlamedTwice() {
+    InputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(1).build();
+    DefaultBlameOutput output = new DefaultBlameOutput(mock(ScannerReportWriter.class), Arrays.asList(file));
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("It was not expected to blame file src/main/java/Foo.java");
+
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+  }
+
+  @Test
+  public void log_duration_of_each_file_from_the_start_of_its_blame() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    InputFile file1 = new TestInputFileBuilder("foo", "src/main/java/Foo1.java").setLines(1).build();
+    InputFile file2 = new TestInputFileBuilder("foo", "src/main/java/Foo2.java").setLines(1).build();
+    InputFile notStarted = new TestInputFileBuilder("foo", "src/main/java/Foo3.java").setLines(1).build();
+    DefaultBlameOutput output = new DefaultBlameOutput(mock(ScannerReportWriter.class), Arrays.asList(file1, file2, notStarted));
+
+    for (InputFile file : output.timed(Arrays.asList(file1, file2))) {
+      output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+    }
+    output.blameResult(notStarted, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+
+    List<String> durationLogs = logTester.logs(LoggerLevel.DEBUG).stream()
+      .filter(log -> log.startsWith("Blame of "))
+      .collect(Collectors.toList());
+    assertThat(durationLogs).hasSize(2);
+    assertThat(durationLogs.get(0)).startsWith("Blame of src/main/java/Foo1.java took ");
+    assertThat(durationLogs.get(1)).startsWith("Blame of src/main/java/Foo2.java took ");
+  }
+
+  @Test
+  public void accept_results_of_several_threads() throws Exception {
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/main/java/Foo" + i + ".java").setLines(1).build());
+    }
+    DefaultBlameOutput output = new DefaultBlameOutput(writer, files);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (InputFile file : files) {
+        futures.add(executor.submit(() -> output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")))));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    output.finish(true);
+
+    verify(writer, times(100)).writeComponentChangesets(any(ScannerReport.Changesets.class));
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+  }
+
 }
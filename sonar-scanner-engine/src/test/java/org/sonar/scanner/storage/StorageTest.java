@@ -20,15 +20,50 @@
 package org.sonar.scanner.storage;
 
 import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage;
 import org.sonar.scanner.storage.Storage.Entry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+@RunWith(Parameterized.class)
 public class StorageTest extends AbstractCachesTest {
 
+  @Parameters(name = "on disk: {0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] {
+      {true}, {false}
+    });
+  }
+
+  private final boolean onDisk;
+
+  public StorageTest(boolean onDisk) {
+    this.onDisk = onDisk;
+  }
+
+  @Before
+  public void selectEngine() {
+    if (onDisk) {
+      caches.stop();
+      caches = new Storages(cachesManager, 0L);
+    }
+    assertThat(caches.isOnDisk()).isEqualTo(onDisk);
+  }
+
   @Test
   public void one_part_key() {
     Storage<String> cache = caches.createCache("capitals");
@@ -249,4 +284,36 @@ public class StorageTest extends AbstractCachesTest {
     cache.clear("foo", "bar", "baz");
     cache.clear();
   }
+
+  @Test
+  public void concurrent_reads_and_writes() throws Exception {
+    Storage<String> cache = caches.createCache("concurrent");
+    cache.put("main", "initial", "value");
+    int threads = 4;
+    int valuesPerThread = 1_000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Callable<Integer>> tasks = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        String group = "thread" + t;
+        tasks.add(() -> {
+          for (int i = 0; i < valuesPerThread; i++) {
+            cache.put(group, i, group + "-" + i);
+            assertThat(cache.get(group, i)).isEqualTo(group + "-" + i);
+          }
+          assertThat(cache.get("main", "initial")).isEqualTo("value");
+          return Iterables.size(cache.values(group));
+        });
+      }
+      for (Future<Integer> future : executor.invokeAll(tasks)) {
+        assertThat(future.get()).isEqualTo(valuesPerThread);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cache.keySet()).hasSize(threads + 1);
+    assertThat(cache.values()).hasSize(threads * valuesPerThread + 1);
+  }
 }
@@ -19,24 +19,44 @@
  */
 package org.sonar.scanner.storage;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.bootstrap.GlobalTempFolderProvider;
 import org.sonar.scanner.index.AbstractCachesTest;
 import java.io.File;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class StoragesManagerTest extends AbstractCachesTest {
+  @Test
+  public void should_start_persistit_lazily() {
+    StoragesManager manager = new StoragesManager(new GlobalTempFolderProvider().provide(new GlobalProperties(ImmutableMap.of(
+      CoreProperties.WORKING_DIRECTORY, temp.getRoot().getAbsolutePath(),
+      CoreProperties.GLOBAL_WORKING_DIRECTORY, temp.getRoot().getAbsolutePath()))));
+    manager.start();
+    assertThat(manager.isStarted()).isFalse();
+    assertThat(manager.tempDir()).isNull();
+
+    assertThat(manager.persistit().isInitialized()).isTrue();
+    assertThat(manager.isStarted()).isTrue();
+    assertThat(manager.tempDir()).isDirectory().exists();
+
+    manager.stop();
+  }
+
   @Test
   public void should_stop_and_clean_temp_dir() {
-    File tempDir = cachesManager.tempDir();
-    assertThat(tempDir).isDirectory().exists();
     assertThat(cachesManager.persistit()).isNotNull();
     assertThat(cachesManager.persistit().isInitialized()).isTrue();
+    File tempDir = cachesManager.tempDir();
+    assertThat(tempDir).isDirectory().exists();
 
     cachesManager.stop();
 
     assertThat(tempDir).doesNotExist();
     assertThat(cachesManager.tempDir()).isNull();
-    assertThat(cachesManager.persistit()).isNull();
+    assertThat(cachesManager.isStarted()).isFalse();
   }
 }
@@ -19,7 +19,11 @@
  */
 package org.sonar.scanner.storage;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import com.persistit.exception.PersistitException;
 import org.junit.Test;
@@ -48,8 +52,61 @@ public class StoragesTest extends AbstractCachesTest {
     }
   }
 
+  @Test
+  public void should_store_in_memory_by_default() {
+    Storage<String> cache = caches.createCache("foo");
+    cache.put("key", "value");
+
+    assertThat(caches.isOnDisk()).isFalse();
+    assertThat(cache.get("key")).isEqualTo("value");
+  }
+
+  @Test
+  public void should_move_storages_to_disk_when_exceeding_max_in_memory_size() {
+    caches.stop();
+    caches = new Storages(cachesManager, OffHeapArena.CHUNK_SIZE);
+    Storage<String> strings = caches.createCache("strings");
+    Storage<Element> elements = caches.createCache("elements");
+    elements.put("element", new Element());
+
+    int i = 0;
+    while (!caches.isOnDisk()) {
+      strings.put("a", i, "a" + i);
+      i++;
+    }
+    strings.put("b", "b");
+
+    assertThat(strings.keySet("a")).hasSize(i);
+    assertThat(strings.get("a", 0)).isEqualTo("a0");
+    assertThat(strings.get("a", i - 1)).isEqualTo("a" + (i - 1));
+    assertThat(strings.get("b")).isEqualTo("b");
+    assertThat(elements.get("element")).isNotNull();
+
+    Storage<String> createdOnDisk = caches.createCache("other");
+    createdOnDisk.put("c", "c");
+    assertThat(createdOnDisk.get("c")).isEqualTo("c");
+  }
+
+  @Test
+  public void should_encode_values_with_registered_codec() {
+    Storages onDiskCaches = new Storages(cachesManager, 0L);
+    try {
+      for (Storages storages : Arrays.asList(caches, onDiskCaches)) {
+        storages.registerCodec(Element.class, new ElementCodec());
+        Storage<Element> cache = storages.createCache("codec");
+        cache.put("foo", new Element("bar"));
+
+        assertThat(cache.get("foo").name).isEqualTo("bar!");
+      }
+    } finally {
+      onDiskCaches.stop();
+    }
+  }
+
   @Test
   public void should_clean_resources() {
+    caches.stop();
+    caches = new Storages(cachesManager, 0L);
     Storage<String> c = caches.<String>createCache("test1");
     for (int i = 0; i < 1_000_000; i++) {
       c.put("a" + i, "a" + i);
@@ -60,7 +117,7 @@ public class StoragesTest extends AbstractCachesTest {
     // manager continues up
     assertThat(cachesManager.persistit().isInitialized()).isTrue();
 
-    caches = new Storages(cachesManager);
+    caches = new Storages(cachesManager, 0L);
     caches.start();
     caches.createCache("test1");
   }
@@ -76,7 +133,7 @@ public class StoragesTest extends AbstractCachesTest {
     }
 
     for (int i = 0; i < 3; i++) {
-      caches = new Storages(cachesManager);
+      caches = new Storages(cachesManager, 0L);
       caches.start();
       Storage<String> c = caches.<String>createCache("test" + i);
       c.put("key" + i, sb.toString());
@@ -88,6 +145,26 @@ public class StoragesTest extends AbstractCachesTest {
 
   private static class Element implements Serializable {
     private static final long serialVersionUID = 1L;
+    private final String name;
+
+    private Element() {
+      this("element");
+    }
 
+    private Element(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class ElementCodec implements StorageCodec<Element> {
+    @Override
+    public void write(DataOutput out, Element element) throws IOException {
+      out.writeUTF(element.name);
+    }
+
+    @Override
+    public Element read(DataInput in) throws IOException {
+      return new Element(in.readUTF() + "!");
+    }
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.input;
+
+import java.security.MessageDigest;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fingerprint of the set of files of a project, used by batch to verify that the file data
+ * it rebuilt from a delta of api/batch/project is the same as the one known by server.
+ * <p/>
+ * The checksum is the SHA-1 of the sorted files, so it does not depend on the order in which files are added.
+ */
+public class FilesFingerprint {
+
+  private final SortedSet<String> files = new TreeSet<>();
+
+  public FilesFingerprint add(String moduleKey, String path) {
+    files.add(moduleKey + '\n' + path);
+    return this;
+  }
+
+  public int count() {
+    return files.size();
+  }
+
+  public String checksum() {
+    MessageDigest sha1Digest = DigestUtils.getSha1Digest();
+    for (String file : files) {
+      sha1Digest.update(file.getBytes(UTF_8));
+      sha1Digest.update((byte) '\n');
+    }
+    return Hex.encodeHexString(sha1Digest.digest());
+  }
+
+  public boolean matches(int count, String checksum) {
+    return count() == count && checksum().equals(checksum);
+  }
+}
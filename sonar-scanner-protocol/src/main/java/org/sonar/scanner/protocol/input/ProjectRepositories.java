@@ -38,6 +38,9 @@ public class ProjectRepositories {
   private Map<String, Map<String, String>> settingsByModule = new HashMap<>();
   private Map<String, Map<String, FileData>> fileDataByModuleAndPath = new HashMap<>();
   private Date lastAnalysisDate;
+  private String lastAnalysisUuid;
+  private boolean delta = false;
+  private final FilesFingerprint filesFingerprint = new FilesFingerprint();
 
   public Map<String, String> settings(String moduleKey) {
     return settingsByModule.containsKey(moduleKey) ? settingsByModule.get(moduleKey) : Collections.<String, String>emptyMap();
@@ -70,10 +73,11 @@ public class ProjectRepositories {
   }
 
   public ProjectRepositories addFileData(String moduleKey, @Nullable String path, FileData fileData) {
-    if (path == null || (fileData.hash() == null && fileData.revision() == null)) {
+    if (!isValid(path, fileData)) {
       return this;
     }
 
+    filesFingerprint.add(moduleKey, path);
     Map<String, FileData> existingFileDataByPath = fileDataByModuleAndPath.get(moduleKey);
     if (existingFileDataByPath == null) {
       existingFileDataByPath = new HashMap<>();
@@ -83,6 +87,21 @@ public class ProjectRepositories {
     return this;
   }
 
+  /**
+   * Registers a file that did not change since the analysis a delta is computed from. The file is not part
+   * of file data but only of {@link #filesFingerprint()}.
+   */
+  public ProjectRepositories addUnchangedFile(String moduleKey, @Nullable String path, FileData fileData) {
+    if (isValid(path, fileData)) {
+      filesFingerprint.add(moduleKey, path);
+    }
+    return this;
+  }
+
+  private static boolean isValid(@Nullable String path, FileData fileData) {
+    return path != null && (fileData.hash() != null || fileData.revision() != null);
+  }
+
   @CheckForNull
   public FileData fileData(String projectKey, String path) {
     return fileDataByPath(projectKey).get(path);
@@ -105,6 +124,33 @@ public class ProjectRepositories {
     this.lastAnalysisDate = lastAnalysisDate;
   }
 
+  @CheckForNull
+  public String lastAnalysisUuid() {
+    return lastAnalysisUuid;
+  }
+
+  public void setLastAnalysisUuid(@Nullable String lastAnalysisUuid) {
+    this.lastAnalysisUuid = lastAnalysisUuid;
+  }
+
+  /**
+   * When true, file data contains only the files that changed since a given analysis.
+   */
+  public boolean isDelta() {
+    return delta;
+  }
+
+  public void setDelta(boolean delta) {
+    this.delta = delta;
+  }
+
+  /**
+   * Fingerprint of all the files of the project, including those that are not part of a delta
+   */
+  public FilesFingerprint filesFingerprint() {
+    return filesFingerprint;
+  }
+
   public String toJson() {
     return GsonHelper.create().toJson(this);
   }
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.input;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilesFingerprintTest {
+
+  @Test
+  public void empty_fingerprint() {
+    FilesFingerprint underTest = new FilesFingerprint();
+
+    assertThat(underTest.count()).isZero();
+    // SHA-1 of empty input
+    assertThat(underTest.checksum()).isEqualTo("da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    assertThat(underTest.matches(0, "da39a3ee5e6b4b0d3255bfef95601890afd80709")).isTrue();
+  }
+
+  @Test
+  public void does_not_depend_on_order_of_files() {
+    FilesFingerprint fingerprint1 = new FilesFingerprint().add("module", "src/A.java").add("module", "src/B.java");
+    FilesFingerprint fingerprint2 = new FilesFingerprint().add("module", "src/B.java").add("module", "src/A.java");
+
+    assertThat(fingerprint1.count()).isEqualTo(2);
+    assertThat(fingerprint1.matches(fingerprint2.count(), fingerprint2.checksum())).isTrue();
+  }
+
+  @Test
+  public void changes_when_a_file_is_moved() {
+    FilesFingerprint fingerprint1 = new FilesFingerprint().add("module", "src/A.java").add("module", "src/B.java");
+    FilesFingerprint fingerprint2 = new FilesFingerprint().add("module", "src/A.java").add("module", "src/C.java");
+    FilesFingerprint fingerprint3 = new FilesFingerprint().add("module", "src/A.java").add("other_module", "src/B.java");
+
+    assertThat(fingerprint1.matches(fingerprint2.count(), fingerprint2.checksum())).isFalse();
+    assertThat(fingerprint1.matches(fingerprint3.count(), fingerprint3.checksum())).isFalse();
+  }
+
+  @Test
+  public void does_not_collide_on_files_having_the_same_hash_code() {
+    // "Aa" and "BB" have the same String#hashCode()
+    FilesFingerprint fingerprint1 = new FilesFingerprint().add("module", "Aa").add("module", "src/C.java");
+    FilesFingerprint fingerprint2 = new FilesFingerprint().add("module", "BB").add("module", "src/C.java");
+
+    assertThat(fingerprint1.matches(fingerprint2.count(), fingerprint2.checksum())).isFalse();
+  }
+}
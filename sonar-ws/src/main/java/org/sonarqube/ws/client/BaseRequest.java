@@ -26,6 +26,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -46,6 +47,8 @@ abstract class BaseRequest<SELF extends BaseRequest> implements WsRequest {
 
   private final DefaultParameters parameters = new DefaultParameters();
 
+  private final DefaultHeaders headers = new DefaultHeaders();
+
   BaseRequest(String path) {
     this.path = path;
   }
@@ -131,6 +134,20 @@ abstract class BaseRequest<SELF extends BaseRequest> implements WsRequest {
     return parameters;
   }
 
+  @Override
+  public Headers getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Sets a HTTP header. It is removed if value is null.
+   */
+  public SELF setHeader(String name, @Nullable String value) {
+    requireNonNull(name, "Header name can't be null");
+    headers.setValue(name, value);
+    return (SELF) this;
+  }
+
   private static class DefaultParameters implements Parameters {
     // preserve insertion order
     private final ListMultimap<String, String> keyValues = LinkedListMultimap.create();
@@ -168,4 +185,26 @@ abstract class BaseRequest<SELF extends BaseRequest> implements WsRequest {
       return this;
     }
   }
+
+  private static class DefaultHeaders implements Headers {
+    private final Map<String, String> keyValues = new LinkedHashMap<>();
+
+    @Override
+    public Optional<String> getValue(String name) {
+      return Optional.ofNullable(keyValues.get(name));
+    }
+
+    @Override
+    public Set<String> getNames() {
+      return keyValues.keySet();
+    }
+
+    private void setValue(String name, @Nullable String value) {
+      if (value == null) {
+        keyValues.remove(name);
+      } else {
+        keyValues.put(name, value);
+      }
+    }
+  }
 }
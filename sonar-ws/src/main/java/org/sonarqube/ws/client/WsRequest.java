@@ -19,7 +19,10 @@
  */
 package org.sonarqube.ws.client;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * @since 5.3
@@ -43,6 +46,25 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * HTTP headers to be sent with the request. None by default.
+   *
+   * @since 6.4
+   */
+  default Headers getHeaders() {
+    return new Headers() {
+      @Override
+      public Optional<String> getValue(String name) {
+        return Optional.empty();
+      }
+
+      @Override
+      public Set<String> getNames() {
+        return Collections.emptySet();
+      }
+    };
+  }
+
   enum Method {
     GET, POST
   }
@@ -22,6 +22,7 @@ package org.sonarqube.ws.client;
 import java.io.Closeable;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Optional;
 
 /**
  * @since 5.3
@@ -51,6 +52,14 @@ public interface WsResponse extends Closeable {
 
   String contentType();
 
+  /**
+   * Value of a HTTP header of response. Empty by default.
+   * @since 6.4
+   */
+  default Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   boolean hasContent();
 
   InputStream contentStream();
@@ -40,6 +40,7 @@ public class SearchProjectsRequest {
   private final String sort;
   private final Boolean asc;
   private final List<String> additionalFields;
+  private final String cursor;
 
   private SearchProjectsRequest(Builder builder) {
     this.page = builder.page;
@@ -50,6 +51,7 @@ public class SearchProjectsRequest {
     this.sort = builder.sort;
     this.asc = builder.asc;
     this.additionalFields = builder.additionalFields;
+    this.cursor = builder.cursor;
   }
 
   @CheckForNull
@@ -88,6 +90,11 @@ public class SearchProjectsRequest {
     return additionalFields;
   }
 
+  @CheckForNull
+  public String getCursor() {
+    return cursor;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -101,6 +108,7 @@ public class SearchProjectsRequest {
     private String sort;
     private Boolean asc;
     private List<String> additionalFields = new ArrayList<>();
+    private String cursor;
 
     private Builder() {
       // enforce static factory method
@@ -146,6 +154,11 @@ public class SearchProjectsRequest {
       return this;
     }
 
+    public Builder setCursor(@Nullable String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     public SearchProjectsRequest build() {
       if (page == null) {
         page = 1;
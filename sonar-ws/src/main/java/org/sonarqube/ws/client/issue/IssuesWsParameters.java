@@ -42,6 +42,7 @@ public class IssuesWsParameters {
   public static final String ACTION_SET_TAGS = "set_tags";
   public static final String ACTION_SET_TYPE = "set_type";
   public static final String ACTION_BULK_CHANGE = "bulk_change";
+  public static final String ACTION_EXPORT = "export";
 
   public static final String PARAM_ISSUE = "issue";
   public static final String PARAM_COMMENT = "comment";
@@ -49,6 +50,7 @@ public class IssuesWsParameters {
   public static final String PARAM_ASSIGNEE = "assignee";
   public static final String PARAM_TRANSITION = "transition";
   public static final String PARAM_SEVERITY = "severity";
+  public static final String PARAM_COMPONENT = "component";
   public static final String PARAM_COMPONENT_UUID = "componentUuid";
   public static final String PARAM_TYPE = "type";
   public static final String PARAM_ISSUES = "issues";
@@ -113,6 +115,7 @@ public class IssuesWsParameters {
   public static final String PARAM_PAGE_INDEX = "pageIndex";
   public static final String PARAM_SORT = "sort";
   public static final String PARAM_ASC = "asc";
+  public static final String PARAM_CURSOR = "cursor";
   public static final String PARAM_ADDITIONAL_FIELDS = "additionalFields";
 
   public static final String FACET_MODE = "facetMode";
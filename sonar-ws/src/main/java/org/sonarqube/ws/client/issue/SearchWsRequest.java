@@ -49,6 +49,7 @@ public class SearchWsRequest {
   private Boolean onComponentOnly;
   private Integer page;
   private Integer pageSize;
+  private String cursor;
   private List<String> projectKeys;
   private List<String> projectUuids;
   private List<String> projects;
@@ -282,6 +283,16 @@ public class SearchWsRequest {
     return this;
   }
 
+  @CheckForNull
+  public String getCursor() {
+    return cursor;
+  }
+
+  public SearchWsRequest setCursor(@Nullable String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
   @CheckForNull
   public List<String> getProjectKeys() {
     return projectKeys;